@@ -28,20 +28,29 @@ import com.apple.foundationdb.Range;
 import com.apple.foundationdb.ReadTransaction;
 import com.apple.foundationdb.ReadTransactionContext;
 import com.apple.foundationdb.StreamingMode;
+import com.apple.foundationdb.Transaction;
 import com.apple.foundationdb.TransactionContext;
 import com.apple.foundationdb.subspace.Subspace;
 import com.apple.foundationdb.tuple.ByteArrayUtil;
 import com.apple.foundationdb.tuple.ByteArrayUtil2;
 import com.apple.foundationdb.tuple.Tuple;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static com.apple.foundationdb.async.AsyncUtil.DONE;
 import static com.apple.foundationdb.async.AsyncUtil.READY_FALSE;
@@ -84,6 +93,8 @@ public class RankedSet {
     protected final Subspace subspace;
     protected final Executor executor;
     protected final int nlevels;
+    @Nullable
+    protected final RankedSetLevelCache levelCache;
 
     /**
      * Initialize a new ranked set.
@@ -92,6 +103,21 @@ public class RankedSet {
      * @param nlevels number of skip list levels to maintain
      */
     public RankedSet(Subspace subspace, Executor executor, int nlevels) {
+        this(subspace, executor, nlevels, null);
+    }
+
+    /**
+     * Initialize a new ranked set whose upper levels are read through a local cache.
+     *
+     * Every change made through a ranked set, with or without a cache, also changes a version key in the set's subspace,
+     * which is what lets the cached levels be checked.
+     * @param subspace the subspace where the ranked set is stored
+     * @param executor an executor to use when running asynchronous tasks
+     * @param nlevels number of skip list levels to maintain
+     * @param levelCache a cache for the upper levels or {@code null} to always read them from the database
+     * @see RankedSetLevelCache
+     */
+    public RankedSet(Subspace subspace, Executor executor, int nlevels, @Nullable RankedSetLevelCache levelCache) {
         if (nlevels < 2 || nlevels > MAX_LEVELS) {
             throw new IllegalArgumentException("levels must be between 2 and " + MAX_LEVELS);
         }
@@ -99,6 +125,7 @@ public class RankedSet {
         this.subspace = subspace;
         this.executor = executor;
         this.nlevels = nlevels;
+        this.levelCache = levelCache;
     }
 
     public RankedSet(Subspace subspace, Executor executor) {
@@ -136,6 +163,7 @@ public class RankedSet {
                     if (exists) {
                         return READY_FALSE;
                     }
+                    changeVersion(tr);
                     List<CompletableFuture<Void>> futures = new ArrayList<>(nlevels);
                     for (int li = 0; li < nlevels; ++li) {
                         int level = li;
@@ -173,6 +201,109 @@ public class RankedSet {
                 }));
     }
 
+    /**
+     * Add several keys to the set.
+     *
+     * This has the same effect as calling {@link #add} for each key in turn, but takes fewer round trips to the database.
+     * The keys are sorted and all the existence checks and the lookups of the previous key in each level are issued together.
+     * Then each level is updated in turn, with all the counts needed to split the entries that precede new keys in that
+     * level read together, and keys that are not in a level just adding to the count of the entry before them.
+     * @param tc the transaction to use to access the database
+     * @param keys the keys to add
+     * @return a future that completes to the number of keys that were not already present
+     */
+    public CompletableFuture<Integer> addAll(TransactionContext tc, Collection<byte[]> keys) {
+        final List<byte[]> sortedKeys = sortedUniqueKeys(keys);
+        return tc.runAsync(tr -> {
+            final List<CompletableFuture<Boolean>> existsFutures = new ArrayList<>(sortedKeys.size());
+            for (byte[] key : sortedKeys) {
+                existsFutures.add(containsCheckedKey(tr, key));
+            }
+            return AsyncUtil.getAll(existsFutures).thenCompose(exists -> {
+                final List<byte[]> newKeys = new ArrayList<>(sortedKeys.size());
+                for (int i = 0; i < sortedKeys.size(); i++) {
+                    if (!exists.get(i)) {
+                        newKeys.add(sortedKeys.get(i));
+                    }
+                }
+                if (newKeys.isEmpty()) {
+                    return CompletableFuture.completedFuture(0);
+                }
+                // Look up where every key goes in every level before changing any of them.
+                final List<CompletableFuture<List<byte[]>>> prevKeysByLevel = new ArrayList<>(nlevels);
+                for (int level = 1; level < nlevels; ++level) {
+                    final List<CompletableFuture<byte[]>> prevKeyFutures = new ArrayList<>(newKeys.size());
+                    for (byte[] key : newKeys) {
+                        prevKeyFutures.add(getPreviousKey(tr, level, key));
+                    }
+                    prevKeysByLevel.add(AsyncUtil.getAll(prevKeyFutures));
+                }
+                changeVersion(tr);
+                for (byte[] key : newKeys) {
+                    tr.set(subspace.pack(Tuple.from(0, key)), encodeLong(1));
+                }
+                // Counts in each level come from the level below, so the levels must be done in order.
+                CompletableFuture<Void> levelsDone = DONE;
+                for (int li = 1; li < nlevels; ++li) {
+                    final int level = li;
+                    final CompletableFuture<List<byte[]>> prevKeysFuture = prevKeysByLevel.get(level - 1);
+                    levelsDone = levelsDone.thenCompose(vignore -> prevKeysFuture)
+                            .thenCompose(prevKeys -> addToLevel(tr, level, newKeys, prevKeys));
+                }
+                return levelsDone.thenApply(vignore -> newKeys.size());
+            });
+        });
+    }
+
+    private CompletableFuture<Void> addToLevel(Transaction tr, int level, List<byte[]> newKeys, List<byte[]> prevKeys) {
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        int start = 0;
+        while (start < newKeys.size()) {
+            final byte[] prevKey = prevKeys.get(start);
+            int end = start + 1;
+            while (end < newKeys.size() && Arrays.equals(prevKey, prevKeys.get(end))) {
+                end++;
+            }
+            futures.add(addAfterKey(tr, level, prevKey, newKeys.subList(start, end)));
+            start = end;
+        }
+        return AsyncUtil.whenAll(futures);
+    }
+
+    // Add keys that all come after the same existing entry in a level, splitting its count among those that go in the level.
+    private CompletableFuture<Void> addAfterKey(Transaction tr, int level, byte[] prevKey, List<byte[]> keys) {
+        final List<byte[]> levelKeys = new ArrayList<>();
+        for (byte[] key : keys) {
+            if ((hashKey(key) & LEVEL_FAN_VALUES[level]) == 0) {
+                levelKeys.add(key);
+            }
+        }
+        final byte[] prevLevelKey = subspace.pack(Tuple.from(level, prevKey));
+        if (levelKeys.isEmpty()) {
+            tr.mutate(MutationType.ADD, prevLevelKey, encodeLong(keys.size()));
+            return DONE;
+        }
+        final CompletableFuture<Long> prevCountFuture = tr.get(prevLevelKey).thenApply(RankedSet::decodeLong);
+        final List<CompletableFuture<Long>> newCountFutures = new ArrayList<>(levelKeys.size());
+        byte[] beginKey = prevKey;
+        for (byte[] levelKey : levelKeys) {
+            newCountFutures.add(countRange(tr, level - 1, beginKey, levelKey));
+            beginKey = levelKey;
+        }
+        return prevCountFuture.thenCombine(AsyncUtil.getAll(newCountFutures), (prevCount, newCounts) -> {
+            // The last new entry gets whatever remains of the previous entry's count, which now also includes the new keys.
+            long remaining = prevCount + keys.size();
+            byte[] key = prevKey;
+            for (int i = 0; i < levelKeys.size(); i++) {
+                tr.set(subspace.pack(Tuple.from(level, key)), encodeLong(newCounts.get(i)));
+                remaining -= newCounts.get(i);
+                key = levelKeys.get(i);
+            }
+            tr.set(subspace.pack(Tuple.from(level, key)), encodeLong(remaining));
+            return null;
+        });
+    }
+
     /**
      * Clears the entire set.
      * @param tc the transaction to use to access the database
@@ -182,6 +313,7 @@ public class RankedSet {
         Range range = subspace.range();
         return tc.runAsync(tr -> {
             tr.clear(range);
+            changeVersion(tr);
             return initLevels(tr);
         });
     }
@@ -201,15 +333,44 @@ public class RankedSet {
         return tc.readAsync(tr -> tr.get(subspace.pack(Tuple.from(0, key))).thenApply(Objects::nonNull));
     }
 
+    // The key whose value changes whenever the set does, so that a cached copy of its upper levels can be checked.
+    static byte[] versionKey(@Nonnull Subspace subspace) {
+        return subspace.pack(Tuple.from(-1));
+    }
+
+    // Done whether or not this set has a cache, so that a cache used by any client is invalidated by changes from all of them.
+    private void changeVersion(Transaction tr) {
+        // An atomic add, so that concurrent changes do not conflict over it but still always leave a different value.
+        long change = ThreadLocalRandom.current().nextLong();
+        if (change == 0) {
+            change = 1;
+        }
+        tr.mutate(MutationType.ADD, versionKey(subspace), encodeLong(change));
+    }
+
+    private CompletableFuture<RankedSetLevelCache.Levels> cachedLevels(ReadTransaction tr) {
+        if (levelCache == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return levelCache.getLevels(tr, subspace, nlevels);
+    }
+
     class NthLookup implements Lookup {
         private long rank;
         private byte[] key = EMPTY_ARRAY;
         private int level = nlevels;
         private Subspace levelSubspace;
         private AsyncIterator<KeyValue> asyncIterator = null;
+        @Nullable
+        private final RankedSetLevelCache.Levels cachedLevels;
 
         public NthLookup(long rank) {
+            this(rank, null);
+        }
+
+        NthLookup(long rank, @Nullable RankedSetLevelCache.Levels cachedLevels) {
             this.rank = rank;
+            this.cachedLevels = cachedLevels;
         }
 
         public byte[] getKey() {
@@ -227,10 +388,14 @@ public class RankedSet {
                     return READY_FALSE;
                 }
                 levelSubspace = subspace.get(level);
-                asyncIterator = lookupIterator(tr.getRange(levelSubspace.pack(key), levelSubspace.range().end,
-                        ReadTransaction.ROW_LIMIT_UNLIMITED,
-                        false,
-                        StreamingMode.WANT_ALL));
+                if (cachedLevels != null && cachedLevels.hasLevel(level)) {
+                    asyncIterator = cachedLevels.iterator(tr, level, levelSubspace.pack(key), null, levelSubspace.range().end);
+                } else {
+                    asyncIterator = lookupIterator(tr.getRange(levelSubspace.pack(key), levelSubspace.range().end,
+                            ReadTransaction.ROW_LIMIT_UNLIMITED,
+                            false,
+                            StreamingMode.WANT_ALL));
+                }
             }
             final long startTime = System.nanoTime();
             final CompletableFuture<Boolean> onHasNext = asyncIterator.onHasNext();
@@ -274,10 +439,10 @@ public class RankedSet {
         if (rank < 0) {
             return CompletableFuture.completedFuture((byte[])null);
         }
-        return tc.readAsync(tr -> {
-            NthLookup nth = new NthLookup(rank);
+        return tc.readAsync(tr -> cachedLevels(tr).thenCompose(levels -> {
+            NthLookup nth = new NthLookup(rank, levels);
             return AsyncUtil.whileTrue(() -> nextLookup(nth, tr), executor).thenApply(vignore -> nth.getKey());
-        });
+        }));
     }
 
     /**
@@ -334,9 +499,16 @@ public class RankedSet {
         private int level = nlevels;
         private AsyncIterator<KeyValue> asyncIterator = null;
         private long lastCount;
+        @Nullable
+        private final RankedSetLevelCache.Levels cachedLevels;
 
         public RankLookup(byte[] key) {
+            this(key, null);
+        }
+
+        RankLookup(byte[] key, @Nullable RankedSetLevelCache.Levels cachedLevels) {
             this.key = key;
+            this.cachedLevels = cachedLevels;
         }
 
         public long getRank() {
@@ -353,12 +525,16 @@ public class RankedSet {
                     return READY_FALSE;
                 }
                 levelSubspace = subspace.get(level);
-                asyncIterator = lookupIterator(tr.getRange(
-                        KeySelector.firstGreaterOrEqual(levelSubspace.pack(rankKey)),
-                        KeySelector.firstGreaterThan(levelSubspace.pack(key)),
-                        ReadTransaction.ROW_LIMIT_UNLIMITED,
-                        false,
-                        StreamingMode.WANT_ALL));
+                if (cachedLevels != null && cachedLevels.hasLevel(level)) {
+                    asyncIterator = cachedLevels.iterator(tr, level, levelSubspace.pack(rankKey), levelSubspace.pack(key), levelSubspace.range().end);
+                } else {
+                    asyncIterator = lookupIterator(tr.getRange(
+                            KeySelector.firstGreaterOrEqual(levelSubspace.pack(rankKey)),
+                            KeySelector.firstGreaterThan(levelSubspace.pack(key)),
+                            ReadTransaction.ROW_LIMIT_UNLIMITED,
+                            false,
+                            StreamingMode.WANT_ALL));
+                }
                 lastCount = 0;
             }
             final long startTime = System.nanoTime();
@@ -397,14 +573,153 @@ public class RankedSet {
      */
     public CompletableFuture<Long> rank(ReadTransactionContext tc, byte[] key) {
         checkKey(key);
-        return tc.readAsync(tr ->
-            containsCheckedKey(tr, key).thenCompose(exists -> {
+        return tc.readAsync(tr -> {
+            final CompletableFuture<RankedSetLevelCache.Levels> levelsFuture = cachedLevels(tr);
+            return containsCheckedKey(tr, key).thenCompose(exists -> {
                 if (!exists) {
                     return CompletableFuture.completedFuture((Long)null);
                 }
-                RankLookup rank = new RankLookup(key);
-                return AsyncUtil.whileTrue(() -> nextLookup(rank, tr), executor).thenApply(vignore -> rank.getRank());
+                return levelsFuture.thenCompose(levels -> {
+                    RankLookup rank = new RankLookup(key, levels);
+                    return AsyncUtil.whileTrue(() -> nextLookup(rank, tr), executor).thenApply(vignore -> rank.getRank());
+                });
+            });
+        });
+    }
+
+    /**
+     * Return the indexes of several keys within the set.
+     *
+     * This has the same result as calling {@link #rank} for each key, but takes fewer round trips to the database.
+     * The keys are sorted and all the existence checks are issued together. Then each level is read once for all the keys,
+     * with a single range read for any keys whose ranges in that level overlap, as is the case for all keys in the upper levels.
+     * @param tc the transaction to use to access the database
+     * @param keys the keys to find
+     * @return a future that completes to the index of each of {@code keys} in the ranked set, in the same order, with
+     * {@code null} for any that are not present
+     */
+    public CompletableFuture<List<Long>> rankAll(ReadTransactionContext tc, List<byte[]> keys) {
+        final List<byte[]> sortedKeys = sortedUniqueKeys(keys);
+        return tc.readAsync(tr -> {
+            final CompletableFuture<RankedSetLevelCache.Levels> levelsFuture = cachedLevels(tr);
+            final List<CompletableFuture<Boolean>> existsFutures = new ArrayList<>(sortedKeys.size());
+            for (byte[] key : sortedKeys) {
+                existsFutures.add(containsCheckedKey(tr, key));
+            }
+            return AsyncUtil.getAll(existsFutures).thenCompose(exists -> levelsFuture.thenCompose(levels -> {
+                final List<BatchRankLookup> lookups = new ArrayList<>(sortedKeys.size());
+                for (int i = 0; i < sortedKeys.size(); i++) {
+                    if (exists.get(i)) {
+                        lookups.add(new BatchRankLookup(sortedKeys.get(i)));
+                    }
+                }
+                // Each level starts from where the one above left off, so the levels must be done in order.
+                CompletableFuture<Void> levelsDone = DONE;
+                for (int li = nlevels - 1; li >= 0; --li) {
+                    final int level = li;
+                    levelsDone = levelsDone.thenCompose(vignore -> rankLevel(tr, level, lookups, levels));
+                }
+                return levelsDone.thenApply(vignore -> {
+                    final Map<byte[], Long> ranks = new TreeMap<>(ByteArrayUtil::compareUnsigned);
+                    for (BatchRankLookup lookup : lookups) {
+                        ranks.put(lookup.key, lookup.rank);
+                    }
+                    final List<Long> result = new ArrayList<>(keys.size());
+                    for (byte[] key : keys) {
+                        result.add(ranks.get(key));
+                    }
+                    return result;
+                });
             }));
+        });
+    }
+
+    // Advance all the unfinished lookups through one level, which adds to each lookup's rank the counts of the entries from
+    // where it is up to its key. Since the lookups are sorted, where they are is also sorted, and any whose ranges overlap
+    // can share a single read covering them all.
+    private CompletableFuture<Void> rankLevel(ReadTransaction tr, int level, List<BatchRankLookup> lookups,
+                                              @Nullable RankedSetLevelCache.Levels cachedLevels) {
+        final Subspace levelSubspace = subspace.get(level);
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        int start = 0;
+        while (start < lookups.size()) {
+            if (lookups.get(start).done) {
+                start++;
+                continue;
+            }
+            byte[] lastKey = lookups.get(start).key;
+            int end = start + 1;
+            while (end < lookups.size() && (lookups.get(end).done || ByteArrayUtil.compareUnsigned(lookups.get(end).rankKey, lastKey) <= 0)) {
+                if (!lookups.get(end).done) {
+                    lastKey = lookups.get(end).key;
+                }
+                end++;
+            }
+            final List<BatchRankLookup> group = lookups.subList(start, end);
+            final byte[] beginKey = levelSubspace.pack(lookups.get(start).rankKey);
+            final byte[] endKey = levelSubspace.pack(lastKey);
+            final AsyncIterator<KeyValue> asyncIterator;
+            if (cachedLevels != null && cachedLevels.hasLevel(level)) {
+                asyncIterator = cachedLevels.iterator(tr, level, beginKey, endKey, levelSubspace.range().end);
+            } else {
+                asyncIterator = lookupIterator(tr.getRange(
+                        KeySelector.firstGreaterOrEqual(beginKey),
+                        KeySelector.firstGreaterThan(endKey),
+                        ReadTransaction.ROW_LIMIT_UNLIMITED,
+                        false,
+                        StreamingMode.WANT_ALL));
+            }
+            final long startTime = System.nanoTime();
+            futures.add(AsyncUtil.collectRemaining(asyncIterator).thenAccept(kvs -> {
+                nextLookupKey(System.nanoTime() - startTime, true, !kvs.isEmpty(), level, true);
+                final List<byte[]> levelKeys = new ArrayList<>(kvs.size());
+                final long[] counts = new long[kvs.size()];
+                for (int i = 0; i < kvs.size(); i++) {
+                    levelKeys.add(levelSubspace.unpack(kvs.get(i).getKey()).getBytes(0));
+                    counts[i] = decodeLong(kvs.get(i).getValue());
+                }
+                for (BatchRankLookup lookup : group) {
+                    if (!lookup.done) {
+                        lookup.advance(levelKeys, counts);
+                    }
+                }
+            }));
+            start = end;
+        }
+        return AsyncUtil.whenAll(futures);
+    }
+
+    // The state of one key's lookup by rankAll, which goes through the same steps as a RankLookup.
+    private static class BatchRankLookup {
+        private final byte[] key;
+        private byte[] rankKey = EMPTY_ARRAY;
+        private long rank = 0;
+        private boolean done;
+
+        BatchRankLookup(byte[] key) {
+            this.key = key;
+        }
+
+        void advance(List<byte[]> levelKeys, long[] counts) {
+            long lastCount = 0;
+            for (int i = 0; i < levelKeys.size(); i++) {
+                final byte[] levelKey = levelKeys.get(i);
+                if (ByteArrayUtil.compareUnsigned(levelKey, rankKey) < 0) {
+                    continue;
+                }
+                if (ByteArrayUtil.compareUnsigned(levelKey, key) > 0) {
+                    break;
+                }
+                rankKey = levelKey;
+                lastCount = counts[i];
+                rank += lastCount;
+            }
+            rank -= lastCount;
+            if (Arrays.equals(rankKey, key)) {
+                // Exact match on this level: no need for finer.
+                done = true;
+            }
+        }
     }
 
     /**
@@ -421,6 +736,7 @@ public class RankedSet {
                             if (!exists) {
                                 return READY_FALSE;
                             }
+                            changeVersion(tr);
                             List<CompletableFuture<Void>> futures = new ArrayList<>(nlevels);
                             for (int li = 0; li < nlevels; ++li) {
                                 int level = li;
@@ -457,6 +773,77 @@ public class RankedSet {
                         }));
     }
 
+    /**
+     * Remove several keys from the set.
+     *
+     * This has the same effect as calling {@link #remove} for each key in turn, but takes fewer round trips to the database.
+     * All the reads, for existence, for each key's count in each level and for the previous entry in each level, are issued
+     * together, after which the counts of the entries that remain are adjusted with atomic additions.
+     * @param tc the transaction to use to access the database
+     * @param keys the keys to remove
+     * @return a future that completes to the number of keys that were present before this operation
+     */
+    public CompletableFuture<Integer> removeAll(TransactionContext tc, Collection<byte[]> keys) {
+        final List<byte[]> sortedKeys = sortedUniqueKeys(keys);
+        return tc.runAsync(tr -> {
+            final List<CompletableFuture<Boolean>> existsFutures = new ArrayList<>(sortedKeys.size());
+            for (byte[] key : sortedKeys) {
+                existsFutures.add(containsCheckedKey(tr, key));
+            }
+            return AsyncUtil.getAll(existsFutures).thenCompose(exists -> {
+                final List<byte[]> removedKeys = new ArrayList<>(sortedKeys.size());
+                for (int i = 0; i < sortedKeys.size(); i++) {
+                    if (exists.get(i)) {
+                        removedKeys.add(sortedKeys.get(i));
+                    }
+                }
+                if (removedKeys.isEmpty()) {
+                    return CompletableFuture.completedFuture(0);
+                }
+                final List<CompletableFuture<Void>> futures = new ArrayList<>(nlevels);
+                for (int li = 1; li < nlevels; ++li) {
+                    final int level = li;
+                    final List<CompletableFuture<byte[]>> countFutures = new ArrayList<>(removedKeys.size());
+                    final List<CompletableFuture<byte[]>> prevKeyFutures = new ArrayList<>(removedKeys.size());
+                    for (byte[] key : removedKeys) {
+                        countFutures.add(tr.get(subspace.pack(Tuple.from(level, key))));
+                        prevKeyFutures.add(getPreviousKey(tr, level, key));
+                    }
+                    futures.add(AsyncUtil.getAll(countFutures).thenCombine(AsyncUtil.getAll(prevKeyFutures), (counts, prevKeys) -> {
+                        removeFromLevel(tr, level, removedKeys, counts, prevKeys);
+                        return null;
+                    }));
+                }
+                changeVersion(tr);
+                for (byte[] key : removedKeys) {
+                    tr.clear(subspace.pack(Tuple.from(0, key)));
+                }
+                return AsyncUtil.whenAll(futures).thenApply(vignore -> removedKeys.size());
+            });
+        });
+    }
+
+    private void removeFromLevel(Transaction tr, int level, List<byte[]> removedKeys, List<byte[]> counts, List<byte[]> prevKeys) {
+        // A removed key's count goes to the nearest entry before it that is not also being removed.
+        final Map<byte[], byte[]> remainingPrevKeys = new TreeMap<>(ByteArrayUtil::compareUnsigned);
+        final Map<byte[], Long> countChanges = new TreeMap<>(ByteArrayUtil::compareUnsigned);
+        for (int i = 0; i < removedKeys.size(); i++) {
+            final byte[] key = removedKeys.get(i);
+            final byte[] count = counts.get(i);
+            final byte[] prevKey = remainingPrevKeys.getOrDefault(prevKeys.get(i), prevKeys.get(i));
+            long countChange = -1;
+            if (count != null) {
+                countChange += decodeLong(count);
+                tr.clear(subspace.pack(Tuple.from(level, key)));
+                remainingPrevKeys.put(key, prevKey);
+            }
+            countChanges.merge(prevKey, countChange, Long::sum);
+        }
+        for (Map.Entry<byte[], Long> countChange : countChanges.entrySet()) {
+            tr.mutate(MutationType.ADD, subspace.pack(Tuple.from(level, countChange.getKey())), encodeLong(countChange.getValue()));
+        }
+    }
+
     /**
      * Count the items in the set.
      * @param tc the transaction to use to access the database
@@ -526,6 +913,15 @@ public class RankedSet {
         }
     }
 
+    private static List<byte[]> sortedUniqueKeys(Collection<byte[]> keys) {
+        final SortedSet<byte[]> sorted = new TreeSet<>(ByteArrayUtil::compareUnsigned);
+        for (byte[] key : keys) {
+            checkKey(key);
+            sorted.add(key);
+        }
+        return new ArrayList<>(sorted);
+    }
+
     private CompletableFuture<Long> countRange(ReadTransactionContext tc, int level, byte[] beginKey, byte[] endKey) {
         return tc.readAsync(tr ->
                 AsyncUtil.mapIterable(tr.getRange(beginKey == null ?
@@ -0,0 +1,255 @@
+/*
+ * RankedSetLevelCache.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.async;
+
+import com.apple.foundationdb.API;
+import com.apple.foundationdb.KeyValue;
+import com.apple.foundationdb.ReadTransaction;
+import com.apple.foundationdb.Transaction;
+import com.apple.foundationdb.subspace.Subspace;
+import com.apple.foundationdb.tuple.ByteArrayUtil;
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local cache of the upper levels of {@link RankedSet}s.
+ *
+ * <p>
+ * The upper levels of a ranked set are sparse, so a rank or select lookup spends most of its round trips descending
+ * through levels with few entries. A ranked set given this cache reads those levels from memory instead, so that
+ * only the bottom {@link #getUncachedLevels} levels need to be read from the database.
+ * </p>
+ *
+ * <p>
+ * Each cached copy is tagged with the value of a version key that is changed by every insert or remove into
+ * a ranked set, whether or not that set was given a cache. A lookup reads this key, which is a single point read, and only
+ * uses the cached levels if it matches; otherwise, the levels are read again and replace those in the cache. So, clients
+ * can start or stop using a cache at any time. Because any change to a set changes the counts in its upper levels, this is most effective for sets that are read
+ * much more often than they are written.
+ * </p>
+ *
+ * <p>
+ * The version key is read at snapshot isolation and read conflicts are added for just the parts of the cached levels that
+ * a lookup uses, so lookups conflict with the same writes as if they had read those levels from the database.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class RankedSetLevelCache {
+    /**
+     * Default number of levels at the bottom of the ranked set that are always read from the database.
+     */
+    public static final int DEFAULT_UNCACHED_LEVELS = 2;
+    /**
+     * Default number of ranked sets whose levels are kept.
+     */
+    public static final int DEFAULT_MAX_SETS = 100;
+
+    private static final byte[] ZERO_ARRAY = new byte[] { 0 };
+
+    private final int uncachedLevels;
+    @Nonnull
+    private final Cache<Subspace, Levels> cache;
+    @Nonnull
+    private final AtomicLong hitCount = new AtomicLong();
+    @Nonnull
+    private final AtomicLong missCount = new AtomicLong();
+
+    public RankedSetLevelCache() {
+        this(DEFAULT_MAX_SETS, DEFAULT_UNCACHED_LEVELS);
+    }
+
+    /**
+     * Create a new level cache.
+     * @param maxSets the maximum number of ranked sets whose levels are kept
+     * @param uncachedLevels the number of levels at the bottom of each ranked set that are always read from the database
+     */
+    public RankedSetLevelCache(int maxSets, int uncachedLevels) {
+        if (uncachedLevels < 1) {
+            throw new IllegalArgumentException("at least the bottom level must not be cached");
+        }
+        this.uncachedLevels = uncachedLevels;
+        this.cache = CacheBuilder.newBuilder().maximumSize(maxSets).build();
+    }
+
+    public int getUncachedLevels() {
+        return uncachedLevels;
+    }
+
+    /**
+     * Get the number of lookups that found current levels in the cache.
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Get the number of lookups that had to read the levels from the database.
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Discard all cached levels.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Get the cached upper levels of a ranked set as of the given transaction, loading them if necessary.
+     * @param tr the transaction to use to access the database
+     * @param subspace the subspace of the ranked set
+     * @param nlevels the number of levels in the ranked set
+     * @return a future that completes to the levels or {@code null} if the set has no version and so cannot be cached
+     */
+    @Nonnull
+    CompletableFuture<Levels> getLevels(@Nonnull ReadTransaction tr, @Nonnull Subspace subspace, int nlevels) {
+        if (nlevels <= uncachedLevels) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final ReadTransaction snapshot = tr instanceof Transaction ? ((Transaction)tr).snapshot() : tr;
+        return snapshot.get(RankedSet.versionKey(subspace)).thenCompose(version -> {
+            if (version == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            final Levels cached = cache.getIfPresent(subspace);
+            if (cached != null && cached.nlevels == nlevels && Arrays.equals(cached.version, version)) {
+                hitCount.incrementAndGet();
+                return CompletableFuture.completedFuture(cached);
+            }
+            missCount.incrementAndGet();
+            // Read at the same version as the version key, so the levels match it.
+            final List<CompletableFuture<List<KeyValue>>> levelFutures = new ArrayList<>(nlevels - uncachedLevels);
+            for (int level = uncachedLevels; level < nlevels; ++level) {
+                levelFutures.add(snapshot.getRange(subspace.range(Tuple.from(level))).asList());
+            }
+            return AsyncUtil.getAll(levelFutures).thenApply(levelKeyValues -> {
+                final Levels levels = new Levels(version, nlevels, uncachedLevels, levelKeyValues);
+                cache.put(subspace, levels);
+                return levels;
+            });
+        });
+    }
+
+    /**
+     * A copy of the upper levels of one ranked set at a particular version.
+     */
+    static class Levels {
+        @Nonnull
+        private final byte[] version;
+        private final int nlevels;
+        private final int firstLevel;
+        @Nonnull
+        private final List<NavigableMap<byte[], byte[]>> levels;
+
+        Levels(@Nonnull byte[] version, int nlevels, int firstLevel, @Nonnull List<List<KeyValue>> levelKeyValues) {
+            this.version = version;
+            this.nlevels = nlevels;
+            this.firstLevel = firstLevel;
+            this.levels = new ArrayList<>(levelKeyValues.size());
+            for (List<KeyValue> keyValues : levelKeyValues) {
+                final NavigableMap<byte[], byte[]> level = new TreeMap<>(ByteArrayUtil::compareUnsigned);
+                for (KeyValue kv : keyValues) {
+                    level.put(kv.getKey(), kv.getValue());
+                }
+                levels.add(level);
+            }
+        }
+
+        boolean hasLevel(int level) {
+            return level >= firstLevel && level < nlevels;
+        }
+
+        /**
+         * Iterate over the entries of a level between two keys.
+         * As each entry is returned, a read conflict range is added up to it, so that the lookup conflicts with the same
+         * writes as if the entries had been read from the database.
+         * @param tr the transaction of the lookup
+         * @param level the level to read
+         * @param beginKey the first key to include
+         * @param endKey the last key to include, or {@code null} for the end of the level
+         * @param levelEnd the end of the level's key range
+         * @return an iterator over cached entries
+         */
+        @Nonnull
+        AsyncIterator<KeyValue> iterator(@Nonnull ReadTransaction tr, int level,
+                                         @Nonnull byte[] beginKey, @Nullable byte[] endKey, @Nonnull byte[] levelEnd) {
+            final NavigableMap<byte[], byte[]> entries = levels.get(level - firstLevel);
+            final NavigableMap<byte[], byte[]> range = endKey == null ? entries.tailMap(beginKey, true) : entries.subMap(beginKey, true, endKey, true);
+            final Iterator<Map.Entry<byte[], byte[]>> iterator = range.entrySet().iterator();
+            final Transaction conflictTransaction = tr instanceof Transaction ? (Transaction)tr : null;
+            final byte[] rangeEnd = endKey == null ? levelEnd : ByteArrayUtil.join(endKey, ZERO_ARRAY);
+            return new AsyncIterator<KeyValue>() {
+                @Nullable
+                private byte[] conflictBegin = beginKey;
+
+                @Override
+                public CompletableFuture<Boolean> onHasNext() {
+                    return CompletableFuture.completedFuture(hasNext());
+                }
+
+                @Override
+                public boolean hasNext() {
+                    final boolean hasNext = iterator.hasNext();
+                    if (!hasNext) {
+                        addConflict(rangeEnd);
+                    }
+                    return hasNext;
+                }
+
+                @Override
+                public KeyValue next() {
+                    final Map.Entry<byte[], byte[]> entry = iterator.next();
+                    addConflict(ByteArrayUtil.join(entry.getKey(), ZERO_ARRAY));
+                    return new KeyValue(entry.getKey(), entry.getValue());
+                }
+
+                @Override
+                public void cancel() {
+                    conflictBegin = null;
+                }
+
+                private void addConflict(@Nonnull byte[] conflictEnd) {
+                    if (conflictTransaction != null && conflictBegin != null) {
+                        conflictTransaction.addReadConflictRange(conflictBegin, conflictEnd);
+                        conflictBegin = conflictEnd;
+                    }
+                }
+            };
+        }
+    }
+}
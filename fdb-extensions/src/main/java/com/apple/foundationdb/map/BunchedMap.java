@@ -246,7 +246,7 @@ public class BunchedMap<K,V> {
 
     private void writeEntryList(@Nonnull Transaction tr, @Nonnull byte[] subspaceKey, @Nonnull byte[] keyBytes,
                                 @Nonnull byte[] oldKey, @Nonnull byte[] newKey, @Nonnull List<Map.Entry<K,V>> entryList,
-                                @Nullable KeyValue kvAfter, boolean isFirst, boolean isLast) {
+                                @Nullable KeyValue kvAfter, boolean isFirst, boolean isLast, boolean canAppend) {
         byte[] serializedBytes = serializer.serializeEntries(entryList);
         if (serializedBytes.length > MAX_VALUE_SIZE) {
             if (isFirst || entryList.size() == 1) {
@@ -272,7 +272,7 @@ public class BunchedMap<K,V> {
                 writeEntryListWithoutChecking(tr, subspaceKey, keyBytes, secondKey, secondKey, secondEntries, secondSerialized);
             }
         } else {
-            if (serializer.canAppend() && isLast && entryList.size() > 1 && Arrays.equals(oldKey, newKey)) {
+            if (canAppend && isLast && entryList.size() > 1 && Arrays.equals(oldKey, newKey)) {
                 // Note: APPEND_IF_FITS will silently fail if the size of the value is greater than the maximum
                 // value size. It is therefore *very* important that we check what the size will be before
                 // calling this method to make sure that the total size is not too large. Otherwise, we might
@@ -311,7 +311,7 @@ public class BunchedMap<K,V> {
                 List<Map.Entry<K,V>> newEntryList = new ArrayList<>(afterEntryList.size() + 1);
                 newEntryList.add(entry);
                 newEntryList.addAll(afterEntryList);
-                writeEntryList(tr, subspaceKey, keyBytes, kvAfter.getKey(), keyBytes, newEntryList, null, true, false);
+                writeEntryList(tr, subspaceKey, keyBytes, kvAfter.getKey(), keyBytes, newEntryList, null, true, false, false);
             }
         }
     }
@@ -338,7 +338,7 @@ public class BunchedMap<K,V> {
                     beforeEntryList = makeMutable(beforeEntryList);
                     beforeEntryList.set(insertIndex, entry);
                     writeEntryList(tr, subspaceKey, keyBytes, kvBefore.getKey(), kvBefore.getKey(),
-                            beforeEntryList, kvAfter, false, false);
+                            beforeEntryList, kvAfter, false, false, false);
                 } else {
                     // We are choosing to not re-write the key because it
                     // is already the value we wanted any way. Add a
@@ -355,15 +355,15 @@ public class BunchedMap<K,V> {
                 if (beforeEntryList.size() <= bunchSize) {
                     // Insert the entry in the middle and serialize.
                     writeEntryList(tr, subspaceKey, keyBytes, kvBefore.getKey(), kvBefore.getKey(),
-                            beforeEntryList, kvAfter, false, false);
+                            beforeEntryList, kvAfter, false, false, false);
                 } else {
                     // Split this entry in half (roughly) and insert both halves
                     int splitPoint = beforeEntryList.size() / 2;
                     writeEntryList(tr, subspaceKey, keyBytes, kvBefore.getKey(), kvBefore.getKey(),
-                            beforeEntryList.subList(0, splitPoint), null, false, false);
+                            beforeEntryList.subList(0, splitPoint), null, false, false, false);
                     List<Map.Entry<K,V>> secondEntries = beforeEntryList.subList(splitPoint, beforeEntryList.size());
                     byte[] secondKey = ByteArrayUtil.join(subspaceKey, serializer.serializeKey(secondEntries.get(0).getKey()));
-                    writeEntryList(tr, subspaceKey, keyBytes, secondKey, secondKey, secondEntries, kvAfter, false, false);
+                    writeEntryList(tr, subspaceKey, keyBytes, secondKey, secondKey, secondEntries, kvAfter, false, false, false);
                 }
                 return Optional.empty();
             } else {
@@ -373,7 +373,9 @@ public class BunchedMap<K,V> {
                     List<Map.Entry<K,V>> newEntryList = new ArrayList<>(beforeEntryList.size() + 1);
                     newEntryList.addAll(beforeEntryList);
                     newEntryList.add(entry);
-                    writeEntryList(tr, subspaceKey, keyBytes, kvBefore.getKey(), kvBefore.getKey(), newEntryList, kvAfter, false, true);
+                    // Only append if the existing bunch was written in a format the serializer can append to.
+                    writeEntryList(tr, subspaceKey, keyBytes, kvBefore.getKey(), kvBefore.getKey(), newEntryList, kvAfter,
+                            false, true, serializer.canAppendTo(kvBefore.getValue()));
                 } else {
                     // This key would make the bunch too large. Insert it into the next one.
                     insertAfter(tr, subspaceKey, keyBytes, kvAfter, entry);
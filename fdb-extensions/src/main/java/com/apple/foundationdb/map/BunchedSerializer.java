@@ -191,4 +191,20 @@ public interface BunchedSerializer<K,V> {
     default boolean canAppend() {
         return false;
     }
+
+    /**
+     * Whether the output from {@link #serializeEntry(Object, Object) serializeEntry}
+     * can be appended to the given serialized entry list. Serializers that can read
+     * values written in more than one format should override this method to return
+     * <code>false</code> for values written in a format that does not allow the
+     * entries that this serializer produces to be appended to them. In that case,
+     * the {@link BunchedMap} will instead rewrite the whole entry list using this
+     * serializer. By default, this returns the value of {@link #canAppend()}.
+     *
+     * @param data an existing serialized entry list
+     * @return whether this serializer can append entries to <code>data</code>
+     */
+    default boolean canAppendTo(@Nonnull byte[] data) {
+        return canAppend();
+    }
 }
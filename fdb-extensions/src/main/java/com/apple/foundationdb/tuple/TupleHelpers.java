@@ -73,6 +73,105 @@ public class TupleHelpers {
         return t1Len - t2Len;
     }
 
+    /**
+     * Find where a packed tuple element ends, without decoding it.
+     * @param bytes an array holding a packed tuple
+     * @param offset the position in {@code bytes} at which an element starts
+     * @return the position in {@code bytes} just after the element
+     * @throws IllegalArgumentException if the element has an unknown type code
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static int skipElement(@Nonnull byte[] bytes, int offset) {
+        final int code = bytes[offset] & 0xFF;
+        switch (code) {
+            case 0x00: // null
+            case 0x26: // false
+            case 0x27: // true
+                return offset + 1;
+            case 0x01: // byte string
+            case 0x02: // unicode string
+                return skipTerminated(bytes, offset + 1);
+            case 0x05: // nested tuple
+                return skipNested(bytes, offset + 1);
+            case 0x0B: // negative integer longer than 8 bytes, with a one's-complemented length
+                return offset + 2 + (~bytes[offset + 1] & 0xFF);
+            case 0x1D: // positive integer longer than 8 bytes
+                return offset + 2 + (bytes[offset + 1] & 0xFF);
+            case 0x20: // float
+                return offset + 1 + Float.BYTES;
+            case 0x21: // double
+                return offset + 1 + Double.BYTES;
+            case 0x30: // UUID
+                return offset + 1 + 2 * Long.BYTES;
+            case 0x33: // versionstamp
+                return offset + 1 + Versionstamp.LENGTH;
+            default:
+                if (code > 0x0B && code < 0x1D) {
+                    // integer with up to 8 bytes, the count of which is encoded in the type code
+                    return offset + 1 + Math.abs(code - 0x14);
+                }
+                throw new IllegalArgumentException("Unknown tuple data type " + code + " at index " + offset);
+        }
+    }
+
+    /**
+     * Find where each element of a packed tuple starts, without decoding any of them.
+     * @param bytes an array holding a packed tuple
+     * @param offset the position in {@code bytes} at which the tuple starts
+     * @param length the length of the packed tuple
+     * @return an array one longer than the number of elements in the tuple, where entry {@code i} is the position in
+     * {@code bytes} at which element {@code i} starts and the last entry is the position just after the tuple
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public static int[] elementOffsets(@Nonnull byte[] bytes, int offset, int length) {
+        final int end = offset + length;
+        int count = 0;
+        for (int pos = offset; pos < end; pos = skipElement(bytes, pos)) {
+            count++;
+        }
+        final int[] offsets = new int[count + 1];
+        int pos = offset;
+        for (int i = 0; i < count; i++) {
+            offsets[i] = pos;
+            pos = skipElement(bytes, pos);
+        }
+        offsets[count] = pos;
+        return offsets;
+    }
+
+    // Strings and byte strings end with 0x00, with any 0x00 in the data escaped as 0x00 0xFF.
+    private static int skipTerminated(@Nonnull byte[] bytes, int offset) {
+        int pos = offset;
+        while (true) {
+            if (bytes[pos] == 0x00) {
+                if (pos + 1 < bytes.length && bytes[pos + 1] == (byte)0xFF) {
+                    pos += 2;
+                } else {
+                    return pos + 1;
+                }
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    // Nested tuples also end with 0x00, with null elements encoded as 0x00 0xFF.
+    private static int skipNested(@Nonnull byte[] bytes, int offset) {
+        int pos = offset;
+        while (true) {
+            if (bytes[pos] == 0x00) {
+                if (pos + 1 < bytes.length && bytes[pos + 1] == (byte)0xFF) {
+                    pos += 2;
+                } else {
+                    return pos + 1;
+                }
+            } else {
+                pos = skipElement(bytes, pos);
+            }
+        }
+    }
+
     private TupleHelpers() {
     }
 }
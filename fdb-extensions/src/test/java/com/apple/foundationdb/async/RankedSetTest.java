@@ -36,6 +36,7 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletionException;
@@ -45,6 +46,7 @@ import java.util.concurrent.ThreadLocalRandom;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -99,6 +101,134 @@ public class RankedSetTest
         });
     }
 
+    @Test
+    public void addAllAndRemoveAll() throws Exception {
+        RankedSet rs = newRankedSet();
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < 200; ++i) {
+            keys.add(Tuple.from(i * 3).pack());
+        }
+        Collections.shuffle(keys);
+        db.run(tr -> {
+            // Some keys are added individually first, including one that is also in the batch.
+            rs.add(tr, Tuple.from(1).pack()).join();
+            rs.add(tr, keys.get(0)).join();
+            assertEquals(199, rs.addAll(tr, keys).join().intValue());
+            assertEquals(0, rs.addAll(tr, keys.subList(0, 10)).join().intValue());
+            final RankedSet.Consistency consistency = rs.checkConsistency(tr);
+            assertTrue(consistency.isConsistent(), consistency.toString());
+            return null;
+        });
+        db.read(tr -> {
+            assertEquals(201L, rs.size(tr).join().longValue());
+            assertEquals(2L, rs.rank(tr, Tuple.from(3).pack()).join().longValue());
+            assertArrayEquals(Tuple.from(597).pack(), rs.getNth(tr, 200).join());
+            return null;
+        });
+        db.run(tr -> {
+            List<byte[]> removed = new ArrayList<>(keys.subList(0, 150));
+            removed.add(Tuple.from(2).pack());
+            assertEquals(150, rs.removeAll(tr, removed).join().intValue());
+            final RankedSet.Consistency consistency = rs.checkConsistency(tr);
+            assertTrue(consistency.isConsistent(), consistency.toString());
+            return null;
+        });
+        db.read(tr -> {
+            assertEquals(51L, rs.size(tr).join().longValue());
+            List<byte[]> remaining = new ArrayList<>(keys.subList(150, keys.size()));
+            remaining.add(Tuple.from(1).pack());
+            remaining.sort(ByteArrayUtil::compareUnsigned);
+            for (int i = 0; i < remaining.size(); ++i) {
+                assertArrayEquals(remaining.get(i), rs.getNth(tr, i).join());
+                assertEquals(i, rs.rank(tr, remaining.get(i)).join().longValue());
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void cachedUpperLevels() throws Exception {
+        RankedSetLevelCache cache = new RankedSetLevelCache(10, 1);
+        RankedSet cached = new RankedSet(rsSubspace, ForkJoinPool.commonPool(), RankedSet.DEFAULT_LEVELS, cache);
+        cached.init(db).join();
+        RankedSet uncached = newRankedSet();
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < 500; ++i) {
+            keys.add(Tuple.from(i * 2).pack());
+        }
+        db.run(tr -> cached.addAll(tr, keys).join());
+        db.read(tr -> {
+            for (int i = 0; i < keys.size(); i += 7) {
+                assertEquals(i, cached.rank(tr, keys.get(i)).join().longValue());
+                assertArrayEquals(keys.get(i), cached.getNth(tr, i).join());
+            }
+            assertNull(cached.getNth(tr, keys.size()).join());
+            return null;
+        });
+        assertEquals(1L, cache.getMissCount());
+        assertTrue(cache.getHitCount() > 0);
+
+        // Any change makes the cached levels stale.
+        db.run(tr -> {
+            cached.add(tr, Tuple.from(1).pack()).join();
+            cached.remove(tr, keys.get(100)).join();
+            return null;
+        });
+        db.read(tr -> {
+            for (int i = 0; i < keys.size() - 1; i += 7) {
+                byte[] expected = uncached.getNth(tr, i).join();
+                assertArrayEquals(expected, cached.getNth(tr, i).join());
+                assertEquals(uncached.rank(tr, expected).join(), cached.rank(tr, expected).join());
+            }
+            return null;
+        });
+        assertEquals(2L, cache.getMissCount());
+
+        // As does a change made without a cache.
+        db.run(tr -> uncached.add(tr, Tuple.from(3).pack()).join());
+        db.read(tr -> {
+            for (int i = 0; i < keys.size(); i += 7) {
+                byte[] expected = uncached.getNth(tr, i).join();
+                assertArrayEquals(expected, cached.getNth(tr, i).join());
+                assertEquals(uncached.rank(tr, expected).join(), cached.rank(tr, expected).join());
+            }
+            return null;
+        });
+        assertEquals(3L, cache.getMissCount());
+    }
+
+    @Test
+    public void rankAll() throws Exception {
+        RankedSetLevelCache cache = new RankedSetLevelCache(10, 2);
+        RankedSet cached = new RankedSet(rsSubspace, ForkJoinPool.commonPool(), RankedSet.DEFAULT_LEVELS, cache);
+        cached.init(db).join();
+        RankedSet rs = newRankedSet();
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < 300; ++i) {
+            keys.add(Tuple.from(i * 2).pack());
+        }
+        db.run(tr -> rs.addAll(tr, keys).join());
+        // Keys in any order, with duplicates, nearby keys that share reads, and keys that are not in the set.
+        List<byte[]> lookups = new ArrayList<>();
+        for (int i = 0; i < 40; ++i) {
+            lookups.add(Tuple.from((i * 37) % 650).pack());
+        }
+        lookups.add(Tuple.from(74).pack());
+        lookups.add(Tuple.from(598).pack());
+        Collections.shuffle(lookups);
+        db.read(tr -> {
+            for (RankedSet set : Arrays.asList(rs, cached)) {
+                List<Long> ranks = set.rankAll(tr, lookups).join();
+                assertEquals(lookups.size(), ranks.size());
+                for (int i = 0; i < lookups.size(); ++i) {
+                    assertEquals(rs.rank(tr, lookups.get(i)).join(), ranks.get(i));
+                }
+            }
+            assertEquals(Collections.emptyList(), rs.rankAll(tr, Collections.emptyList()).join());
+            return null;
+        });
+    }
+
     @Test
     public void concurrentAdd() throws Exception {
         // 20 does go onto level 1, 30 and 40 do not. There should be no reason for them to conflict on level 0.
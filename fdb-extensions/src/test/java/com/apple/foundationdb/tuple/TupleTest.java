@@ -109,6 +109,21 @@ public class TupleTest {
         ExpectedTupleEncoding.check(tests);
     }
 
+    @Test
+    public void elementOffsets() {
+        final byte[] prefix = {0x7F, 0x7F};
+        final byte[] packed = ByteArrayUtil.join(prefix, Tuple.fromList(tests.stream()
+                .map(expectedTupleEncoding -> expectedTupleEncoding.obj)
+                .collect(Collectors.toList())).pack());
+        final int[] offsets = TupleHelpers.elementOffsets(packed, prefix.length, packed.length - prefix.length);
+        assertEquals(tests.size() + 1, offsets.length);
+        assertEquals(packed.length, offsets[tests.size()]);
+        for (int i = 0; i < tests.size(); i++) {
+            assertEquals(tests.get(i).encodedLoggable,
+                    ByteArrayUtil2.loggable(Arrays.copyOfRange(packed, offsets[i], offsets[i + 1])));
+        }
+    }
+
     private static class ExpectedTupleEncoding<T> {
         private T obj;
         private String encodedLoggable;
@@ -0,0 +1,250 @@
+/*
+ * ContinuationEncoder.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record;
+
+import com.apple.foundationdb.API;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encode cursor continuations compactly for sending to clients.
+ *
+ * <p>
+ * The continuations of unions, intersections and nested plans embed the continuations of all their children, each of
+ * which is a key relative to the range that child scans. Sibling children of a wide {@code OR} or an {@code IN} join
+ * tend to be positioned at similar keys, so these continuations are full of repeated byte sequences. An encoder that
+ * {@linkplain #isCompress compresses} deflates the continuation, which replaces each repeat with a short back-reference,
+ * whenever that makes it smaller.
+ * </p>
+ *
+ * <p>
+ * A compressed continuation begins with a header giving the version of the encoding, so that the format can change
+ * without making existing continuations unreadable, and ends with a CRC-32 checksum of everything before it.
+ * A raw continuation can begin with any bytes, so {@link #decode} only treats a continuation as encoded if it
+ * begins with the multi-byte magic number of the header <em>and</em> ends with the matching checksum. Anything
+ * else is returned unchanged, so it also accepts continuations that were never encoded. For that reason, a
+ * continuation that is not compressed is also returned unchanged by {@link #encode}, without the cost of a header,
+ * unless it happens to look like an encoded one.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class ContinuationEncoder {
+    /**
+     * The smallest continuation that is compressed by default.
+     * Deflating anything smaller saves too little to be worth its overhead.
+     */
+    public static final int DEFAULT_MIN_COMPRESSION_SIZE = 32;
+
+    /**
+     * An encoder that never compresses, and so leaves continuations as they are.
+     */
+    public static final ContinuationEncoder UNCOMPRESSED = new ContinuationEncoder(false, Deflater.DEFAULT_COMPRESSION, Integer.MAX_VALUE);
+    /**
+     * An encoder that compresses continuations of at least {@link #DEFAULT_MIN_COMPRESSION_SIZE} bytes.
+     */
+    public static final ContinuationEncoder COMPRESSED = new ContinuationEncoder(true, Deflater.BEST_COMPRESSION, DEFAULT_MIN_COMPRESSION_SIZE);
+
+    // A raw continuation could start with these bytes, so the checksum is also needed to recognize an encoded one.
+    private static final byte[] HEADER_MAGIC = {(byte)0xFE, (byte)0xC0, (byte)0x4E, (byte)0x7E};
+    private static final byte ENCODING_VERSION = 1;
+    private static final int HEADER_LENGTH = HEADER_MAGIC.length + 2;
+    private static final int CHECKSUM_LENGTH = Integer.BYTES;
+    private static final byte FLAG_COMPRESSED = 0x01;
+
+    private final boolean compress;
+    private final int compressionLevel;
+    private final int minCompressionSize;
+
+    /**
+     * Create a new encoder.
+     * @param compress whether to compress continuations
+     * @param compressionLevel the {@link Deflater} compression level
+     * @param minCompressionSize the size of the smallest continuation to compress
+     */
+    public ContinuationEncoder(boolean compress, int compressionLevel, int minCompressionSize) {
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION && (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)) {
+            throw new RecordCoreArgumentException("invalid compression level")
+                    .addLogInfo("compressionLevel", compressionLevel);
+        }
+        this.compress = compress;
+        this.compressionLevel = compressionLevel;
+        this.minCompressionSize = minCompressionSize;
+    }
+
+    public boolean isCompress() {
+        return compress;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public int getMinCompressionSize() {
+        return minCompressionSize;
+    }
+
+    /**
+     * Encode a continuation.
+     * @param continuation a continuation from a cursor or {@code null} if the cursor was exhausted
+     * @return the encoded continuation or {@code null} if {@code continuation} is {@code null}
+     */
+    @Nullable
+    public byte[] encode(@Nullable byte[] continuation) {
+        if (continuation == null) {
+            return null;
+        }
+        if (compress && continuation.length >= minCompressionSize) {
+            final byte[] compressed = deflate(continuation);
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        if (!isEncoded(continuation)) {
+            return continuation;
+        }
+        // Only a header lets decode tell this apart from an encoded continuation.
+        final byte[] encoded = new byte[HEADER_LENGTH + continuation.length + CHECKSUM_LENGTH];
+        writeHeader(encoded, (byte)0);
+        System.arraycopy(continuation, 0, encoded, HEADER_LENGTH, continuation.length);
+        writeChecksum(encoded);
+        return encoded;
+    }
+
+    // Returns null if compressing does not make the continuation smaller.
+    @Nullable
+    private byte[] deflate(@Nonnull byte[] continuation) {
+        // Header, then uncompressed length, then compressed bytes, which must not take as much room as they save.
+        final int prefixLength = HEADER_LENGTH + Integer.BYTES;
+        final byte[] buffer = new byte[continuation.length];
+        final Deflater deflater = new Deflater(compressionLevel);
+        final int compressedLength;
+        try {
+            deflater.setInput(continuation);
+            deflater.finish();
+            compressedLength = deflater.deflate(buffer, 0, buffer.length);
+            if (!deflater.finished() || prefixLength + compressedLength >= continuation.length + HEADER_LENGTH) {
+                return null;
+            }
+        } finally {
+            deflater.end();
+        }
+        final byte[] encoded = new byte[prefixLength + compressedLength + CHECKSUM_LENGTH];
+        writeHeader(encoded, FLAG_COMPRESSED);
+        ByteBuffer.wrap(encoded, HEADER_LENGTH, Integer.BYTES).order(ByteOrder.BIG_ENDIAN).putInt(continuation.length);
+        System.arraycopy(buffer, 0, encoded, prefixLength, compressedLength);
+        writeChecksum(encoded);
+        return encoded;
+    }
+
+    private static void writeHeader(@Nonnull byte[] encoded, byte flags) {
+        System.arraycopy(HEADER_MAGIC, 0, encoded, 0, HEADER_MAGIC.length);
+        encoded[HEADER_MAGIC.length] = ENCODING_VERSION;
+        encoded[HEADER_MAGIC.length + 1] = flags;
+    }
+
+    private static int checksum(@Nonnull byte[] encoded) {
+        final CRC32 crc = new CRC32();
+        crc.update(encoded, 0, encoded.length - CHECKSUM_LENGTH);
+        return (int)crc.getValue();
+    }
+
+    private static void writeChecksum(@Nonnull byte[] encoded) {
+        ByteBuffer.wrap(encoded, encoded.length - CHECKSUM_LENGTH, CHECKSUM_LENGTH).order(ByteOrder.BIG_ENDIAN).putInt(checksum(encoded));
+    }
+
+    private static boolean isEncoded(@Nonnull byte[] encoded) {
+        if (encoded.length < HEADER_LENGTH + CHECKSUM_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < HEADER_MAGIC.length; i++) {
+            if (encoded[i] != HEADER_MAGIC[i]) {
+                return false;
+            }
+        }
+        final int expected = ByteBuffer.wrap(encoded, encoded.length - CHECKSUM_LENGTH, CHECKSUM_LENGTH).order(ByteOrder.BIG_ENDIAN).getInt();
+        return checksum(encoded) == expected;
+    }
+
+    /**
+     * Decode a continuation encoded by any encoder. A continuation that does not both begin with an encoding header
+     * and end with a valid checksum is returned as is.
+     * @param encoded an encoded continuation or {@code null}
+     * @return the original continuation to pass to the cursor or {@code null} if {@code encoded} is {@code null}
+     */
+    @Nullable
+    public static byte[] decode(@Nullable byte[] encoded) {
+        if (encoded == null || !isEncoded(encoded)) {
+            return encoded;
+        }
+        final byte version = encoded[HEADER_MAGIC.length];
+        if (version != ENCODING_VERSION) {
+            throw new RecordCoreArgumentException("unknown continuation encoding version")
+                    .addLogInfo("encodingVersion", version);
+        }
+        final byte flags = encoded[HEADER_MAGIC.length + 1];
+        if ((flags & ~FLAG_COMPRESSED) != 0) {
+            throw new RecordCoreArgumentException("unknown continuation encoding flags")
+                    .addLogInfo("flags", flags);
+        }
+        if ((flags & FLAG_COMPRESSED) == 0) {
+            return Arrays.copyOfRange(encoded, HEADER_LENGTH, encoded.length - CHECKSUM_LENGTH);
+        }
+        return inflate(encoded);
+    }
+
+    @Nonnull
+    private static byte[] inflate(@Nonnull byte[] encoded) {
+        final int prefixLength = HEADER_LENGTH + Integer.BYTES;
+        if (encoded.length < prefixLength + CHECKSUM_LENGTH) {
+            throw new RecordCoreArgumentException("compressed continuation is truncated");
+        }
+        final int length = ByteBuffer.wrap(encoded, HEADER_LENGTH, Integer.BYTES).order(ByteOrder.BIG_ENDIAN).getInt();
+        // Deflate never compresses by more than about 1032 to 1, so a larger length means a corrupt continuation.
+        if (length < 0 || length / 1032 > encoded.length) {
+            throw new RecordCoreArgumentException("invalid compressed continuation length")
+                    .addLogInfo("length", length);
+        }
+        final byte[] decoded = new byte[length];
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(encoded, prefixLength, encoded.length - prefixLength - CHECKSUM_LENGTH);
+            final int inflated = inflater.inflate(decoded);
+            if (inflated != length || !inflater.finished()) {
+                throw new RecordCoreArgumentException("compressed continuation has wrong length")
+                        .addLogInfo("expected", length)
+                        .addLogInfo("actual", inflated);
+            }
+        } catch (DataFormatException ex) {
+            throw new RecordCoreException("invalid compressed continuation", ex);
+        } finally {
+            inflater.end();
+        }
+        return decoded;
+    }
+}
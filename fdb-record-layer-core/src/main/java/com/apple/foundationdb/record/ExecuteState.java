@@ -42,13 +42,21 @@ public class ExecuteState {
 
     @Nullable
     private final RecordScanLimiter recordScanLimiter;
+    @Nullable
+    private final ByteScanLimiter byteScanLimiter;
 
-    public ExecuteState(@Nullable RecordScanLimiter recordScanLimiter) {
+    @API(API.Status.EXPERIMENTAL)
+    public ExecuteState(@Nullable RecordScanLimiter recordScanLimiter, @Nullable ByteScanLimiter byteScanLimiter) {
         this.recordScanLimiter = recordScanLimiter;
+        this.byteScanLimiter = byteScanLimiter;
+    }
+
+    public ExecuteState(@Nullable RecordScanLimiter recordScanLimiter) {
+        this(recordScanLimiter, null);
     }
 
     public ExecuteState() {
-        this(null);
+        this(null, null);
     }
 
     /**
@@ -61,10 +69,11 @@ public class ExecuteState {
      */
     @Nonnull
     public ExecuteState reset() {
-        if (recordScanLimiter == null) {
+        if (recordScanLimiter == null && byteScanLimiter == null) {
             return NO_SCANNED_RECORDS_LIMIT;
         }
-        return new ExecuteState(recordScanLimiter.reset());
+        return new ExecuteState(recordScanLimiter == null ? null : recordScanLimiter.reset(),
+                byteScanLimiter == null ? null : byteScanLimiter.reset());
     }
     
     /**
@@ -83,11 +92,32 @@ public class ExecuteState {
         return recordScanLimiter;
     }
 
+    /**
+     * Get a limiter for the maximum number of bytes that can be retrieved from the database.
+     * Like the record scan limit, this limit is not strictly enforced: a base cursor only checks it before reading a
+     * key-value pair, so the scan can overrun it by up to the size of the last key-value pair read by each base cursor.
+     * Records fetched by primary key for the entries of an index scan also count against the limit, and since those
+     * fetches are pipelined, the index scan can overrun it by up to the records of the entries already in flight.
+     * @return the byte scan limiter or <code>null</code> if no limit is set
+     * @see #getRecordScanLimiter
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nullable
+    public ByteScanLimiter getByteScanLimiter() {
+        return byteScanLimiter;
+    }
+
     @Override
     public String toString() {
-        if (recordScanLimiter == null) {
+        if (recordScanLimiter == null && byteScanLimiter == null) {
             return "State()";
         }
-        return "State(" + recordScanLimiter + ")";
+        if (byteScanLimiter == null) {
+            return "State(" + recordScanLimiter + ")";
+        }
+        if (recordScanLimiter == null) {
+            return "State(" + byteScanLimiter + ")";
+        }
+        return "State(" + recordScanLimiter + ", " + byteScanLimiter + ")";
     }
 }
@@ -21,13 +21,16 @@
 package com.apple.foundationdb.record;
 
 import com.apple.foundationdb.API;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
 import com.apple.foundationdb.record.metadata.Key;
 import com.apple.foundationdb.record.metadata.Key.Evaluated.NullStandin;
+import com.apple.foundationdb.tuple.ByteArrayUtil2;
 import com.apple.foundationdb.tuple.Tuple;
 import com.apple.foundationdb.tuple.TupleHelpers;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Arrays;
 
 /**
  * An <code>IndexEntry</code> carries around the key and value read from an index (as the name would imply).
@@ -38,11 +41,22 @@ import javax.annotation.Nullable;
 public class IndexEntry {
     private static final NullStandin[] NO_NULLS = new NullStandin[0];
 
-    @Nonnull
-    private final Tuple key;
+    // This will be null until first needed if created from packed key bytes.
+    // Entries can be handed between threads, so lazily decoded values are volatile. Decoding is idempotent,
+    // so two threads racing to decode the same key just do some of the same work.
+    @Nullable
+    private volatile Tuple key;
     @Nonnull
     private final Tuple value;
 
+    // If created from packed key bytes, where in them the key tuple is and where each of its elements starts.
+    @Nullable
+    private final byte[] keyBytes;
+    private final int keyOffset;
+    private final int keyLength;
+    @Nullable
+    private volatile int[] keyElementOffsets;
+
     // This will be null if created from a tuple, in which case it is not legal to ask the question about
     // the type of null at a given position. If it is zero length, then it came from a Key.Evaluated but
     // did not contain any null values.
@@ -73,6 +87,31 @@ public class IndexEntry {
     public IndexEntry(@Nonnull Tuple key, @Nonnull Tuple value) {
         this.key = key;
         this.value = value;
+        this.keyBytes = null;
+        this.keyOffset = 0;
+        this.keyLength = 0;
+    }
+
+    /**
+     * Create an index entry whose key is still packed, such as when it has just been read from the database.
+     * The key is only decoded when it is needed, and then only as much as is needed: getting one element with
+     * {@link #getKeyValue} does not decode the others. So an entry that is only looked at for a few elements, such as
+     * the covering fields of a scan, costs little more than the key bytes already in hand.
+     * The key bytes are not copied and so must not be changed afterwards. Because they are not decoded here, bytes
+     * that are not a valid tuple only cause an error when the key is first used, which is reported with the key bytes.
+     * @param keyBytes an array containing the packed key tuple
+     * @param keyOffset the position in {@code keyBytes} at which the key tuple starts
+     * @param keyLength the length of the packed key tuple
+     * @param value the value of the index entry
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @SpotBugsSuppressWarnings(value = "EI2", justification = "copies are expensive")
+    public IndexEntry(@Nonnull byte[] keyBytes, int keyOffset, int keyLength, @Nonnull Tuple value) {
+        this.key = null;
+        this.value = value;
+        this.keyBytes = keyBytes;
+        this.keyOffset = keyOffset;
+        this.keyLength = keyLength;
     }
 
     @Nonnull
@@ -82,11 +121,24 @@ public class IndexEntry {
 
     @Nonnull
     public Tuple getKey() {
-        return key;
+        Tuple decoded = key;
+        if (decoded == null) {
+            try {
+                decoded = Tuple.fromBytes(keyBytes, keyOffset, keyLength);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw keyDecodingException(e);
+            }
+            key = decoded;
+        }
+        return decoded;
     }
 
     public int getKeySize() {
-        return key.size();
+        final Tuple decoded = key;
+        if (decoded != null) {
+            return decoded.size();
+        }
+        return getKeyElementOffsets().length - 1;
     }
 
     /**
@@ -96,7 +148,39 @@ public class IndexEntry {
      */
     @Nullable
     public Object getKeyValue(int idx) {
-        return key.get(idx);
+        final Tuple decoded = key;
+        if (decoded != null) {
+            return decoded.get(idx);
+        }
+        final int[] offsets = getKeyElementOffsets();
+        if (idx < 0 || idx >= offsets.length - 1) {
+            throw new IndexOutOfBoundsException("Index " + idx + " out of range for key of size " + (offsets.length - 1));
+        }
+        try {
+            return Tuple.fromBytes(keyBytes, offsets[idx], offsets[idx + 1] - offsets[idx]).get(0);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw keyDecodingException(e);
+        }
+    }
+
+    @Nonnull
+    private int[] getKeyElementOffsets() {
+        int[] offsets = keyElementOffsets;
+        if (offsets == null) {
+            try {
+                offsets = TupleHelpers.elementOffsets(keyBytes, keyOffset, keyLength);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw keyDecodingException(e);
+            }
+            keyElementOffsets = offsets;
+        }
+        return offsets;
+    }
+
+    @Nonnull
+    private RecordCoreException keyDecodingException(@Nonnull RuntimeException cause) {
+        return new RecordCoreException("unable to decode index entry key", cause)
+                .addLogInfo(LogMessageKeys.KEY, ByteArrayUtil2.loggable(Arrays.copyOfRange(keyBytes, keyOffset, keyOffset + keyLength)));
     }
 
     /**
@@ -139,11 +223,17 @@ public class IndexEntry {
      */
     @Nonnull
     public IndexEntry subKey(int startIdx, int endIdx) {
-        if (startIdx == 0 && endIdx == key.size()) {
+        if (startIdx == 0 && endIdx == getKeySize()) {
             return this;
         }
+        final Tuple decoded = key;
+        if (decoded == null) {
+            // Still packed: just narrow the range of bytes, whose elements never have null types.
+            final int[] offsets = getKeyElementOffsets();
+            return new IndexEntry(keyBytes, offsets[startIdx], offsets[endIdx] - offsets[startIdx], value);
+        }
 
-        IndexEntry subKey = new IndexEntry(TupleHelpers.subTuple(key, startIdx, endIdx), value);
+        IndexEntry subKey = new IndexEntry(TupleHelpers.subTuple(decoded, startIdx, endIdx), value);
         if (nullStandins == null || nullStandins.length == 0) {
             subKey.nullStandins = nullStandins;
         } else {
@@ -175,19 +265,19 @@ public class IndexEntry {
 
         // It is important to use compare() here. Tuple.equals() packs the value which explodes if
         // the tuple contains an incomplete version stamp.
-        return TupleHelpers.compare(this.key, that.key) == 0
+        return TupleHelpers.compare(this.getKey(), that.getKey()) == 0
                 && TupleHelpers.compare(this.value, that.value) == 0;
     }
 
     @Override
     public int hashCode() {
-        int result = key.hashCode();
+        int result = getKey().hashCode();
         result = 31 * result + value.hashCode();
         return result;
     }
 
     @Override
     public String toString() {
-        return key + ":" + value;
+        return getKey() + ":" + value;
     }
 }
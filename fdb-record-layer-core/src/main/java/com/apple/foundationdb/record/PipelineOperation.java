@@ -54,5 +54,7 @@ public class PipelineOperation {
     public static final PipelineOperation RESOLVE_UNIQUENESS = new PipelineOperation("RESOLVE_UNIQUENESS");
     public static final PipelineOperation IN_JOIN = new PipelineOperation("IN_JOIN");
     public static final PipelineOperation TEXT_INDEX_UPDATE = new PipelineOperation("TEXT_INDEX_UPDATE");
+    @API(API.Status.EXPERIMENTAL)
+    public static final PipelineOperation PREFETCH = new PipelineOperation("PREFETCH");
 
 }
@@ -32,6 +32,7 @@ import com.apple.foundationdb.record.cursors.ListCursor;
 import com.apple.foundationdb.record.cursors.MapCursor;
 import com.apple.foundationdb.record.cursors.MapPipelinedCursor;
 import com.apple.foundationdb.record.cursors.OrElseCursor;
+import com.apple.foundationdb.record.cursors.PrefetchCursor;
 import com.apple.foundationdb.record.cursors.RowLimitedCursor;
 import com.apple.foundationdb.record.cursors.SkipCursor;
 import com.apple.foundationdb.record.cursors.TimeLimitedCursor;
@@ -188,7 +189,17 @@ public interface RecordCursor<T> extends AutoCloseable, Iterator<T> {
          * @see ExecuteProperties.Builder#setScannedRecordsLimit(int)
          * @see RecordScanLimiter
          */
-        SCAN_LIMIT_REACHED(true);
+        SCAN_LIMIT_REACHED(true),
+
+        /**
+         * The limit on the number of bytes to scan was reached.
+         * {@link #getContinuation()} may return a continuation for resuming the scan.
+         *
+         * Like <code>SCAN_LIMIT_REACHED</code>, this can be returned before any actual records.
+         * @see ExecuteProperties.Builder#setScannedBytesLimit(long)
+         * @see ByteScanLimiter
+         */
+        BYTE_LIMIT_REACHED(true);
 
         final boolean outOfBand;
 
@@ -507,6 +518,25 @@ public interface RecordCursor<T> extends AutoCloseable, Iterator<T> {
         return skip(skip).limitRowsTo(limit);
     }
 
+    /**
+     * Get a new cursor that reads ahead of its consumer, so that this cursor is working on later elements while earlier
+     * ones are being processed.
+     * @param prefetchSize the number of elements to request ahead of time
+     * @return a new cursor that returns the same elements as this one, or this cursor if {@code prefetchSize} is zero
+     * @see PrefetchCursor
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    default RecordCursor<T> prefetch(int prefetchSize) {
+        if (prefetchSize < 0) {
+            throw new RecordCoreException("Invalid prefetch size: " + prefetchSize);
+        }
+        if (prefetchSize == 0) {
+            return this;
+        }
+        return new PrefetchCursor<>(this, prefetchSize);
+    }
+
     /**
      * Get a new cursor by applying the given asynchronous function to the records in this cursor.
      * @param func the function to apply to each record
@@ -0,0 +1,196 @@
+/*
+ * BatchFilterCursor.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors;
+
+import com.apple.foundationdb.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordCursorVisitor;
+import com.apple.foundationdb.record.SpotBugsSuppressWarnings;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * A cursor that filters elements using an asynchronous predicate that is evaluated on several elements at once.
+ *
+ * <p>
+ * Elements are read from the inner cursor in batches of up to a given size, the predicate is evaluated on the whole
+ * batch, and then the elements that pass are returned, with their own continuations. This suits predicates that can
+ * share work between elements, such as looking up several keys in an index together, better than evaluating each
+ * element separately. Like a pipelined filter, it reads ahead of what has been returned.
+ * </p>
+ *
+ * @param <T> the type of elements of the cursor
+ */
+@API(API.Status.EXPERIMENTAL)
+public class BatchFilterCursor<T> implements RecordCursor<T> {
+    @Nonnull
+    private final RecordCursor<T> inner;
+    @Nonnull
+    private final Function<List<T>, CompletableFuture<List<Boolean>>> pred;
+    private final int batchSize;
+    // Results from the last batch that passed the predicate and have not been returned yet.
+    @Nonnull
+    private final Queue<RecordCursorResult<T>> passed = new ArrayDeque<>();
+    // The result without a next element with which the inner cursor stopped.
+    @Nullable
+    private RecordCursorResult<T> innerNoNextResult;
+    @Nullable
+    private CompletableFuture<Boolean> nextFuture;
+    @Nullable
+    private RecordCursorResult<T> nextResult;
+
+    // for detecting incorrect cursor usage
+    private boolean mayGetContinuation = false;
+
+    /**
+     * Create a new cursor.
+     * @param inner the cursor to filter
+     * @param pred a predicate that completes with whether each of a list of elements passes, in the same order
+     * @param batchSize the maximum number of elements on which to evaluate the predicate at once
+     */
+    public BatchFilterCursor(@Nonnull RecordCursor<T> inner,
+                             @Nonnull Function<List<T>, CompletableFuture<List<Boolean>>> pred,
+                             int batchSize) {
+        if (batchSize < 1) {
+            throw new RecordCoreException("Invalid batch size: " + batchSize);
+        }
+        this.inner = inner;
+        this.pred = pred;
+        this.batchSize = batchSize;
+    }
+
+    @Nonnull
+    @Override
+    @API(API.Status.EXPERIMENTAL)
+    public CompletableFuture<RecordCursorResult<T>> onNext() {
+        mayGetContinuation = false;
+        // Keep reading batches until one has an element that passes or the inner cursor stops.
+        return AsyncUtil.whileTrue(() -> {
+            if (!passed.isEmpty() || innerNoNextResult != null) {
+                return AsyncUtil.READY_FALSE;
+            }
+            return readBatch().thenCompose(this::filterBatch).thenApply(vignore -> true);
+        }, getExecutor()).thenApply(vignore -> {
+            nextResult = passed.isEmpty() ? innerNoNextResult : passed.remove();
+            mayGetContinuation = !nextResult.hasNext();
+            return nextResult;
+        });
+    }
+
+    @Nonnull
+    private CompletableFuture<List<RecordCursorResult<T>>> readBatch() {
+        final List<RecordCursorResult<T>> batch = new ArrayList<>(batchSize);
+        return AsyncUtil.whileTrue(() -> inner.onNext().thenApply(innerResult -> {
+            if (!innerResult.hasNext()) {
+                innerNoNextResult = innerResult;
+                return false;
+            }
+            batch.add(innerResult);
+            return batch.size() < batchSize;
+        }), getExecutor()).thenApply(vignore -> batch);
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> filterBatch(@Nonnull List<RecordCursorResult<T>> batch) {
+        if (batch.isEmpty()) {
+            return AsyncUtil.DONE;
+        }
+        final List<T> elements = new ArrayList<>(batch.size());
+        for (RecordCursorResult<T> result : batch) {
+            elements.add(result.get());
+        }
+        return pred.apply(elements).thenAccept(matches -> {
+            for (int i = 0; i < batch.size(); i++) {
+                if (Boolean.TRUE.equals(matches.get(i))) {
+                    passed.add(batch.get(i));
+                }
+            }
+        });
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Boolean> onHasNext() {
+        if (nextFuture == null) {
+            nextFuture = onNext().thenApply(RecordCursorResult::hasNext);
+        }
+        return nextFuture;
+    }
+
+    @Nullable
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        nextFuture = null;
+        mayGetContinuation = true;
+        return nextResult.get();
+    }
+
+    @Nullable
+    @Override
+    @SpotBugsSuppressWarnings(value = "EI", justification = "copies are expensive")
+    public byte[] getContinuation() {
+        IllegalContinuationAccessChecker.check(mayGetContinuation);
+        return nextResult.getContinuation().toBytes();
+    }
+
+    @Override
+    public NoNextReason getNoNextReason() {
+        return nextResult.getNoNextReason();
+    }
+
+    @Override
+    public void close() {
+        if (nextFuture != null) {
+            nextFuture.cancel(false);
+            nextFuture = null;
+        }
+        inner.close();
+    }
+
+    @Nonnull
+    @Override
+    public Executor getExecutor() {
+        return inner.getExecutor();
+    }
+
+    @Override
+    public boolean accept(@Nonnull RecordCursorVisitor visitor) {
+        if (visitor.visitEnter(this)) {
+            inner.accept(visitor);
+        }
+        return visitor.visitLeave(this);
+    }
+}
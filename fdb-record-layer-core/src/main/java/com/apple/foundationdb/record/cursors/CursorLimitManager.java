@@ -21,6 +21,7 @@
 package com.apple.foundationdb.record.cursors;
 
 import com.apple.foundationdb.API;
+import com.apple.foundationdb.record.ByteScanLimiter;
 import com.apple.foundationdb.record.ExecuteProperties;
 import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.RecordScanLimiter;
@@ -56,6 +57,9 @@ public class CursorLimitManager {
     private final boolean failOnScanLimitReached;
     private boolean haltedDueToRecordScanLimit = false;
     @Nullable
+    private final ByteScanLimiter byteScanLimiter;
+    private boolean haltedDueToByteScanLimit = false;
+    @Nullable
     private final TimeScanLimiter timeScanLimiter;
     private boolean haltedDueToTimeLimit = false;
 
@@ -64,7 +68,14 @@ public class CursorLimitManager {
     @VisibleForTesting
     public CursorLimitManager(@Nullable RecordScanLimiter recordScanLimiter, boolean failOnScanLimitReached,
                               @Nullable TimeScanLimiter timeScanLimiter) {
+        this(recordScanLimiter, null, failOnScanLimitReached, timeScanLimiter);
+    }
+
+    @VisibleForTesting
+    public CursorLimitManager(@Nullable RecordScanLimiter recordScanLimiter, @Nullable ByteScanLimiter byteScanLimiter,
+                              boolean failOnScanLimitReached, @Nullable TimeScanLimiter timeScanLimiter) {
         this.recordScanLimiter = recordScanLimiter;
+        this.byteScanLimiter = byteScanLimiter;
         this.failOnScanLimitReached = failOnScanLimitReached;
         this.timeScanLimiter = timeScanLimiter;
     }
@@ -75,6 +86,7 @@ public class CursorLimitManager {
 
     public CursorLimitManager(@Nullable FDBRecordContext context, @Nonnull ScanProperties scanProperties) {
         this.recordScanLimiter = scanProperties.getExecuteProperties().getState().getRecordScanLimiter();
+        this.byteScanLimiter = scanProperties.getExecuteProperties().getState().getByteScanLimiter();
         this.failOnScanLimitReached = scanProperties.getExecuteProperties().isFailOnScanLimitReached();
         if (scanProperties.getExecuteProperties().getTimeLimit() != ExecuteProperties.UNLIMITED_TIME) {
             this.timeScanLimiter = new TimeScanLimiter(context != null ? context.getTransactionCreateTime() : System.currentTimeMillis(),
@@ -100,6 +112,8 @@ public class CursorLimitManager {
     public Optional<RecordCursor.NoNextReason> getStoppedReason() {
         if (haltedDueToRecordScanLimit) {
             return Optional.of(RecordCursor.NoNextReason.SCAN_LIMIT_REACHED);
+        } else if (haltedDueToByteScanLimit) {
+            return Optional.of(RecordCursor.NoNextReason.BYTE_LIMIT_REACHED);
         } else if (haltedDueToTimeLimit) {
             return Optional.of(RecordCursor.NoNextReason.TIME_LIMIT_REACHED);
         }
@@ -116,15 +130,31 @@ public class CursorLimitManager {
     public boolean tryRecordScan() {
         haltedDueToRecordScanLimit = recordScanLimiter != null && !recordScanLimiter.tryRecordScan()
                                      && (usedInitialPass || failOnScanLimitReached);
+        haltedDueToByteScanLimit = byteScanLimiter != null && !byteScanLimiter.hasBytesRemaining()
+                                   && (usedInitialPass || failOnScanLimitReached);
         haltedDueToTimeLimit = timeScanLimiter != null && !timeScanLimiter.tryRecordScan() && usedInitialPass;
-        final boolean halted = haltedDueToRecordScanLimit || haltedDueToTimeLimit;
+        final boolean halted = haltedDueToRecordScanLimit || haltedDueToByteScanLimit || haltedDueToTimeLimit;
 
         if (!halted) {
             usedInitialPass = true;
         } else if (failOnScanLimitReached) {
-            throw new ScanLimitReachedException("limit on number of key-values scanned per transaction reached");
+            throw new ScanLimitReachedException(haltedDueToByteScanLimit && !haltedDueToRecordScanLimit
+                                                ? "limit on number of bytes scanned per transaction reached"
+                                                : "limit on number of key-values scanned per transaction reached");
         }
 
         return !halted;
     }
+
+    /**
+     * Inform the limit manager that a cursor has scanned the given number of bytes, so that they count against any
+     * byte scan limit.
+     * @param bytes the number of bytes of keys and values scanned
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public void reportScannedBytes(long bytes) {
+        if (byteScanLimiter != null) {
+            byteScanLimiter.registerScannedBytes(bytes);
+        }
+    }
 }
@@ -0,0 +1,206 @@
+/*
+ * PrefetchCursor.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors;
+
+import com.apple.foundationdb.API;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordCursorVisitor;
+import com.apple.foundationdb.record.SpotBugsSuppressWarnings;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * A cursor that reads ahead of its consumer, keeping up to a specified number of results of another cursor
+ * requested before they are needed.
+ *
+ * <p>
+ * Other cursors only ask for the next element of their source when their own {@link #onNext} is called, so the source
+ * does no work while the consumer is processing what it already has. This cursor instead chains each request to its
+ * source after the previous one, so that the source keeps going in the background until the requested number of
+ * results is ready. Results are returned unchanged, including their continuations, so the continuation is still that
+ * of the last result consumed.
+ * </p>
+ *
+ * <p>
+ * Reading ahead means reading elements that may not be needed if the consumer stops early. In a serializable
+ * transaction, this adds read conflicts for those elements, too.
+ * </p>
+ *
+ * <p>
+ * Each request to the source normally runs on whichever thread completed the one before it. If requests are
+ * forked, each one is instead started as a separate task on the cursor's executor, so that several of these cursors
+ * reading ahead at once, such as the branches of a union, do their work on different threads.
+ * </p>
+ *
+ * @param <T> the type of elements of the cursor
+ */
+@API(API.Status.EXPERIMENTAL)
+public class PrefetchCursor<T> implements RecordCursor<T> {
+    @Nonnull
+    private final RecordCursor<T> inner;
+    private final int prefetchSize;
+    private final boolean forkRequests;
+    // Each future is chained to the one before it, so at most one request to the inner cursor is outstanding.
+    @Nonnull
+    private final Queue<CompletableFuture<RecordCursorResult<T>>> pending;
+    @Nullable
+    private CompletableFuture<RecordCursorResult<T>> last;
+    @Nullable
+    private CompletableFuture<Boolean> nextFuture;
+    @Nullable
+    private RecordCursorResult<T> nextResult;
+
+    // for detecting incorrect cursor usage
+    private boolean mayGetContinuation = false;
+
+    public PrefetchCursor(@Nonnull RecordCursor<T> inner, int prefetchSize) {
+        this(inner, prefetchSize, false);
+    }
+
+    /**
+     * Create a new cursor that reads ahead of its consumer.
+     * @param inner the cursor from which to read
+     * @param prefetchSize the number of results to request ahead of time
+     * @param forkRequests whether to start each request to {@code inner} as a separate task on its executor
+     */
+    public PrefetchCursor(@Nonnull RecordCursor<T> inner, int prefetchSize, boolean forkRequests) {
+        this.inner = inner;
+        this.prefetchSize = prefetchSize;
+        this.forkRequests = forkRequests;
+        this.pending = new ArrayDeque<>(prefetchSize);
+    }
+
+    @Nonnull
+    @Override
+    @API(API.Status.EXPERIMENTAL)
+    public CompletableFuture<RecordCursorResult<T>> onNext() {
+        mayGetContinuation = false;
+        fill();
+        return pending.element().thenApply(result -> {
+            if (result.hasNext()) {
+                pending.remove();
+                // Start reading the result to replace this one.
+                fill();
+            }
+            mayGetContinuation = !result.hasNext();
+            nextResult = result;
+            return result;
+        });
+    }
+
+    /**
+     * Start reading ahead now rather than on the first call to {@link #onNext}. This is for a cursor that is created
+     * in advance of being consumed, such as an inner cursor of {@link FlatMapPipelinedCursor}, which otherwise would
+     * not do any work until it is reached.
+     * @return this cursor
+     */
+    @Nonnull
+    public PrefetchCursor<T> startPrefetch() {
+        fill();
+        return this;
+    }
+
+    private void fill() {
+        while (pending.size() < prefetchSize) {
+            final CompletableFuture<RecordCursorResult<T>> previous = last;
+            if (previous == null) {
+                last = forkRequests ? CompletableFuture.supplyAsync(inner::onNext, getExecutor()).thenCompose(Function.identity()) : inner.onNext();
+            } else if (previous.isDone() && !previous.isCompletedExceptionally() && !previous.join().hasNext()) {
+                // The inner cursor has stopped; its last result stays at the end of the queue.
+                return;
+            } else {
+                final Function<RecordCursorResult<T>, CompletableFuture<RecordCursorResult<T>>> request =
+                        result -> result.hasNext() ? inner.onNext() : CompletableFuture.completedFuture(result);
+                last = forkRequests ? previous.thenComposeAsync(request, getExecutor()) : previous.thenCompose(request);
+            }
+            pending.add(last);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Boolean> onHasNext() {
+        if (nextFuture == null) {
+            nextFuture = onNext().thenApply(RecordCursorResult::hasNext);
+        }
+        return nextFuture;
+    }
+
+    @Nullable
+    @Override
+    @SpotBugsSuppressWarnings(value = "EI2", justification = "copies are expensive")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        nextFuture = null;
+        mayGetContinuation = true;
+        return nextResult.get();
+    }
+
+    @Nullable
+    @Override
+    @SpotBugsSuppressWarnings(value = "EI", justification = "copies are expensive")
+    public byte[] getContinuation() {
+        IllegalContinuationAccessChecker.check(mayGetContinuation);
+        return nextResult.getContinuation().toBytes();
+    }
+
+    @Override
+    public NoNextReason getNoNextReason() {
+        return nextResult.getNoNextReason();
+    }
+
+    @Override
+    public void close() {
+        if (nextFuture != null) {
+            nextFuture.cancel(false);
+            nextFuture = null;
+        }
+        while (!pending.isEmpty()) {
+            pending.remove().cancel(false);
+        }
+        last = null;
+        inner.close();
+    }
+
+    @Nonnull
+    @Override
+    public Executor getExecutor() {
+        return inner.getExecutor();
+    }
+
+    @Override
+    public boolean accept(@Nonnull RecordCursorVisitor visitor) {
+        if (visitor.visitEnter(this)) {
+            inner.accept(visitor);
+        }
+        return visitor.visitLeave(this);
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * RecordCursorPublisher.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors;
+
+import com.apple.foundationdb.API;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorContinuation;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordCursorStartContinuation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publish the elements of a {@link RecordCursor} to a subscriber that asks for them as it is ready to handle them.
+ *
+ * <p>
+ * The {@link Subscriber} and {@link Subscription} interfaces have the same methods and follow the same rules as those of
+ * Reactive Streams and {@code java.util.concurrent.Flow}, so adapting to either library takes only a thin wrapper.
+ * The cursor is only asked for its next element when the subscriber has {@linkplain Subscription#request requested}
+ * more than it has been sent, and only one such read is outstanding at a time, so no more than one element is ever held
+ * here. Any limits in the {@link com.apple.foundationdb.record.ExecuteProperties} with which the cursor was opened
+ * still apply: reaching one completes the stream.
+ * </p>
+ *
+ * <p>
+ * The cursor is closed when the stream completes, fails, or is {@linkplain Subscription#cancel cancelled}. After
+ * {@link Subscriber#onComplete}, {@link #getNoNextReason} tells why the cursor stopped and {@link #getContinuation}
+ * gives the continuation from which to resume it if it was not exhausted. The continuation is also available after
+ * cancelling, when it is that of the last element sent to the subscriber.
+ * </p>
+ *
+ * @param <T> the type of elements of the cursor
+ */
+@API(API.Status.EXPERIMENTAL)
+public class RecordCursorPublisher<T> {
+    @Nonnull
+    private final RecordCursor<T> cursor;
+    @Nonnull
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+    @Nonnull
+    private final AtomicLong demand = new AtomicLong(0);
+    // Number of calls to drain that have not been handled yet; only the caller that raises it from zero does the work.
+    @Nonnull
+    private final AtomicInteger pendingDrains = new AtomicInteger(0);
+    @Nullable
+    private volatile Subscriber<? super T> subscriber;
+    private volatile boolean reading;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private boolean closed;
+    @Nonnull
+    private volatile RecordCursorContinuation continuation = RecordCursorStartContinuation.START;
+    @Nullable
+    private volatile RecordCursor.NoNextReason noNextReason;
+
+    public RecordCursorPublisher(@Nonnull RecordCursor<T> cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * Subscribe to the elements of the cursor. A publisher only supports a single subscriber, since the cursor can only
+     * be read once.
+     * @param subscriber the subscriber to receive the elements
+     */
+    public void subscribe(@Nonnull Subscriber<? super T> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    // The subscription is already over.
+                }
+
+                @Override
+                public void cancel() {
+                    // The subscription is already over.
+                }
+            });
+            subscriber.onError(new IllegalStateException("cursor publisher only allows one subscriber"));
+            return;
+        }
+        this.subscriber = subscriber;
+        subscriber.onSubscribe(new CursorSubscription());
+    }
+
+    /**
+     * Get the continuation after the last element sent to the subscriber.
+     * @return the continuation from which to resume the cursor
+     */
+    @Nonnull
+    public RecordCursorContinuation getContinuation() {
+        return continuation;
+    }
+
+    /**
+     * Get the reason that the cursor had no more elements.
+     * @return the reason the cursor stopped or {@code null} if it has not stopped
+     */
+    @Nullable
+    public RecordCursor.NoNextReason getNoNextReason() {
+        return noNextReason;
+    }
+
+    private void drain() {
+        if (pendingDrains.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            if (cancelled || done) {
+                if (!reading && !closed) {
+                    closed = true;
+                    cursor.close();
+                }
+            } else if (!reading && demand.get() > 0) {
+                reading = true;
+                // If the read is already complete, this runs the callback right away, and its drain is handled as missed.
+                cursor.onNext().whenComplete(this::handleResult);
+            }
+            missed = pendingDrains.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void handleResult(@Nullable RecordCursorResult<T> result, @Nullable Throwable err) {
+        final Subscriber<? super T> s = subscriber;
+        if (s != null && !cancelled) {
+            if (err != null) {
+                done = true;
+                s.onError(err);
+            } else if (result != null && result.hasNext()) {
+                continuation = result.getContinuation();
+                demand.decrementAndGet();
+                s.onNext(result.get());
+            } else if (result != null) {
+                continuation = result.getContinuation();
+                noNextReason = result.getNoNextReason();
+                done = true;
+                s.onComplete();
+            }
+        }
+        // Only allow another read once the subscriber is done with this element, so that calls to it are never concurrent.
+        reading = false;
+        drain();
+    }
+
+    private class CursorSubscription implements Subscription {
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancelled = true;
+                final Subscriber<? super T> s = subscriber;
+                if (s != null && !done) {
+                    done = true;
+                    s.onError(new IllegalArgumentException("request must be positive, but was " + n));
+                }
+                drain();
+                return;
+            }
+            demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+    }
+
+    /**
+     * A receiver of the elements of a cursor, with the same contract as {@code org.reactivestreams.Subscriber}.
+     * Its methods are never called concurrently.
+     * @param <T> the type of elements received
+     */
+    public interface Subscriber<T> {
+        /**
+         * Called once, before any other method, with the subscription through which to request elements.
+         * @param subscription the new subscription
+         */
+        void onSubscribe(@Nonnull Subscription subscription);
+
+        /**
+         * Called with each element, but no more times than have been requested.
+         * @param item the next element of the cursor
+         */
+        void onNext(T item);
+
+        /**
+         * Called if reading the cursor failed. No other methods are called after this.
+         * @param throwable the error from the cursor
+         */
+        void onError(@Nonnull Throwable throwable);
+
+        /**
+         * Called when the cursor has no more elements. No other methods are called after this.
+         */
+        void onComplete();
+    }
+
+    /**
+     * A link between a publisher and its subscriber, with the same contract as {@code org.reactivestreams.Subscription}.
+     */
+    public interface Subscription {
+        /**
+         * Ask for up to {@code n} more elements to be sent.
+         * @param n the number of elements, which must be positive
+         */
+        void request(long n);
+
+        /**
+         * Stop sending elements and close the cursor.
+         */
+        void cancel();
+    }
+}
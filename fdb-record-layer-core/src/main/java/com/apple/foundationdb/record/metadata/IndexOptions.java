@@ -83,6 +83,17 @@ public class IndexOptions {
      * It will only be possible to determine that an indexed field contains the token someplace.
      */
     public static final String TEXT_OMIT_POSITIONS_OPTION = "textOmitPositions";
+    /**
+     * If {@code "true"}, a {@link IndexTypes#TEXT} index will write the primary keys within each bunch using a
+     * prefix-compressed format.
+     *
+     * Bunches written in either format can always be read, and new entries are never appended to a bunch written in
+     * the other format, so this option can be changed without rebuilding the index.
+     *
+     * @see com.apple.foundationdb.record.provider.foundationdb.indexes.TextIndexBunchedSerializer#prefixCompressedInstance()
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final String TEXT_PREFIX_COMPRESS_KEYS_OPTION = "textPrefixCompressKeys";
 
     /**
      * The number of levels in the {@link IndexTypes#RANK} skip list {@link com.apple.foundationdb.async.RankedSet}.
@@ -90,4 +101,27 @@ public class IndexOptions {
      * The default is {@link com.apple.foundationdb.async.RankedSet#DEFAULT_LEVELS} = {@value com.apple.foundationdb.async.RankedSet#DEFAULT_LEVELS}.
      */
     public static final String RANK_NLEVELS = "rankNLevels";
+
+    /**
+     * If {@code "true"}, a {@link IndexTypes#RANK} index will keep a copy of the upper levels of its skip lists in
+     * the {@link com.apple.foundationdb.record.provider.foundationdb.FDBDatabase#getRankedSetLevelCache() database's cache},
+     * so that rank lookups only need to read the bottom levels.
+     *
+     * The cached levels are checked against a version key that is changed by every update to the index, whether or not
+     * this option is on, so it can be turned on and off without rebuilding the index.
+     *
+     * @see com.apple.foundationdb.async.RankedSetLevelCache
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final String RANK_CACHE_UPPER_LEVELS = "rankCacheUpperLevels";
+
+    /**
+     * If {@code "true"}, a {@link IndexTypes#VERSION} index will also bump a counter key in its secondary subspace whenever
+     * an entry is added, so that a {@link com.apple.foundationdb.record.provider.foundationdb.ChangeFeed} following the
+     * index can wait on an FDB watch for new entries instead of polling.
+     *
+     * @see com.apple.foundationdb.record.provider.foundationdb.indexes.VersionIndexMaintainer#changeNotificationKey
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final String VERSION_NOTIFY_CHANGES = "versionNotifyChanges";
 }
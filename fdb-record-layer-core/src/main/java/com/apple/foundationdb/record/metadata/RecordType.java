@@ -23,7 +23,11 @@ package com.apple.foundationdb.record.metadata;
 import com.apple.foundationdb.API;
 import com.apple.foundationdb.record.RecordMetaData;
 import com.apple.foundationdb.record.RecordMetaDataProvider;
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.metadata.expressions.CompiledKeyExpression;
 import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.protobuf.Descriptors;
 
 import javax.annotation.Nonnull;
@@ -31,6 +35,8 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Record type meta-data.
@@ -57,6 +63,9 @@ public class RecordType implements RecordTypeOrBuilder, RecordMetaDataProvider {
     private final Object explicitRecordTypeKey;
     @Nullable
     private Object recordTypeKey;
+    // Keyed by identity, since expressions that differ only in how they treat null compare equal.
+    @Nonnull
+    private final Cache<KeyExpression, Optional<CompiledKeyExpression>> compiledKeyExpressions = CacheBuilder.newBuilder().weakKeys().build();
 
     public RecordType(@Nonnull RecordMetaData metaData, @Nonnull Descriptors.Descriptor descriptor, @Nonnull KeyExpression primaryKey,
                       @Nonnull List<Index> indexes, @Nonnull List<Index> multiTypeIndexes, @Nullable Integer sinceVersion, @Nullable Object recordTypeKey) {
@@ -172,6 +181,22 @@ public class RecordType implements RecordTypeOrBuilder, RecordMetaDataProvider {
         return Key.Expressions.hasRecordTypePrefix(primaryKey);
     }
 
+    /**
+     * Get the {@linkplain CompiledKeyExpression compiled} form of a key expression for records of this type.
+     * The compiled form is remembered, so that it is only built once for each expression.
+     * @param expression the key expression to compile
+     * @return the compiled expression or {@code null} if the expression cannot be compiled against this type
+     */
+    @API(API.Status.INTERNAL)
+    @Nullable
+    public CompiledKeyExpression getCompiledKeyExpression(@Nonnull KeyExpression expression) {
+        try {
+            return compiledKeyExpressions.get(expression, () -> Optional.ofNullable(CompiledKeyExpression.compile(expression, descriptor))).orElse(null);
+        } catch (ExecutionException ex) {
+            throw new RecordCoreException("unable to compile key expression", ex.getCause());
+        }
+    }
+
     /**
      * Get the meta-data of which this record type is a part.
      * @return owning meta-data
@@ -0,0 +1,332 @@
+/*
+ * CompiledKeyExpression.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.metadata.expressions;
+
+import com.apple.foundationdb.API;
+import com.apple.foundationdb.record.metadata.Key;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecord;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link KeyExpression} that has been bound to a particular record {@link Descriptors.Descriptor} and flattened
+ * into a fixed list of columns.
+ *
+ * <p>
+ * Only expressions that always produce exactly one {@link Key.Evaluated} can be compiled. That is,
+ * {@linkplain FieldKeyExpression fields} that are not repeated, {@linkplain NestingKeyExpression nestings}
+ * whose parent is not repeated, {@linkplain ThenKeyExpression concatenations} of those,
+ * {@linkplain RecordTypeKeyExpression the record type key}, and {@linkplain GroupingKeyExpression groupings}
+ * or {@linkplain KeyWithValueExpression key-with-values} wrapping them. Each column is resolved to a path of
+ * {@link Descriptors.FieldDescriptor}s at compile time, so evaluation does not need to look fields up by name
+ * or build (and then cross-multiply) intermediate lists of keys. The result of evaluation is the same as
+ * evaluating the original expression.
+ * </p>
+ *
+ * <p>
+ * Compiled expressions are cached per record type: see {@link com.apple.foundationdb.record.metadata.RecordType#getCompiledKeyExpression}.
+ * Because every column is identified by its field path, the values of columns are also shared between all the
+ * compiled expressions evaluated against the same record, through its {@link FDBRecord#getEvaluationCache EvaluationCache}.
+ * So when a record is saved, a field used by many indexes of its type is only read from the message once.
+ * </p>
+ */
+@API(API.Status.INTERNAL)
+public class CompiledKeyExpression {
+    @Nonnull
+    private final KeyExpression expression;
+    @Nonnull
+    private final Descriptors.Descriptor descriptor;
+    @Nonnull
+    private final Column[] columns;
+
+    private CompiledKeyExpression(@Nonnull KeyExpression expression, @Nonnull Descriptors.Descriptor descriptor, @Nonnull List<Column> columns) {
+        this.expression = expression;
+        this.descriptor = descriptor;
+        this.columns = columns.toArray(new Column[0]);
+    }
+
+    /**
+     * Compile the given expression for records of the given type.
+     * @param expression the expression to compile
+     * @param descriptor the descriptor of the records against which the expression will be evaluated
+     * @return the compiled expression or {@code null} if the expression cannot be compiled
+     */
+    @Nullable
+    public static CompiledKeyExpression compile(@Nonnull KeyExpression expression, @Nonnull Descriptors.Descriptor descriptor) {
+        final List<Column> columns = new ArrayList<>(expression.getColumnSize());
+        if (addColumns(expression, descriptor, Collections.emptyList(), Collections.emptyList(), columns)) {
+            return new CompiledKeyExpression(expression, descriptor, columns);
+        } else {
+            return null;
+        }
+    }
+
+    private static boolean addColumns(@Nonnull KeyExpression expression, @Nonnull Descriptors.Descriptor descriptor,
+                                      @Nonnull List<Descriptors.FieldDescriptor> parentDescriptors,
+                                      @Nonnull List<FieldKeyExpression> parents,
+                                      @Nonnull List<Column> columns) {
+        if (expression instanceof FieldKeyExpression) {
+            final FieldKeyExpression field = (FieldKeyExpression)expression;
+            if (!isSingleField(field, descriptor)) {
+                return false;
+            }
+            final List<Descriptors.FieldDescriptor> descriptorPath = new ArrayList<>(parentDescriptors);
+            descriptorPath.add(descriptor.findFieldByName(field.getFieldName()));
+            final List<FieldKeyExpression> path = new ArrayList<>(parents);
+            path.add(field);
+            columns.add(Column.forPath(descriptorPath, path));
+            return true;
+        } else if (expression instanceof NestingKeyExpression) {
+            final NestingKeyExpression nesting = (NestingKeyExpression)expression;
+            final FieldKeyExpression parent = nesting.getParent();
+            if (!isSingleField(parent, descriptor)) {
+                return false;
+            }
+            final Descriptors.FieldDescriptor fieldDescriptor = descriptor.findFieldByName(parent.getFieldName());
+            if (fieldDescriptor.getJavaType() != Descriptors.FieldDescriptor.JavaType.MESSAGE ||
+                    TupleFieldsHelper.isTupleField(fieldDescriptor.getMessageType())) {
+                return false;
+            }
+            final List<Descriptors.FieldDescriptor> descriptorPath = new ArrayList<>(parentDescriptors);
+            descriptorPath.add(fieldDescriptor);
+            final List<FieldKeyExpression> path = new ArrayList<>(parents);
+            path.add(parent);
+            return addColumns(nesting.getChild(), fieldDescriptor.getMessageType(), descriptorPath, path, columns);
+        } else if (expression instanceof ThenKeyExpression) {
+            for (KeyExpression child : ((ThenKeyExpression)expression).getChildren()) {
+                if (!addColumns(child, descriptor, parentDescriptors, parents, columns)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (expression instanceof GroupingKeyExpression) {
+            return addColumns(((GroupingKeyExpression)expression).getWholeKey(), descriptor, parentDescriptors, parents, columns);
+        } else if (expression instanceof KeyWithValueExpression) {
+            return addColumns(((KeyWithValueExpression)expression).getChild(), descriptor, parentDescriptors, parents, columns);
+        } else if (expression instanceof EmptyKeyExpression) {
+            return true;
+        } else if (expression instanceof RecordTypeKeyExpression) {
+            columns.add(Column.RECORD_TYPE);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private static boolean isSingleField(@Nonnull FieldKeyExpression field, @Nonnull Descriptors.Descriptor descriptor) {
+        if (field.getFanType() != KeyExpression.FanType.None) {
+            return false;
+        }
+        final Descriptors.FieldDescriptor fieldDescriptor = descriptor.findFieldByName(field.getFieldName());
+        return fieldDescriptor != null && !fieldDescriptor.isRepeated();
+    }
+
+    /**
+     * Get the expression that was compiled.
+     * @return the original expression
+     */
+    @Nonnull
+    public KeyExpression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Get the record descriptor to which the expression was bound.
+     * @return the record descriptor
+     */
+    @Nonnull
+    public Descriptors.Descriptor getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * Evaluate against a given record. If the record is not of the type that this was compiled for, the
+     * original expression is evaluated instead.
+     * @param <M> the type of record
+     * @param record the record on which to evaluate the expression
+     * @return the list of evaluated keys, which will always be a singleton for records of the compiled type
+     * @see KeyExpression#evaluate
+     */
+    @Nonnull
+    public <M extends Message> List<Key.Evaluated> evaluate(@Nullable FDBRecord<M> record) {
+        if (record == null) {
+            return evaluateMessage(null, null);
+        }
+        return evaluateMessage(record, record.getRecord(), record.getEvaluationCache());
+    }
+
+    /**
+     * Evaluate against a given message.
+     * @param <M> the type of record
+     * @param record the record on which to evaluate the expression
+     * @param message the Protobuf message to evaluate against
+     * @return the list of evaluated keys
+     * @see KeyExpression#evaluateMessage
+     */
+    @Nonnull
+    public <M extends Message> List<Key.Evaluated> evaluateMessage(@Nullable FDBRecord<M> record, @Nullable Message message) {
+        return evaluateMessage(record, message, null);
+    }
+
+    /**
+     * Evaluate against a given message, reusing any column values already computed for it.
+     * @param <M> the type of record
+     * @param record the record on which to evaluate the expression
+     * @param message the Protobuf message to evaluate against
+     * @param cache previously computed column values for {@code message}, to which new ones are added, or {@code null}
+     * @return the list of evaluated keys
+     * @see KeyExpression#evaluateMessage
+     */
+    @Nonnull
+    public <M extends Message> List<Key.Evaluated> evaluateMessage(@Nullable FDBRecord<M> record, @Nullable Message message,
+                                                                   @Nullable EvaluationCache cache) {
+        if (message != null && message.getDescriptorForType() != descriptor) {
+            return expression.evaluateMessage(record, message);
+        }
+        final Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            final Column column = columns[i];
+            if (cache == null) {
+                values[i] = column.getValue(record, message);
+            } else {
+                values[i] = cache.values.computeIfAbsent(column, c -> c.getValue(record, message));
+            }
+        }
+        return Collections.singletonList(Key.Evaluated.concatenate(Arrays.asList(values)));
+    }
+
+    @Override
+    public String toString() {
+        return "Compiled { " + expression + " for " + descriptor.getName() + " }";
+    }
+
+    /**
+     * Column values already computed for a single record, shared by all of the compiled expressions evaluated
+     * against that record. Column values never change for a given record, since the record itself is immutable.
+     */
+    @API(API.Status.INTERNAL)
+    public static class EvaluationCache {
+        // Values are never null, since unset fields evaluate to a null stand-in.
+        @Nonnull
+        private final Map<Column, Object> values = new ConcurrentHashMap<>();
+
+        /**
+         * Get the number of column values that have been computed.
+         * @return the number of distinct columns evaluated
+         */
+        public int size() {
+            return values.size();
+        }
+    }
+
+    /**
+     * A single column of the result: either the record type key or the value at a path of nested fields.
+     * Columns with the same path are equal, even if they come from different expressions.
+     */
+    private static class Column {
+        static final Column RECORD_TYPE = new Column(null, null);
+
+        @Nullable
+        private final Descriptors.FieldDescriptor[] path;
+        @Nullable
+        private final Key.Evaluated.NullStandin[] nullStandins;
+        private final boolean tupleField;
+        // Columns are looked up in evaluation caches far more often than they are created.
+        private final int hashCode;
+
+        private Column(@Nullable Descriptors.FieldDescriptor[] path, @Nullable Key.Evaluated.NullStandin[] nullStandins) {
+            this.path = path;
+            this.nullStandins = nullStandins;
+            this.hashCode = 31 * Arrays.hashCode(path) + Arrays.hashCode(nullStandins);
+            if (path == null) {
+                tupleField = false;
+            } else {
+                final Descriptors.FieldDescriptor leaf = path[path.length - 1];
+                tupleField = leaf.getJavaType() == Descriptors.FieldDescriptor.JavaType.MESSAGE &&
+                             TupleFieldsHelper.isTupleField(leaf.getMessageType());
+            }
+        }
+
+        @Nonnull
+        static Column forPath(@Nonnull List<Descriptors.FieldDescriptor> fieldDescriptors, @Nonnull List<FieldKeyExpression> fields) {
+            final Key.Evaluated.NullStandin[] nullStandins = new Key.Evaluated.NullStandin[fields.size()];
+            for (int i = 0; i < nullStandins.length; i++) {
+                nullStandins[i] = fields.get(i).getNullStandin();
+            }
+            return new Column(fieldDescriptors.toArray(new Descriptors.FieldDescriptor[0]), nullStandins);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Column that = (Column)o;
+            return hashCode == that.hashCode && Arrays.equals(path, that.path) && Arrays.equals(nullStandins, that.nullStandins);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Nullable
+        Object getValue(@Nullable FDBRecord<?> record, @Nullable Message message) {
+            if (path == null) {
+                return record != null ? record.getRecordType().getRecordTypeKey() : Key.Evaluated.NullStandin.NULL;
+            }
+            Message current = message;
+            final int last = path.length - 1;
+            for (int i = 0; i < last; i++) {
+                // A nested message that is not set is treated the same as the child being evaluated on null.
+                if (current == null) {
+                    break;
+                }
+                if (nullStandins[i] == Key.Evaluated.NullStandin.NOT_NULL || current.hasField(path[i])) {
+                    current = (Message)current.getField(path[i]);
+                } else {
+                    current = null;
+                }
+            }
+            if (current != null && (nullStandins[last] == Key.Evaluated.NullStandin.NOT_NULL || current.hasField(path[last]))) {
+                final Object value = current.getField(path[last]);
+                if (tupleField) {
+                    return TupleFieldsHelper.fromProto((Message)value, path[last].getMessageType());
+                }
+                return value;
+            } else {
+                return nullStandins[last];
+            }
+        }
+    }
+}
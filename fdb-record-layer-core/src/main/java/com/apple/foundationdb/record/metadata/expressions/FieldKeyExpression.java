@@ -297,6 +297,14 @@ public class FieldKeyExpression extends BaseKeyExpression implements AtomKeyExpr
         return fanType;
     }
 
+    /**
+     * Get how this field's value is interpreted when the field is not set.
+     * @return the null interpretation of this field
+     */
+    public Key.Evaluated.NullStandin getNullStandin() {
+        return nullStandin;
+    }
+
     @Override
     public String toString() {
         return "Field { '" + fieldName + "' " + fanType + '}';
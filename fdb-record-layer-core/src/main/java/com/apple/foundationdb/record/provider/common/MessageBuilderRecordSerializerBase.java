@@ -82,12 +82,23 @@ public abstract class MessageBuilderRecordSerializerBase<M extends Message, U ex
                                           @Nonnull B unionBuilder,
                                           @Nonnull M record);
 
+    @Nonnull
+    @Override
+    public M deserialize(@Nonnull RecordMetaData metaData,
+                         @Nonnull Tuple primaryKey,
+                         @Nonnull byte[] serialized,
+                         @Nullable StoreTimer timer) {
+        return deserialize(metaData, primaryKey, serialized, 0, serialized.length, timer);
+    }
+
     @Nonnull
     @Override
     @SuppressWarnings({"unchecked", "squid:S1193"}) // exception type checking is less clumsy
     public M deserialize(@Nonnull RecordMetaData metaData,
                          @Nonnull Tuple primaryKey,
                          @Nonnull byte[] serialized,
+                         int offset,
+                         int length,
                          @Nullable StoreTimer timer) {
         long startTime = System.nanoTime();
         try {
@@ -101,7 +112,7 @@ public abstract class MessageBuilderRecordSerializerBase<M extends Message, U ex
             }
             U storedRecord;
             try {
-                storedRecord = (U) unionBuilder.mergeFrom(serialized).build();
+                storedRecord = (U) unionBuilder.mergeFrom(serialized, offset, length).build();
             } catch (InvalidProtocolBufferException | UninitializedMessageException ex) {
                 InvalidProtocolBufferException iex;
                 if (ex instanceof InvalidProtocolBufferException) {
@@ -28,6 +28,7 @@ import com.google.protobuf.Message;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Arrays;
 
 /**
  * A converter between a Protobuf record and a byte string stored in one or more values in the FDB key-value store.
@@ -76,6 +77,30 @@ public interface RecordSerializer<M extends Message> {
     M deserialize(@Nonnull RecordMetaData metaData, @Nonnull Tuple primaryKey,
                   @Nonnull byte[] serialized, @Nullable StoreTimer timer);
 
+    /**
+     * Convert part of a byte array to a Protobuf record. This allows a serializer that wraps another one
+     * to pass along the portion of its input that the inner serializer needs to read without copying it.
+     * The default implementation copies the given range (if it is not the whole array) and then calls
+     * {@link #deserialize(RecordMetaData, Tuple, byte[], StoreTimer) deserialize()}.
+     *
+     * @param metaData the store's meta-data
+     * @param primaryKey the primary key of the record
+     * @param serialized an array containing the serialized bytes
+     * @param offset the position in {@code serialized} at which the serialized bytes begin
+     * @param length the number of serialized bytes
+     * @param timer a timer used to instrument deserialization
+     * @return the deserialized record
+     */
+    @Nonnull
+    default M deserialize(@Nonnull RecordMetaData metaData, @Nonnull Tuple primaryKey,
+                          @Nonnull byte[] serialized, int offset, int length, @Nullable StoreTimer timer) {
+        if (offset == 0 && length == serialized.length) {
+            return deserialize(metaData, primaryKey, serialized, timer);
+        } else {
+            return deserialize(metaData, primaryKey, Arrays.copyOfRange(serialized, offset, offset + length), timer);
+        }
+    }
+
     /**
      * Convert this typed record serializer to an untyped one.
      *
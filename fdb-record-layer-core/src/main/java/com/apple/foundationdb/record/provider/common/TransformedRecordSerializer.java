@@ -316,7 +316,8 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
                             .addLogInfo(LogMessageKeys.PRIMARY_KEY, primaryKey);
                 }
             }
-            return inner.deserialize(metaData, primaryKey, state.getDataArray(), timer);
+            // Hand the inner serializer the data in place, as this may be only part of a (large) array.
+            return inner.deserialize(metaData, primaryKey, state.data, state.offset, state.length, timer);
         }
     }
 
@@ -0,0 +1,303 @@
+/*
+ * BulkRecordDeleter.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.EvaluationContext;
+import com.apple.foundationdb.record.ExecuteProperties;
+import com.apple.foundationdb.record.PipelineOperation;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.ScanProperties;
+import com.apple.foundationdb.record.query.expressions.QueryComponent;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlan;
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.protobuf.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Delete all the records in a record store that match a query, using as many transactions as it takes.
+ *
+ * <p>
+ * Each transaction reads up to {@link #getRecordsPerTransaction} records and then deletes the matching ones together with
+ * {@link FDBRecordStore#deleteRecordsAsync}, which updates each record count key once for the whole batch, before
+ * committing. Index entries are still removed one record at a time for each index, though different indexes are updated
+ * concurrently. The next transaction resumes from the continuation reached by the last one that
+ * committed, which is kept in a {@link ParallelRecordScanner.Shard}, so an interrupted delete can be resumed from it.
+ * </p>
+ *
+ * <p>
+ * Records can be found either by executing a query plan, in which case there is a single position covering all of
+ * them, or by scanning {@linkplain #computeShardsAsync shards} of the store and evaluating a filter on each record,
+ * in which case up to {@link #getParallelism} shards are processed at once.
+ * </p>
+ *
+ * <pre><code>
+ * BulkRecordDeleter deleter = new BulkRecordDeleter(fdb.newRunner(), recordStoreBuilder);
+ * List&lt;ParallelRecordScanner.Shard&gt; shards = deleter.computeShardsAsync().join();
+ * long deleted = deleter.deleteWhereAsync(Query.field("expired").equalsValue(true), shards).join();
+ * </code></pre>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class BulkRecordDeleter {
+    /**
+     * The default maximum number of records deleted in one transaction.
+     */
+    public static final int DEFAULT_RECORDS_PER_TRANSACTION = 1_000;
+    /**
+     * The default time limit for finding records in each transaction, which leaves time to delete them before the
+     * transaction gets too old.
+     */
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 2_000;
+
+    @Nonnull
+    private final FDBDatabaseRunner runner;
+    @Nonnull
+    private final FDBRecordStore.Builder recordStoreBuilder;
+    private int parallelism = ParallelRecordScanner.DEFAULT_PARALLELISM;
+    private int maxShards = ParallelRecordScanner.DEFAULT_PARALLELISM * 4;
+    private int recordsPerTransaction = DEFAULT_RECORDS_PER_TRANSACTION;
+    private long timeLimitMillis = DEFAULT_TIME_LIMIT_MILLIS;
+
+    public BulkRecordDeleter(@Nonnull FDBDatabaseRunner runner, @Nonnull FDBRecordStore.Builder recordStoreBuilder) {
+        this.runner = runner;
+        this.recordStoreBuilder = recordStoreBuilder;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set the number of shards that are deleted from at once.
+     * @param parallelism the number of concurrent shard deletes
+     * @return this deleter
+     */
+    @Nonnull
+    public BulkRecordDeleter setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new RecordCoreArgumentException("parallelism must be positive")
+                    .addLogInfo("parallelism", parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public int getMaxShards() {
+        return maxShards;
+    }
+
+    /**
+     * Set the maximum number of shards into which {@link #computeShardsAsync} splits the store.
+     * @param maxShards the maximum number of shards
+     * @return this deleter
+     */
+    @Nonnull
+    public BulkRecordDeleter setMaxShards(int maxShards) {
+        if (maxShards < 1) {
+            throw new RecordCoreArgumentException("maximum number of shards must be positive")
+                    .addLogInfo("maxShards", maxShards);
+        }
+        this.maxShards = maxShards;
+        return this;
+    }
+
+    public int getRecordsPerTransaction() {
+        return recordsPerTransaction;
+    }
+
+    /**
+     * Set the maximum number of records that are deleted in one transaction.
+     * @param recordsPerTransaction the maximum number of records per transaction
+     * @return this deleter
+     */
+    @Nonnull
+    public BulkRecordDeleter setRecordsPerTransaction(int recordsPerTransaction) {
+        if (recordsPerTransaction < 1) {
+            throw new RecordCoreArgumentException("records per transaction must be positive")
+                    .addLogInfo("recordsPerTransaction", recordsPerTransaction);
+        }
+        this.recordsPerTransaction = recordsPerTransaction;
+        return this;
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    /**
+     * Set the time limit for finding records to delete in each transaction.
+     * A transaction that reaches it deletes the records found so far and the next one continues from there.
+     * @param timeLimitMillis the time limit in milliseconds or {@link ExecuteProperties#UNLIMITED_TIME}
+     * @return this deleter
+     */
+    @Nonnull
+    public BulkRecordDeleter setTimeLimitMillis(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+        return this;
+    }
+
+    /**
+     * Split the record store into shards for {@link #deleteWhereAsync}.
+     * @return a future that completes to a list of shards covering all the records in the store
+     */
+    @Nonnull
+    public CompletableFuture<List<ParallelRecordScanner.Shard>> computeShardsAsync() {
+        return new ParallelRecordScanner(runner, recordStoreBuilder)
+                .setMaxShards(maxShards)
+                .computeShardsAsync();
+    }
+
+    /**
+     * Delete all the records returned by a query plan.
+     *
+     * The plan is executed from the continuation of the given position, which is advanced after each transaction
+     * commits. The range of the position is not used, so a new position can be {@code new Shard(TupleRange.ALL, null)}.
+     * Only the primary keys of the query results are used, so the plan can be a covering index scan. A record returned
+     * more than once, as by a scan of an index on a repeated field, is only deleted and counted once.
+     * @param plan the plan whose records should be deleted
+     * @param position the position from which to continue and that is updated as records are deleted
+     * @return a future that completes to the number of records deleted
+     */
+    @Nonnull
+    public CompletableFuture<Long> deleteAsync(@Nonnull RecordQueryPlan plan, @Nonnull ParallelRecordScanner.Shard position) {
+        final ExecuteProperties executeProperties = executeProperties();
+        final AtomicLong deleted = new AtomicLong();
+        return AsyncUtil.whileTrue(() -> {
+            if (position.isDone()) {
+                return AsyncUtil.READY_FALSE;
+            }
+            return runner.runAsync(context -> openRecordStore(context).thenCompose(store -> {
+                final RecordCursor<FDBQueriedRecord<Message>> cursor = store.executeQuery(plan, position.getContinuation(), executeProperties);
+                final Batch<Tuple> batch = new Batch<>();
+                return batch.read(cursor, FDBQueriedRecord::getPrimaryKey)
+                        .thenCompose(vignore -> store.deleteRecordsAsync(batch.elements))
+                        .thenApply(count -> {
+                            batch.deleted = count;
+                            return batch;
+                        });
+            })).thenApply(batch -> advance(position, batch, deleted));
+        }, runner.getExecutor()).thenApply(vignore -> deleted.get());
+    }
+
+    /**
+     * Delete all the records in the given shards that match a filter.
+     *
+     * Up to {@link #getParallelism} shards are processed at once. Each shard is scanned from its continuation,
+     * which is advanced after each transaction commits. Shards that are already {@linkplain ParallelRecordScanner.Shard#isDone done}
+     * are skipped.
+     * @param filter the filter that records to be deleted match
+     * @param shards the shards from which to delete records
+     * @return a future that completes to the number of records deleted
+     */
+    @Nonnull
+    public CompletableFuture<Long> deleteWhereAsync(@Nonnull QueryComponent filter, @Nonnull List<ParallelRecordScanner.Shard> shards) {
+        final Queue<ParallelRecordScanner.Shard> remaining = new ConcurrentLinkedQueue<>();
+        for (ParallelRecordScanner.Shard shard : shards) {
+            if (!shard.isDone()) {
+                remaining.add(shard);
+            }
+        }
+        final ScanProperties scanProperties = new ScanProperties(executeProperties());
+        final AtomicLong deleted = new AtomicLong();
+        final int workers = Math.min(parallelism, remaining.size());
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(AsyncUtil.whileTrue(() -> {
+                final ParallelRecordScanner.Shard shard = remaining.poll();
+                if (shard == null) {
+                    return AsyncUtil.READY_FALSE;
+                }
+                return AsyncUtil.whileTrue(() -> deleteShardBatch(filter, shard, scanProperties, deleted), runner.getExecutor())
+                        .thenApply(vignore -> true);
+            }, runner.getExecutor()));
+        }
+        return AsyncUtil.whenAll(futures).thenApply(vignore -> deleted.get());
+    }
+
+    // Delete the matching records from one batch of the shard in its own transaction and return whether there is more.
+    @Nonnull
+    private CompletableFuture<Boolean> deleteShardBatch(@Nonnull QueryComponent filter, @Nonnull ParallelRecordScanner.Shard shard,
+                                                        @Nonnull ScanProperties scanProperties, @Nonnull AtomicLong deleted) {
+        return runner.runAsync(context -> openRecordStore(context).thenCompose(store -> {
+            final RecordCursor<FDBStoredRecord<Message>> cursor = store.scanRecords(shard.getRange(), shard.getContinuation(), scanProperties)
+                    .filterAsync(rec -> filter.evalAsync(store, EvaluationContext.EMPTY, rec), store.getPipelineSize(PipelineOperation.RECORD_ASYNC_FILTER));
+            final Batch<FDBStoredRecord<Message>> batch = new Batch<>();
+            return batch.read(cursor, rec -> rec)
+                    .thenCompose(vignore -> store.deleteStoredRecords(batch.elements))
+                    .thenApply(vignore -> {
+                        batch.deleted = batch.elements.size();
+                        return batch;
+                    });
+        })).thenApply(batch -> advance(shard, batch, deleted));
+    }
+
+    private static boolean advance(@Nonnull ParallelRecordScanner.Shard position, @Nonnull Batch<?> batch, @Nonnull AtomicLong deleted) {
+        deleted.addAndGet(batch.deleted);
+        position.advance(batch.continuation, batch.exhausted);
+        return !batch.exhausted;
+    }
+
+    @Nonnull
+    private ExecuteProperties executeProperties() {
+        return ExecuteProperties.newBuilder()
+                .setReturnedRowLimit(recordsPerTransaction)
+                .setTimeLimit(timeLimitMillis)
+                .build();
+    }
+
+    @SuppressWarnings("squid:S1452")
+    private CompletableFuture<FDBRecordStore> openRecordStore(@Nonnull FDBRecordContext context) {
+        return recordStoreBuilder.copyBuilder().setContext(context).openAsync();
+    }
+
+    private static class Batch<T> {
+        @Nonnull
+        private final List<T> elements = new ArrayList<>();
+        @Nullable
+        private byte[] continuation;
+        private boolean exhausted;
+        private int deleted;
+
+        @Nonnull
+        <R> CompletableFuture<Void> read(@Nonnull RecordCursor<R> cursor, @Nonnull Function<R, T> element) {
+            return AsyncUtil.whileTrue(() -> cursor.onNext().thenApply(result -> {
+                if (result.hasNext()) {
+                    elements.add(element.apply(result.get()));
+                    return true;
+                }
+                continuation = result.getContinuation().toBytes();
+                exhausted = result.getNoNextReason().isSourceExhausted();
+                return false;
+            }), cursor.getExecutor()).whenComplete((vignore, err) -> cursor.close());
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * ChangeFeed.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.async.MoreAsyncUtil;
+import com.apple.foundationdb.record.ExecuteProperties;
+import com.apple.foundationdb.record.IndexScanType;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.ScanProperties;
+import com.apple.foundationdb.record.TupleRange;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.metadata.IndexOptions;
+import com.apple.foundationdb.record.metadata.IndexTypes;
+import com.apple.foundationdb.record.provider.foundationdb.indexes.VersionIndexMaintainer;
+import com.google.protobuf.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Follow the records added to a {@link IndexTypes#VERSION} index across transactions.
+ *
+ * <p>
+ * Each batch is read in its own transaction, and returns up to {@link #getBatchSize} records in index order along with a
+ * continuation from which to read the next batch. The continuation is just the position in the index, so it can be
+ * persisted and used to resume the feed at any later time. For an index whose key is the record version, that order is
+ * the order in which the records were committed, and a new record always sorts after the continuation of any batch
+ * read before it was committed. For a grouped index, {@link #setRange} restricts the feed to a single group.
+ * </p>
+ *
+ * <p>
+ * When there are no new records, {@link #nextBatchAsync} waits for some before reading again. If the index has the
+ * {@link IndexOptions#VERSION_NOTIFY_CHANGES} option, this uses an FDB watch, which fires as soon as an entry is
+ * added. Otherwise, it sleeps for the {@linkplain #setPollIntervalMillis poll interval}.
+ * </p>
+ *
+ * <p>
+ * Since deleting a record removes its entry from the index, deletes are not reported by the feed, and a record that
+ * is saved again is reported again at its new version.
+ * </p>
+ *
+ * <pre><code>
+ * ChangeFeed feed = new ChangeFeed(fdb.newRunner(), recordStoreBuilder, "globalVersion");
+ * ChangeFeed.Batch batch = feed.nextBatchAsync(savedContinuation).join();
+ * process(batch.getRecords());
+ * savedContinuation = batch.getContinuation();
+ * </code></pre>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class ChangeFeed {
+    /**
+     * The default maximum number of records in a batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    /**
+     * The default time to wait on a watch before reading again anyway.
+     */
+    public static final long DEFAULT_WATCH_TIMEOUT_MILLIS = 10_000;
+    /**
+     * The default time to wait before reading again when not using a watch.
+     */
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = 1_000;
+
+    @Nonnull
+    private final FDBDatabaseRunner runner;
+    @Nonnull
+    private final FDBRecordStore.Builder recordStoreBuilder;
+    @Nonnull
+    private final String indexName;
+    @Nonnull
+    private TupleRange range = TupleRange.ALL;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private long watchTimeoutMillis = DEFAULT_WATCH_TIMEOUT_MILLIS;
+    private long pollIntervalMillis = DEFAULT_POLL_INTERVAL_MILLIS;
+
+    public ChangeFeed(@Nonnull FDBDatabaseRunner runner, @Nonnull FDBRecordStore.Builder recordStoreBuilder,
+                      @Nonnull String indexName) {
+        this.runner = runner;
+        this.recordStoreBuilder = recordStoreBuilder;
+        this.indexName = indexName;
+    }
+
+    @Nonnull
+    public String getIndexName() {
+        return indexName;
+    }
+
+    @Nonnull
+    public TupleRange getRange() {
+        return range;
+    }
+
+    /**
+     * Set the range of the index to follow.
+     * @param range the range of index keys to return
+     * @return this feed
+     */
+    @Nonnull
+    public ChangeFeed setRange(@Nonnull TupleRange range) {
+        this.range = range;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Set the maximum number of records returned in one batch.
+     * @param batchSize the maximum batch size
+     * @return this feed
+     */
+    @Nonnull
+    public ChangeFeed setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new RecordCoreArgumentException("batch size must be positive")
+                    .addLogInfo("batchSize", batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public long getWatchTimeoutMillis() {
+        return watchTimeoutMillis;
+    }
+
+    /**
+     * Set the longest time that {@link #nextBatchAsync} waits on a watch before giving up and returning an empty batch.
+     * @param watchTimeoutMillis the watch timeout in milliseconds
+     * @return this feed
+     */
+    @Nonnull
+    public ChangeFeed setWatchTimeoutMillis(long watchTimeoutMillis) {
+        this.watchTimeoutMillis = watchTimeoutMillis;
+        return this;
+    }
+
+    public long getPollIntervalMillis() {
+        return pollIntervalMillis;
+    }
+
+    /**
+     * Set the time that {@link #nextBatchAsync} waits before reading again when the index does not support watches.
+     * @param pollIntervalMillis the poll interval in milliseconds
+     * @return this feed
+     */
+    @Nonnull
+    public ChangeFeed setPollIntervalMillis(long pollIntervalMillis) {
+        this.pollIntervalMillis = pollIntervalMillis;
+        return this;
+    }
+
+    /**
+     * Read the records that are already in the index after the given continuation, without waiting for more.
+     * @param continuation the continuation from a previous batch or {@code null} to start from the beginning
+     * @return a future that completes to the next batch, which may be empty
+     */
+    @Nonnull
+    public CompletableFuture<Batch> readBatchAsync(@Nullable byte[] continuation) {
+        return runner.runAsync(context -> readBatch(context, continuation, false));
+    }
+
+    /**
+     * Read the records in the index after the given continuation, waiting for some to be added if there are none.
+     * The returned batch will still be empty if nothing was added before the watch timeout or poll interval expired.
+     * @param continuation the continuation from a previous batch or {@code null} to start from the beginning
+     * @return a future that completes to the next batch
+     */
+    @Nonnull
+    public CompletableFuture<Batch> nextBatchAsync(@Nullable byte[] continuation) {
+        return runner.runAsync(context -> readBatch(context, continuation, true)).thenCompose(batch -> {
+            if (!batch.isEmpty()) {
+                return CompletableFuture.completedFuture(batch);
+            }
+            final CompletableFuture<Void> watch = batch.watch;
+            final CompletableFuture<?> wakeUp;
+            if (watch == null) {
+                wakeUp = MoreAsyncUtil.delayedFuture(pollIntervalMillis, TimeUnit.MILLISECONDS);
+            } else {
+                wakeUp = CompletableFuture.anyOf(watch, MoreAsyncUtil.delayedFuture(watchTimeoutMillis, TimeUnit.MILLISECONDS));
+            }
+            // A failed watch just means reading again sooner.
+            return wakeUp.handle((ignore, err) -> {
+                if (watch != null) {
+                    watch.cancel(true);
+                }
+                return null;
+            }).thenCompose(vignore -> readBatchAsync(continuation));
+        });
+    }
+
+    @Nonnull
+    private CompletableFuture<Batch> readBatch(@Nonnull FDBRecordContext context, @Nullable byte[] continuation,
+                                               boolean watchIfEmpty) {
+        return recordStoreBuilder.copyBuilder().setContext(context).openAsync().thenCompose(store -> {
+            final Index index = store.getRecordMetaData().getIndex(indexName);
+            if (!IndexTypes.VERSION.equals(index.getType())) {
+                throw new RecordCoreArgumentException("change feed requires a version index")
+                        .addLogInfo("indexName", indexName)
+                        .addLogInfo("indexType", index.getType());
+            }
+            final ScanProperties scanProperties = new ScanProperties(ExecuteProperties.newBuilder()
+                    .setReturnedRowLimit(batchSize)
+                    .build());
+            final RecordCursor<FDBIndexedRecord<Message>> cursor = store.scanIndexRecords(indexName, IndexScanType.BY_VALUE,
+                    range, continuation, scanProperties);
+            final List<FDBIndexedRecord<Message>> records = new ArrayList<>();
+            final AtomicReference<byte[]> lastContinuation = new AtomicReference<>(continuation);
+            return AsyncUtil.whileTrue(() -> cursor.onNext().thenApply(result -> {
+                if (result.hasNext()) {
+                    records.add(result.get());
+                    lastContinuation.set(result.getContinuation().toBytes());
+                    return true;
+                } else {
+                    return false;
+                }
+            }), cursor.getExecutor()).thenApply(vignore -> {
+                cursor.close();
+                CompletableFuture<Void> watch = null;
+                if (records.isEmpty() && watchIfEmpty && index.getBooleanOption(IndexOptions.VERSION_NOTIFY_CHANGES, false)) {
+                    // Set in the same transaction as the read, so that it fires for any entry added after it.
+                    watch = context.ensureActive().watch(VersionIndexMaintainer.changeNotificationKey(store.indexSecondarySubspace(index)));
+                }
+                return new Batch(records, lastContinuation.get(), watch);
+            });
+        });
+    }
+
+    /**
+     * The records read from the index in one transaction.
+     */
+    public static class Batch {
+        @Nonnull
+        private final List<FDBIndexedRecord<Message>> records;
+        @Nullable
+        private final byte[] continuation;
+        @Nullable
+        private final CompletableFuture<Void> watch;
+
+        Batch(@Nonnull List<FDBIndexedRecord<Message>> records, @Nullable byte[] continuation,
+              @Nullable CompletableFuture<Void> watch) {
+            this.records = Collections.unmodifiableList(records);
+            this.continuation = continuation;
+            this.watch = watch;
+        }
+
+        /**
+         * Get the records in this batch, in index order.
+         * @return the records read
+         */
+        @Nonnull
+        public List<FDBIndexedRecord<Message>> getRecords() {
+            return records;
+        }
+
+        /**
+         * Get the continuation from which to read the next batch. If the batch is empty, this is the same as the
+         * continuation from which it was read.
+         * @return the continuation after the last record in this batch
+         */
+        @Nullable
+        public byte[] getContinuation() {
+            return continuation;
+        }
+
+        public boolean isEmpty() {
+            return records.isEmpty();
+        }
+    }
+}
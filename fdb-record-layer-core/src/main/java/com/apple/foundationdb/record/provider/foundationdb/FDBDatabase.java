@@ -28,6 +28,7 @@ import com.apple.foundationdb.LocalityUtil;
 import com.apple.foundationdb.Transaction;
 import com.apple.foundationdb.async.AsyncUtil;
 import com.apple.foundationdb.async.CloseableAsyncIterator;
+import com.apple.foundationdb.async.RankedSetLevelCache;
 import com.apple.foundationdb.record.AsyncLoadingCache;
 import com.apple.foundationdb.record.RecordCoreRetriableTransactionException;
 import com.apple.foundationdb.record.ResolverStateProto;
@@ -35,6 +36,7 @@ import com.apple.foundationdb.record.logging.KeyValueLogMessage;
 import com.apple.foundationdb.record.provider.foundationdb.keyspace.LocatableResolver;
 import com.apple.foundationdb.record.provider.foundationdb.keyspace.ResolverResult;
 import com.apple.foundationdb.record.provider.foundationdb.keyspace.ScopedValue;
+import com.apple.foundationdb.subspace.Subspace;
 import com.apple.foundationdb.tuple.ByteArrayUtil;
 import com.apple.foundationdb.tuple.Tuple;
 import com.apple.foundationdb.tuple.TupleHelpers;
@@ -124,6 +126,7 @@ public class FDBDatabase {
     private boolean opened;
     private final Object reverseDirectoryCacheLock = new Object();
     private volatile FDBReverseDirectoryCache reverseDirectoryCache;
+    private volatile RankedSetLevelCache rankedSetLevelCache;
     private final int reverseDirectoryMaxRowsPerTransaction;
     private final long reverseDirectoryMaxMillisPerTransaction;
     private final Supplier<Boolean> transactionIsTracedSupplier;
@@ -356,6 +359,25 @@ public class FDBDatabase {
         return reverseDirectoryCache;
     }
 
+    /**
+     * Get the cache of the upper levels of ranked sets in this database.
+     * This is used by {@link com.apple.foundationdb.record.metadata.IndexTypes#RANK} indexes with the
+     * {@link com.apple.foundationdb.record.metadata.IndexOptions#RANK_CACHE_UPPER_LEVELS} option.
+     * @return the ranked set level cache for this database
+     */
+    @Nonnull
+    @API(API.Status.EXPERIMENTAL)
+    public RankedSetLevelCache getRankedSetLevelCache() {
+        if (rankedSetLevelCache == null) {
+            synchronized (this) {
+                if (rankedSetLevelCache == null) {
+                    rankedSetLevelCache = new RankedSetLevelCache();
+                }
+            }
+        }
+        return rankedSetLevelCache;
+    }
+
     private void setDirectoryCacheVersion(int version) {
         directoryCacheVersion.set(version);
     }
@@ -430,6 +452,16 @@ public class FDBDatabase {
         return factory.getExecutor();
     }
 
+    /**
+     * Get the executor used for CPU-heavy work.
+     * @return the executor for CPU-heavy work or {@code null} if such work is done on the {@linkplain #getExecutor main executor}
+     * @see FDBDatabaseFactory#setCpuExecutor
+     */
+    @Nullable
+    public Executor getCpuExecutor() {
+        return factory.getCpuExecutor();
+    }
+
     public Transaction createTransaction(Executor executor, boolean transactionIsTraced) {
         Transaction transaction = database.createTransaction(executor);
         if (transactionIsTraced) {
@@ -732,7 +764,27 @@ public class FDBDatabase {
     @API(API.Status.INTERNAL)
     public CompletableFuture<List<Tuple>> computeBoundaryKeys(@Nonnull FDBTransactionContext context, Tuple prefix,
                                                                int size, int count) {
-        byte[] prefixBytes = prefix.pack();
+        return computeBoundaryKeys(context, prefix.pack(), size, count);
+    }
+
+    /**
+     * Get key tuples that are more or less evenly distributed in the key-value space beneath the given subspace,
+     * based on the boundaries between the shards that store it.
+     * These keys can be used to split a range scan of the subspace into several scans of similar size.
+     * @param context context to use for reading the database
+     * @param subspace subspace beneath which to find boundaries
+     * @param size number of items needed in a tuple after the subspace
+     * @param count maximum number of keys to return
+     * @return future for list of boundary key tuples, relative to the subspace
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public CompletableFuture<List<Tuple>> computeBoundaryKeys(@Nonnull FDBTransactionContext context, @Nonnull Subspace subspace,
+                                                               int size, int count) {
+        return computeBoundaryKeys(context, subspace.getKey(), size, count);
+    }
+
+    private CompletableFuture<List<Tuple>> computeBoundaryKeys(@Nonnull FDBTransactionContext context, @Nonnull byte[] prefixBytes,
+                                                               int size, int count) {
         CloseableAsyncIterator<byte[]> iter = LocalityUtil.getBoundaryKeys(context.ensureActive(),
                                                                            prefixBytes, ByteArrayUtil.strinc(prefixBytes));
         List<Tuple> tuples = new ArrayList<>();
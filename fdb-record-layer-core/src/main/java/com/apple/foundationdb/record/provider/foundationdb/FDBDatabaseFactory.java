@@ -53,6 +53,8 @@ public class FDBDatabaseFactory {
     @Nullable
     private Executor networkExecutor = null;
     private Executor executor = ForkJoinPool.commonPool();
+    @Nullable
+    private Executor cpuExecutor = null;
 
     @Nullable
     private FDB fdb;
@@ -120,14 +122,81 @@ public class FDBDatabaseFactory {
     }
 
     @Nonnull
-    public Executor getExecutor() {
+    public synchronized Executor getExecutor() {
         return executor;
     }
 
-    public void setExecutor(@Nonnull Executor executor) {
+    public synchronized void setExecutor(@Nonnull Executor executor) {
         this.executor = executor;
     }
 
+    /**
+     * Get the executor used for CPU-heavy work, such as deserializing large records and tokenizing text.
+     * @return the executor for CPU-heavy work or {@code null} if such work is done on the {@linkplain #getExecutor main executor}
+     */
+    @Nullable
+    public synchronized Executor getCpuExecutor() {
+        return cpuExecutor;
+    }
+
+    /**
+     * Set the executor used for CPU-heavy work, such as deserializing large records and tokenizing text.
+     * When this is set, large records loaded in a pipeline are deserialized in parallel on this executor, and
+     * this work does not hold up the continuations of other futures on the {@linkplain #getExecutor main executor}.
+     * @param cpuExecutor the executor for CPU-heavy work or {@code null} to do such work on the main executor
+     */
+    public synchronized void setCpuExecutor(@Nullable Executor cpuExecutor) {
+        this.cpuExecutor = cpuExecutor;
+    }
+
+    /**
+     * Use separate pools of threads, rather than {@link ForkJoinPool#commonPool()}, for the continuations of futures and
+     * for CPU-heavy work. This sets both the {@linkplain #setExecutor main executor} and the {@linkplain #setCpuExecutor CPU executor}
+     * to new {@link FDBExecutorPool}s, whose counts can be used to monitor them. The CPU executor's queue holds up to
+     * {@link FDBExecutorPool#DEFAULT_QUEUE_CAPACITY} tasks.
+     * @param continuationThreads the number of threads for continuations
+     * @param cpuThreads the number of threads for CPU-heavy work
+     * @see #useDedicatedExecutors(int, int, int)
+     */
+    public void useDedicatedExecutors(int continuationThreads, int cpuThreads) {
+        useDedicatedExecutors(continuationThreads, cpuThreads, FDBExecutorPool.DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Use separate pools of threads, rather than {@link ForkJoinPool#commonPool()}, for the continuations of futures and
+     * for CPU-heavy work. This sets both the {@linkplain #setExecutor main executor} and the {@linkplain #setCpuExecutor CPU executor}
+     * to new {@link FDBExecutorPool}s, whose counts can be used to monitor them.
+     *
+     * <p>
+     * Only the CPU executor's queue is bounded. The main executor runs the continuations of FDB futures, which are
+     * submitted by the network thread, so its queue is unbounded so that the network thread never runs them itself.
+     * </p>
+     *
+     * <p>
+     * This must be called before any database is gotten from this factory, so that no open context is still using
+     * the executors that it replaces. Any pools set by a previous call are shut down, since nothing can be using them.
+     * </p>
+     * @param continuationThreads the number of threads for continuations
+     * @param cpuThreads the number of threads for CPU-heavy work
+     * @param cpuQueueCapacity the maximum number of tasks waiting for a thread in the pool for CPU-heavy work
+     * @throws RecordCoreException if a database has already been gotten from this factory
+     */
+    public synchronized void useDedicatedExecutors(int continuationThreads, int cpuThreads, int cpuQueueCapacity) {
+        if (!databases.isEmpty()) {
+            throw new RecordCoreException("dedicated executors must be set before any database is opened");
+        }
+        final Executor oldExecutor = executor;
+        final Executor oldCpuExecutor = cpuExecutor;
+        executor = new FDBExecutorPool("fdb-record-layer", continuationThreads);
+        cpuExecutor = new FDBExecutorPool("fdb-record-layer-cpu", cpuThreads, cpuQueueCapacity);
+        if (oldExecutor instanceof FDBExecutorPool) {
+            ((FDBExecutorPool)oldExecutor).shutdown();
+        }
+        if (oldCpuExecutor instanceof FDBExecutorPool) {
+            ((FDBExecutorPool)oldCpuExecutor).shutdown();
+        }
+    }
+
     public synchronized void shutdown() {
         if (inited) {
             if (LOGGER.isDebugEnabled()) {
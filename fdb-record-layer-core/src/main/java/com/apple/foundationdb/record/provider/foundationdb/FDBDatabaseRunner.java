@@ -24,9 +24,13 @@ import com.apple.foundationdb.API;
 import com.apple.foundationdb.FDBException;
 import com.apple.foundationdb.async.AsyncUtil;
 import com.apple.foundationdb.async.MoreAsyncUtil;
+import com.apple.foundationdb.record.ExecuteProperties;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCoreRetriableTransactionException;
+import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.logging.KeyValueLogMessage;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlan;
+import com.google.protobuf.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,6 +67,12 @@ import java.util.function.Function;
 public class FDBDatabaseRunner implements AutoCloseable {
     private static final Logger LOGGER = LoggerFactory.getLogger(FDBDatabaseRunner.class);
 
+    /**
+     * The default time limit for each transaction of {@link #executeQuery}, which leaves some margin before the
+     * transaction gets too old.
+     */
+    public static final long DEFAULT_QUERY_TRANSACTION_TIME_LIMIT_MILLIS = 4_000;
+
     @Nonnull
     private final FDBDatabase database;
 
@@ -434,6 +444,43 @@ public class FDBDatabaseRunner implements AutoCloseable {
         return new RunRetriable<T>().runAsync(retriable);
     }
 
+    /**
+     * Execute a query across as many transactions as it takes to finish.
+     *
+     * The record store is opened again in each transaction. The time and scan limits in {@code executeProperties} apply
+     * to each transaction separately, and reaching one just moves on to a new transaction. If there is no time limit,
+     * {@link #DEFAULT_QUERY_TRANSACTION_TIME_LIMIT_MILLIS} is used, so that each transaction ends before it gets too old.
+     * The skip and returned row limit apply to the query as a whole.
+     *
+     * @param recordStoreBuilder a builder for the record store against which to run the query
+     * @param plan the query plan to execute
+     * @param continuation continuation from a previous execution of this same plan
+     * @param executeProperties limits on execution
+     * @param pinReadVersion whether to read every transaction at the same read version, for a consistent snapshot
+     * @return a cursor for query results
+     * @see MultiTransactionCursor
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public RecordCursor<FDBQueriedRecord<Message>> executeQuery(@Nonnull FDBRecordStore.Builder recordStoreBuilder,
+                                                                @Nonnull RecordQueryPlan plan,
+                                                                @Nullable byte[] continuation,
+                                                                @Nonnull ExecuteProperties executeProperties,
+                                                                boolean pinReadVersion) {
+        ExecuteProperties transactionProperties = executeProperties.clearSkipAndLimit();
+        if (transactionProperties.getTimeLimit() == ExecuteProperties.UNLIMITED_TIME) {
+            transactionProperties = transactionProperties.toBuilder()
+                    .setTimeLimit(DEFAULT_QUERY_TRANSACTION_TIME_LIMIT_MILLIS)
+                    .build();
+        }
+        final ExecuteProperties perTransaction = transactionProperties;
+        return new MultiTransactionCursor<FDBQueriedRecord<Message>>(this,
+                (context, cont) -> recordStoreBuilder.copyBuilder().setContext(context).openAsync()
+                        .thenApply(store -> store.executeQuery(plan, cont, perTransaction.resetState())),
+                continuation, pinReadVersion)
+                .skipThenLimit(executeProperties.getSkip(), executeProperties.getReturnedRowLimitOrMax());
+    }
+
     @Nullable
     public <T> T asyncToSync(FDBStoreTimer.Wait event, @Nonnull CompletableFuture<T> async) {
         return database.asyncToSync(timer, event, async);
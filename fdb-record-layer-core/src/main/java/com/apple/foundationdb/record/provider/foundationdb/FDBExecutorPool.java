@@ -0,0 +1,216 @@
+/*
+ * FDBExecutorPool.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.API;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-size pool of daemon threads that keeps counts of the work done on it.
+ *
+ * <p>
+ * {@link FDBDatabaseFactory#useDedicatedExecutors} uses one of these for the continuations of record layer futures
+ * and another for CPU-heavy work, such as deserializing large records and tokenizing text. Keeping these apart
+ * from each other and from {@link java.util.concurrent.ForkJoinPool#commonPool()} means that a burst of one kind
+ * of work does not starve the other or the rest of the process. The counts can be exported to a metrics
+ * system to see how busy each pool is and how long work waits to start.
+ * </p>
+ *
+ * <p>
+ * A pool can be given a bounded queue, in which case at most {@link #getQueueCapacity} tasks wait for a thread.
+ * When the queue is full, the thread submitting a task runs it itself. This slows down whatever is producing work
+ * faster than the pool can run it rather than letting the queue grow without limit, and it never drops work.
+ * Since that submitter can be the FDB network thread, which must never run record layer work, a pool that runs
+ * the continuations of FDB futures must have an unbounded queue.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class FDBExecutorPool implements Executor {
+    /**
+     * The default maximum number of tasks waiting for a thread.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    /**
+     * The queue capacity of a pool whose queue is not bounded.
+     */
+    public static final int UNBOUNDED_QUEUE_CAPACITY = Integer.MAX_VALUE;
+
+    @Nonnull
+    private final String name;
+    @Nonnull
+    private final ThreadPoolExecutor threadPool;
+    private final int queueCapacity;
+    @Nonnull
+    private final AtomicLong submittedCount = new AtomicLong();
+    @Nonnull
+    private final AtomicLong completedCount = new AtomicLong();
+    @Nonnull
+    private final AtomicLong queueNanos = new AtomicLong();
+    @Nonnull
+    private final AtomicLong runNanos = new AtomicLong();
+    @Nonnull
+    private final AtomicLong callerRunsCount = new AtomicLong();
+
+    /**
+     * Create a new pool with an unbounded queue, whose submitters never run tasks themselves.
+     * @param name the name of the pool, which is used as the prefix of the names of its threads
+     * @param nthreads the number of threads in the pool
+     */
+    public FDBExecutorPool(@Nonnull String name, int nthreads) {
+        this(name, nthreads, UNBOUNDED_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Create a new pool.
+     * @param name the name of the pool, which is used as the prefix of the names of its threads
+     * @param nthreads the number of threads in the pool
+     * @param queueCapacity the maximum number of tasks waiting for a thread or {@link #UNBOUNDED_QUEUE_CAPACITY}
+     */
+    public FDBExecutorPool(@Nonnull String name, int nthreads, int queueCapacity) {
+        if (nthreads < 1) {
+            throw new IllegalArgumentException("pool must have at least one thread");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("pool queue capacity must be positive");
+        }
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // A task that does not fit in a bounded queue is run by its submitter rather than blocking it.
+        final RejectedExecutionHandler callerRuns = (runnable, pool) -> {
+            callerRunsCount.incrementAndGet();
+            runnable.run();
+        };
+        this.threadPool = new ThreadPoolExecutor(nthreads, nthreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity),
+                threadFactory, callerRuns);
+    }
+
+    @Override
+    public void execute(@Nonnull Runnable command) {
+        final long submitTime = System.nanoTime();
+        submittedCount.incrementAndGet();
+        threadPool.execute(() -> {
+            final long startTime = System.nanoTime();
+            queueNanos.addAndGet(startTime - submitTime);
+            try {
+                command.run();
+            } finally {
+                runNanos.addAndGet(System.nanoTime() - startTime);
+                completedCount.incrementAndGet();
+            }
+        });
+    }
+
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    public int getPoolSize() {
+        return threadPool.getMaximumPoolSize();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Get the number of tasks that have been given to this pool.
+     * @return the number of tasks submitted
+     */
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    /**
+     * Get the number of tasks that have finished running.
+     * @return the number of tasks completed
+     */
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    /**
+     * Get the number of tasks that are waiting for a thread.
+     * @return the current length of the queue
+     */
+    public int getQueuedCount() {
+        return threadPool.getQueue().size();
+    }
+
+    /**
+     * Get the number of tasks that were run by the thread that submitted them because the queue was full.
+     * @return the number of tasks run by their submitter
+     */
+    public long getCallerRunsCount() {
+        return callerRunsCount.get();
+    }
+
+    /**
+     * Get the number of threads that are running a task.
+     * @return the number of active threads
+     */
+    public int getActiveCount() {
+        return threadPool.getActiveCount();
+    }
+
+    /**
+     * Get the total time that tasks have waited between being submitted and starting to run.
+     * @return the total time spent queued in nanoseconds
+     */
+    public long getTotalQueueNanos() {
+        return queueNanos.get();
+    }
+
+    /**
+     * Get the total time that tasks have spent running.
+     * @return the total run time in nanoseconds
+     */
+    public long getTotalRunNanos() {
+        return runNanos.get();
+    }
+
+    /**
+     * Stop the threads of this pool once the tasks already submitted have been run.
+     */
+    public void shutdown() {
+        threadPool.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "FDBExecutorPool(" + name + ", " + getPoolSize() + ")";
+    }
+}
@@ -21,12 +21,17 @@
 package com.apple.foundationdb.record.provider.foundationdb;
 
 import com.apple.foundationdb.API;
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.metadata.Key;
 import com.apple.foundationdb.record.metadata.RecordType;
+import com.apple.foundationdb.record.metadata.expressions.CompiledKeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
 import com.apple.foundationdb.tuple.Tuple;
 import com.google.protobuf.Message;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.List;
 
 /**
  * A record associated with the corresponding meta-data.
@@ -69,4 +74,49 @@ public interface FDBRecord<M extends Message> {
      */
     @Nullable
     FDBRecordVersion getVersion();
+
+    /**
+     * Get the values of key expression columns that have already been computed for this record, if it keeps them.
+     * @return the cache of evaluated column values for this record or {@code null} if this record does not have one
+     */
+    @API(API.Status.INTERNAL)
+    @Nullable
+    default CompiledKeyExpression.EvaluationCache getEvaluationCache() {
+        return null;
+    }
+
+    /**
+     * Evaluate a key expression against this record. If the expression can be {@linkplain CompiledKeyExpression compiled}
+     * against this record's type, the compiled form kept by the {@link RecordType} is used. Otherwise, this is
+     * the same as {@link KeyExpression#evaluate}.
+     * @param expression the key expression to evaluate
+     * @return the list of evaluated keys for this record
+     * @see RecordType#getCompiledKeyExpression
+     */
+    @API(API.Status.INTERNAL)
+    @Nonnull
+    default List<Key.Evaluated> evaluate(@Nonnull KeyExpression expression) {
+        final CompiledKeyExpression compiled = getRecordType().getCompiledKeyExpression(expression);
+        if (compiled != null) {
+            return compiled.evaluate(this);
+        } else {
+            return expression.evaluate(this);
+        }
+    }
+
+    /**
+     * Evaluate a key expression that must produce a single key against this record.
+     * @param expression the key expression to evaluate
+     * @return the evaluated key for this record
+     * @see #evaluate(KeyExpression)
+     */
+    @API(API.Status.INTERNAL)
+    @Nonnull
+    default Key.Evaluated evaluateSingleton(@Nonnull KeyExpression expression) {
+        final List<Key.Evaluated> keys = evaluate(expression);
+        if (keys.size() != 1) {
+            throw new RecordCoreException("Should evaluate to single key only");
+        }
+        return keys.get(0);
+    }
 }
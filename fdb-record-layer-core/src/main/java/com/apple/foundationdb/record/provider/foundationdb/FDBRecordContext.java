@@ -79,10 +79,12 @@ public class FDBRecordContext extends FDBTransactionContext implements AutoClose
     @Nonnull private ConcurrentNavigableMap<byte[], Pair<MutationType, byte[]>> versionMutationCache;
     private FDBDatabase.WeakReadSemantics weakReadSemantics;
     @Nullable private Consumer<FDBStoreTimer.Wait> hookForAsyncToSync = null;
+    @Nullable private final Executor cpuExecutor;
 
     protected FDBRecordContext(@Nonnull FDBDatabase fdb, @Nullable Map<String, String> mdcContext,
                                boolean transactionIsTraced, @Nullable FDBDatabase.WeakReadSemantics weakReadSemantics) {
         super(fdb, fdb.createTransaction(initExecutor(fdb, mdcContext), transactionIsTraced));
+        this.cpuExecutor = initCpuExecutor(fdb, mdcContext);
         this.transactionCreateTime = System.currentTimeMillis();
         this.localVersion = new AtomicInteger(0);
         this.localVersionCache = new ConcurrentSkipListMap<>();
@@ -341,6 +343,34 @@ public class FDBRecordContext extends FDBTransactionContext implements AutoClose
         }
     }
 
+    @Nullable
+    private static Executor initCpuExecutor(@Nonnull FDBDatabase fdb, @Nullable Map<String, String> mdcContext) {
+        final Executor executor = fdb.getCpuExecutor();
+        if (executor == null || mdcContext == null) {
+            return executor;
+        } else {
+            return new ContextRestoringExecutor(executor, mdcContext);
+        }
+    }
+
+    /**
+     * Get the executor to use for CPU-heavy work done for this context.
+     * @return the database's {@linkplain FDBDatabase#getCpuExecutor CPU executor}, if it has one, or else the {@linkplain #getExecutor executor}
+     */
+    @Nonnull
+    public Executor getCpuExecutor() {
+        return cpuExecutor != null ? cpuExecutor : getExecutor();
+    }
+
+    /**
+     * Get whether CPU-heavy work has its own executor. If not, it is usually better to do small amounts of such work
+     * directly rather than handing it off to the same executor as is running the caller.
+     * @return {@code true} if the database has a separate executor for CPU-heavy work
+     */
+    public boolean hasCpuExecutor() {
+        return cpuExecutor != null;
+    }
+
     static class ContextRestoringExecutor implements Executor {
         @Nonnull
         private final Executor delegate;
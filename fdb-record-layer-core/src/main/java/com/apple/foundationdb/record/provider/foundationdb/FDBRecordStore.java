@@ -41,6 +41,7 @@ import com.apple.foundationdb.record.IndexState;
 import com.apple.foundationdb.record.IsolationLevel;
 import com.apple.foundationdb.record.MutableRecordStoreState;
 import com.apple.foundationdb.record.PipelineOperation;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCoreStorageException;
 import com.apple.foundationdb.record.RecordCursor;
@@ -71,6 +72,7 @@ import com.apple.foundationdb.record.metadata.expressions.EmptyKeyExpression;
 import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
 import com.apple.foundationdb.record.provider.common.DynamicMessageRecordSerializer;
 import com.apple.foundationdb.record.provider.common.RecordSerializer;
+import com.apple.foundationdb.record.provider.foundationdb.cursors.UnorderedUnionCursor;
 import com.apple.foundationdb.record.provider.foundationdb.keyspace.KeySpacePath;
 import com.apple.foundationdb.record.query.QueryToKeyMatcher;
 import com.apple.foundationdb.record.query.RecordQuery;
@@ -103,11 +105,16 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -133,9 +140,11 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
     public static final int SAVE_UNSPLIT_WITH_SUFFIX_FORMAT_VERSION = 5;
     // 6 - store record version at a split point within the record
     public static final int SAVE_VERSION_WITH_RECORD_FORMAT_VERSION = 6;
+    // 7 - split record chunk size can be set in the store header
+    public static final int SPLIT_RECORD_SIZE_FORMAT_VERSION = 7;
 
     // The current code can read and write up to the format version below
-    public static final int MAX_SUPPORTED_FORMAT_VERSION = SAVE_VERSION_WITH_RECORD_FORMAT_VERSION;
+    public static final int MAX_SUPPORTED_FORMAT_VERSION = SPLIT_RECORD_SIZE_FORMAT_VERSION;
 
     // Record stores attempt to upgrade to this version
     public static final int DEFAULT_FORMAT_VERSION = MAX_SUPPORTED_FORMAT_VERSION;
@@ -147,6 +156,9 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
     // The size of preload cache
     private static final int PRELOAD_CACHE_SIZE = 100;
 
+    // Records at least this big are deserialized on the CPU executor, when there is one.
+    private static final int ASYNC_DESERIALIZATION_MIN_BYTES = 10_000;
+
     protected static final Object STORE_INFO_KEY = FDBRecordStoreKeyspace.STORE_INFO.key();
     protected static final Object RECORD_KEY = FDBRecordStoreKeyspace.RECORD.key();
     protected static final Object INDEX_KEY = FDBRecordStoreKeyspace.INDEX.key();
@@ -169,6 +181,11 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
 
     private boolean omitUnsplitRecordSuffix;
 
+    private int splitRecordSize;
+
+    // Whether splitRecordSize was read from the store header, so that it is known to describe the stored split records.
+    private boolean splitRecordSizeFromHeader;
+
     @Nonnull
     protected final RecordMetaDataProvider metaDataProvider;
 
@@ -187,11 +204,21 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
     @Nonnull
     protected final PipelineSizer pipelineSizer;
 
+    protected final boolean diffSplitRecordChunks;
+
+    protected final int splitRecordLoadParallelism;
+
     @Nullable
     private Subspace cachedRecordsSubspace;
 
     private final Cache<Tuple, FDBRawRecord> preloadCache;
 
+    protected final long recordCacheMaxBytes;
+
+    // Deserialized records read or written by this store, when enabled.
+    @Nullable
+    private final Cache<Tuple, CachedRecord> recordCache;
+
     @SuppressWarnings("squid:S00107")
     protected FDBRecordStore(@Nonnull FDBRecordContext context,
                              @Nonnull SubspaceProvider subspaceProvider,
@@ -200,7 +227,11 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
                              @Nonnull RecordSerializer<Message> serializer,
                              @Nonnull IndexMaintainerRegistry indexMaintainerRegistry,
                              @Nonnull IndexMaintenanceFilter indexMaintenanceFilter,
-                             @Nonnull PipelineSizer pipelineSizer) {
+                             @Nonnull PipelineSizer pipelineSizer,
+                             boolean diffSplitRecordChunks,
+                             int splitRecordSize,
+                             int splitRecordLoadParallelism,
+                             long recordCacheMaxBytes) {
         super(context, subspaceProvider);
         this.formatVersion = formatVersion;
         this.metaDataProvider = metaDataProvider;
@@ -208,9 +239,17 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         this.indexMaintainerRegistry = indexMaintainerRegistry;
         this.indexMaintenanceFilter = indexMaintenanceFilter;
         this.pipelineSizer = pipelineSizer;
+        this.diffSplitRecordChunks = diffSplitRecordChunks;
+        this.splitRecordSize = splitRecordSize;
+        this.splitRecordLoadParallelism = splitRecordLoadParallelism;
 
         this.omitUnsplitRecordSuffix = formatVersion < SAVE_UNSPLIT_WITH_SUFFIX_FORMAT_VERSION;
         this.preloadCache = CacheBuilder.<Tuple,FDBRawRecord>newBuilder().maximumSize(PRELOAD_CACHE_SIZE).build();
+        this.recordCacheMaxBytes = recordCacheMaxBytes;
+        this.recordCache = recordCacheMaxBytes <= 0 ? null : CacheBuilder.<Tuple, CachedRecord>newBuilder()
+                .maximumWeight(recordCacheMaxBytes)
+                .weigher((Tuple primaryKey, CachedRecord cached) -> cached.weight)
+                .build();
     }
 
     @Override
@@ -248,6 +287,17 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         return userVersion;
     }
 
+    /**
+     * Get the maximum size of each key-value pair used to store a split record.
+     *
+     * After calling {@link FDBRecordStore.Builder#open} or {@link #checkVersion} directly, this will be the size stored in the store's info header.
+     * @return the split record chunk size in bytes
+     * @see Builder#setSplitRecordSize
+     */
+    public int getSplitRecordSize() {
+        return splitRecordSize;
+    }
+
     private boolean useOldVersionFormat() {
         // If the store is either explicitly using the older format version or if
         // it is using a newer one, but because of how the data were originally stored
@@ -335,10 +385,14 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         final FDBStoredRecordBuilder<M> recordBuilder = FDBStoredRecord.newBuilder(record).setRecordType(recordType);
         final FDBRecordVersion recordVersion = recordVersionForSave(metaData, version, behavior);
         recordBuilder.setVersion(recordVersion);
-        final Tuple primaryKey = primaryKeyExpression.evaluateSingleton(recordBuilder).toTuple();
+        final Tuple primaryKey = recordBuilder.evaluateSingleton(primaryKeyExpression).toTuple();
         recordBuilder.setPrimaryKey(primaryKey);
 
-        final CompletableFuture<FDBStoredRecord<M>> result = loadExistingRecord(typedSerializer, primaryKey).thenCompose(oldRecord -> {
+        // Keep the stored bytes of any existing split record so that only the chunks that change need to be rewritten.
+        // The chunks only line up with the old bytes if the chunk size is the one the store header says they were written with.
+        final AtomicReference<FDBRawRecord> oldRawRecord = diffSplitRecordChunks && splitRecordSizeFromHeader && metaData.isSplitLongRecords()
+                                                           ? new AtomicReference<>() : null;
+        final CompletableFuture<FDBStoredRecord<M>> result = loadExistingRecord(typedSerializer, primaryKey, oldRawRecord).thenCompose(oldRecord -> {
             if (oldRecord == null) {
                 if (existenceCheck.errorIfNotExists()) {
                     throw new RecordDoesNotExistException("record does not exist",
@@ -356,7 +410,10 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
                             LogMessageKeys.EXPECTED_TYPE, recordType.getName());
                 }
             }
-            final FDBStoredRecord<M> newRecord = serializeAndSaveRecord(typedSerializer, recordBuilder, metaData, oldRecord);
+            final byte[] oldSerialized = oldRecord != null && oldRawRecord != null && oldRawRecord.get() != null ? oldRawRecord.get().getRawRecord() : null;
+            final FDBStoredRecord<M> newRecord = serializeAndSaveRecord(typedSerializer, recordBuilder, metaData, oldRecord, oldSerialized);
+            preloadCache.invalidate(primaryKey);
+            cacheRecord(typedSerializer, newRecord, false);
             if (oldRecord == null) {
                 addRecordCount(metaData, newRecord, LITTLE_ENDIAN_INT64_ONE);
             } else {
@@ -374,11 +431,16 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
             return;
         }
         final Transaction tr = ensureContextActive();
-        Key.Evaluated subkey = metaData.getRecordCountKey().evaluateSingleton(record);
-        final byte[] keyBytes = getSubspace().pack(Tuple.from(RECORD_COUNT_KEY).addAll(subkey.toTupleAppropriateList()));
+        final byte[] keyBytes = getSubspace().pack(recordCountKey(metaData, record));
         tr.mutate(MutationType.ADD, keyBytes, increment);
     }
 
+    @Nonnull
+    private <M extends Message> Tuple recordCountKey(@Nonnull RecordMetaData metaData, @Nonnull FDBStoredRecord<M> record) {
+        Key.Evaluated subkey = metaData.getRecordCountKey().evaluateSingleton(record);
+        return Tuple.from(RECORD_COUNT_KEY).addAll(subkey.toTupleAppropriateList());
+    }
+
     @Nullable
     private FDBRecordVersion recordVersionForSave(@Nonnull RecordMetaData metaData, @Nullable FDBRecordVersion version, @Nonnull final VersionstampSaveBehavior behavior) {
         if (behavior.equals(VersionstampSaveBehavior.NO_VERSION)) {
@@ -394,23 +456,26 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
     }
 
     @Nonnull
-    private <M extends Message> CompletableFuture<FDBStoredRecord<M>> loadExistingRecord(@Nonnull RecordSerializer<M> typedSerializer, @Nonnull Tuple primaryKey) {
+    private <M extends Message> CompletableFuture<FDBStoredRecord<M>> loadExistingRecord(@Nonnull RecordSerializer<M> typedSerializer, @Nonnull Tuple primaryKey,
+                                                                                         @Nullable AtomicReference<FDBRawRecord> rawRecordHolder) {
         // Note: this assumes that any existing record is compatible with the serializer (even if not of the same record type).
         // To relax that would perhaps mean catching errors and falling back to the untyped serializer.
         // This would in turn require care with the type parameters to updateSecondaryIndexes.
         // In no case is an index maintainer called with incompatible record type, so its signature should still be valid.
-        return loadTypedRecord(typedSerializer, primaryKey, false);
+        return loadTypedRecord(typedSerializer, primaryKey, false, rawRecordHolder);
     }
 
     @Nonnull
     private <M extends Message> FDBStoredRecord<M> serializeAndSaveRecord(@Nonnull RecordSerializer<M> typedSerializer, @Nonnull final FDBStoredRecordBuilder<M> recordBuilder,
-                                                                          @Nonnull final RecordMetaData metaData, @Nullable FDBStoredSizes oldSizeInfo) {
+                                                                          @Nonnull final RecordMetaData metaData, @Nullable FDBStoredSizes oldSizeInfo,
+                                                                          @Nullable byte[] oldSerialized) {
         final Tuple primaryKey = recordBuilder.getPrimaryKey();
         final FDBRecordVersion version = recordBuilder.getVersion();
         final byte[] serialized = typedSerializer.serialize(metaData, recordBuilder.getRecordType(), recordBuilder.getRecord(), getTimer());
         final FDBRecordVersion splitVersion = useOldVersionFormat() ? null : version;
         final SplitHelper.SizeInfo sizeInfo = new SplitHelper.SizeInfo();
-        SplitHelper.saveWithSplit(context, recordsSubspace(), recordBuilder.getPrimaryKey(), serialized, splitVersion, metaData.isSplitLongRecords(), omitUnsplitRecordSuffix, true, oldSizeInfo, sizeInfo);
+        SplitHelper.saveWithSplit(context, recordsSubspace(), recordBuilder.getPrimaryKey(), serialized, splitVersion,
+                metaData.isSplitLongRecords(), splitRecordSize, omitUnsplitRecordSuffix, true, oldSizeInfo, oldSerialized, sizeInfo);
         countKeysAndValues(FDBStoreTimer.Counts.SAVE_RECORD_KEY, FDBStoreTimer.Counts.SAVE_RECORD_KEY_BYTES, FDBStoreTimer.Counts.SAVE_RECORD_VALUE_BYTES, sizeInfo);
         recordBuilder.setSize(sizeInfo);
 
@@ -448,8 +513,29 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         if (oldRecord == null && newRecord == null) {
             return AsyncUtil.DONE;
         }
+        // Indexes that use the same fields share their values while they are updated. The values are dropped afterwards,
+        // so that records kept in the record cache do not hold on to them.
+        if (oldRecord != null) {
+            oldRecord.startEvaluationCache();
+        }
+        if (newRecord != null) {
+            newRecord.startEvaluationCache();
+        }
+        return updateAllSecondaryIndexes(oldRecord, newRecord).whenComplete((vignore, exception) -> {
+            if (oldRecord != null) {
+                oldRecord.clearEvaluationCache();
+            }
+            if (newRecord != null) {
+                newRecord.clearEvaluationCache();
+            }
+        });
+    }
+
+    @Nonnull
+    private <M extends Message> CompletableFuture<Void> updateAllSecondaryIndexes(@Nullable final FDBStoredRecord<M> oldRecord,
+                                                                                  @Nullable final FDBStoredRecord<M> newRecord) {
         if (recordStoreState == null) {
-            return preloadRecordStoreStateAsync().thenCompose(vignore -> updateSecondaryIndexes(oldRecord, newRecord));
+            return preloadRecordStoreStateAsync().thenCompose(vignore -> updateAllSecondaryIndexes(oldRecord, newRecord));
         }
 
         final List<CompletableFuture<Void>> futures = new ArrayList<>();
@@ -509,6 +595,76 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         }
     }
 
+    // Remove the index entries for several deleted records. Each index is given the records one at a time, since not
+    // every index maintainer can handle concurrent updates, but different indexes are updated at the same time.
+    @Nonnull
+    private <M extends Message> CompletableFuture<Void> removeSecondaryIndexEntries(@Nonnull List<FDBStoredRecord<M>> oldRecords) {
+        if (oldRecords.isEmpty()) {
+            return AsyncUtil.DONE;
+        }
+        // As in updateSecondaryIndexes, the values evaluated for each record are only kept while its indexes are updated.
+        oldRecords.forEach(FDBStoredRecord::startEvaluationCache);
+        return removeAllSecondaryIndexEntries(oldRecords).whenComplete((vignore, exception) ->
+                oldRecords.forEach(FDBStoredRecord::clearEvaluationCache));
+    }
+
+    @Nonnull
+    private <M extends Message> CompletableFuture<Void> removeAllSecondaryIndexEntries(@Nonnull List<FDBStoredRecord<M>> oldRecords) {
+        if (recordStoreState == null) {
+            return preloadRecordStoreStateAsync().thenCompose(vignore -> removeAllSecondaryIndexEntries(oldRecords));
+        }
+        recordStoreState.beginRead();
+        boolean haveFuture = false;
+        try {
+            final Map<RecordType, List<Index>> indexesByType = new HashMap<>();
+            final Map<Index, List<FDBStoredRecord<M>>> recordsByIndex = new LinkedHashMap<>();
+            for (FDBStoredRecord<M> oldRecord : oldRecords) {
+                final List<Index> indexes = indexesByType.computeIfAbsent(oldRecord.getRecordType(), recordType -> {
+                    final List<Index> recordTypeIndexes = new ArrayList<>(getEnabledIndexes(recordType));
+                    recordTypeIndexes.addAll(getEnabledUniversalIndexes());
+                    recordTypeIndexes.addAll(getEnabledMultiTypeIndexes(recordType));
+                    return recordTypeIndexes;
+                });
+                for (Index index : indexes) {
+                    recordsByIndex.computeIfAbsent(index, i -> new ArrayList<>()).add(oldRecord);
+                }
+            }
+            final List<CompletableFuture<Void>> futures = new ArrayList<>(recordsByIndex.size());
+            for (Map.Entry<Index, List<FDBStoredRecord<M>>> entry : recordsByIndex.entrySet()) {
+                futures.add(removeIndexEntries(entry.getKey(), entry.getValue()));
+            }
+            final CompletableFuture<Void> result = AsyncUtil.whenAll(futures).whenComplete((v, t) -> recordStoreState.endRead());
+            haveFuture = true;
+            return result;
+        } finally {
+            if (!haveFuture) {
+                recordStoreState.endRead();
+            }
+        }
+    }
+
+    @Nonnull
+    private <M extends Message> CompletableFuture<Void> removeIndexEntries(@Nonnull Index index, @Nonnull List<FDBStoredRecord<M>> oldRecords) {
+        final IndexMaintainer maintainer = getIndexMaintainer(index);
+        // As in updateSecondaryIndexes, an index still being built is only updated in ranges that have been built.
+        final boolean checkBuiltRange = !maintainer.isIdempotent() && isIndexWriteOnly(index);
+        final Iterator<FDBStoredRecord<M>> iter = oldRecords.iterator();
+        return AsyncUtil.whileTrue(() -> {
+            if (!iter.hasNext()) {
+                return AsyncUtil.READY_FALSE;
+            }
+            final FDBStoredRecord<M> oldRecord = iter.next();
+            final CompletableFuture<Void> future;
+            if (checkBuiltRange) {
+                future = maintainer.addedRangeWithKey(oldRecord.getPrimaryKey())
+                        .thenCompose(present -> present ? maintainer.update(oldRecord, null) : AsyncUtil.DONE);
+            } else {
+                future = maintainer.update(oldRecord, null);
+            }
+            return future.thenApply(vignore -> true);
+        }, getExecutor());
+    }
+
     private <M extends Message> void updateSecondaryIndexes(@Nullable final FDBIndexableRecord<M> oldRecord,
                                                             @Nullable final FDBIndexableRecord<M> newRecord,
                                                             @Nonnull final List<CompletableFuture<Void>> futures,
@@ -694,6 +850,20 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
     @Nonnull
     protected <M extends Message> CompletableFuture<FDBStoredRecord<M>> loadTypedRecord(@Nonnull RecordSerializer<M> typedSerializer,
                                                                                         @Nonnull final Tuple primaryKey, final boolean snapshot) {
+        return loadTypedRecord(typedSerializer, primaryKey, snapshot, null);
+    }
+
+    @Nonnull
+    private <M extends Message> CompletableFuture<FDBStoredRecord<M>> loadTypedRecord(@Nonnull RecordSerializer<M> typedSerializer,
+                                                                                      @Nonnull final Tuple primaryKey, final boolean snapshot,
+                                                                                      @Nullable AtomicReference<FDBRawRecord> rawRecordHolder) {
+        // A save that wants the old stored bytes cannot get them from the cache.
+        if (rawRecordHolder == null) {
+            final FDBStoredRecord<M> cachedRecord = getCachedRecord(typedSerializer, primaryKey, snapshot);
+            if (cachedRecord != null) {
+                return CompletableFuture.completedFuture(cachedRecord);
+            }
+        }
         final RecordMetaData metaData = metaDataProvider.getRecordMetaData();
 
         final Optional<CompletableFuture<FDBRecordVersion>> versionFutureOptional;
@@ -703,15 +873,23 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
             versionFutureOptional = Optional.empty();
         }
 
+        // Only bytes read from the transaction may be diffed against when rewriting split chunks,
+        // since the preload cache can hold bytes from before an earlier save.
+        final boolean keepRawRecord = rawRecordHolder != null && preloadCache.getIfPresent(primaryKey) == null;
         final SplitHelper.SizeInfo sizeInfo = new SplitHelper.SizeInfo();
         final long startTime = System.nanoTime();
         CompletableFuture<FDBStoredRecord<M>> result = loadRawRecordAsync(primaryKey, sizeInfo, snapshot)
                 .thenCompose(rawRecord -> {
+                    if (keepRawRecord) {
+                        rawRecordHolder.set(rawRecord);
+                    }
                     final long startTimeToDeserialize = System.nanoTime();
                     final long timeToLoad = startTimeToDeserialize - startTime;
                     return rawRecord == null ? CompletableFuture.completedFuture(null) :
                             deserializeRecord(typedSerializer, rawRecord, metaData, versionFutureOptional)
-                                    .thenApply(storedRecord -> storedRecord.setTimeToLoad(timeToLoad).setTimeToDeserialize(System.nanoTime() - startTimeToDeserialize).build());
+                                    .thenApply(storedRecord -> cacheRecord(typedSerializer,
+                                            storedRecord.setTimeToLoad(timeToLoad).setTimeToDeserialize(System.nanoTime() - startTimeToDeserialize).build(),
+                                            snapshot));
                 });
         return context.instrument(FDBStoreTimer.Events.LOAD_RECORD, result);
     }
@@ -797,6 +975,17 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
     private <M extends Message> CompletableFuture<FDBStoredRecordBuilder<M>> deserializeRecord(@Nonnull RecordSerializer<M> typedSerializer, @Nonnull final FDBRawRecord rawRecord,
                                                                                                @Nonnull final RecordMetaData metaData,
                                                                                                @Nonnull final Optional<CompletableFuture<FDBRecordVersion>> versionFutureOptional) {
+        if (context.hasCpuExecutor() && rawRecord.getRawRecord().length >= ASYNC_DESERIALIZATION_MIN_BYTES) {
+            // Large records are parsed on the CPU pool, so that records loaded in a pipeline are parsed in parallel.
+            return CompletableFuture.supplyAsync(() -> deserializeRecordNow(typedSerializer, rawRecord, metaData, versionFutureOptional), context.getCpuExecutor())
+                    .thenCompose(Function.identity());
+        }
+        return deserializeRecordNow(typedSerializer, rawRecord, metaData, versionFutureOptional);
+    }
+
+    private <M extends Message> CompletableFuture<FDBStoredRecordBuilder<M>> deserializeRecordNow(@Nonnull RecordSerializer<M> typedSerializer, @Nonnull final FDBRawRecord rawRecord,
+                                                                                                  @Nonnull final RecordMetaData metaData,
+                                                                                                  @Nonnull final Optional<CompletableFuture<FDBRecordVersion>> versionFutureOptional) {
         final Tuple primaryKey = rawRecord.getPrimaryKey();
         final byte[] serialized = rawRecord.getRawRecord();
 
@@ -867,6 +1056,78 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         }
     }
 
+    /**
+     * Get the maximum total size of the records kept in this store's record cache.
+     * @return the maximum size in bytes of cached records or {@code 0} if records are not cached
+     * @see Builder#setRecordCacheMaxBytes
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public long getRecordCacheMaxBytes() {
+        return recordCacheMaxBytes;
+    }
+
+    @Nullable
+    private <M extends Message> FDBStoredRecord<M> getCachedRecord(@Nonnull RecordSerializer<M> typedSerializer,
+                                                                   @Nonnull Tuple primaryKey, boolean snapshot) {
+        if (recordCache == null) {
+            return null;
+        }
+        final CachedRecord cached = recordCache.getIfPresent(primaryKey);
+        // A record read at snapshot isolation did not add a read conflict, so it cannot stand in for a serializable read.
+        // A record deserialized by another serializer (for a typed store) is not of the right type.
+        if (cached == null || cached.serializer != typedSerializer || (cached.snapshot && !snapshot)) {
+            if (getTimer() != null) {
+                getTimer().increment(FDBStoreTimer.Counts.RECORD_CACHE_MISS_COUNT);
+            }
+            return null;
+        }
+        if (getTimer() != null) {
+            getTimer().increment(FDBStoreTimer.Counts.RECORD_CACHE_HIT_COUNT);
+        }
+        @SuppressWarnings("unchecked")
+        final FDBStoredRecord<M> record = (FDBStoredRecord<M>)cached.record;
+        return record;
+    }
+
+    @Nonnull
+    private <M extends Message> FDBStoredRecord<M> cacheRecord(@Nonnull RecordSerializer<M> typedSerializer,
+                                                               @Nonnull FDBStoredRecord<M> record, boolean snapshot) {
+        if (recordCache != null) {
+            recordCache.put(record.getPrimaryKey(), new CachedRecord(typedSerializer, record, snapshot));
+        }
+        return record;
+    }
+
+    private void invalidateCachedRecord(@Nonnull Tuple primaryKey) {
+        preloadCache.invalidate(primaryKey);
+        if (recordCache != null) {
+            recordCache.invalidate(primaryKey);
+        }
+    }
+
+    private void invalidateCachedRecords() {
+        preloadCache.invalidateAll();
+        if (recordCache != null) {
+            recordCache.invalidateAll();
+        }
+    }
+
+    private static class CachedRecord {
+        @Nonnull
+        private final RecordSerializer<?> serializer;
+        @Nonnull
+        private final FDBStoredRecord<?> record;
+        private final boolean snapshot;
+        private final int weight;
+
+        CachedRecord(@Nonnull RecordSerializer<?> serializer, @Nonnull FDBStoredRecord<?> record, boolean snapshot) {
+            this.serializer = serializer;
+            this.record = record;
+            this.snapshot = snapshot;
+            this.weight = record.getKeySize() + record.getValueSize();
+        }
+    }
+
     @Override
     @Nonnull
     public CompletableFuture<Void> preloadRecordAsync(@Nonnull final Tuple primaryKey) {
@@ -899,6 +1160,10 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         }
         final RecordMetaData metaData = metaDataProvider.getRecordMetaData();
         final ReadTransaction tr = snapshot ? ensureContextActive().snapshot() : ensureContextActive();
+        if (splitRecordLoadParallelism > 0 && metaData.isSplitLongRecords()) {
+            return SplitHelper.loadWithSplitInParallel(tr, context, recordsSubspace(), primaryKey,
+                    splitRecordLoadParallelism, SplitHelper.PARALLEL_LOAD_CHUNKS_PER_RANGE, sizeInfo);
+        }
         return SplitHelper.loadWithSplit(tr, context, recordsSubspace(),
                 primaryKey, metaData.isSplitLongRecords(), omitUnsplitRecordSuffix, sizeInfo);
     }
@@ -974,11 +1239,73 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
                 versionFutureOptional = Optional.empty();
             }
             return deserializeRecord(typedSerializer, rawRecord, metaData,
-                    versionFutureOptional).thenApply(FDBStoredRecordBuilder::build);
+                    versionFutureOptional).thenApply(storedRecord -> cacheRecord(typedSerializer, storedRecord.build(),
+                            scanProperties.getExecuteProperties().getIsolationLevel().isSnapshot()));
         }, pipelineSizer.getPipelineSize(PipelineOperation.KEY_TO_RECORD));
         return context.instrument(FDBStoreTimer.Events.SCAN_RECORDS, result);
     }
 
+    /**
+     * Split the records in this store into ranges of primary keys of roughly similar size, based on the boundaries
+     * between the FDB shards that hold them. The ranges are contiguous and together cover all primary keys, so they can
+     * be passed to {@link #scanRecordsUnordered} or scanned separately, even in separate transactions.
+     * @param maxShards the maximum number of ranges to return
+     * @return a future that completes to a list of primary key ranges in key order
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public CompletableFuture<List<TupleRange>> computeRecordShards(int maxShards) {
+        if (maxShards < 1) {
+            throw new RecordCoreArgumentException("maximum number of shards must be positive")
+                    .addLogInfo("maxShards", maxShards);
+        }
+        // Boundaries must fall between records, so only use as many columns as every primary key has.
+        int primaryKeyColumns = Integer.MAX_VALUE;
+        for (RecordType recordType : getRecordMetaData().getRecordTypes().values()) {
+            primaryKeyColumns = Math.min(primaryKeyColumns, recordType.getPrimaryKey().getColumnSize());
+        }
+        return context.getDatabase().computeBoundaryKeys(context, recordsSubspace(), primaryKeyColumns, maxShards - 1).thenApply(boundaries -> {
+            final List<TupleRange> shards = new ArrayList<>(boundaries.size() + 1);
+            Tuple low = null;
+            for (Tuple boundary : boundaries) {
+                if (boundary.size() == 0) {
+                    continue;
+                }
+                shards.add(new TupleRange(low, boundary, low == null ? EndpointType.TREE_START : EndpointType.RANGE_INCLUSIVE, EndpointType.RANGE_EXCLUSIVE));
+                low = boundary;
+            }
+            shards.add(new TupleRange(low, null, low == null ? EndpointType.TREE_START : EndpointType.RANGE_INCLUSIVE, EndpointType.TREE_END));
+            return shards;
+        });
+    }
+
+    /**
+     * Scan the records in several ranges at once, returning them in whatever order they arrive.
+     * This is typically used with the ranges from {@link #computeRecordShards}, so that a scan of the whole store is
+     * spread across storage servers instead of reading from one at a time.
+     * The continuation records the position in each range, so the same list of ranges must be given when resuming.
+     * @param shards the primary key ranges to scan, which should not overlap
+     * @param continuation any continuation from a previous scan
+     * @param scanProperties skip, limit and other scan properties, applied to the combined scan
+     * @return a cursor over the records in all the ranges
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public RecordCursor<FDBStoredRecord<Message>> scanRecordsUnordered(@Nonnull List<TupleRange> shards,
+                                                                       @Nullable byte[] continuation,
+                                                                       @Nonnull ScanProperties scanProperties) {
+        final ExecuteProperties executeProperties = scanProperties.getExecuteProperties();
+        final ScanProperties shardScanProperties = executeProperties.getSkip() > 0 ?
+                scanProperties.with(ExecuteProperties::clearSkipAndAdjustLimit) :
+                scanProperties;
+        final List<Function<byte[], RecordCursor<FDBStoredRecord<Message>>>> cursorFunctions = new ArrayList<>(shards.size());
+        for (TupleRange shard : shards) {
+            cursorFunctions.add(shardContinuation -> scanRecords(shard, shardContinuation, shardScanProperties));
+        }
+        return UnorderedUnionCursor.create(cursorFunctions, continuation, getTimer())
+                .skipThenLimit(executeProperties.getSkip(), executeProperties.getReturnedRowLimit());
+    }
+
     @Override
     @Nonnull
     public CompletableFuture<Integer> countRecords(
@@ -1055,27 +1382,16 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
     @Nonnull
     protected <M extends Message> CompletableFuture<Boolean> deleteTypedRecord(@Nonnull RecordSerializer<M> typedSerializer,
                                                                                @Nonnull Tuple primaryKey) {
-        preloadCache.invalidate(primaryKey);
+        invalidateCachedRecord(primaryKey);
         final RecordMetaData metaData = metaDataProvider.getRecordMetaData();
         CompletableFuture<Boolean> result = loadTypedRecord(typedSerializer, primaryKey, false).thenCompose(oldRecord -> {
             if (oldRecord == null) {
                 return AsyncUtil.READY_FALSE;
             }
-            SplitHelper.deleteSplit(getRecordContext(), recordsSubspace(), primaryKey, metaData.isSplitLongRecords(), omitUnsplitRecordSuffix, true, oldRecord);
-            countKeysAndValues(FDBStoreTimer.Counts.DELETE_RECORD_KEY, FDBStoreTimer.Counts.DELETE_RECORD_KEY_BYTES, FDBStoreTimer.Counts.DELETE_RECORD_VALUE_BYTES,
-                    oldRecord);
+            clearRecord(metaData, oldRecord);
             addRecordCount(metaData, oldRecord, LITTLE_ENDIAN_INT64_MINUS_ONE);
-            final boolean oldHasIncompleteVersion = oldRecord.hasVersion() && !oldRecord.getVersion().isComplete();
-            if (useOldVersionFormat()) {
-                if (oldHasIncompleteVersion) {
-                    byte[] versionKey = getSubspace().pack(recordVersionKey(primaryKey));
-                    context.removeVersionMutation(versionKey);
-                } else if (metaData.isStoreRecordVersions()) {
-                    ensureContextActive().clear(getSubspace().pack(recordVersionKey(primaryKey)));
-                }
-            }
             CompletableFuture<Void> updateIndexesFuture = updateSecondaryIndexes(oldRecord, null);
-            if (oldHasIncompleteVersion) {
+            if (hasIncompleteVersion(oldRecord)) {
                 return updateIndexesFuture.thenApply(vignore -> {
                     context.removeLocalVersion(primaryKey);
                     return true;
@@ -1087,6 +1403,87 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         return context.instrument(FDBStoreTimer.Events.DELETE_RECORD, result);
     }
 
+    @Override
+    @Nonnull
+    public CompletableFuture<Integer> deleteRecordsAsync(@Nonnull List<Tuple> primaryKeys) {
+        return deleteTypedRecords(serializer, primaryKeys);
+    }
+
+    @Nonnull
+    protected <M extends Message> CompletableFuture<Integer> deleteTypedRecords(@Nonnull RecordSerializer<M> typedSerializer,
+                                                                                @Nonnull List<Tuple> primaryKeys) {
+        // A key that appeared twice would otherwise be loaded twice and have its record count and index entries removed twice.
+        final Set<Tuple> distinctPrimaryKeys = new LinkedHashSet<>(primaryKeys);
+        final List<CompletableFuture<FDBStoredRecord<M>>> loads = new ArrayList<>(distinctPrimaryKeys.size());
+        for (Tuple primaryKey : distinctPrimaryKeys) {
+            invalidateCachedRecord(primaryKey);
+            loads.add(loadTypedRecord(typedSerializer, primaryKey, false));
+        }
+        CompletableFuture<Integer> result = AsyncUtil.getAll(loads).thenCompose(oldRecords -> {
+            final List<FDBStoredRecord<M>> presentRecords = new ArrayList<>(oldRecords.size());
+            for (FDBStoredRecord<M> oldRecord : oldRecords) {
+                if (oldRecord != null) {
+                    presentRecords.add(oldRecord);
+                }
+            }
+            return deleteStoredRecords(presentRecords).thenApply(vignore -> presentRecords.size());
+        });
+        return context.instrument(FDBStoreTimer.Events.DELETE_RECORDS, result);
+    }
+
+    /**
+     * Delete records that have already been loaded in this transaction.
+     * @param oldRecords the records to delete, which must all be present and have distinct primary keys
+     * @param <M> type used to represent stored records
+     * @return a future that completes when the records and their index entries have been deleted
+     */
+    @Nonnull
+    <M extends Message> CompletableFuture<Void> deleteStoredRecords(@Nonnull List<FDBStoredRecord<M>> oldRecords) {
+        final RecordMetaData metaData = metaDataProvider.getRecordMetaData();
+        final Map<Tuple, Long> recordCountChanges = new HashMap<>();
+        for (FDBStoredRecord<M> oldRecord : oldRecords) {
+            invalidateCachedRecord(oldRecord.getPrimaryKey());
+            clearRecord(metaData, oldRecord);
+            if (metaData.getRecordCountKey() != null) {
+                recordCountChanges.merge(recordCountKey(metaData, oldRecord), -1L, Long::sum);
+            }
+        }
+        if (!recordCountChanges.isEmpty()) {
+            final Transaction tr = ensureContextActive();
+            for (Map.Entry<Tuple, Long> entry : recordCountChanges.entrySet()) {
+                final byte[] increment = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(entry.getValue()).array();
+                tr.mutate(MutationType.ADD, getSubspace().pack(entry.getKey()), increment);
+            }
+        }
+        return removeSecondaryIndexEntries(oldRecords).thenRun(() -> {
+            for (FDBStoredRecord<M> oldRecord : oldRecords) {
+                if (hasIncompleteVersion(oldRecord)) {
+                    context.removeLocalVersion(oldRecord.getPrimaryKey());
+                }
+            }
+        });
+    }
+
+    // Clear the record itself, leaving its record count and index entries.
+    private <M extends Message> void clearRecord(@Nonnull RecordMetaData metaData, @Nonnull FDBStoredRecord<M> oldRecord) {
+        final Tuple primaryKey = oldRecord.getPrimaryKey();
+        SplitHelper.deleteSplit(getRecordContext(), recordsSubspace(), primaryKey, metaData.isSplitLongRecords(), omitUnsplitRecordSuffix, true, oldRecord);
+        countKeysAndValues(FDBStoreTimer.Counts.DELETE_RECORD_KEY, FDBStoreTimer.Counts.DELETE_RECORD_KEY_BYTES, FDBStoreTimer.Counts.DELETE_RECORD_VALUE_BYTES,
+                oldRecord);
+        if (useOldVersionFormat()) {
+            if (hasIncompleteVersion(oldRecord)) {
+                byte[] versionKey = getSubspace().pack(recordVersionKey(primaryKey));
+                context.removeVersionMutation(versionKey);
+            } else if (metaData.isStoreRecordVersions()) {
+                ensureContextActive().clear(getSubspace().pack(recordVersionKey(primaryKey)));
+            }
+        }
+    }
+
+    private static <M extends Message> boolean hasIncompleteVersion(@Nonnull FDBStoredRecord<M> record) {
+        return record.hasVersion() && !record.getVersion().isComplete();
+    }
+
     public static void deleteStore(FDBRecordContext context, KeySpacePath path) {
         final Subspace subspace = new Subspace(path.toTuple(context));
         deleteStore(context, subspace);
@@ -1099,7 +1496,7 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
 
     @Override
     public void deleteAllRecords() {
-        preloadCache.invalidateAll();
+        invalidateCachedRecords();
         Transaction tr = ensureContextActive();
         tr.clear(recordsSubspace().getKey(),
                  getSubspace().range().end);
@@ -1107,7 +1504,7 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
 
     @Override
     public CompletableFuture<Void> deleteRecordsWhereAsync(@Nonnull QueryComponent component) {
-        preloadCache.invalidateAll();
+        invalidateCachedRecords();
         return new RecordsWhereDeleter(component).run();
     }
 
@@ -1311,7 +1708,9 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
     }
 
     public static final int DEFAULT_PIPELINE_SIZE = 10;
-    public static final PipelineSizer DEFAULT_PIPELINE_SIZER = pipelineOperation -> DEFAULT_PIPELINE_SIZE;
+    // Prefetching query results is opt-in, since it reads ahead of what the caller may ever consume.
+    public static final PipelineSizer DEFAULT_PIPELINE_SIZER = pipelineOperation ->
+            pipelineOperation == PipelineOperation.PREFETCH ? 0 : DEFAULT_PIPELINE_SIZE;
 
     @Override
     public PipelineSizer getPipelineSizer() {
@@ -1381,6 +1780,42 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
             .evaluateRecordFunction(evaluationContext, indexRecordFunction, record);
     }
 
+    @Nonnull
+    @Override
+    public <T> CompletableFuture<List<T>> evaluateIndexRecordFunctions(@Nonnull EvaluationContext evaluationContext,
+                                                                       @Nonnull IndexRecordFunction<T> function,
+                                                                       @Nonnull List<? extends FDBRecord<Message>> records) {
+        return evaluateTypedIndexRecordFunctions(evaluationContext, function, records);
+    }
+
+    @Nonnull
+    protected <T, M extends Message> CompletableFuture<List<T>> evaluateTypedIndexRecordFunctions(@Nonnull EvaluationContext evaluationContext,
+                                                                                                  @Nonnull IndexRecordFunction<T> indexRecordFunction,
+                                                                                                  @Nonnull List<? extends FDBRecord<M>> records) {
+        // The index used can depend on the record type, so the records of each type are evaluated together.
+        final Map<String, List<Integer>> positionsByType = new HashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            positionsByType.computeIfAbsent(records.get(i).getRecordType().getName(), name -> new ArrayList<>()).add(i);
+        }
+        final List<T> results = new ArrayList<>(Collections.nCopies(records.size(), null));
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(positionsByType.size());
+        for (List<Integer> positions : positionsByType.values()) {
+            final List<FDBRecord<M>> typeRecords = new ArrayList<>(positions.size());
+            for (int position : positions) {
+                typeRecords.add(records.get(position));
+            }
+            final IndexMaintainer indexMaintainer = IndexFunctionHelper.indexMaintainerForRecordFunction(this, indexRecordFunction, typeRecords.get(0))
+                    .orElseThrow(() -> new RecordCoreException("Record function " + indexRecordFunction +
+                                                               " requires appropriate index on " + typeRecords.get(0).getRecordType().getName()));
+            futures.add(indexMaintainer.evaluateRecordFunctions(evaluationContext, indexRecordFunction, typeRecords).thenAccept(values -> {
+                for (int i = 0; i < positions.size(); i++) {
+                    results.set(positions.get(i), values.get(i));
+                }
+            }));
+        }
+        return AsyncUtil.whenAll(futures).thenApply(vignore -> results);
+    }
+
     @Override
     @Nonnull
     public <T> CompletableFuture<T> evaluateStoreFunction(@Nonnull EvaluationContext evaluationContext,
@@ -1530,6 +1965,11 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
                 // on an unset boolean field results in getting back "false".)
                 omitUnsplitRecordSuffix = info.getOmitUnsplitRecordSuffix();
             }
+            if (info.hasFormatVersion()) {
+                // An existing store keeps the chunk size that its split records were written with.
+                splitRecordSize = info.hasSplitRecordSize() ? info.getSplitRecordSize() : SplitHelper.SPLIT_RECORD_SIZE;
+                splitRecordSizeFromHeader = true;
+            }
             final boolean[] dirty = new boolean[1];
             final CompletableFuture<Void> checkedUserVersion = checkUserVersion(userVersionChecker, oldUserVersion, oldMetaDataVersion, info, dirty);
             final CompletableFuture<Void> checkedRebuild = checkedUserVersion.thenCompose(vignore -> checkPossiblyRebuild(userVersionChecker, info, dirty));
@@ -2360,6 +2800,9 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
 
         if (oldFormatVersion != formatVersion) {
             info.setFormatVersion(formatVersion);
+            if (oldFormatVersion == 0 && splitRecordSize != SplitHelper.SPLIT_RECORD_SIZE) {
+                info.setSplitRecordSize(splitRecordSize);
+            }
             // We must check whether we have to save unsplit records without a suffix before
             // attempting to read data, i.e., before we update any indexes.
             if ((oldFormatVersion >= MIN_FORMAT_VERSION
@@ -2783,6 +3226,14 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         @Nonnull
         private FDBRecordStoreBase.PipelineSizer pipelineSizer = DEFAULT_PIPELINE_SIZER;
 
+        private boolean diffSplitRecordChunks;
+
+        private int splitRecordSize = SplitHelper.SPLIT_RECORD_SIZE;
+
+        private int splitRecordLoadParallelism;
+
+        private long recordCacheMaxBytes;
+
         protected Builder() {
         }
 
@@ -2809,6 +3260,10 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
             this.indexMaintainerRegistry = other.indexMaintainerRegistry;
             this.indexMaintenanceFilter = other.indexMaintenanceFilter;
             this.pipelineSizer = other.pipelineSizer;
+            this.diffSplitRecordChunks = other.diffSplitRecordChunks;
+            this.splitRecordSize = other.splitRecordSize;
+            this.splitRecordLoadParallelism = other.splitRecordLoadParallelism;
+            this.recordCacheMaxBytes = other.recordCacheMaxBytes;
         }
 
         /**
@@ -2824,6 +3279,10 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
             this.indexMaintainerRegistry = store.indexMaintainerRegistry;
             this.indexMaintenanceFilter = store.indexMaintenanceFilter;
             this.pipelineSizer = store.pipelineSizer;
+            this.diffSplitRecordChunks = store.diffSplitRecordChunks;
+            this.splitRecordSize = store.splitRecordSize;
+            this.splitRecordLoadParallelism = store.splitRecordLoadParallelism;
+            this.recordCacheMaxBytes = store.recordCacheMaxBytes;
         }
 
         @Override
@@ -2976,6 +3435,112 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
             return this;
         }
 
+        /**
+         * Get whether saving a split record only rewrites the chunks that differ from the record it replaces.
+         * @return {@code true} if split records are saved by comparing chunks with the existing record
+         */
+        public boolean isDiffSplitRecordChunks() {
+            return diffSplitRecordChunks;
+        }
+
+        /**
+         * Set whether saving a split record only rewrites the chunks that differ from the record it replaces.
+         *
+         * When enabled, the serialized bytes of an existing split record, which are already read to update indexes,
+         * are compared chunk by chunk with the new serialization. Unchanged chunks are not written again and only
+         * any chunks past the end of a shorter record are cleared, reducing the size of transactions that make
+         * small changes to large records. Since the comparison is done on the stored bytes, it is less effective when
+         * the serializer compresses or encrypts records. Chunks are only compared once the store has been opened with
+         * {@link #open} or {@link FDBRecordStore#checkVersion}, so that the chunk size is the one stored in the store's header.
+         * @param diffSplitRecordChunks {@code true} to only write changed chunks of split records
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setDiffSplitRecordChunks(boolean diffSplitRecordChunks) {
+            this.diffSplitRecordChunks = diffSplitRecordChunks;
+            return this;
+        }
+
+        /**
+         * Get the maximum size of each key-value pair used to store a split record in a new store.
+         * @return the split record chunk size in bytes
+         */
+        public int getSplitRecordSize() {
+            return splitRecordSize;
+        }
+
+        /**
+         * Set the maximum size of each key-value pair used to store a split record.
+         *
+         * The size is recorded in the store header when the store is created and an existing store always keeps the
+         * size it was created with, so this only affects new stores. A size other than the default
+         * {@link SplitHelper#SPLIT_RECORD_SIZE} requires at least {@link #SPLIT_RECORD_SIZE_FORMAT_VERSION}.
+         * Smaller chunks mean smaller writes when only part of a large record changes
+         * (see {@link #setDiffSplitRecordChunks}) at the cost of more keys per record.
+         * @param splitRecordSize the split record chunk size in bytes, at most {@link SplitHelper#SPLIT_RECORD_SIZE}
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setSplitRecordSize(int splitRecordSize) {
+            if (splitRecordSize <= 0 || splitRecordSize > SplitHelper.SPLIT_RECORD_SIZE) {
+                throw new RecordCoreArgumentException("Split record size must be positive and no more than " + SplitHelper.SPLIT_RECORD_SIZE)
+                        .addLogInfo("splitRecordSize", splitRecordSize);
+            }
+            this.splitRecordSize = splitRecordSize;
+            return this;
+        }
+
+        /**
+         * Get the number of sub-ranges of a split record that are read at once when loading it.
+         * @return the number of concurrent range reads per record load or {@code 0} if records are read sequentially
+         */
+        public int getSplitRecordLoadParallelism() {
+            return splitRecordLoadParallelism;
+        }
+
+        /**
+         * Set the number of sub-ranges of a split record that are read at once when loading it by primary key.
+         *
+         * If greater than zero, the chunks of a split record are fetched by concurrent range reads of
+         * {@link SplitHelper#PARALLEL_LOAD_CHUNKS_PER_RANGE} chunks each rather than by a single range read.
+         * This lowers the latency of loading very large records, at the cost of extra empty reads for small ones.
+         * @param splitRecordLoadParallelism the number of concurrent range reads per record load or {@code 0} to read sequentially
+         * @return this builder
+         * @see SplitHelper#loadWithSplitInParallel
+         */
+        @Nonnull
+        public Builder setSplitRecordLoadParallelism(int splitRecordLoadParallelism) {
+            this.splitRecordLoadParallelism = splitRecordLoadParallelism;
+            return this;
+        }
+
+        /**
+         * Get the maximum total size of the deserialized records that the record store keeps for the transaction.
+         * @return the maximum size in bytes of cached records or {@code 0} if records are not cached
+         */
+        public long getRecordCacheMaxBytes() {
+            return recordCacheMaxBytes;
+        }
+
+        /**
+         * Set the maximum total size of the deserialized records that the record store keeps for the transaction.
+         *
+         * If greater than zero, records that are loaded, scanned (including by queries) or saved through the store are
+         * kept, up to this many bytes of keys and values, and loading one of them again does not read or deserialize it.
+         * Deleting records removes them from the cache. Since the cache belongs to the store, writes to the same records
+         * through another store opened in the same transaction are not seen by it.
+         * Hits and misses are counted by {@link FDBStoreTimer.Counts#RECORD_CACHE_HIT_COUNT} and
+         * {@link FDBStoreTimer.Counts#RECORD_CACHE_MISS_COUNT}.
+         * @param recordCacheMaxBytes the maximum size in bytes of cached records or {@code 0} to not cache records
+         * @return this builder
+         */
+        @Nonnull
+        @API(API.Status.EXPERIMENTAL)
+        public Builder setRecordCacheMaxBytes(long recordCacheMaxBytes) {
+            this.recordCacheMaxBytes = recordCacheMaxBytes;
+            return this;
+        }
+
         @Override
         @Nonnull
         public Builder copyBuilder() {
@@ -2994,8 +3559,12 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
             if (serializer == null) {
                 throw new RecordCoreException("serializer must be supplied");
             }
+            if (splitRecordSize != SplitHelper.SPLIT_RECORD_SIZE && formatVersion < SPLIT_RECORD_SIZE_FORMAT_VERSION) {
+                throw new RecordCoreException("split record size requires format version " + SPLIT_RECORD_SIZE_FORMAT_VERSION);
+            }
             return new FDBRecordStore(context, subspaceProvider, formatVersion, getMetaDataProviderForBuild(),
-                    serializer, indexMaintainerRegistry, indexMaintenanceFilter, pipelineSizer);
+                    serializer, indexMaintainerRegistry, indexMaintenanceFilter, pipelineSizer, diffSplitRecordChunks,
+                    splitRecordSize, splitRecordLoadParallelism, recordCacheMaxBytes);
         }
 
         @Override
@@ -3011,9 +3580,79 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         @Override
         @Nonnull
         public CompletableFuture<FDBRecordStore> createOrOpenAsync(@Nonnull FDBRecordStoreBase.StoreExistenceCheck existenceCheck) {
+            return createOrOpenAsync(existenceCheck, preloadMetaData());
+        }
+
+        /**
+         * Open many record stores, all with this builder's settings and in this builder's context, but each in its own
+         * path. Resolving the paths and reading the store headers and index states of all of the stores is done
+         * in parallel, and the meta-data is only loaded once, so this takes about as long as opening a single store.
+         * @param keySpacePaths the paths of the record stores to open
+         * @param existenceCheck whether the stores must already exist
+         * @return a future that will contain the opened stores in the same order as the paths
+         * @see #createOrOpenAsync(FDBRecordStoreBase.StoreExistenceCheck)
+         */
+        @Nonnull
+        @API(API.Status.EXPERIMENTAL)
+        public CompletableFuture<List<FDBRecordStore>> createOrOpenAllAsync(@Nonnull List<KeySpacePath> keySpacePaths,
+                                                                            @Nonnull FDBRecordStoreBase.StoreExistenceCheck existenceCheck) {
+            if (context == null) {
+                throw new RecordCoreException("The context should be set before opening stores by key space path.");
+            }
+            final List<SubspaceProvider> subspaceProviders = new ArrayList<>(keySpacePaths.size());
+            for (KeySpacePath keySpacePath : keySpacePaths) {
+                subspaceProviders.add(new SubspaceProviderByKeySpacePath(keySpacePath, context));
+            }
+            return createOrOpenAllWithProvidersAsync(subspaceProviders, existenceCheck);
+        }
+
+        /**
+         * Open many record stores, each in its own subspace.
+         * @param subspaces the subspaces of the record stores to open
+         * @param existenceCheck whether the stores must already exist
+         * @return a future that will contain the opened stores in the same order as the subspaces
+         * @see #createOrOpenAllAsync(List, FDBRecordStoreBase.StoreExistenceCheck)
+         */
+        @Nonnull
+        @API(API.Status.EXPERIMENTAL)
+        public CompletableFuture<List<FDBRecordStore>> createOrOpenAllInSubspacesAsync(@Nonnull List<Subspace> subspaces,
+                                                                                       @Nonnull FDBRecordStoreBase.StoreExistenceCheck existenceCheck) {
+            final List<SubspaceProvider> subspaceProviders = new ArrayList<>(subspaces.size());
+            for (Subspace subspace : subspaces) {
+                subspaceProviders.add(new SubspaceProviderBySubspace(subspace));
+            }
+            return createOrOpenAllWithProvidersAsync(subspaceProviders, existenceCheck);
+        }
+
+        /**
+         * Synchronous version of {@link #createOrOpenAllAsync(List, FDBRecordStoreBase.StoreExistenceCheck)}.
+         * @param keySpacePaths the paths of the record stores to open
+         * @param existenceCheck whether the stores must already exist
+         * @return the opened stores in the same order as the paths
+         */
+        @Nonnull
+        @API(API.Status.EXPERIMENTAL)
+        public List<FDBRecordStore> createOrOpenAll(@Nonnull List<KeySpacePath> keySpacePaths,
+                                                    @Nonnull FDBRecordStoreBase.StoreExistenceCheck existenceCheck) {
+            return getContext().asyncToSync(FDBStoreTimer.Waits.WAIT_CHECK_VERSION, createOrOpenAllAsync(keySpacePaths, existenceCheck));
+        }
+
+        @Nonnull
+        private CompletableFuture<List<FDBRecordStore>> createOrOpenAllWithProvidersAsync(@Nonnull List<SubspaceProvider> subspaceProviders,
+                                                                                          @Nonnull FDBRecordStoreBase.StoreExistenceCheck existenceCheck) {
+            final CompletableFuture<Void> preloadMetaData = preloadMetaData();
+            final List<CompletableFuture<FDBRecordStore>> futures = new ArrayList<>(subspaceProviders.size());
+            for (SubspaceProvider subspaceProvider : subspaceProviders) {
+                futures.add(copyBuilder().setSubspaceProvider(subspaceProvider).createOrOpenAsync(existenceCheck, preloadMetaData));
+            }
+            return AsyncUtil.getAll(futures);
+        }
+
+        @Nonnull
+        private CompletableFuture<FDBRecordStore> createOrOpenAsync(@Nonnull FDBRecordStoreBase.StoreExistenceCheck existenceCheck,
+                                                                    @Nonnull CompletableFuture<Void> preloadMetaData) {
             // Might be as many as four reads: meta-data store, keyspace path, store index state, store info header.
             // Try to do them as much in parallel as possible.
-            final CompletableFuture<Void> preloadMetaData = preloadMetaData();
             FDBRecordStore recordStore = build();
             final CompletableFuture<Void> subspaceFuture = recordStore.preloadSubspaceAsync();
             final CompletableFuture<Void> loadStoreState = subspaceFuture.thenCompose(vignore -> recordStore.preloadRecordStoreStateAsync());
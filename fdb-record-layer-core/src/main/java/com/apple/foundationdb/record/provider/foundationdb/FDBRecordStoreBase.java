@@ -21,9 +21,12 @@
 package com.apple.foundationdb.record.provider.foundationdb;
 
 import com.apple.foundationdb.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.ByteScanLimiter;
 import com.apple.foundationdb.record.EndpointType;
 import com.apple.foundationdb.record.EvaluationContext;
 import com.apple.foundationdb.record.ExecuteProperties;
+import com.apple.foundationdb.record.ExecuteState;
 import com.apple.foundationdb.record.IndexEntry;
 import com.apple.foundationdb.record.IndexScanType;
 import com.apple.foundationdb.record.IndexState;
@@ -746,7 +749,8 @@ public interface FDBRecordStoreBase<M extends Message> extends RecordMetaDataPro
                                                                @Nonnull ScanProperties scanProperties,
                                                                @Nullable RecordScanLimiter recordScanLimiter) {
         final Index index = getRecordMetaData().getIndex(indexName);
-        return fetchIndexRecords(index, scanIndex(index, scanType, range, continuation, scanProperties, recordScanLimiter), orphanBehavior);
+        return fetchIndexRecords(index, scanIndex(index, scanType, range, continuation, scanProperties, recordScanLimiter), orphanBehavior,
+                scanProperties.getExecuteProperties().getState());
     }
 
     /**
@@ -762,8 +766,40 @@ public interface FDBRecordStoreBase<M extends Message> extends RecordMetaDataPro
     default RecordCursor<FDBIndexedRecord<M>> fetchIndexRecords(@Nonnull Index index,
                                                                 @Nonnull RecordCursor<IndexEntry> indexCursor,
                                                                 @Nonnull IndexOrphanBehavior orphanBehavior) {
-        RecordCursor<FDBIndexedRecord<M>> recordCursor = indexCursor.mapPipelined(entry ->
-                loadIndexEntryRecord(index, entry, orphanBehavior), getPipelineSize(PipelineOperation.INDEX_TO_RECORD));
+        return fetchIndexRecords(index, indexCursor, orphanBehavior, ExecuteState.NO_SCANNED_RECORDS_LIMIT);
+    }
+
+    /**
+     * Given a cursor that iterates over entries in an index, attempts to fetch the associated records for those entries.
+     * The keys and values of each fetched record are counted against the byte scan limit of the given state, so
+     * that an index scan sharing that state stops once the records it points to have used up the limit.
+     *
+     * @param index The definition of the index being scanned.
+     * @param indexCursor A cursor iterating over entries in the index.
+     * @param orphanBehavior How the iteration process should respond in the face of entries in the index for which
+     *    there is no associated record.
+     * @param executeState the execute state whose limits the record fetches count against
+     * @return A cursor returning indexed record entries.
+     * @see ExecuteState#getByteScanLimiter
+     */
+    @Nonnull
+    default RecordCursor<FDBIndexedRecord<M>> fetchIndexRecords(@Nonnull Index index,
+                                                                @Nonnull RecordCursor<IndexEntry> indexCursor,
+                                                                @Nonnull IndexOrphanBehavior orphanBehavior,
+                                                                @Nonnull ExecuteState executeState) {
+        final ByteScanLimiter byteScanLimiter = executeState.getByteScanLimiter();
+        RecordCursor<FDBIndexedRecord<M>> recordCursor = indexCursor.mapPipelined(entry -> {
+            final CompletableFuture<FDBIndexedRecord<M>> future = loadIndexEntryRecord(index, entry, orphanBehavior);
+            if (byteScanLimiter == null) {
+                return future;
+            }
+            return future.thenApply(indexedRecord -> {
+                if (indexedRecord != null && indexedRecord.hasStoredRecord()) {
+                    byteScanLimiter.registerScannedBytes(indexedRecord.getKeySize() + indexedRecord.getValueSize());
+                }
+                return indexedRecord;
+            });
+        }, getPipelineSize(PipelineOperation.INDEX_TO_RECORD));
         if (orphanBehavior == IndexOrphanBehavior.SKIP) {
             recordCursor = recordCursor.filter(Objects::nonNull);
         }
@@ -810,7 +846,7 @@ public interface FDBRecordStoreBase<M extends Message> extends RecordMetaDataPro
     default CompletableFuture<Boolean> hasIndexEntryRecord(@Nonnull final Index index,
                                                            @Nonnull final IndexEntry entry,
                                                            @Nonnull final IsolationLevel isolationLevel) {
-        final Tuple primaryKey = indexEntryPrimaryKey(index, entry.getKey());
+        final Tuple primaryKey = indexEntryPrimaryKey(index, entry);
         return recordExistsAsync(primaryKey, isolationLevel);
     }
 
@@ -818,7 +854,7 @@ public interface FDBRecordStoreBase<M extends Message> extends RecordMetaDataPro
     default CompletableFuture<FDBIndexedRecord<M>> loadIndexEntryRecord(@Nonnull final Index index,
                                                                         @Nonnull final IndexEntry entry,
                                                                         @Nonnull final IndexOrphanBehavior orphanBehavior) {
-        final Tuple primaryKey = indexEntryPrimaryKey(index, entry.getKey());
+        final Tuple primaryKey = indexEntryPrimaryKey(index, entry);
         return loadRecordInternal(primaryKey, false).thenApply(record -> {
             if (record == null) {
                 switch (orphanBehavior) {
@@ -863,6 +899,26 @@ public interface FDBRecordStoreBase<M extends Message> extends RecordMetaDataPro
         return Tuple.fromList(primaryKeys);
     }
 
+    /**
+     * Get the primary key portion of an index entry, decoding no more of a still packed key than needed.
+     * @param index the index associated with this entry
+     * @param entry the index entry
+     * @return the primary key extracted from the entry
+     */
+    @Nonnull
+    static Tuple indexEntryPrimaryKey(@Nonnull Index index, @Nonnull IndexEntry entry) {
+        int[] positions = index.getPrimaryKeyComponentPositions();
+        if (positions == null) {
+            return entry.subKey(index.getColumnSize(), entry.getKeySize()).getKey();
+        }
+        List<Object> primaryKeys = new ArrayList<>(positions.length);
+        int after = index.getColumnSize();
+        for (int i = 0; i < positions.length; i++) {
+            primaryKeys.add(entry.getKeyValue(positions[i] < 0 ? after++ : positions[i]));
+        }
+        return Tuple.fromList(primaryKeys);
+    }
+
     /**
      * Return a tuple to be used as the key for an index entry for the given value and primary key.
      * @param index the index for which this will be an entry
@@ -1079,6 +1135,30 @@ public interface FDBRecordStoreBase<M extends Message> extends RecordMetaDataPro
         return getContext().asyncToSync(FDBStoreTimer.Waits.WAIT_DELETE_RECORD, deleteRecordAsync(primaryKey));
     }
 
+    /**
+     * Async version of {@link #deleteRecords}.
+     * @param primaryKeys the primary keys of the records to delete
+     * @return a future that completes to the number of records that were present to be deleted
+     */
+    @Nonnull
+    @API(API.Status.EXPERIMENTAL)
+    CompletableFuture<Integer> deleteRecordsAsync(@Nonnull List<Tuple> primaryKeys);
+
+    /**
+     * Delete the records with the given primary keys.
+     *
+     * This is like calling {@link #deleteRecord} for each of them, but loads all the records at once and updates each
+     * record count key only once. A primary key that appears more than once is only deleted once.
+     *
+     * @param primaryKeys the primary keys of the records to delete
+     *
+     * @return the number of records that were there to delete
+     */
+    @API(API.Status.EXPERIMENTAL)
+    default int deleteRecords(@Nonnull List<Tuple> primaryKeys) {
+        return getContext().asyncToSync(FDBStoreTimer.Waits.WAIT_DELETE_RECORDS, deleteRecordsAsync(primaryKeys));
+    }
+
     /**
      * Delete all the data in the record store.
      * <p>
@@ -1238,6 +1318,52 @@ public interface FDBRecordStoreBase<M extends Message> extends RecordMetaDataPro
         throw new RecordCoreException("Cannot evaluate record function " + function);
     }
 
+    /**
+     * Evaluate a {@link RecordFunction} against several records.
+     * This gives the same results as evaluating the function against each record, but an index that evaluates the
+     * function may be able to share work between the records.
+     * @param evaluationContext evaluation context containing parameter bindings
+     * @param function the function to evaluate
+     * @param records the records to evaluate against
+     * @param <T> the type of the result
+     * @return a future that will complete with the result of evaluating the function against each record, in the same order
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    default <T> CompletableFuture<List<T>> evaluateRecordFunctions(@Nonnull EvaluationContext evaluationContext,
+                                                                   @Nonnull RecordFunction<T> function,
+                                                                   @Nonnull List<? extends FDBRecord<M>> records) {
+        if (function instanceof IndexRecordFunction<?>) {
+            IndexRecordFunction<T> indexRecordFunction = (IndexRecordFunction<T>)function;
+            return evaluateIndexRecordFunctions(evaluationContext, indexRecordFunction, records);
+        }
+        final List<CompletableFuture<T>> futures = new ArrayList<>(records.size());
+        for (FDBRecord<M> record : records) {
+            futures.add(evaluateRecordFunction(evaluationContext, function, record));
+        }
+        return AsyncUtil.getAll(futures);
+    }
+
+    /**
+     * Evaluate a {@link IndexRecordFunction} against several records.
+     * @param <T> the type of the result
+     * @param evaluationContext evaluation context containing parameter bindings
+     * @param function the function to evaluate
+     * @param records the records to evaluate against
+     * @return a future that will complete with the result of evaluating the function against each record, in the same order
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    default <T> CompletableFuture<List<T>> evaluateIndexRecordFunctions(@Nonnull EvaluationContext evaluationContext,
+                                                                        @Nonnull IndexRecordFunction<T> function,
+                                                                        @Nonnull List<? extends FDBRecord<M>> records) {
+        final List<CompletableFuture<T>> futures = new ArrayList<>(records.size());
+        for (FDBRecord<M> record : records) {
+            futures.add(evaluateIndexRecordFunction(evaluationContext, function, record));
+        }
+        return AsyncUtil.getAll(futures);
+    }
+
     /**
      * Evaluate a {@link IndexRecordFunction} against a record.
      * @param <T> the type of the result
@@ -1366,7 +1492,7 @@ public interface FDBRecordStoreBase<M extends Message> extends RecordMetaDataPro
     default FDBQueriedRecord<M> coveredIndexQueriedRecord(@Nonnull Index index, @Nonnull IndexEntry indexEntry, @Nonnull RecordType recordType,
                                                           @Nonnull M partialRecord, boolean hasPrimaryKey) {
         return FDBQueriedRecord.covered(index, indexEntry,
-                hasPrimaryKey ? indexEntryPrimaryKey(index, indexEntry.getKey()) : TupleHelpers.EMPTY,
+                hasPrimaryKey ? indexEntryPrimaryKey(index, indexEntry) : TupleHelpers.EMPTY,
                 recordType, partialRecord);
     }
 
@@ -1409,6 +1535,11 @@ public interface FDBRecordStoreBase<M extends Message> extends RecordMetaDataPro
 
     /**
      * Execute a query.
+     *
+     * If the query is executed at {@link IsolationLevel#SNAPSHOT} isolation, so that reading ahead does not add conflicts,
+     * the results are {@linkplain RecordCursor#prefetch prefetched} by the {@linkplain #getPipelineSize pipeline size}
+     * for {@link PipelineOperation#PREFETCH}. That size is zero in the {@linkplain FDBRecordStore#DEFAULT_PIPELINE_SIZER default
+     * pipeline sizer}, so results are only prefetched if a pipeline sizer opts in.
      * @param query the query to execute
      * @param continuation continuation from a previous execution of this same plan
      * @param executeProperties limits on execution
@@ -1419,7 +1550,14 @@ public interface FDBRecordStoreBase<M extends Message> extends RecordMetaDataPro
     default RecordCursor<FDBQueriedRecord<M>> executeQuery(@Nonnull RecordQueryPlan query,
                                                            @Nullable byte[] continuation,
                                                            @Nonnull ExecuteProperties executeProperties) {
-        return query.execute(this, EvaluationContext.EMPTY, continuation, executeProperties);
+        final RecordCursor<FDBQueriedRecord<M>> cursor = query.execute(this, EvaluationContext.EMPTY, continuation, executeProperties);
+        if (executeProperties.getIsolationLevel().isSnapshot()) {
+            final int prefetchSize = getPipelineSize(PipelineOperation.PREFETCH);
+            if (prefetchSize > 0) {
+                return cursor.prefetch(prefetchSize);
+            }
+        }
+        return cursor;
     }
 
     /**
@@ -82,6 +82,12 @@ public class FDBStoreTimer extends StoreTimer {
          * for later committing.
          */
         DELETE_RECORD("delete record"),
+        /**
+         * The amount of time taken deleting several records at once.
+         * This time includes secondary index maintenance as well as writing to the current transaction
+         * for later committing.
+         */
+        DELETE_RECORDS("delete records"),
         // TODO: Are these index maintanenace related ones really DetailEvents?
         /** The amount of time spent maintaining an index when the entire record is skipped by the {@link IndexMaintenanceFilter}. */
         SKIP_INDEX_RECORD("skip index record"),
@@ -168,6 +174,8 @@ public class FDBStoreTimer extends StoreTimer {
         GET_RECORD_RAW_VALUE("get record raw value"),
         /** The amount of time spent until the first part of a split record is available. */
         GET_RECORD_RANGE_RAW_FIRST_CHUNK("get record range raw first chunk"),
+        /** The amount of time spent reading all the parts of a split record in parallel sub-ranges. */
+        GET_RECORD_RANGE_RAW_PARALLEL("get record range raw parallel"),
         /** The amount of time spent until the first part of a range scan (such as an index) is available. */
         GET_SCAN_RANGE_RAW_FIRST_CHUNK("get scan range raw first chunk"),
         /** The amount of time spent initializing a {@link com.apple.foundationdb.async.RankedSet} skip list. */
@@ -228,6 +236,8 @@ public class FDBStoreTimer extends StoreTimer {
         WAIT_RECORD_EXISTS("wait to check if a record exists"),
         /** Wait for deleting a record. */
         WAIT_DELETE_RECORD("wait for delete record"),
+        /** Wait for deleting several records. */
+        WAIT_DELETE_RECORDS("wait for delete records"),
         /** Wait for resolving directory layer entries. */
         WAIT_DIRECTORY_RESOLVE("wait for directory resolve"),
         /** Wait for check version on a record store. */
@@ -299,6 +309,8 @@ public class FDBStoreTimer extends StoreTimer {
         SAVE_RECORD_KEY_BYTES("number of record key bytes saved", true),
         /** The size of values for record key-value pairs saved. */
         SAVE_RECORD_VALUE_BYTES("number of record value bytes saved", true),
+        /** The number of split record chunks that were left in place because they were unchanged by a save. */
+        SPLIT_RECORD_CHUNKS_UNCHANGED("number of unchanged split record chunks not rewritten", false),
         /** The number of entries (e.g., key-value pairs or text index entries) loaded by a scan. */
         LOAD_SCAN_ENTRY("number of entries loaded by some scan", false),
         /** The number of key-value pairs loaded by a range scan. */
@@ -343,6 +355,10 @@ public class FDBStoreTimer extends StoreTimer {
         DELETE_INDEX_VALUE_BYTES("number of index value bytes deleted", true),
         /** The previous size of values for record key-value pairs that are updated. */
         REPLACE_RECORD_VALUE_BYTES("number of record value bytes replaced", true),
+        /** The number of record loads answered by the record cache of a record store. */
+        RECORD_CACHE_HIT_COUNT("number of record cache hits", false),
+        /** The number of record loads that could not be answered by the record cache of a record store. */
+        RECORD_CACHE_MISS_COUNT("number of record cache misses", false),
         /** The number of reverse directory cache misses.  */
         REVERSE_DIR_PERSISTENT_CACHE_MISS_COUNT("number of persistent cache misses", false),
         /** The number of reverse directory cache hits.  */
@@ -403,6 +419,8 @@ public class FDBStoreTimer extends StoreTimer {
         QUERY_INTERSECTION_PLAN_MATCHES("number of matching records found by RecordQueryIntersectionPlan", false),
         /** The number of non-matching records found by {@link com.apple.foundationdb.record.query.plan.plans.RecordQueryIntersectionPlan}. */
         QUERY_INTERSECTION_PLAN_NONMATCHES("number of non-matching records found by RecordQueryIntersectionPlan", false),
+        /** The number of times a child of an intersection was re-opened at the key of another child rather than read element by element. */
+        QUERY_INTERSECTION_PLAN_SEEKS("number of intersection child cursors re-opened ahead", false),
         /** The number of duplicate records found by {@link com.apple.foundationdb.record.query.plan.plans.RecordQueryUnorderedDistinctPlan}. */
         QUERY_UNION_PLAN_DUPLICATES("number of duplicates found by RecordQueryUnorderedDistinctPlan", false),
         /** The number of unique records found by {@link com.apple.foundationdb.record.query.plan.plans.RecordQueryUnorderedDistinctPlan}. */
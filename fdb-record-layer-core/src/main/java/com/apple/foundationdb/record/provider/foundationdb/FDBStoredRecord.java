@@ -22,6 +22,7 @@ package com.apple.foundationdb.record.provider.foundationdb;
 
 import com.apple.foundationdb.API;
 import com.apple.foundationdb.record.metadata.RecordType;
+import com.apple.foundationdb.record.metadata.expressions.CompiledKeyExpression;
 import com.apple.foundationdb.tuple.Tuple;
 import com.google.protobuf.Message;
 
@@ -58,6 +59,11 @@ public class FDBStoredRecord<M extends Message> implements FDBIndexableRecord<M>
     private final Optional<Long> timeToLoad;
     private final Optional<Long> timeToDeserialize;
 
+    // Only present while the store is updating the indexes of this record, so that a record kept in the
+    // store's record cache does not also keep the values evaluated from it.
+    @Nullable
+    private volatile CompiledKeyExpression.EvaluationCache evaluationCache;
+
     @SuppressWarnings("squid:S00107") // Allow this many args since mostly initialized by builder.
     protected FDBStoredRecord(@Nonnull Tuple primaryKey, @Nonnull RecordType recordType, @Nonnull M record,
                               @Nonnull int keyCount, int keySize, int valueSize, boolean split, boolean versionedInline, @Nullable FDBRecordVersion recordVersion) {
@@ -191,6 +197,39 @@ public class FDBStoredRecord<M extends Message> implements FDBIndexableRecord<M>
         return withVersion(recordVersion.withCommittedVersion(committedVersion));
     }
 
+    /**
+     * Get the values of key expression columns that have already been computed for this record. When a record
+     * is saved or deleted, every index on its type evaluates its key expression against the same record object,
+     * so this allows fields that are used by more than one of those indexes to only be read once.
+     * @return the cache of evaluated column values for this record or {@code null} if its indexes are not being updated
+     * @see #startEvaluationCache
+     */
+    @Override
+    @API(API.Status.INTERNAL)
+    @Nullable
+    public CompiledKeyExpression.EvaluationCache getEvaluationCache() {
+        return evaluationCache;
+    }
+
+    /**
+     * Start keeping the values of key expression columns computed for this record, until {@link #clearEvaluationCache}.
+     */
+    @API(API.Status.INTERNAL)
+    public void startEvaluationCache() {
+        if (evaluationCache == null) {
+            // Benign race: at worst, two caches are created and one is discarded.
+            evaluationCache = new CompiledKeyExpression.EvaluationCache();
+        }
+    }
+
+    /**
+     * Stop keeping the values of key expression columns computed for this record and discard any already kept.
+     */
+    @API(API.Status.INTERNAL)
+    public void clearEvaluationCache() {
+        evaluationCache = null;
+    }
+
     @Nonnull
     public Optional<Long> getTimeToLoad() {
         return timeToLoad;
@@ -173,6 +173,12 @@ public class FDBTypedRecordStore<M extends Message> implements FDBRecordStoreBas
         return untypedStore.deleteTypedRecord(typedSerializer, primaryKey);
     }
 
+    @Nonnull
+    @Override
+    public CompletableFuture<Integer> deleteRecordsAsync(@Nonnull List<Tuple> primaryKeys) {
+        return untypedStore.deleteTypedRecords(typedSerializer, primaryKeys);
+    }
+
     @Override
     public void deleteAllRecords() {
         untypedStore.deleteAllRecords();
@@ -208,6 +214,12 @@ public class FDBTypedRecordStore<M extends Message> implements FDBRecordStoreBas
         return untypedStore.evaluateTypedIndexRecordFunction(evaluationContext, function, record);
     }
 
+    @Nonnull
+    @Override
+    public <T> CompletableFuture<List<T>> evaluateIndexRecordFunctions(@Nonnull EvaluationContext evaluationContext, @Nonnull IndexRecordFunction<T> function, @Nonnull List<? extends FDBRecord<M>> records) {
+        return untypedStore.evaluateTypedIndexRecordFunctions(evaluationContext, function, records);
+    }
+
     @Nonnull
     @Override
     public <T> CompletableFuture<T> evaluateStoreFunction(@Nonnull EvaluationContext evaluationContext, @Nonnull StoreRecordFunction<T> function, @Nonnull FDBRecord<M> record) {
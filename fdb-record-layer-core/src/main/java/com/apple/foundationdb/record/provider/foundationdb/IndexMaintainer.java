@@ -22,6 +22,7 @@ package com.apple.foundationdb.record.provider.foundationdb;
 
 import com.apple.foundationdb.API;
 import com.apple.foundationdb.Transaction;
+import com.apple.foundationdb.async.AsyncUtil;
 import com.apple.foundationdb.record.EvaluationContext;
 import com.apple.foundationdb.record.IndexEntry;
 import com.apple.foundationdb.record.IndexScanType;
@@ -40,6 +41,8 @@ import com.google.protobuf.Message;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -105,6 +108,24 @@ public abstract class IndexMaintainer {
     public abstract <M extends Message> CompletableFuture<Void> update(@Nullable FDBIndexableRecord<M> oldRecord,
                                                                        @Nullable FDBIndexableRecord<M> newRecord);
 
+    /**
+     * Add several new records to the index, as when building it.
+     * By default, this adds each record in turn, as {@link #update update(null, record)} would. Indexes that can
+     * share the work of adding several records, such as by updating the same persistent data structure once, override this.
+     * @param <M> type of message
+     * @param newRecords the records to add
+     * @return a future that is complete when all of the records have been added
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public <M extends Message> CompletableFuture<Void> addRecords(@Nonnull List<? extends FDBIndexableRecord<M>> newRecords) {
+        CompletableFuture<Void> future = AsyncUtil.DONE;
+        for (FDBIndexableRecord<M> newRecord : newRecords) {
+            future = future.thenCompose(vignore -> update(null, newRecord));
+        }
+        return future;
+    }
+
     /**
      * Remove or add a uniqueness violation within the database. This is used to keep track of
      * uniqueness violations that occur when an index is in write-only mode, both during
@@ -154,6 +175,29 @@ public abstract class IndexMaintainer {
                                                                                        @Nonnull IndexRecordFunction<T> function,
                                                                                        @Nonnull FDBRecord<M> record);
 
+    /**
+     * Evaluate a record function on several records.
+     * By default, this evaluates the function on each record separately. Indexes that can share the work of evaluating
+     * the function on several records, such as by reading the same part of the index once, override this.
+     * @param <T> the result type of the function
+     * @param <M> the message type of the records
+     * @param context context for evaluation
+     * @param function the record function to apply to the given records
+     * @param records records against which to evaluate
+     * @return a future that completes with the result of evaluation for each record, in the same order
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public <T, M extends Message> CompletableFuture<List<T>> evaluateRecordFunctions(@Nonnull EvaluationContext context,
+                                                                                     @Nonnull IndexRecordFunction<T> function,
+                                                                                     @Nonnull List<? extends FDBRecord<M>> records) {
+        final List<CompletableFuture<T>> futures = new ArrayList<>(records.size());
+        for (FDBRecord<M> record : records) {
+            futures.add(evaluateRecordFunction(context, function, record));
+        }
+        return AsyncUtil.getAll(futures);
+    }
+
     @Nonnull
     protected <T> CompletableFuture<T> unsupportedRecordFunction(@Nonnull IndexRecordFunction<T> function) {
         throw new RecordCoreException("Index " + state.index.getName() + " does not support " + function);
@@ -0,0 +1,256 @@
+/*
+ * MultiTransactionCursor.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.API;
+import com.apple.foundationdb.FDBException;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordCursorVisitor;
+import com.apple.foundationdb.record.SpotBugsSuppressWarnings;
+import com.apple.foundationdb.record.cursors.IllegalContinuationAccessChecker;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+
+/**
+ * A cursor that reads another cursor across as many transactions as it takes to finish.
+ *
+ * <p>
+ * The inner cursor is opened in a transaction from a {@link FDBDatabaseRunner}, from the continuation of the last
+ * element returned. When it stops for an {@linkplain RecordCursor.NoNextReason#isOutOfBand out-of-band} reason, such as
+ * a time limit meant to keep the transaction short, or fails with a retriable error, such as the transaction getting too
+ * old, that transaction is closed and the inner cursor is opened again from where it left off in a new one. Elements
+ * are therefore returned exactly once, and the continuation of this cursor is always that of the inner cursor.
+ * Since the transactions are only read from, they are never committed.
+ * </p>
+ *
+ * <p>
+ * If the read version is pinned, every transaction reads at the read version of the first, so that all the elements
+ * come from a single consistent snapshot of the database. This only works for as long as the database keeps that
+ * version, which is about five seconds, after which reading fails with {@code transaction_too_old}.
+ * </p>
+ *
+ * <p>
+ * If the inner cursor stops for an out-of-band reason without returning anything or fails more than
+ * {@link FDBDatabaseRunner#getMaxAttempts} times in a row, this cursor stops (or fails) the same way.
+ * </p>
+ *
+ * @param <T> the type of elements of the cursor
+ * @see FDBDatabaseRunner#executeQuery
+ */
+@API(API.Status.EXPERIMENTAL)
+public class MultiTransactionCursor<T> implements RecordCursor<T> {
+    private static final int TRANSACTION_TOO_OLD = 1007;
+
+    @Nonnull
+    private final FDBDatabaseRunner runner;
+    @Nonnull
+    private final BiFunction<FDBRecordContext, byte[], CompletableFuture<RecordCursor<T>>> cursorFunction;
+    private final boolean pinReadVersion;
+    @Nullable
+    private byte[] continuation;
+    @Nullable
+    private Long readVersion;
+    @Nullable
+    private FDBRecordContext context;
+    @Nullable
+    private RecordCursor<T> inner;
+    private int attempts;
+    @Nullable
+    private CompletableFuture<Boolean> nextFuture;
+    @Nullable
+    private RecordCursorResult<T> nextResult;
+
+    // for detecting incorrect cursor usage
+    private boolean mayGetContinuation = false;
+
+    /**
+     * Create a new cursor.
+     * @param runner the runner from which to open transactions
+     * @param cursorFunction a function to open the inner cursor in a given transaction from a given continuation
+     * @param continuation the continuation from which to start or {@code null} to start from the beginning
+     * @param pinReadVersion whether all transactions should use the same read version
+     */
+    public MultiTransactionCursor(@Nonnull FDBDatabaseRunner runner,
+                                  @Nonnull BiFunction<FDBRecordContext, byte[], CompletableFuture<RecordCursor<T>>> cursorFunction,
+                                  @Nullable byte[] continuation, boolean pinReadVersion) {
+        this.runner = runner;
+        this.cursorFunction = cursorFunction;
+        this.continuation = continuation;
+        this.pinReadVersion = pinReadVersion;
+    }
+
+    @Nonnull
+    @Override
+    @API(API.Status.EXPERIMENTAL)
+    public CompletableFuture<RecordCursorResult<T>> onNext() {
+        mayGetContinuation = false;
+        return AsyncUtil.whileTrue(() -> {
+            if (inner == null) {
+                return openInner().handle((vignore, err) -> {
+                    if (err != null) {
+                        closeInner();
+                        retryOrThrow(err);
+                    }
+                    return true;
+                });
+            }
+            return inner.onNext().handle((result, err) -> {
+                if (err != null) {
+                    closeInner();
+                    retryOrThrow(err);
+                    return true;
+                }
+                if (result.hasNext()) {
+                    continuation = result.getContinuation().toBytes();
+                    attempts = 0;
+                    nextResult = result;
+                    return false;
+                }
+                closeInner();
+                if (result.getNoNextReason().isOutOfBand() && !result.getContinuation().isEnd()) {
+                    final byte[] resultContinuation = result.getContinuation().toBytes();
+                    // Keep going in a new transaction, unless this one made no progress at all.
+                    if (!Arrays.equals(continuation, resultContinuation) || ++attempts < runner.getMaxAttempts()) {
+                        continuation = resultContinuation;
+                        return true;
+                    }
+                }
+                nextResult = result;
+                return false;
+            });
+        }, getExecutor()).thenApply(vignore -> {
+            mayGetContinuation = !nextResult.hasNext();
+            return nextResult;
+        });
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> openInner() {
+        final FDBRecordContext newContext = runner.openContext();
+        context = newContext;
+        final CompletableFuture<Void> versionFuture;
+        if (!pinReadVersion) {
+            versionFuture = AsyncUtil.DONE;
+        } else if (readVersion == null) {
+            versionFuture = newContext.ensureActive().getReadVersion().thenAccept(version -> readVersion = version);
+        } else {
+            newContext.ensureActive().setReadVersion(readVersion);
+            versionFuture = AsyncUtil.DONE;
+        }
+        return versionFuture
+                .thenCompose(vignore -> cursorFunction.apply(newContext, continuation))
+                .thenAccept(cursor -> inner = cursor);
+    }
+
+    private void retryOrThrow(@Nonnull Throwable err) {
+        // A pinned read version that has gotten too old will never work again.
+        if (FDBExceptions.isRetriable(err) && !(pinReadVersion && isTransactionTooOld(err)) && ++attempts < runner.getMaxAttempts()) {
+            return;
+        }
+        throw runner.getDatabase().mapAsyncToSyncException(err);
+    }
+
+    private static boolean isTransactionTooOld(@Nonnull Throwable err) {
+        Throwable current = err;
+        while (current != null) {
+            if (current instanceof FDBException) {
+                return ((FDBException)current).getCode() == TRANSACTION_TOO_OLD;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+
+    private void closeInner() {
+        if (inner != null) {
+            inner.close();
+            inner = null;
+        }
+        if (context != null) {
+            context.close();
+            context = null;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Boolean> onHasNext() {
+        if (nextFuture == null) {
+            nextFuture = onNext().thenApply(RecordCursorResult::hasNext);
+        }
+        return nextFuture;
+    }
+
+    @Nullable
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        nextFuture = null;
+        mayGetContinuation = true;
+        return nextResult.get();
+    }
+
+    @Nullable
+    @Override
+    @SpotBugsSuppressWarnings(value = "EI", justification = "copies are expensive")
+    public byte[] getContinuation() {
+        IllegalContinuationAccessChecker.check(mayGetContinuation);
+        return nextResult.getContinuation().toBytes();
+    }
+
+    @Override
+    public NoNextReason getNoNextReason() {
+        return nextResult.getNoNextReason();
+    }
+
+    @Override
+    public void close() {
+        if (nextFuture != null) {
+            nextFuture.cancel(false);
+            nextFuture = null;
+        }
+        closeInner();
+    }
+
+    @Nonnull
+    @Override
+    public Executor getExecutor() {
+        return runner.getExecutor();
+    }
+
+    @Override
+    public boolean accept(@Nonnull RecordCursorVisitor visitor) {
+        if (visitor.visitEnter(this) && inner != null) {
+            inner.accept(visitor);
+        }
+        return visitor.visitLeave(this);
+    }
+}
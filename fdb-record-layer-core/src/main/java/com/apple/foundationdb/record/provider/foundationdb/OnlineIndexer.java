@@ -56,9 +56,11 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
@@ -334,6 +336,10 @@ public class OnlineIndexer implements AutoCloseable {
         // Note: This runs all of the updates in serial in order to not invoke a race condition
         // in the rank code that was causing incorrect results. If everything were thread safe,
         // a larger pipeline size would be possible.
+        // Records are added to the index in batches of up to the default limit, so that index types
+        // like rank that can share work between records do so.
+        final int batchSize = Math.max(1, Math.min(limit, DEFAULT_LIMIT));
+        final List<FDBStoredRecord<Message>> batch = new ArrayList<>();
         return cursor.forEachAsync(rec -> {
             empty.set(false);
             if (timer != null) {
@@ -343,11 +349,13 @@ public class OnlineIndexer implements AutoCloseable {
                 if (timer != null) {
                     timer.increment(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_INDEXED);
                 }
-                return maintainer.update(null, rec);
-            } else {
-                return AsyncUtil.DONE;
+                batch.add(rec);
+                if (batch.size() >= batchSize) {
+                    return addRecords(maintainer, batch);
+                }
             }
-        }, 1).thenCompose(vignore -> {
+            return AsyncUtil.DONE;
+        }, 1).thenCompose(vignore -> addRecords(maintainer, batch)).thenCompose(vignore -> {
             byte[] nextCont = empty.get() ? null : cursor.getContinuation();
             if (nextCont == null) {
                 return CompletableFuture.completedFuture(null);
@@ -368,6 +376,16 @@ public class OnlineIndexer implements AutoCloseable {
         });
     }
 
+    @Nonnull
+    private static CompletableFuture<Void> addRecords(@Nonnull IndexMaintainer maintainer, @Nonnull List<FDBStoredRecord<Message>> batch) {
+        if (batch.isEmpty()) {
+            return AsyncUtil.DONE;
+        }
+        final List<FDBStoredRecord<Message>> records = new ArrayList<>(batch);
+        batch.clear();
+        return maintainer.addRecords(records);
+    }
+
     // Builds a range within a single transaction. It will look for the missing ranges within the given range and build those while
     // updating the range set.
     @Nonnull
@@ -0,0 +1,290 @@
+/*
+ * ParallelRecordScanner.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.ExecuteProperties;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.ScanProperties;
+import com.apple.foundationdb.record.TupleRange;
+import com.google.protobuf.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Scan all the records in a record store using several transactions at once.
+ *
+ * <p>
+ * The store is first {@linkplain FDBRecordStore#computeRecordShards split} into ranges of primary keys, called shards,
+ * along the boundaries of the FDB shards that hold them. Up to {@link #getParallelism} shards are then scanned at once,
+ * each in a series of transactions that read up to {@link #getRecordsPerTransaction} records. Each batch of records is
+ * passed to a {@link ShardHandler} after the transaction that read it, and then the shard's continuation is advanced.
+ * If the scan is interrupted, it can be resumed from the same list of {@link Shard}s, and will begin again with the
+ * batch that was being handled for each shard.
+ * </p>
+ *
+ * <pre><code>
+ * ParallelRecordScanner scanner = new ParallelRecordScanner(fdb.newRunner(), recordStoreBuilder);
+ * List&lt;ParallelRecordScanner.Shard&gt; shards = scanner.computeShardsAsync().join();
+ * scanner.scanAsync(shards, (shard, records) -&gt; export(records)).join();
+ * </code></pre>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class ParallelRecordScanner {
+    /**
+     * The default number of shards scanned at once.
+     */
+    public static final int DEFAULT_PARALLELISM = 10;
+    /**
+     * The default maximum number of records read in one transaction.
+     */
+    public static final int DEFAULT_RECORDS_PER_TRANSACTION = 1_000;
+
+    @Nonnull
+    private final FDBDatabaseRunner runner;
+    @Nonnull
+    private final FDBRecordStore.Builder recordStoreBuilder;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private int maxShards = DEFAULT_PARALLELISM * 4;
+    private int recordsPerTransaction = DEFAULT_RECORDS_PER_TRANSACTION;
+
+    public ParallelRecordScanner(@Nonnull FDBDatabaseRunner runner, @Nonnull FDBRecordStore.Builder recordStoreBuilder) {
+        this.runner = runner;
+        this.recordStoreBuilder = recordStoreBuilder;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set the number of shards that are scanned at once.
+     * @param parallelism the number of concurrent shard scans
+     * @return this scanner
+     */
+    @Nonnull
+    public ParallelRecordScanner setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new RecordCoreArgumentException("parallelism must be positive")
+                    .addLogInfo("parallelism", parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public int getMaxShards() {
+        return maxShards;
+    }
+
+    /**
+     * Set the maximum number of shards into which {@link #computeShardsAsync} splits the store.
+     * Having more shards than the parallelism lets shards that finish early be replaced by others.
+     * @param maxShards the maximum number of shards
+     * @return this scanner
+     */
+    @Nonnull
+    public ParallelRecordScanner setMaxShards(int maxShards) {
+        if (maxShards < 1) {
+            throw new RecordCoreArgumentException("maximum number of shards must be positive")
+                    .addLogInfo("maxShards", maxShards);
+        }
+        this.maxShards = maxShards;
+        return this;
+    }
+
+    public int getRecordsPerTransaction() {
+        return recordsPerTransaction;
+    }
+
+    /**
+     * Set the maximum number of records that are read from a shard in one transaction and passed to the handler at once.
+     * @param recordsPerTransaction the maximum number of records per transaction
+     * @return this scanner
+     */
+    @Nonnull
+    public ParallelRecordScanner setRecordsPerTransaction(int recordsPerTransaction) {
+        if (recordsPerTransaction < 1) {
+            throw new RecordCoreArgumentException("records per transaction must be positive")
+                    .addLogInfo("recordsPerTransaction", recordsPerTransaction);
+        }
+        this.recordsPerTransaction = recordsPerTransaction;
+        return this;
+    }
+
+    /**
+     * Split the record store into shards to be scanned.
+     * @return a future that completes to a list of shards covering all the records in the store
+     */
+    @Nonnull
+    public CompletableFuture<List<Shard>> computeShardsAsync() {
+        return runner.runAsync(context -> openRecordStore(context)
+                .thenCompose(store -> store.computeRecordShards(maxShards))
+                .thenApply(ranges -> {
+                    final List<Shard> shards = new ArrayList<>(ranges.size());
+                    for (TupleRange range : ranges) {
+                        shards.add(new Shard(range, null));
+                    }
+                    return shards;
+                }));
+    }
+
+    /**
+     * Scan the given shards, passing each batch of records to the handler.
+     * Shards that are already {@linkplain Shard#isDone done} are skipped.
+     * @param shards the shards to scan
+     * @param handler the handler for each batch of records
+     * @return a future that completes when all the shards have been scanned
+     */
+    @Nonnull
+    public CompletableFuture<Void> scanAsync(@Nonnull List<Shard> shards, @Nonnull ShardHandler handler) {
+        final Queue<Shard> remaining = new ConcurrentLinkedQueue<>();
+        for (Shard shard : shards) {
+            if (!shard.isDone()) {
+                remaining.add(shard);
+            }
+        }
+        final int workers = Math.min(parallelism, remaining.size());
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(AsyncUtil.whileTrue(() -> {
+                final Shard shard = remaining.poll();
+                if (shard == null) {
+                    return AsyncUtil.READY_FALSE;
+                }
+                return AsyncUtil.whileTrue(() -> scanBatch(shard, handler), runner.getExecutor())
+                        .thenApply(vignore -> true);
+            }, runner.getExecutor()));
+        }
+        return AsyncUtil.whenAll(futures);
+    }
+
+    // Read one batch from the shard in its own transaction, hand it off, and return whether there is more.
+    @Nonnull
+    private CompletableFuture<Boolean> scanBatch(@Nonnull Shard shard, @Nonnull ShardHandler handler) {
+        final ScanProperties scanProperties = new ScanProperties(ExecuteProperties.newBuilder()
+                .setReturnedRowLimit(recordsPerTransaction)
+                .build());
+        return runner.runAsync(context -> openRecordStore(context).thenCompose(store -> {
+            final RecordCursor<FDBStoredRecord<Message>> cursor = store.scanRecords(shard.getRange(), shard.getContinuation(), scanProperties);
+            final Batch batch = new Batch();
+            return AsyncUtil.whileTrue(() -> cursor.onNext().thenApply(result -> {
+                if (result.hasNext()) {
+                    batch.records.add(result.get());
+                    return true;
+                }
+                batch.continuation = result.getContinuation().toBytes();
+                batch.exhausted = result.getNoNextReason().isSourceExhausted();
+                return false;
+            }), cursor.getExecutor()).thenApply(vignore -> {
+                cursor.close();
+                return batch;
+            });
+        })).thenCompose(batch -> handler.handle(shard, batch.records).thenApply(vignore -> {
+            shard.advance(batch.continuation, batch.exhausted);
+            return !batch.exhausted;
+        }));
+    }
+
+    @SuppressWarnings("squid:S1452")
+    private CompletableFuture<FDBRecordStore> openRecordStore(@Nonnull FDBRecordContext context) {
+        return recordStoreBuilder.copyBuilder().setContext(context).openAsync();
+    }
+
+    /**
+     * A range of primary keys and how far it has been scanned.
+     */
+    public static class Shard {
+        @Nonnull
+        private final TupleRange range;
+        @Nullable
+        private byte[] continuation;
+        private boolean done;
+
+        public Shard(@Nonnull TupleRange range, @Nullable byte[] continuation) {
+            this.range = range;
+            this.continuation = continuation;
+        }
+
+        @Nonnull
+        public TupleRange getRange() {
+            return range;
+        }
+
+        /**
+         * Get the continuation from which to resume scanning this shard.
+         * @return the continuation after the last batch handled or {@code null} if none has been
+         */
+        @Nullable
+        public synchronized byte[] getContinuation() {
+            return continuation;
+        }
+
+        /**
+         * Get whether every record in this shard has been handled.
+         * @return {@code true} if the shard has been completely scanned
+         */
+        public synchronized boolean isDone() {
+            return done;
+        }
+
+        synchronized void advance(@Nullable byte[] continuation, boolean done) {
+            this.continuation = continuation;
+            this.done = done;
+        }
+
+        @Override
+        public String toString() {
+            return "Shard{" + range + (isDone() ? ", done" : "") + "}";
+        }
+    }
+
+    /**
+     * A function that is given each batch of records read from a shard.
+     */
+    @FunctionalInterface
+    public interface ShardHandler {
+        /**
+         * Handle a batch of records. The shard's continuation is not advanced past these records until the returned
+         * future completes, so a resumed scan may see them again if it does not.
+         * @param shard the shard from which the records were read
+         * @param records the records read in one transaction, in primary key order
+         * @return a future that completes when the records have been handled
+         */
+        @Nonnull
+        CompletableFuture<Void> handle(@Nonnull Shard shard, @Nonnull List<FDBStoredRecord<Message>> records);
+    }
+
+    private static class Batch {
+        @Nonnull
+        private final List<FDBStoredRecord<Message>> records = new ArrayList<>();
+        @Nullable
+        private byte[] continuation;
+        private boolean exhausted;
+    }
+}
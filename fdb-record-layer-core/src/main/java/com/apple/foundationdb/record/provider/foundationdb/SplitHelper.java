@@ -49,7 +49,13 @@ import com.apple.foundationdb.record.SpotBugsSuppressWarnings;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
@@ -81,6 +87,12 @@ public class SplitHelper {
      */
     public static final long START_SPLIT_RECORD = 1L;
 
+    /**
+     * Default number of split chunks read by each sub-range of a parallel load.
+     * @see #loadWithSplitInParallel
+     */
+    public static final int PARALLEL_LOAD_CHUNKS_PER_RANGE = 10;
+
     private SplitHelper() {
     }
 
@@ -115,19 +127,59 @@ public class SplitHelper {
                                      final boolean splitLongRecords, final boolean omitUnsplitSuffix,
                                      final boolean clearBasedOnPreviousSizeInfo, @Nullable final FDBStoredSizes previousSizeInfo,
                                      @Nullable SizeInfo sizeInfo) {
+        saveWithSplit(context, subspace, key, serialized, version, splitLongRecords, SPLIT_RECORD_SIZE, omitUnsplitSuffix,
+                clearBasedOnPreviousSizeInfo, previousSizeInfo, null, sizeInfo);
+    }
+
+    /**
+     * Save serialized representation using multiple keys of a given size if necessary, writing only the split chunks that changed.
+     * If both the previous and the new serialized forms are split, each chunk of <code>serialized</code> is compared
+     * with the same chunk of <code>previousSerialized</code> and only those that differ are written, after which
+     * any chunks beyond the end of the new record are cleared. Otherwise, this behaves like
+     * {@link #saveWithSplit(FDBRecordContext, Subspace, Tuple, byte[], FDBRecordVersion, boolean, boolean, boolean, FDBStoredSizes, SizeInfo)}.
+     * @param context write transaction
+     * @param subspace subspace to save in
+     * @param key key within subspace
+     * @param serialized serialized representation
+     * @param version the version to store inline with this record
+     * @param splitLongRecords <code>true</code> if multiple keys should be used; if <code>false</code>, <code>serialized</code> must fit in a single key
+     * @param splitRecordSize if <code>splitLongRecords</code>, the maximum number of bytes stored in each key, at most {@link #SPLIT_RECORD_SIZE}
+     * @param omitUnsplitSuffix if <code>splitLongRecords</code> is <code>false</code>, then this will omit a suffix added to the end of the key if <code>true</code> for backwards-compatibility reasons
+     * @param clearBasedOnPreviousSizeInfo if <code>splitLongRecords</code>, whether to use <code>previousSizeInfo</code> to determine how much to clear
+     * @param previousSizeInfo if <code>clearBasedOnPreviousSizeInfo</code>, the {@link FDBStoredSizes} for any old record, or <code>null</code> if there was no old record
+     * @param previousSerialized the serialized representation currently stored under <code>key</code>, as described by <code>previousSizeInfo</code>
+     * and split using the same <code>splitRecordSize</code>, or <code>null</code> if not known
+     * @param sizeInfo optional size information to populate
+     */
+    public static void saveWithSplit(@Nonnull final FDBRecordContext context, @Nonnull final Subspace subspace,
+                                     @Nonnull final Tuple key, @Nonnull final byte[] serialized, @Nullable final FDBRecordVersion version,
+                                     final boolean splitLongRecords, final int splitRecordSize, final boolean omitUnsplitSuffix,
+                                     final boolean clearBasedOnPreviousSizeInfo, @Nullable final FDBStoredSizes previousSizeInfo,
+                                     @Nullable final byte[] previousSerialized,
+                                     @Nullable SizeInfo sizeInfo) {
         if (omitUnsplitSuffix && version != null) {
             throw new RecordCoreArgumentException("Cannot include version in-line using old unsplit record format")
                     .addLogInfo(LogMessageKeys.KEY_TUPLE, key)
                     .addLogInfo(LogMessageKeys.SUBSPACE, ByteArrayUtil2.loggable(subspace.pack()))
                     .addLogInfo(LogMessageKeys.VERSION, version);
         }
+        if (splitRecordSize <= 0 || splitRecordSize > SPLIT_RECORD_SIZE) {
+            throw new RecordCoreArgumentException("Split record size out of range")
+                    .addLogInfo(LogMessageKeys.KEY_TUPLE, key)
+                    .addLogInfo(LogMessageKeys.SUBSPACE, ByteArrayUtil2.loggable(subspace.pack()))
+                    .addLogInfo("splitRecordSize", splitRecordSize);
+        }
         final Transaction tr = context.ensureActive();
-        if (serialized.length > SplitHelper.SPLIT_RECORD_SIZE) {
+        if (serialized.length > (splitLongRecords ? splitRecordSize : SplitHelper.SPLIT_RECORD_SIZE)) {
             if (!splitLongRecords) {
                 throw new RecordCoreException("Record is too long (" + serialized.length +
                                               ") to be stored in a single value; consider split_long_records");
             }
-            writeSplitRecord(context, subspace, key, serialized, clearBasedOnPreviousSizeInfo, previousSizeInfo, sizeInfo);
+            if (clearBasedOnPreviousSizeInfo && canDiffSplitRecord(previousSizeInfo, previousSerialized, splitRecordSize)) {
+                writeChangedSplitChunks(context, subspace, key, serialized, splitRecordSize, previousSizeInfo, previousSerialized, version, sizeInfo);
+            } else {
+                writeSplitRecord(context, subspace, key, serialized, splitRecordSize, clearBasedOnPreviousSizeInfo, previousSizeInfo, sizeInfo);
+            }
         } else {
             if (splitLongRecords || previousSizeInfo == null || previousSizeInfo.isVersionedInline()) {
                 clearPreviousSplitRecord(context, subspace, key, clearBasedOnPreviousSizeInfo, previousSizeInfo);
@@ -149,7 +201,7 @@ public class SplitHelper {
     }
 
     private static void writeSplitRecord(@Nonnull final FDBRecordContext context, @Nonnull final Subspace subspace,
-                                         @Nonnull final Tuple key, @Nonnull final byte[] serialized,
+                                         @Nonnull final Tuple key, @Nonnull final byte[] serialized, final int splitRecordSize,
                                          final boolean clearBasedOnPreviousSizeInfo, @Nullable final FDBStoredSizes previousSizeInfo,
                                          @Nullable SizeInfo sizeInfo) {
         final Transaction tr = context.ensureActive();
@@ -158,7 +210,7 @@ public class SplitHelper {
         long index = SplitHelper.START_SPLIT_RECORD;
         int offset = 0;
         while (offset < serialized.length) {
-            int nextOffset = offset + SplitHelper.SPLIT_RECORD_SIZE;
+            int nextOffset = offset + splitRecordSize;
             if (nextOffset > serialized.length) {
                 nextOffset = serialized.length;
             }
@@ -178,6 +230,75 @@ public class SplitHelper {
         }
     }
 
+    // The stored chunks can only be compared against the previous serialization if that was itself split
+    // and laid out in the same chunk size as is written now.
+    private static boolean canDiffSplitRecord(@Nullable final FDBStoredSizes previousSizeInfo, @Nullable final byte[] previousSerialized,
+                                              final int splitRecordSize) {
+        if (previousSizeInfo == null || previousSerialized == null || !previousSizeInfo.isSplit()) {
+            return false;
+        }
+        final int previousChunks = previousSizeInfo.getKeyCount() - (previousSizeInfo.isVersionedInline() ? 1 : 0);
+        return previousChunks == chunkCount(previousSerialized.length, splitRecordSize);
+    }
+
+    private static int chunkCount(int length, int splitRecordSize) {
+        return (length + splitRecordSize - 1) / splitRecordSize;
+    }
+
+    private static boolean chunkEquals(@Nonnull byte[] serialized, @Nonnull byte[] previousSerialized, int offset, int nextOffset, int splitRecordSize) {
+        final int previousNextOffset = Math.min(offset + splitRecordSize, previousSerialized.length);
+        if (offset >= previousSerialized.length || previousNextOffset != nextOffset) {
+            return false;
+        }
+        for (int i = offset; i < nextOffset; i++) {
+            if (serialized[i] != previousSerialized[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeChangedSplitChunks(@Nonnull final FDBRecordContext context, @Nonnull final Subspace subspace,
+                                                @Nonnull final Tuple key, @Nonnull final byte[] serialized, final int splitRecordSize,
+                                                @Nonnull final FDBStoredSizes previousSizeInfo, @Nonnull final byte[] previousSerialized,
+                                                @Nullable final FDBRecordVersion version, @Nullable SizeInfo sizeInfo) {
+        final Transaction tr = context.ensureActive();
+        final Subspace keySplitSubspace = subspace.subspace(key);
+        long index = SplitHelper.START_SPLIT_RECORD;
+        int offset = 0;
+        while (offset < serialized.length) {
+            int nextOffset = offset + splitRecordSize;
+            if (nextOffset > serialized.length) {
+                nextOffset = serialized.length;
+            }
+            final byte[] keyBytes = keySplitSubspace.pack(index);
+            final boolean unchanged = chunkEquals(serialized, previousSerialized, offset, nextOffset, splitRecordSize);
+            if (!unchanged) {
+                tr.set(keyBytes, Arrays.copyOfRange(serialized, offset, nextOffset));
+            } else if (context.getTimer() != null) {
+                context.getTimer().increment(FDBStoreTimer.Counts.SPLIT_RECORD_CHUNKS_UNCHANGED);
+            }
+            if (sizeInfo != null) {
+                if (offset == 0) {
+                    sizeInfo.set(keyBytes, nextOffset - offset);
+                    sizeInfo.setSplit(true);
+                } else {
+                    sizeInfo.add(keyBytes, nextOffset - offset);
+                }
+            }
+            index++;
+            offset = nextOffset;
+        }
+        if (chunkCount(previousSerialized.length, splitRecordSize) >= index) {
+            // Record is shorter than before: truncate the tail chunks, which all sort after the ones just written.
+            tr.clear(keySplitSubspace.pack(index), keySplitSubspace.range().end);
+        }
+        if (version == null && previousSizeInfo.isVersionedInline()) {
+            tr.clear(keySplitSubspace.pack(RECORD_VERSION));
+        }
+        context.getLocalVersion(key).ifPresent(localVersion -> context.removeVersionMutation(keySplitSubspace.pack(RECORD_VERSION)));
+    }
+
     private static void writeVersion(@Nonnull final FDBRecordContext context, @Nonnull final Subspace subspace, @Nonnull final Tuple key,
                                      @Nullable final FDBRecordVersion version, @Nullable final SizeInfo sizeInfo) {
         if (version == null) {
@@ -275,6 +396,88 @@ public class SplitHelper {
         return new SingleKeyUnsplitter(context, key, new Subspace(keyBytes), rangeIter, sizeInfo).run(context.getExecutor());
     }
 
+    /**
+     * Load serialized byte array that may be split among several keys, reading the split chunks in parallel sub-ranges.
+     * Each wave of reads issues <code>parallelism</code> concurrent range reads of <code>chunksPerRange</code> chunks each,
+     * the first of which also covers an unsplit value and any version. Another wave is only issued if the last sub-range
+     * of the previous one was full. This trades some extra, empty, range reads when loading small records for lower
+     * latency loading very large ones, whose chunks {@link #loadWithSplit} would otherwise receive sequentially.
+     * @param tr read transaction
+     * @param context transaction context
+     * @param subspace subspace containing serialized value
+     * @param key key within subspace
+     * @param parallelism number of sub-ranges to read at once
+     * @param chunksPerRange number of split chunks to read in each sub-range
+     * @param sizeInfo optional size information to populate
+     * @return the merged byte array
+     */
+    public static CompletableFuture<FDBRawRecord> loadWithSplitInParallel(@Nonnull final ReadTransaction tr, @Nonnull final FDBRecordContext context,
+                                                                          @Nonnull final Subspace subspace, @Nonnull final Tuple key,
+                                                                          final int parallelism, final int chunksPerRange,
+                                                                          @Nullable SizeInfo sizeInfo) {
+        if (parallelism <= 0 || chunksPerRange <= 0) {
+            throw new RecordCoreArgumentException("Parallel load must read at least one range of at least one chunk")
+                    .addLogInfo(LogMessageKeys.KEY_TUPLE, key)
+                    .addLogInfo("parallelism", parallelism)
+                    .addLogInfo("chunksPerRange", chunksPerRange);
+        }
+        final long startTime = System.nanoTime();
+        final byte[] keyBytes = subspace.pack(key);
+        final Subspace keySplitSubspace = new Subspace(keyBytes);
+        final List<KeyValue> keyValues = new ArrayList<>();
+        final long[] nextIndex = {START_SPLIT_RECORD};
+        final CompletableFuture<Void> loaded = AsyncUtil.whileTrue(() -> {
+            final List<CompletableFuture<List<KeyValue>>> wave = new ArrayList<>(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                final byte[] begin = nextIndex[0] == START_SPLIT_RECORD ? keyBytes : keySplitSubspace.pack(nextIndex[0]);
+                nextIndex[0] += chunksPerRange;
+                wave.add(tr.getRange(begin, keySplitSubspace.pack(nextIndex[0]), ReadTransaction.ROW_LIMIT_UNLIMITED, false, StreamingMode.WANT_ALL).asList());
+            }
+            return AsyncUtil.getAll(wave).thenApply(results -> {
+                results.forEach(keyValues::addAll);
+                final List<KeyValue> last = results.get(results.size() - 1);
+                if (last.isEmpty()) {
+                    return false;
+                }
+                final Tuple lastSubkey = unpackKey(keySplitSubspace, last.get(last.size() - 1));
+                return lastSubkey.size() == 1 && lastSubkey.getLong(0) == nextIndex[0] - 1;
+            });
+        }, context.getExecutor());
+        context.instrument(FDBStoreTimer.DetailEvents.GET_RECORD_RANGE_RAW_PARALLEL, loaded, startTime);
+        return loaded.thenCompose(vignore -> new SingleKeyUnsplitter(context, key, keySplitSubspace, new LoadedAsyncIterator<>(keyValues.iterator()), sizeInfo)
+                .run(context.getExecutor()));
+    }
+
+    // Adapts key-values that have already been read to the iterator expected by SingleKeyUnsplitter.
+    private static class LoadedAsyncIterator<T> implements AsyncIterator<T> {
+        @Nonnull
+        private final Iterator<T> iterator;
+
+        LoadedAsyncIterator(@Nonnull Iterator<T> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> onHasNext() {
+            return CompletableFuture.completedFuture(iterator.hasNext());
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return iterator.next();
+        }
+
+        @Override
+        public void cancel() {
+            // Nothing outstanding.
+        }
+    }
+
     // Old save behavior prior to SAVE_UNSPLIT_WITH_SUFFIX_FORMAT_VERSION
     // Primary keys were not given the UNSPLIT_RECORD suffix in unsplit stores
     private static CompletableFuture<FDBRawRecord> loadUnsplitLegacy(@Nonnull final ReadTransaction tr,
@@ -352,6 +555,23 @@ public class SplitHelper {
         }
     }
 
+    // Concatenate all of the chunks of a split record into a single array. This allocates the result exactly once,
+    // rather than re-copying everything accumulated so far each time another chunk is read.
+    @Nonnull
+    static byte[] concatenateChunks(@Nonnull Collection<byte[]> chunks) {
+        int length = 0;
+        for (byte[] chunk : chunks) {
+            length += chunk.length;
+        }
+        final byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] chunk : chunks) {
+            System.arraycopy(chunk, 0, result, offset, chunk.length);
+            offset += chunk.length;
+        }
+        return result;
+    }
+
     public static Tuple unpackKey(@Nonnull Subspace subspace, @Nonnull KeyValue kv) {
         try {
             return subspace.unpack(kv.getKey());
@@ -422,9 +642,13 @@ public class SplitHelper {
         }
 
         public void set(@Nonnull final byte[] keyBytes, @Nonnull final byte[] valueBytes) {
+            set(keyBytes, valueBytes.length);
+        }
+
+        public void set(@Nonnull final byte[] keyBytes, final int valueLength) {
             keyCount = 1;
             keySize = keyBytes.length;
-            valueSize = valueBytes.length;
+            valueSize = valueLength;
         }
 
         public void add(@Nonnull final KeyValue keyValue) {
@@ -432,9 +656,13 @@ public class SplitHelper {
         }
 
         public void add(@Nonnull final byte[] keyBytes, @Nonnull final byte[] valueBytes) {
+            add(keyBytes, valueBytes.length);
+        }
+
+        public void add(@Nonnull final byte[] keyBytes, final int valueLength) {
             keyCount += 1;
             keySize += keyBytes.length;
-            valueSize += valueBytes.length;
+            valueSize += valueLength;
         }
 
         public void add(@Nonnull FDBStoredSizes sizes) {
@@ -455,6 +683,7 @@ public class SplitHelper {
     /**
      * Unsplit a single record from a given range scan.
      */
+    // The chunks are only concatenated once, after they have all been read.
     // TODO: The alternative is to use streams throughout the serialization pipeline, from
     //  a range scan through to decryption and Protobuf coded input.
     public static class SingleKeyUnsplitter {
@@ -472,6 +701,8 @@ public class SplitHelper {
         @Nullable
         private byte[] result;
         @Nullable
+        private List<byte[]> additionalChunks;
+        @Nullable
         private FDBRecordVersion version;
 
         public SingleKeyUnsplitter(@Nonnull FDBRecordContext context, @Nonnull Tuple key,
@@ -509,6 +740,11 @@ public class SplitHelper {
                     return hasNext;
                 }), executor).thenApply(vignore -> {
                     if (result != null) {
+                        if (additionalChunks != null) {
+                            additionalChunks.add(0, result);
+                            result = concatenateChunks(additionalChunks);
+                            additionalChunks = null;
+                        }
                         return new FDBRawRecord(key, result, version, sizeInfo);
                     } else if (version != null) {
                         throw new FoundSplitWithoutStartException(SplitHelper.RECORD_VERSION, false)
@@ -548,8 +784,10 @@ public class SplitHelper {
                     sizeInfo.add(kv);
                     sizeInfo.setSplit(true);
                 } else {
-                    // TODO: ByteArrayOutputStream would grow better?
-                    result = ByteArrayUtil.join(result, kv.getValue());
+                    if (additionalChunks == null) {
+                        additionalChunks = new ArrayList<>();
+                    }
+                    additionalChunks.add(kv.getValue());
                     sizeInfo.add(kv);
                 }
                 lastIndex = index;
@@ -588,6 +826,9 @@ public class SplitHelper {
         private Subspace subspace;
         @Nullable
         private KeyValue next;
+        // Chunks of a split record after (or before, if reverse) the one in next, concatenated when the record is complete
+        @Nonnull
+        private final Deque<byte[]> nextChunks = new ArrayDeque<>();
         @Nullable
         private Tuple nextKey;
         @Nullable
@@ -664,7 +905,7 @@ public class SplitHelper {
                         nextResult = RecordCursorResult.withoutNextValue(continuation, mergeNoNextReason());
                     } else { // has next result
                         sizeInfo.setVersionedInline(nextVersion != null);
-                        final FDBRawRecord result = new FDBRawRecord(nextKey, next.getValue(), nextVersion, sizeInfo);
+                        final FDBRawRecord result = new FDBRawRecord(nextKey, nextValue(), nextVersion, sizeInfo);
                         next = null;
                         nextKey = null;
                         nextVersion = null;
@@ -750,6 +991,21 @@ public class SplitHelper {
             return visitor.visitLeave(this);
         }
 
+        @Nonnull
+        private byte[] nextValue() {
+            if (nextChunks.isEmpty()) {
+                return next.getValue();
+            }
+            if (reverse) {
+                nextChunks.addLast(next.getValue());
+            } else {
+                nextChunks.addFirst(next.getValue());
+            }
+            final byte[] value = concatenateChunks(nextChunks);
+            nextChunks.clear();
+            return value;
+        }
+
         // Process all elements from the scan until we get a new primary key
         private CompletableFuture<Void> appendUntilNewKey() {
             return AsyncUtil.whileTrue(() -> {
@@ -776,6 +1032,8 @@ public class SplitHelper {
                     } else {
                         innerNoNextReason = null; // currently, we have a next value
                         limitManager.tryRecordScan();
+                        final KeyValue kv = innerResult.get();
+                        limitManager.reportScannedBytes((long)kv.getKey().length + (long)kv.getValue().length);
                         boolean complete = append(innerResult);
                         return !complete;
                     }
@@ -808,6 +1066,7 @@ public class SplitHelper {
             nextSubspace = subspace.subspace(nextKey);
             nextPrefix = nextSubspace.pack();
             next = new KeyValue(nextPrefix, kv.getValue());
+            nextChunks.clear();
             nextIndex = keyTuple.getLong(keyTuple.size() - 1);
             sizeInfo.set(kv);
             if (nextIndex == UNSPLIT_RECORD) {
@@ -861,7 +1120,7 @@ public class SplitHelper {
                 // in the forward scan. Append its value to the end of the current
                 // key-value pair being accumulated. Return false because there is
                 // no way to know if this is the last key or not.
-                next = new KeyValue(nextPrefix, ByteArrayUtil.join(next.getValue(), kv.getValue()));
+                nextChunks.addLast(kv.getValue());
                 nextIndex = index;
                 return false;
             } else if (reverse && index == RECORD_VERSION && (nextIndex == START_SPLIT_RECORD || nextIndex == UNSPLIT_RECORD)) {
@@ -882,7 +1141,7 @@ public class SplitHelper {
                 // accumulated. Return false because there is no way to know if this is the
                 // last key or not (in particular, even if index == START_SPLIT_RECORD, it's
                 // possible that there is a record version before it).
-                next = new KeyValue(nextPrefix, ByteArrayUtil.join(kv.getValue(), next.getValue()));
+                nextChunks.addFirst(kv.getValue());
                 nextIndex = index;
                 return false;
             } else {
@@ -181,4 +181,41 @@ public class IntersectionCursor<T> extends IntersectionCursorBase<T, T> {
             @Nullable FDBStoreTimer timer) {
         return new IntersectionCursor<>(comparisonKeyFunction, reverse, createCursorStates(cursorFunctions, continuation), timer);
     }
+
+    /**
+     * Create an intersection cursor from two or more compatibly-ordered cursors, some of which can seek.
+     * This behaves like the overload of {@link #create(Function, boolean, List, byte[], FDBStoreTimer) create()}
+     * that does not take seek functions, except that a child cursor that falls behind the others
+     * may be re-opened closer to the current maximum comparison key rather than being read one element at a time.
+     * This makes the cost of a selective intersection closer to proportional to the size of its smallest child.
+     *
+     * <p>
+     * Each seek function is given a comparison key and should return a continuation that, when passed to the
+     * corresponding cursor function, produces a cursor that begins at or before the first element whose comparison
+     * key is greater than or equal to the given key (or less than or equal to it if <code>reverse</code> is <code>true</code>).
+     * A seek function may return <code>null</code> if it is unable to produce such a continuation, in which case
+     * that child is advanced as usual. The list of seek functions must be the same size as the list of cursor
+     * functions, though individual seek functions may be <code>null</code> for children that cannot seek.
+     * </p>
+     *
+     * @param comparisonKeyFunction the function evaluated to compare elements from different cursors
+     * @param reverse whether records are returned in descending or ascending order by the comparison key
+     * @param cursorFunctions a list of functions to produce {@link RecordCursor}s from a continuation
+     * @param seekFunctions a list of functions to produce a continuation for each child that seeks to a comparison key
+     * @param continuation any continuation from a previous scan
+     * @param timer the timer used to instrument events
+     * @param <T> the type of elements returned by this cursor
+     * @return a cursor containing all records in all child cursors
+     */
+    @Nonnull
+    @API(API.Status.EXPERIMENTAL)
+    public static <T> IntersectionCursor<T> create(
+            @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction,
+            boolean reverse,
+            @Nonnull List<Function<byte[], RecordCursor<T>>> cursorFunctions,
+            @Nonnull List<Function<List<Object>, byte[]>> seekFunctions,
+            @Nullable byte[] continuation,
+            @Nullable FDBStoreTimer timer) {
+        return new IntersectionCursor<>(comparisonKeyFunction, reverse, createCursorStates(cursorFunctions, seekFunctions, continuation), timer);
+    }
 }
@@ -85,10 +85,24 @@ abstract class IntersectionCursorBase<T, U> implements RecordCursor<U> {
     @Nonnull
     private static final Set<StoreTimer.Count> nonmatchesCounts =
             ImmutableSet.of(FDBStoreTimer.Counts.QUERY_INTERSECTION_PLAN_NONMATCHES, FDBStoreTimer.Counts.QUERY_DISCARDED);
+    @Nonnull
+    private static final Set<StoreTimer.Count> seekCounts = Collections.singleton(FDBStoreTimer.Counts.QUERY_INTERSECTION_PLAN_SEEKS);
+
+    /**
+     * The number of consecutive non-matching elements that a child cursor will discard before it is
+     * re-opened at the current maximum key, if that child supports seeking. Discarding an element that
+     * has already been read is much cheaper than re-opening a scan, so the intersection only seeks
+     * once a child has fallen sufficiently far behind the others.
+     */
+    static final int SEEK_THRESHOLD = 20;
 
     protected static class CursorState<T> {
         @Nonnull
-        private final RecordCursor<T> cursor;
+        private RecordCursor<T> cursor;
+        @Nullable
+        private final Function<byte[], RecordCursor<T>> cursorFunction;
+        @Nullable
+        private final Function<List<Object>, byte[]> seekFunction;
         @Nullable
         private CompletableFuture<RecordCursorResult<T>> onNextFuture;
         private List<Object> key;
@@ -96,9 +110,22 @@ abstract class IntersectionCursorBase<T, U> implements RecordCursor<U> {
         private RecordCursorContinuation continuation;
         @Nullable
         private RecordCursorResult<T> result;
+        private int discardedSinceMatch;
+        @Nullable
+        private List<Object> lastSeekKey;
+        private boolean sought;
 
         CursorState(@Nonnull RecordCursor<T> cursor, @Nonnull RecordCursorContinuation continuation) {
+            this(cursor, null, null, continuation);
+        }
+
+        CursorState(@Nonnull RecordCursor<T> cursor,
+                    @Nullable Function<byte[], RecordCursor<T>> cursorFunction,
+                    @Nullable Function<List<Object>, byte[]> seekFunction,
+                    @Nonnull RecordCursorContinuation continuation) {
             this.cursor = cursor;
+            this.cursorFunction = cursorFunction;
+            this.seekFunction = seekFunction;
             this.continuation = continuation;
         }
 
@@ -109,9 +136,12 @@ abstract class IntersectionCursorBase<T, U> implements RecordCursor<U> {
                     result = cursorResult;
                     if (result.hasNext()) {
                         key = keyFunction.apply(result.get());
-                    } else {
+                        sought = false;
+                    } else if (!sought || result.getNoNextReason().isSourceExhausted()) {
                         continuation = result.getContinuation(); // no result, so we advanced the cached continuation
                     }
+                    // Otherwise, a cursor that was re-opened by a seek stopped before returning anything, so
+                    // the continuation of the last element consumed before the seek is still the correct one.
                     return cursorResult;
                 });
             }
@@ -125,14 +155,54 @@ abstract class IntersectionCursorBase<T, U> implements RecordCursor<U> {
             continuation = result.getContinuation();
         }
 
+        // Consume an element that was part of a match.
+        void consumeMatch() {
+            discardedSinceMatch = 0;
+            consume();
+        }
+
+        // Consume an element that is definitely not part of the intersection. If this cursor has
+        // discarded enough elements in a row, then try to re-open it at the given (greater) key instead
+        // of reading forward one element at a time. Returns whether the cursor was re-opened.
+        boolean discard(@Nonnull List<Object> maxKey, boolean reverse) {
+            consume();
+            discardedSinceMatch++;
+            if (seekFunction == null || cursorFunction == null || discardedSinceMatch < SEEK_THRESHOLD) {
+                return false;
+            }
+            // Only ever seek forward from a previous seek so that a seek that lands before the
+            // current position cannot be repeated indefinitely.
+            if (lastSeekKey != null && KeyComparisons.KEY_COMPARATOR.compare(maxKey, lastSeekKey) * (reverse ? -1 : 1) <= 0) {
+                return false;
+            }
+            final byte[] seekContinuation = seekFunction.apply(maxKey);
+            if (seekContinuation == null) {
+                return false;
+            }
+            cursor.close();
+            cursor = cursorFunction.apply(seekContinuation);
+            lastSeekKey = maxKey;
+            discardedSinceMatch = 0;
+            sought = true;
+            return true;
+        }
+
+        @Nonnull
+        public static <T> CursorState<T> from(
+                @Nonnull Function<byte[], RecordCursor<T>> cursorFunction,
+                @Nonnull RecordCursorContinuation continuation) {
+            return from(cursorFunction, null, continuation);
+        }
+
         @Nonnull
         public static <T> CursorState<T> from(
                 @Nonnull Function<byte[], RecordCursor<T>> cursorFunction,
+                @Nullable Function<List<Object>, byte[]> seekFunction,
                 @Nonnull RecordCursorContinuation continuation) {
             if (continuation.isEnd()) {
                 return new CursorState<>(RecordCursor.empty(), RecordCursorEndContinuation.END);
             } else {
-                return new CursorState<>(cursorFunction.apply(continuation.toBytes()), continuation);
+                return new CursorState<>(cursorFunction.apply(continuation.toBytes()), cursorFunction, seekFunction, continuation);
             }
         }
 
@@ -172,10 +242,16 @@ abstract class IntersectionCursorBase<T, U> implements RecordCursor<U> {
             }
         }
 
+        int seeks = 0;
         if (!nonMaxCursors.isEmpty()) {
             // Any non-maximal cursor is definitely not in the intersection,
             // so we can consume those records (which updates their continuations).
-            nonMaxCursors.forEach(CursorState::consume);
+            // Cursors that have fallen far behind leapfrog ahead to the maximum key.
+            for (CursorState<T> nonMaxCursor : nonMaxCursors) {
+                if (nonMaxCursor.discard(maxKey, reverse)) {
+                    seeks++;
+                }
+            }
         }
 
         if (timer != null) {
@@ -190,6 +266,9 @@ abstract class IntersectionCursorBase<T, U> implements RecordCursor<U> {
             } else {
                 timer.record(duringEvents, System.nanoTime() - startTime);
                 timer.increment(nonmatchesCounts, nonMaxCursors.size());
+                if (seeks > 0) {
+                    timer.increment(seekCounts, seeks);
+                }
             }
         }
     }
@@ -227,7 +306,7 @@ abstract class IntersectionCursorBase<T, U> implements RecordCursor<U> {
                 nextResult = RecordCursorResult.withoutNextValue(IntersectionContinuation.from(this), mergeNoNextReasons());
             } else {
                 final U result = getNextResult(cursorStates);
-                cursorStates.forEach(CursorState::consume);
+                cursorStates.forEach(CursorState::consumeMatch);
                 nextResult = RecordCursorResult.withNextValue(result, IntersectionContinuation.from(this));
             }
             return nextResult;
@@ -500,15 +579,25 @@ abstract class IntersectionCursorBase<T, U> implements RecordCursor<U> {
     }
 
     protected static <T> List<CursorState<T>> createCursorStates(@Nonnull List<Function<byte[], RecordCursor<T>>> cursorFunctions, @Nullable byte[] byteContinuation) {
+        return createCursorStates(cursorFunctions, null, byteContinuation);
+    }
+
+    protected static <T> List<CursorState<T>> createCursorStates(@Nonnull List<Function<byte[], RecordCursor<T>>> cursorFunctions,
+                                                                 @Nullable List<Function<List<Object>, byte[]>> seekFunctions,
+                                                                 @Nullable byte[] byteContinuation) {
         if (cursorFunctions.size() < 2) {
             throw new RecordCoreArgumentException("not enough child cursors provided to IntersectionCursor")
                     .addLogInfo(LogMessageKeys.CHILD_COUNT, cursorFunctions.size());
         }
+        if (seekFunctions != null && seekFunctions.size() != cursorFunctions.size()) {
+            throw new RecordCoreArgumentException("seek functions do not match child cursors provided to IntersectionCursor")
+                    .addLogInfo(LogMessageKeys.CHILD_COUNT, cursorFunctions.size());
+        }
         final List<CursorState<T>> cursorStates = new ArrayList<>(cursorFunctions.size());
         final IntersectionContinuation continuation = IntersectionContinuation.from(byteContinuation, cursorFunctions.size());
         int i = 0;
         for (Function<byte[], RecordCursor<T>> cursorFunction : cursorFunctions) {
-            cursorStates.add(CursorState.from(cursorFunction, continuation.continuations.get(i)));
+            cursorStates.add(CursorState.from(cursorFunction, seekFunctions == null ? null : seekFunctions.get(i), continuation.continuations.get(i)));
             i++;
         }
         return cursorStates;
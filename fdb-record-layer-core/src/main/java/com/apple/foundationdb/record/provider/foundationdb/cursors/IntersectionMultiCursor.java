@@ -90,4 +90,31 @@ public class IntersectionMultiCursor<T> extends IntersectionCursorBase<T, List<T
             @Nullable FDBStoreTimer timer) {
         return new IntersectionMultiCursor<>(comparisonKeyFunction, reverse, createCursorStates(cursorFunctions, continuation), timer);
     }
+
+    /**
+     * Create an intersection cursor from two or more compatibly-ordered cursors, some of which can seek.
+     * Children that fall behind may be re-opened closer to the current maximum comparison key using the
+     * continuations produced by their seek functions. See the equivalent
+     * {@link IntersectionCursor#create(Function, boolean, List, List, byte[], FDBStoreTimer) create()}
+     * method of {@link IntersectionCursor} for the requirements on those functions.
+     *
+     * @param comparisonKeyFunction the function evaluated to compare elements from different cursors
+     * @param reverse whether records are returned in descending or ascending order by the comparison key
+     * @param cursorFunctions a list of functions to produce {@link RecordCursor}s from a continuation
+     * @param seekFunctions a list of functions to produce a continuation for each child that seeks to a comparison key
+     * @param continuation any continuation from a previous scan
+     * @param timer the timer used to instrument events
+     * @param <T> the type of elements returned by this cursor
+     * @return a cursor containing all records in all child cursors
+     */
+    @Nonnull
+    public static <T> IntersectionMultiCursor<T> create(
+            @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction,
+            boolean reverse,
+            @Nonnull List<Function<byte[], RecordCursor<T>>> cursorFunctions,
+            @Nonnull List<Function<List<Object>, byte[]>> seekFunctions,
+            @Nullable byte[] continuation,
+            @Nullable FDBStoreTimer timer) {
+        return new IntersectionMultiCursor<>(comparisonKeyFunction, reverse, createCursorStates(cursorFunctions, seekFunctions, continuation), timer);
+    }
 }
@@ -22,6 +22,7 @@ package com.apple.foundationdb.record.provider.foundationdb.cursors;
 
 import com.apple.foundationdb.async.AsyncUtil;
 import com.apple.foundationdb.record.ByteArrayContinuation;
+import com.apple.foundationdb.record.ContinuationEncoder;
 import com.apple.foundationdb.record.RecordCoreArgumentException;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCursor;
@@ -74,6 +75,8 @@ abstract class UnionCursorBase<T> implements RecordCursor<T> {
     private final Executor executor;
     @Nullable
     private final FDBStoreTimer timer;
+    @Nullable
+    private final ContinuationEncoder continuationEncoder;
 
     @Nonnull
     private static final Set<StoreTimer.Event> duringEvents = Collections.singleton(FDBStoreTimer.Events.QUERY_UNION);
@@ -186,8 +189,14 @@ abstract class UnionCursorBase<T> implements RecordCursor<T> {
     }
 
     protected UnionCursorBase(@Nonnull List<CursorState<T>> cursorStates, @Nullable FDBStoreTimer timer) {
+        this(cursorStates, timer, null);
+    }
+
+    protected UnionCursorBase(@Nonnull List<CursorState<T>> cursorStates, @Nullable FDBStoreTimer timer,
+                              @Nullable ContinuationEncoder continuationEncoder) {
         this.cursorStates = cursorStates;
         this.timer = timer;
+        this.continuationEncoder = continuationEncoder;
 
         // Choose the executor from the first non-empty cursor. The executors for empty cursors are just
         // the default one, whereas non-empty cursors may have an executor set by the user.
@@ -383,22 +392,27 @@ abstract class UnionCursorBase<T> implements RecordCursor<T> {
         private final List<RecordCursorContinuation> continuations; // all continuations must themselves be immutable
         @Nullable
         private RecordCursorProto.UnionContinuation cachedProto;
+        @Nullable
+        private final ContinuationEncoder encoder;
 
-        private UnionContinuation(@Nonnull List<RecordCursorContinuation> continuations) {
-            this(continuations, null);
+        private UnionContinuation(@Nonnull List<RecordCursorContinuation> continuations, @Nullable ContinuationEncoder encoder) {
+            this(continuations, null, encoder);
         }
 
-        private UnionContinuation(@Nonnull List<RecordCursorContinuation> continuations, @Nullable RecordCursorProto.UnionContinuation proto) {
+        private UnionContinuation(@Nonnull List<RecordCursorContinuation> continuations, @Nullable RecordCursorProto.UnionContinuation proto,
+                                  @Nullable ContinuationEncoder encoder) {
             this.continuations = continuations;
             this.cachedProto = proto;
+            this.encoder = encoder;
         }
 
         public static UnionContinuation from(@Nullable byte[] bytes, int numberOfChildren) {
             if (bytes == null) {
-                return new UnionContinuation(Collections.nCopies(numberOfChildren, RecordCursorStartContinuation.START));
+                return new UnionContinuation(Collections.nCopies(numberOfChildren, RecordCursorStartContinuation.START), null);
             }
             try {
-                return UnionContinuation.from(RecordCursorProto.UnionContinuation.parseFrom(bytes), numberOfChildren);
+                // Continuations from a cursor with an encoder can be encoded; any others are returned as they are.
+                return UnionContinuation.from(RecordCursorProto.UnionContinuation.parseFrom(ContinuationEncoder.decode(bytes)), numberOfChildren);
             } catch (InvalidProtocolBufferException ex) {
                 throw new RecordCoreException("invalid continuation", ex)
                         .addLogInfo(LogMessageKeys.RAW_BYTES, ByteArrayUtil2.loggable(bytes));
@@ -438,11 +452,12 @@ abstract class UnionCursorBase<T> implements RecordCursor<T> {
                         .addLogInfo(LogMessageKeys.EXPECTED_CHILD_COUNT, numberOfChildren)
                         .addLogInfo(LogMessageKeys.READ_CHILD_COUNT, children.size());
             }
-            return new UnionContinuation(children, parsed);
+            return new UnionContinuation(children, parsed, null);
         }
 
         public static <T> UnionContinuation from(@Nonnull UnionCursorBase<T> cursor) {
-            return new UnionContinuation(cursor.cursorStates.stream().map(cursorState -> cursorState.continuation).collect(Collectors.toList()));
+            return new UnionContinuation(cursor.cursorStates.stream().map(cursorState -> cursorState.continuation).collect(Collectors.toList()),
+                    cursor.continuationEncoder);
         }
 
         public RecordCursorProto.UnionContinuation toProto() {
@@ -497,7 +512,8 @@ abstract class UnionCursorBase<T> implements RecordCursor<T> {
             if (isEnd()) {
                 return null;
             }
-            return toProto().toByteArray();
+            final byte[] bytes = toProto().toByteArray();
+            return encoder == null ? bytes : encoder.encode(bytes);
         }
 
         @Override
@@ -22,6 +22,7 @@ package com.apple.foundationdb.record.provider.foundationdb.cursors;
 
 import com.apple.foundationdb.API;
 import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.ContinuationEncoder;
 import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.RecordCursorResult;
 import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
@@ -54,6 +55,12 @@ public class UnorderedUnionCursor<T> extends UnionCursorBase<T> {
         super(cursorStates, timer);
     }
 
+    protected UnorderedUnionCursor(@Nonnull List<CursorState<T>> cursorStates,
+                                   @Nullable FDBStoreTimer timer,
+                                   @Nullable ContinuationEncoder continuationEncoder) {
+        super(cursorStates, timer, continuationEncoder);
+    }
+
     @Nonnull
     @Override
     CompletableFuture<Boolean> getIfAnyHaveNext(@Nonnull List<CursorState<T>> cursorStates) {
@@ -126,4 +133,25 @@ public class UnorderedUnionCursor<T> extends UnionCursorBase<T> {
             @Nullable FDBStoreTimer timer) {
         return new UnorderedUnionCursor<>(createCursorStates(cursorFunctions, continuation), timer);
     }
+
+    /**
+     * Create a union cursor from two or more cursors, as with {@link #create(List, byte[], FDBStoreTimer)}, whose
+     * continuations are encoded. The continuation of a union holds those of all its children, which are often alike,
+     * so a {@linkplain ContinuationEncoder#isCompress compressing} encoder can make it much smaller.
+     *
+     * @param cursorFunctions a list of functions to produce {@link RecordCursor}s from a continuation
+     * @param continuation any continuation from a previous scan, encoded or not
+     * @param timer the timer used to instrument events
+     * @param continuationEncoder the encoder for the continuations of the new cursor
+     * @param <T> the type of elements returned by this cursor
+     * @return a cursor containing any records from any child cursor
+     */
+    @Nonnull
+    public static <T> UnorderedUnionCursor<T> create(
+            @Nonnull List<Function<byte[], RecordCursor<T>>> cursorFunctions,
+            @Nullable byte[] continuation,
+            @Nullable FDBStoreTimer timer,
+            @Nullable ContinuationEncoder continuationEncoder) {
+        return new UnorderedUnionCursor<>(createCursorStates(cursorFunctions, continuation), timer, continuationEncoder);
+    }
 }
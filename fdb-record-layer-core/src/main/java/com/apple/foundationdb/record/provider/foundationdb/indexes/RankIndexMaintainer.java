@@ -50,7 +50,10 @@ import com.google.protobuf.Message;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -103,28 +106,80 @@ public class RankIndexMaintainer extends StandardIndexMaintainer {
     protected <M extends Message> CompletableFuture<Void> updateIndexKeys(@Nonnull final FDBIndexableRecord<M> savedRecord,
                                                                           final boolean remove,
                                                                           @Nonnull final List<IndexEntry> indexEntries) {
-        final int groupPrefixSize = getGroupingCount();
-        final Subspace extraSubspace = getSecondarySubspace();
+        if (!remove) {
+            // Scores added to the same group's ranked set are added together.
+            final Map<Subspace, List<Tuple>> addedScores = new LinkedHashMap<>();
+            addIndexKeys(savedRecord, indexEntries, addedScores);
+            return addScores(addedScores);
+        }
         final List<CompletableFuture<Void>> futures = new ArrayList<>();
         for (IndexEntry indexEntry : indexEntries) {
             // First maintain an ordinary B-tree index by score.
-            updateOneKey(savedRecord, remove, indexEntry);
-            final Subspace rankSubspace;
-            final Tuple scoreKey;
-            if (groupPrefixSize > 0) {
-                final List<Object> keyValues = indexEntry.getKey().getItems();
-                rankSubspace = extraSubspace.subspace(Tuple.fromList(keyValues.subList(0, groupPrefixSize)));
-                scoreKey = Tuple.fromList(keyValues.subList(groupPrefixSize, keyValues.size()));
-            } else {
-                rankSubspace = extraSubspace;
-                scoreKey = indexEntry.getKey();
+            updateOneKey(savedRecord, true, indexEntry);
+            futures.add(RankedSetIndexHelper.updateRankedSet(state, getRankSubspace(indexEntry), nlevels, indexEntry.getKey(),
+                    getScoreKey(indexEntry), true));
+        }
+        return AsyncUtil.whenAll(futures);
+    }
+
+    /**
+     * Add several new records to the index. The scores of all of the records in the same group are added to that
+     * group's ranked set together, so building the index does not update each ranked set once per record.
+     * @param <M> type of message
+     * @param newRecords the records to add
+     * @return a future that is complete when all of the records have been added
+     */
+    @Nonnull
+    @Override
+    public <M extends Message> CompletableFuture<Void> addRecords(@Nonnull List<? extends FDBIndexableRecord<M>> newRecords) {
+        final Map<Subspace, List<Tuple>> addedScores = new LinkedHashMap<>();
+        for (FDBIndexableRecord<M> newRecord : newRecords) {
+            final List<IndexEntry> indexEntries = filteredIndexEntries(newRecord);
+            if (indexEntries != null) {
+                addIndexKeys(newRecord, indexEntries, addedScores);
             }
-            futures.add(RankedSetIndexHelper.updateRankedSet(state, rankSubspace, nlevels, indexEntry.getKey(),
-                    scoreKey, remove));
+        }
+        return addScores(addedScores);
+    }
+
+    private <M extends Message> void addIndexKeys(@Nonnull FDBIndexableRecord<M> savedRecord, @Nonnull List<IndexEntry> indexEntries,
+                                                  @Nonnull Map<Subspace, List<Tuple>> addedScores) {
+        for (IndexEntry indexEntry : indexEntries) {
+            // First maintain an ordinary B-tree index by score.
+            updateOneKey(savedRecord, false, indexEntry);
+            addedScores.computeIfAbsent(getRankSubspace(indexEntry), k -> new ArrayList<>()).add(getScoreKey(indexEntry));
+        }
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> addScores(@Nonnull Map<Subspace, List<Tuple>> addedScores) {
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(addedScores.size());
+        for (Map.Entry<Subspace, List<Tuple>> entry : addedScores.entrySet()) {
+            futures.add(RankedSetIndexHelper.addToRankedSet(state, entry.getKey(), nlevels, entry.getValue()));
         }
         return AsyncUtil.whenAll(futures);
     }
 
+    @Nonnull
+    private Subspace getRankSubspace(@Nonnull IndexEntry indexEntry) {
+        final int groupPrefixSize = getGroupingCount();
+        if (groupPrefixSize > 0) {
+            return getSecondarySubspace().subspace(TupleHelpers.subTuple(indexEntry.getKey(), 0, groupPrefixSize));
+        } else {
+            return getSecondarySubspace();
+        }
+    }
+
+    @Nonnull
+    private Tuple getScoreKey(@Nonnull IndexEntry indexEntry) {
+        final int groupPrefixSize = getGroupingCount();
+        if (groupPrefixSize > 0) {
+            return TupleHelpers.subTuple(indexEntry.getKey(), groupPrefixSize, indexEntry.getKey().size());
+        } else {
+            return indexEntry.getKey();
+        }
+    }
+
     @Override
     public boolean canEvaluateRecordFunction(@Nonnull IndexRecordFunction<?> function) {
         return function.getName().equals(FunctionNames.RANK) &&
@@ -159,6 +214,62 @@ public class RankIndexMaintainer extends StandardIndexMaintainer {
         return RankedSetIndexHelper.rankForScore(state, rankedSet, scoreValue);
     }
 
+    @Override
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public <T, M extends Message> CompletableFuture<List<T>> evaluateRecordFunctions(@Nonnull EvaluationContext context,
+                                                                                     @Nonnull IndexRecordFunction<T> function,
+                                                                                     @Nonnull List<? extends FDBRecord<M>> records) {
+        if (function.getName().equals(FunctionNames.RANK)) {
+            return (CompletableFuture<List<T>>)(CompletableFuture<?>)rankAll(records);
+        } else {
+            return super.evaluateRecordFunctions(context, function, records);
+        }
+    }
+
+    /**
+     * Get the rank of the score of each of several records, looking up all those in the same group together.
+     * @param records the records whose ranks to get
+     * @param <M> the message type of the records
+     * @return a future that completes to the rank of each record, in the same order
+     * @see RankedSet#rankAll
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public <M extends Message> CompletableFuture<List<Long>> rankAll(@Nonnull List<? extends FDBRecord<M>> records) {
+        final int groupPrefixSize = getGroupingCount();
+        final KeyExpression indexExpr = state.index.getRootExpression();
+        final Map<Tuple, List<Integer>> positionsByGroup = new LinkedHashMap<>();
+        final List<Tuple> scores = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            Tuple scoreValue = indexExpr.evaluateSingleton(records.get(i)).toTuple();
+            Tuple prefix = TupleHelpers.EMPTY;
+            if (groupPrefixSize > 0) {
+                prefix = Tuple.fromList(scoreValue.getItems().subList(0, groupPrefixSize));
+                scoreValue = Tuple.fromList(scoreValue.getItems().subList(groupPrefixSize, scoreValue.size()));
+            }
+            scores.add(scoreValue);
+            positionsByGroup.computeIfAbsent(prefix, p -> new ArrayList<>()).add(i);
+        }
+        final List<Long> ranks = new ArrayList<>(Collections.nCopies(records.size(), null));
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(positionsByGroup.size());
+        for (Map.Entry<Tuple, List<Integer>> entry : positionsByGroup.entrySet()) {
+            final List<Integer> positions = entry.getValue();
+            final List<Tuple> groupScores = new ArrayList<>(positions.size());
+            for (int position : positions) {
+                groupScores.add(scores.get(position));
+            }
+            final Subspace rankSubspace = groupPrefixSize > 0 ? getSecondarySubspace().subspace(entry.getKey()) : getSecondarySubspace();
+            final RankedSet rankedSet = new RankedSetIndexHelper.InstrumentedRankedSet(state, rankSubspace, nlevels);
+            futures.add(RankedSetIndexHelper.rankForScores(state, rankedSet, groupScores).thenAccept(groupRanks -> {
+                for (int i = 0; i < positions.size(); i++) {
+                    ranks.set(positions.get(i), groupRanks.get(i));
+                }
+            }));
+        }
+        return AsyncUtil.whenAll(futures).thenApply(vignore -> ranks);
+    }
+
     @Override
     public CompletableFuture<Void> deleteWhere(Transaction tr, @Nonnull Tuple prefix) {
         return super.deleteWhere(tr, prefix).thenApply(v -> {
@@ -217,7 +328,7 @@ public class RankIndexMaintainer extends StandardIndexMaintainer {
             if (groupingCount > 0) {
                 rankSubspace = rankSubspace.subspace(TupleHelpers.subTuple(values, 0, groupingCount));
             }
-            final RankedSet rankedSet = new RankedSet(rankSubspace, getExecutor());
+            final RankedSet rankedSet = new RankedSetIndexHelper.InstrumentedRankedSet(state, rankSubspace, nlevels);
             final Tuple outOfRange = FunctionNames.SCORE_FOR_RANK_ELSE_SKIP.equals(function.getName()) ?
                     RankedSetIndexHelper.COMPARISON_SKIPPED_SCORE : null;
             return RankedSetIndexHelper.scoreForRank(state, rankedSet, (Number)values.get(groupingCount), outOfRange);
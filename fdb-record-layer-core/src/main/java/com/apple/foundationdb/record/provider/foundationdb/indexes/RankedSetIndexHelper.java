@@ -26,6 +26,7 @@ import com.apple.foundationdb.ReadTransactionContext;
 import com.apple.foundationdb.TransactionContext;
 import com.apple.foundationdb.async.AsyncUtil;
 import com.apple.foundationdb.async.RankedSet;
+import com.apple.foundationdb.record.metadata.IndexOptions;
 import com.apple.foundationdb.record.EndpointType;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.TupleRange;
@@ -40,6 +41,8 @@ import com.apple.foundationdb.tuple.Tuple;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -203,6 +206,19 @@ public class RankedSetIndexHelper {
         }
     }
 
+    @Nonnull
+    public static CompletableFuture<List<Long>> rankForScores(@Nonnull IndexMaintainerState state,
+                                                              @Nonnull RankedSet rankedSet,
+                                                              @Nonnull List<Tuple> scores) {
+        final List<byte[]> keys = new ArrayList<>(scores.size());
+        for (Tuple score : scores) {
+            keys.add(score.pack());
+        }
+        rankedSet.preloadForLookup(state.context.readTransaction(true));
+        CompletableFuture<List<Long>> result = rankedSet.rankAll(state.transaction, keys);
+        return state.store.instrument(Events.RANKED_SET_RANK_FOR_SCORE, result);
+    }
+
     @Nonnull
     public static CompletableFuture<Void> updateRankedSet(@Nonnull IndexMaintainerState state,
                                                           @Nonnull Subspace rankSubspace,
@@ -237,6 +253,30 @@ public class RankedSetIndexHelper {
         return state.store.instrument(Events.RANKED_SET_UPDATE, result);
     }
 
+    /**
+     * Add several scores to a ranked set at once, as when a record has more than one entry in the same group.
+     * @param state index maintainer state
+     * @param rankSubspace subspace of the ranked set for the group
+     * @param nlevels number of levels in the ranked set
+     * @param scoreKeys the scores to add
+     * @return a future that completes when the scores have been added
+     * @see RankedSet#addAll
+     */
+    public static CompletableFuture<Void> addToRankedSet(@Nonnull IndexMaintainerState state,
+                                                         @Nonnull Subspace rankSubspace,
+                                                         int nlevels,
+                                                         @Nonnull List<Tuple> scoreKeys) {
+        final RankedSet rankedSet = new InstrumentedRankedSet(state, rankSubspace, nlevels);
+        final List<byte[]> scores = new ArrayList<>(scoreKeys.size());
+        for (Tuple scoreKey : scoreKeys) {
+            scores.add(scoreKey.pack());
+        }
+        CompletableFuture<Void> result = init(state, rankedSet)
+                .thenCompose(v -> rankedSet.addAll(state.transaction, scores))
+                .thenApply(added -> null);
+        return state.store.instrument(Events.RANKED_SET_UPDATE, result);
+    }
+
     /**
      * A {@link RankedSet} that adds {@link StoreTimer} instrumentation.
      */
@@ -246,7 +286,8 @@ public class RankedSetIndexHelper {
         public InstrumentedRankedSet(@Nonnull IndexMaintainerState state,
                                      @Nonnull Subspace rankSubspace,
                                      int nlevels) {
-            super(rankSubspace, state.context.getExecutor(), nlevels);
+            super(rankSubspace, state.context.getExecutor(), nlevels,
+                    state.index.getBooleanOption(IndexOptions.RANK_CACHE_UPPER_LEVELS, false) ? state.context.getDatabase().getRankedSetLevelCache() : null);
             this.context = state.context;
         }
 
@@ -30,6 +30,7 @@ import com.apple.foundationdb.async.RangeSet;
 import com.apple.foundationdb.record.EvaluationContext;
 import com.apple.foundationdb.record.IndexEntry;
 import com.apple.foundationdb.record.IsolationLevel;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.ScanProperties;
@@ -56,6 +57,7 @@ import com.apple.foundationdb.record.provider.foundationdb.KeyValueCursor;
 import com.apple.foundationdb.record.query.QueryToKeyMatcher;
 import com.apple.foundationdb.subspace.Subspace;
 import com.apple.foundationdb.tuple.ByteArrayUtil;
+import com.apple.foundationdb.tuple.ByteArrayUtil2;
 import com.apple.foundationdb.tuple.Tuple;
 import com.apple.foundationdb.tuple.TupleHelpers;
 import com.google.protobuf.Message;
@@ -71,8 +73,6 @@ import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static com.apple.foundationdb.record.provider.foundationdb.SplitHelper.unpackKey;
-
 /**
  * Base class for {@link IndexMaintainer} implementation.
  *
@@ -131,13 +131,21 @@ public abstract class StandardIndexMaintainer extends IndexMaintainer {
 
     /**
      * Convert stored key value pair located in the given subspace into an index entry.
+     * The key is left packed in the index entry, to be decoded only as needed.
      * @param subspace the database subspace for the index
      * @param kv a raw key-value within {@code subspace}
      * @return an index entry
      */
     @Nonnull
     protected IndexEntry unpackKeyValue(@Nonnull final Subspace subspace, @Nonnull final KeyValue kv) {
-        return new IndexEntry(unpackKey(subspace, kv), decodeValue(kv.getValue()));
+        final byte[] key = kv.getKey();
+        final byte[] prefix = subspace.getKey();
+        if (!ByteArrayUtil.startsWith(key, prefix)) {
+            throw new RecordCoreArgumentException("unable to unpack key")
+                    .addLogInfo(LogMessageKeys.KEY, ByteArrayUtil2.loggable(key))
+                    .addLogInfo(LogMessageKeys.SUBSPACE, ByteArrayUtil2.loggable(prefix));
+        }
+        return new IndexEntry(key, prefix.length, key.length - prefix.length, decodeValue(kv.getValue()));
     }
 
     /**
@@ -172,6 +180,25 @@ public abstract class StandardIndexMaintainer extends IndexMaintainer {
                 newIndexEntries.removeAll(commonKeys);
             }
         }
+        return updateChangedIndexKeys(oldRecord, oldIndexEntries, newRecord, newIndexEntries);
+    }
+
+    /**
+     * Update the index for the entries of a record that have changed. This is called by {@link #update} with the
+     * entries of the old record to remove and of the new record to add, from which any entries common to both have
+     * already been removed if {@link #skipUpdateForUnchangedKeys()}.
+     * @param <M> the message type of the record
+     * @param oldRecord the previous stored record or <code>null</code> if a new record is being created
+     * @param oldIndexEntries the changed index entries of the old record or <code>null</code> if there are none
+     * @param newRecord the new record or <code>null</code> if an old record is being deleted
+     * @param newIndexEntries the changed index entries of the new record or <code>null</code> if there are none
+     * @return a future completed when update is done
+     */
+    @Nonnull
+    protected <M extends Message> CompletableFuture<Void> updateChangedIndexKeys(@Nullable final FDBIndexableRecord<M> oldRecord,
+                                                                                 @Nullable final List<IndexEntry> oldIndexEntries,
+                                                                                 @Nullable final FDBIndexableRecord<M> newRecord,
+                                                                                 @Nullable final List<IndexEntry> newIndexEntries) {
         // If updateIndexKeys has any async work, allow it to complete before starting the next step.
         // This guarantees consistent state for any persistent data structures that are modified in this transaction.
         CompletableFuture<Void> future = AsyncUtil.DONE;
@@ -508,7 +535,7 @@ public abstract class StandardIndexMaintainer extends IndexMaintainer {
     @Nonnull
     protected <M extends Message> List<IndexEntry> evaluateIndex(@Nonnull FDBRecord<M> record) {
         final KeyExpression rootExpression = state.index.getRootExpression();
-        final List<Key.Evaluated> indexKeys = rootExpression.evaluate(record);
+        final List<Key.Evaluated> indexKeys = record.evaluate(rootExpression);
 
         // A KeyWithValue expression returns a value that is both the key and the value of the index,
         // so we have to tease them apart.
@@ -77,13 +77,31 @@ import java.util.function.BiFunction;
  * the new list.
  * </p>
  *
+ * <p>
+ * There is also a second, prefix-compressed format (identified by the prefix <code>21</code>) available
+ * through {@link #prefixCompressedInstance()}. In that format, each key after the first is written as the
+ * number of leading bytes it shares with the serialized form of the previous key in the bunch followed by
+ * the length of the remaining suffix and then the suffix bytes. As the keys within a bunch are sorted,
+ * adjacent primary keys tend to share long prefixes, so this can substantially reduce the size of the index
+ * for common tokens. Position lists are written in the same way in both formats. Because an appended entry
+ * would need to know the previous key in the bunch, the prefix-compressed format does not support
+ * appending. Both serializers are able to read bunches written in either format, and the default serializer
+ * only appends to bunches that were written in its own format (rewriting the whole bunch otherwise), so an
+ * index can switch between the two without needing to be rebuilt. Existing bunches are converted to the
+ * new format as they are modified.
+ * </p>
+ *
  * @see TextIndexMaintainer
  * @see com.apple.foundationdb.map.BunchedMap BunchedMap
  */
 @API(API.Status.EXPERIMENTAL)
 public class TextIndexBunchedSerializer implements BunchedSerializer<Tuple, List<Integer>> {
     private static final byte[] PREFIX = new byte[]{0x20};
-    private static final TextIndexBunchedSerializer INSTANCE = new TextIndexBunchedSerializer();
+    private static final byte[] PREFIX_COMPRESSED = new byte[]{0x21};
+    private static final TextIndexBunchedSerializer INSTANCE = new TextIndexBunchedSerializer(false);
+    private static final TextIndexBunchedSerializer PREFIX_COMPRESSED_INSTANCE = new TextIndexBunchedSerializer(true);
+
+    private final boolean compressKeys;
 
     /**
      * Get the serializer singleton. This serializer maintains no state between serializing
@@ -95,7 +113,38 @@ public class TextIndexBunchedSerializer implements BunchedSerializer<Tuple, List
         return INSTANCE;
     }
 
-    private TextIndexBunchedSerializer() {
+    /**
+     * Get the serializer singleton that writes keys using the prefix-compressed format.
+     * Like the default serializer, this maintains no state between serializing values, and
+     * it can deserialize bunches written in either format.
+     *
+     * @return the prefix-compressing <code>TextIndexBunchedSerializer</code> singleton
+     */
+    public static TextIndexBunchedSerializer prefixCompressedInstance() {
+        return PREFIX_COMPRESSED_INSTANCE;
+    }
+
+    private TextIndexBunchedSerializer(boolean compressKeys) {
+        this.compressKeys = compressKeys;
+    }
+
+    /**
+     * Whether this serializer writes keys using the prefix-compressed format.
+     *
+     * @return whether this serializer compresses keys against the prior key in each bunch
+     */
+    public boolean isCompressKeys() {
+        return compressKeys;
+    }
+
+    // Get the number of leading bytes that two serialized keys have in common.
+    private static int getSharedPrefixLength(@Nonnull byte[] previous, @Nonnull byte[] current) {
+        final int maxLength = Math.min(previous.length, current.length);
+        int shared = 0;
+        while (shared < maxLength && previous[shared] == current[shared]) {
+            shared++;
+        }
+        return shared;
     }
 
     // Get the size (in bytes) of storing an integer using base 128 var-int encoding.
@@ -209,7 +258,9 @@ public class TextIndexBunchedSerializer implements BunchedSerializer<Tuple, List
      * {@link #serializeEntries(List)}. Because this serializer supports appending,
      * one can take the output of this function and append it to the end of an
      * already serialized entry list to produce the serialized form of that list
-     * with this entry appended to the end.
+     * with this entry appended to the end. (The prefix-compressed format does not
+     * support appending, so its entries are always written in this uncompressed form,
+     * which serves only as an upper bound on their size within a bunch.)
      *
      * @param key the key of the map entry
      * @param value the value of the map entry
@@ -254,14 +305,25 @@ public class TextIndexBunchedSerializer implements BunchedSerializer<Tuple, List
         }
         // Calculate size (to avoid unnecessary allocations)
         try {
-            int size = PREFIX.length;
+            final byte[] prefix = compressKeys ? PREFIX_COMPRESSED : PREFIX;
+            int size = prefix.length;
             List<byte[]> serializedKeys = new ArrayList<>(entries.size() - 1);
+            int[] sharedLengths = compressKeys ? new int[entries.size()] : null;
             int[] listSizes = new int[entries.size()];
+            byte[] previousKey = compressKeys ? entries.get(0).getKey().pack() : null;
             for (int i = 0; i < entries.size(); i++) {
                 Map.Entry<Tuple, List<Integer>> entry = entries.get(i);
                 if (i != 0) {
                     byte[] serializedKey = entry.getKey().pack();
-                    size += getVarIntSize(serializedKey.length) + serializedKey.length;
+                    if (compressKeys) {
+                        int shared = getSharedPrefixLength(previousKey, serializedKey);
+                        int suffixLength = serializedKey.length - shared;
+                        sharedLengths[i] = shared;
+                        size += getVarIntSize(shared) + getVarIntSize(suffixLength) + suffixLength;
+                        previousKey = serializedKey;
+                    } else {
+                        size += getVarIntSize(serializedKey.length) + serializedKey.length;
+                    }
                     serializedKeys.add(serializedKey);
                 }
                 int listSize = getListSize(entry.getValue());
@@ -270,12 +332,19 @@ public class TextIndexBunchedSerializer implements BunchedSerializer<Tuple, List
             }
             // Allocate one byte buffer to rule them all and serialize everything to that buffer
             ByteBuffer buffer = ByteBuffer.allocate(size);
-            buffer.put(PREFIX);
+            buffer.put(prefix);
             for (int i = 0; i < entries.size(); i++) {
                 if (i != 0) {
                     byte[] key = serializedKeys.get(i - 1);
-                    serializeVarInt(buffer, key.length);
-                    buffer.put(key);
+                    if (compressKeys) {
+                        int shared = sharedLengths[i];
+                        serializeVarInt(buffer, shared);
+                        serializeVarInt(buffer, key.length - shared);
+                        buffer.put(key, shared, key.length - shared);
+                    } else {
+                        serializeVarInt(buffer, key.length);
+                        buffer.put(key);
+                    }
                 }
                 serializeList(buffer, entries.get(i).getValue(), listSizes[i]);
             }
@@ -308,23 +377,41 @@ public class TextIndexBunchedSerializer implements BunchedSerializer<Tuple, List
         }
     }
 
-    private void checkPrefix(@Nonnull byte[] data) {
-        if (!ByteArrayUtil.startsWith(data, PREFIX)) {
+    // Returns whether the data were written using the prefix-compressed format.
+    private static boolean checkPrefix(@Nonnull byte[] data) {
+        if (ByteArrayUtil.startsWith(data, PREFIX)) {
+            return false;
+        } else if (ByteArrayUtil.startsWith(data, PREFIX_COMPRESSED)) {
+            return true;
+        } else {
             throw new BunchedSerializationException("serialized data begins with incorrect prefix").setData(data);
         }
     }
 
     @Nonnull
     private <T> List<T> deserializeBunch(@Nonnull Tuple key, @Nonnull byte[] data, boolean deserializeValues, @Nonnull BiFunction<Tuple, List<Integer>, T> itemCreator) {
-        checkPrefix(data);
+        final boolean compressed = checkPrefix(data);
         try {
             List<T> list = new ArrayList<>();
             ByteBuffer buffer = ByteBuffer.wrap(data);
-            buffer.position(PREFIX.length);
+            buffer.position(compressed ? PREFIX_COMPRESSED.length : PREFIX.length);
+            byte[] previousKey = compressed ? key.pack() : null;
             boolean first = true;
             while (buffer.hasRemaining()) {
                 Tuple entryKey;
-                if (!first) {
+                if (compressed && !first) {
+                    // Rebuild the key from the prefix it shares with the previous key and its own suffix.
+                    int shared = deserializeVarInt(buffer);
+                    int suffixLength = deserializeVarInt(buffer);
+                    if (shared > previousKey.length) {
+                        throw new BunchedSerializationException("shared prefix longer than previous key").setData(data);
+                    }
+                    byte[] keyBytes = new byte[shared + suffixLength];
+                    System.arraycopy(previousKey, 0, keyBytes, 0, shared);
+                    buffer.get(keyBytes, shared, suffixLength);
+                    entryKey = keyBytes.length == 0 ? TupleHelpers.EMPTY : Tuple.fromBytes(keyBytes);
+                    previousKey = keyBytes;
+                } else if (!first) {
                     int tupleSize = deserializeVarInt(buffer);
                     if (tupleSize == 0) {
                         entryKey = TupleHelpers.EMPTY;
@@ -386,12 +473,27 @@ public class TextIndexBunchedSerializer implements BunchedSerializer<Tuple, List
     }
 
     /**
-     * Return <code>true</code> as this serialization format supports appending.
+     * Return whether this serialization format supports appending. This is <code>true</code> for
+     * the default format, but it is <code>false</code> for the prefix-compressed format as each
+     * entry in that format is encoded relative to the key of the entry before it.
      *
-     * @return <code>true</code>
+     * @return <code>true</code> unless this serializer compresses keys
      */
     @Override
     public boolean canAppend() {
-        return true;
+        return !compressKeys;
+    }
+
+    /**
+     * Return whether an entry can be appended to the given serialized bunch. This is only <code>true</code>
+     * if this serializer supports appending and the bunch was also written in the default format. In
+     * particular, entries are never appended to a bunch that was written in the prefix-compressed format.
+     *
+     * @param data an existing serialized bunch
+     * @return <code>true</code> if this serializer does not compress keys and <code>data</code> was written in the default format
+     */
+    @Override
+    public boolean canAppendTo(@Nonnull byte[] data) {
+        return canAppend() && ByteArrayUtil.startsWith(data, PREFIX);
     }
 }
@@ -45,16 +45,19 @@ import com.apple.foundationdb.record.provider.common.text.TextTokenizer;
 import com.apple.foundationdb.record.provider.common.text.TextTokenizerRegistry;
 import com.apple.foundationdb.record.provider.common.text.TextTokenizerRegistryImpl;
 import com.apple.foundationdb.record.provider.foundationdb.FDBIndexableRecord;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordContext;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore;
 import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
 import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainerState;
 import com.apple.foundationdb.record.query.QueryToKeyMatcher;
 import com.apple.foundationdb.record.query.expressions.QueryComponent;
 import com.apple.foundationdb.subspace.Subspace;
+import com.apple.foundationdb.tuple.ByteArrayUtil;
 import com.apple.foundationdb.tuple.ByteArrayUtil2;
 import com.apple.foundationdb.tuple.Tuple;
 import com.apple.foundationdb.tuple.TupleHelpers;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Iterators;
 import com.google.protobuf.Message;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
@@ -62,12 +65,17 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
@@ -115,6 +123,13 @@ import java.util.function.Function;
  * </p>
  *
  * <p>
+ * The primary keys stored within each bunch of the index can be written in a more compact, prefix-compressed
+ * format by setting the "{@value IndexOptions#TEXT_PREFIX_COMPRESS_KEYS_OPTION}" option to "true". This makes the index
+ * smaller for tokens that appear in many records at the cost of losing the ability to append to the last bunch of
+ * a token without rewriting it. See {@link TextIndexBunchedSerializer} for more details.
+ * </p>
+ *
+ * <p>
  * <b>Note:</b> At the moment, this index is under active development and should be considered
  * experimental. At the current time, this index will be correctly updated on insert and removal
  * and can be manually scanned, but it will only be selected by the query planner in limited circumstances
@@ -128,7 +143,9 @@ public class TextIndexMaintainer extends StandardIndexMaintainer {
     private static final Logger LOGGER = LoggerFactory.getLogger(TextIndexMaintainer.class);
     private static final TextTokenizerRegistry registry = TextTokenizerRegistryImpl.instance();
     private static final int BUNCH_SIZE = 20;
+    private static final int ASYNC_TOKENIZATION_MIN_LENGTH = 4096;
     private static final BunchedMap<Tuple, List<Integer>> BUNCHED_MAP = new BunchedMap<>(TextIndexBunchedSerializer.instance(), Comparator.naturalOrder(), BUNCH_SIZE);
+    private static final BunchedMap<Tuple, List<Integer>> PREFIX_COMPRESSED_BUNCHED_MAP = new BunchedMap<>(TextIndexBunchedSerializer.prefixCompressedInstance(), Comparator.naturalOrder(), BUNCH_SIZE);
 
     // Subspaces used within the index secondary subspace for additional meta-data.
     // (Currently, there is only one, but this allows for expansion if we ever decide
@@ -142,6 +159,8 @@ public class TextIndexMaintainer extends StandardIndexMaintainer {
     private final int tokenizerVersion;
     private final boolean addAggressiveConflictRanges;
     private final boolean omitPositionLists;
+    @Nonnull
+    private final BunchedMap<Tuple, List<Integer>> bunchedMap;
 
     /**
      * Get the text tokenizer associated with this index. This uses the
@@ -190,6 +209,45 @@ public class TextIndexMaintainer extends StandardIndexMaintainer {
         return index.getBooleanOption(IndexOptions.TEXT_OMIT_POSITIONS_OPTION, false);
     }
 
+    static boolean getIfPrefixCompressKeys(@Nonnull Index index) {
+        return index.getBooleanOption(IndexOptions.TEXT_PREFIX_COMPRESS_KEYS_OPTION, false);
+    }
+
+    /**
+     * Get a continuation for a {@link IndexScanType#BY_TEXT_TOKEN} scan over a single token that resumes the scan
+     * at or before the first entry whose key (not including the grouping key and token) is greater than or equal to
+     * <code>key</code> (or less than or equal to it if <code>reverse</code> is <code>true</code>). Because the
+     * scan continues strictly after the key in its continuation, this finds a key that sorts just before the
+     * target key. This can be used to skip ahead within the scan of a common token without reading every entry.
+     * If no suitable key can be found, this returns <code>null</code>.
+     *
+     * @param groupingKey the grouping key of the scan or <code>null</code> if the index is ungrouped
+     * @param token the token being scanned
+     * @param key the key to seek to
+     * @param reverse whether the scan is in reverse
+     * @return a continuation that resumes the scan at or before <code>key</code> or <code>null</code> if none could be found
+     */
+    @API(API.Status.INTERNAL)
+    @Nullable
+    public static byte[] seekContinuation(@Nullable Tuple groupingKey, @Nonnull String token, @Nonnull Tuple key, boolean reverse) {
+        if (key.size() == 0) {
+            return null;
+        }
+        final Object last = key.get(key.size() - 1);
+        final Tuple keyBefore;
+        if (last instanceof Long && (Long)last != (reverse ? Long.MAX_VALUE : Long.MIN_VALUE)) {
+            // Integer keys (the most common case) can be stepped back by one.
+            keyBefore = TupleHelpers.subTuple(key, 0, key.size() - 1).add((Long)last + (reverse ? 1 : -1));
+        } else if (!reverse && key.size() > 1) {
+            // Otherwise, in a forward scan, a strict prefix of the key sorts before it.
+            keyBefore = TupleHelpers.subTuple(key, 0, key.size() - 1);
+        } else {
+            return null;
+        }
+        final Tuple subspaceSuffix = groupingKey == null ? Tuple.from(token) : groupingKey.add(token);
+        return ByteArrayUtil.join(subspaceSuffix.pack(), keyBefore.pack());
+    }
+
     // Gets the position of the text field this index is tokenizing from within the
     // index's expression. This is the first column of the index expression after
     // all grouping columns (or the first column if there are no grouping columns).
@@ -207,6 +265,7 @@ public class TextIndexMaintainer extends StandardIndexMaintainer {
         this.tokenizerVersion = getIndexTokenizerVersion(state.index);
         this.addAggressiveConflictRanges = getIfAddAggressiveConflictRanges(state.index);
         this.omitPositionLists = getIfOmitPositions(state.index);
+        this.bunchedMap = getIfPrefixCompressKeys(state.index) ? PREFIX_COMPRESSED_BUNCHED_MAP : BUNCHED_MAP;
     }
 
     private static int varIntSize(int val) {
@@ -265,23 +324,71 @@ public class TextIndexMaintainer extends StandardIndexMaintainer {
         return Pair.of(keySize, valueSize);
     }
 
+    /**
+     * Get the executor on which text is tokenized. Tokenizing large documents is CPU intensive, so texts of
+     * at least {@value #ASYNC_TOKENIZATION_MIN_LENGTH} characters are tokenized on this executor rather than on
+     * the thread that initiated the update. This allows the tokenization of the records saved concurrently within
+     * a transaction (and of multiple text entries from the same record) to proceed in parallel. By default, this is
+     * the {@linkplain FDBRecordContext#getCpuExecutor CPU executor} of the record context. Subclasses may override
+     * this to use a dedicated worker pool.
+     *
+     * @return the executor used to tokenize text
+     */
+    @Nonnull
+    protected Executor getTokenizationExecutor() {
+        return state.context.getCpuExecutor();
+    }
+
+    @Nonnull
+    private CompletableFuture<Map<String, List<Integer>>> tokenizeAsync(@Nonnull String text, int recordTokenizerVersion) {
+        if (text.length() < ASYNC_TOKENIZATION_MIN_LENGTH) {
+            // Not worth the hand-off to another thread
+            return CompletableFuture.completedFuture(tokenizer.tokenizeToMap(text, recordTokenizerVersion, TextTokenizer.TokenizerMode.INDEX));
+        } else {
+            return CompletableFuture.supplyAsync(() -> tokenizer.tokenizeToMap(text, recordTokenizerVersion, TextTokenizer.TokenizerMode.INDEX),
+                    getTokenizationExecutor());
+        }
+    }
+
+    @Nullable
+    private String getText(@Nonnull Tuple indexEntryKey, int textPosition) {
+        final String text = indexEntryKey.getString(textPosition);
+        // If the text is "null" or the string is empty, it means that the text was either
+        // empty or not set. Either way, there is nothing to tokenize.
+        return text == null || text.isEmpty() ? null : text;
+    }
+
     @Nonnull
     private <M extends Message> CompletableFuture<Void> updateOneKeyAsync(@Nonnull FDBIndexableRecord<M> savedRecord,
                                                                           final boolean remove,
                                                                           @Nonnull IndexEntry entry,
                                                                           int textPosition,
-                                                                          int recordTokenizerVersion) {
-        long startTime = System.nanoTime();
+                                                                          int recordTokenizerVersion,
+                                                                          @Nullable Map<String, CompletableFuture<Map<String, List<Integer>>>> tokenizedTexts) {
+        final long startTime = System.nanoTime();
         final Tuple indexEntryKey = indexEntryKey(entry.getKey(), savedRecord.getPrimaryKey());
-        final String text = indexEntryKey.getString(textPosition);
-        if (text == null || text.isEmpty()) {
-            // If the text is "null" or the string is empty, it means that the text was either
-            // empty or not set. Either way, there is nothing to tokenize, so just exit now.
+        final String text = getText(indexEntryKey, textPosition);
+        if (text == null) {
             return AsyncUtil.DONE;
         }
+        final CompletableFuture<Map<String, List<Integer>>> positionMapFuture = tokenizedTexts != null && tokenizedTexts.containsKey(text)
+                ? tokenizedTexts.get(text)
+                : tokenizeAsync(text, recordTokenizerVersion);
+        return positionMapFuture.thenCompose(positionMap ->
+                updateOneKeyAsync(savedRecord, remove, indexEntryKey, text, positionMap, textPosition, recordTokenizerVersion, startTime));
+    }
+
+    @Nonnull
+    private <M extends Message> CompletableFuture<Void> updateOneKeyAsync(@Nonnull FDBIndexableRecord<M> savedRecord,
+                                                                          final boolean remove,
+                                                                          @Nonnull Tuple indexEntryKey,
+                                                                          @Nonnull String text,
+                                                                          @Nonnull Map<String, List<Integer>> positionMap,
+                                                                          int textPosition,
+                                                                          int recordTokenizerVersion,
+                                                                          long startTime) {
         final Tuple groupingKey = (textPosition == 0) ? null : TupleHelpers.subTuple(indexEntryKey, 0, textPosition);
         final Tuple groupedKey = TupleHelpers.subTuple(indexEntryKey, textPosition + 1, indexEntryKey.size());
-        final Map<String, List<Integer>> positionMap = tokenizer.tokenizeToMap(text, recordTokenizerVersion, TextTokenizer.TokenizerMode.INDEX);
         final Pair<Integer, Integer> estimatedSize = estimateSize(groupingKey, positionMap, groupedKey, remove);
         final FDBStoreTimer.Event indexUpdateEvent = remove ? FDBStoreTimer.Events.DELETE_INDEX_ENTRY : FDBStoreTimer.Events.SAVE_INDEX_ENTRY;
         if (LOGGER.isDebugEnabled()) {
@@ -311,6 +418,22 @@ public class TextIndexMaintainer extends StandardIndexMaintainer {
             }
             return AsyncUtil.DONE;
         }
+        final CompletableFuture<Void> tokenUpdateFuture = remove
+                ? updateTokens(groupingKey, groupedKey, positionMap.keySet(), Collections.emptyMap())
+                : updateTokens(groupingKey, groupedKey, Collections.emptySet(), positionMap);
+        if (state.store.getTimer() != null) {
+            return state.store.getTimer().instrument(indexUpdateEvent, tokenUpdateFuture, state.context.getExecutor(), startTime);
+        } else {
+            return tokenUpdateFuture;
+        }
+    }
+
+    // Remove the given primary key from the maps of the removed tokens and write it (with its position list)
+    // into the maps of the added tokens. Each token is a separate map, so these are all pipelined together.
+    @Nonnull
+    private CompletableFuture<Void> updateTokens(@Nullable Tuple groupingKey, @Nonnull Tuple groupedKey,
+                                                 @Nonnull Collection<String> removedTokens,
+                                                 @Nonnull Map<String, List<Integer>> addedTokens) {
         if (addAggressiveConflictRanges) {
             // Add a read and write conflict range over the whole index to decrease the number of mutations
             // sent to the resolver. In theory, this will increase the number of conflicts in that if two
@@ -321,7 +444,10 @@ public class TextIndexMaintainer extends StandardIndexMaintainer {
             state.context.ensureActive().addReadConflictRange(indexRange.begin, indexRange.end);
             state.context.ensureActive().addWriteConflictRange(indexRange.begin, indexRange.end);
         }
-        CompletableFuture<Void> tokenInsertFuture = RecordCursor.fromIterator(state.context.getExecutor(), positionMap.entrySet().iterator())
+        final Iterator<Map.Entry<String, List<Integer>>> tokenIterator = Iterators.concat(
+                Iterators.transform(removedTokens.iterator(), token -> new AbstractMap.SimpleImmutableEntry<String, List<Integer>>(token, null)),
+                addedTokens.entrySet().iterator());
+        return RecordCursor.fromIterator(state.context.getExecutor(), tokenIterator)
                 .forEachAsync((Map.Entry<String, List<Integer>> tokenEntry) -> {
                     Tuple subspaceTuple;
                     if (groupingKey == null) {
@@ -330,18 +456,13 @@ public class TextIndexMaintainer extends StandardIndexMaintainer {
                         subspaceTuple = groupingKey.add(tokenEntry.getKey());
                     }
                     Subspace mapSubspace = state.indexSubspace.subspace(subspaceTuple);
-                    if (remove) {
-                        return BUNCHED_MAP.remove(state.transaction, mapSubspace, groupedKey).thenAccept(ignore -> { });
+                    if (tokenEntry.getValue() == null) {
+                        return bunchedMap.remove(state.transaction, mapSubspace, groupedKey).thenAccept(ignore -> { });
                     } else {
                         final List<Integer> value = omitPositionLists ? Collections.emptyList() : tokenEntry.getValue();
-                        return BUNCHED_MAP.put(state.transaction, mapSubspace, groupedKey, value).thenAccept(ignore -> { });
+                        return bunchedMap.put(state.transaction, mapSubspace, groupedKey, value).thenAccept(ignore -> { });
                     }
                 }, state.store.getPipelineSize(PipelineOperation.TEXT_INDEX_UPDATE));
-        if (state.store.getTimer() != null) {
-            return state.store.getTimer().instrument(indexUpdateEvent, tokenInsertFuture, state.context.getExecutor(), startTime);
-        } else {
-            return tokenInsertFuture;
-        }
     }
 
     @Nonnull
@@ -357,23 +478,122 @@ public class TextIndexMaintainer extends StandardIndexMaintainer {
             // Most text indexes are probably on a single field and return a single entry, so this
             // should generally be the branch that the index maintainer chooses. In those cases,
             // we don't want all of the cruft necessary to handle multiple entries.
-            return updateOneKeyAsync(savedRecord, remove, indexEntries.get(0), textPosition, recordTokenizerVersion);
+            return updateOneKeyAsync(savedRecord, remove, indexEntries.get(0), textPosition, recordTokenizerVersion, null);
         } else {
-            // TODO: If there are multiple index entries, it is possible that they all share the same text object.
-            //  We don't want to tokenize more than once if that is the case because it is expensive.
-            //  Also, this has to be done in serial (rather than in parallel) in the case where there are
-            //  multiple keys for the given text, we can't add the two documents concurrently
-            //  due to limitations in the thread safety of the underlying data structure.
-            //  (In theory, we could do this if each key has it's own grouping key, but that's an
-            //  optimization for another day.)
+            // If there are multiple index entries, it is possible that they all share the same text object.
+            // Each distinct text is tokenized only once, and all of them are tokenized up front (and in
+            // parallel for large texts) as tokenizing does not depend on the state of the index.
+            final Map<String, CompletableFuture<Map<String, List<Integer>>>> tokenizedTexts = new HashMap<>();
+            for (IndexEntry indexEntry : indexEntries) {
+                final String text = getText(indexEntryKey(indexEntry.getKey(), savedRecord.getPrimaryKey()), textPosition);
+                if (text != null) {
+                    tokenizedTexts.computeIfAbsent(text, t -> tokenizeAsync(t, recordTokenizerVersion));
+                }
+            }
+            // The writes, however, have to be done in serial (rather than in parallel) in the case where there are
+            // multiple keys for the given text, we can't add the two documents concurrently
+            // due to limitations in the thread safety of the underlying data structure.
+            // (In theory, we could do this if each key has it's own grouping key, but that's an
+            // optimization for another day.)
             AtomicInteger pos = new AtomicInteger(0);
             return AsyncUtil.whileTrue(() ->
-                            updateOneKeyAsync(savedRecord, remove, indexEntries.get(pos.getAndIncrement()), textPosition, recordTokenizerVersion)
+                            updateOneKeyAsync(savedRecord, remove, indexEntries.get(pos.getAndIncrement()), textPosition, recordTokenizerVersion, tokenizedTexts)
                                     .thenApply(ignore -> pos.get() < indexEntries.size()),
                     state.store.getExecutor());
         }
     }
 
+    // Update the index for a record whose text has changed but whose entry is otherwise in the same place in the
+    // index (that is, with the same grouping key and the same primary key and other trailing columns). Rather
+    // than removing every old token and then inserting every new one, this only touches each token's map once:
+    // tokens that are no longer present are removed, tokens whose positions changed (or which are new) are written
+    // over the old value, and tokens with unchanged positions are not touched at all.
+    @Nonnull
+    private <M extends Message> CompletableFuture<Void> updateChangedText(@Nonnull FDBIndexableRecord<M> newRecord,
+                                                                          @Nonnull Tuple oldEntryKey, @Nonnull Tuple newEntryKey,
+                                                                          int textPosition) {
+        final long startTime = System.nanoTime();
+        final String oldText = getText(oldEntryKey, textPosition);
+        final String newText = getText(newEntryKey, textPosition);
+        final CompletableFuture<Map<String, List<Integer>>> oldMapFuture = oldText == null
+                ? CompletableFuture.completedFuture(Collections.emptyMap())
+                : tokenizeAsync(oldText, tokenizerVersion);
+        final CompletableFuture<Map<String, List<Integer>>> newMapFuture = newText == null
+                ? CompletableFuture.completedFuture(Collections.emptyMap())
+                : tokenizeAsync(newText, tokenizerVersion);
+        final CompletableFuture<Void> tokenUpdateFuture = oldMapFuture.thenCombine(newMapFuture, (oldMap, newMap) -> {
+            final Map<String, List<Integer>> removedPositions = new HashMap<>();
+            for (Map.Entry<String, List<Integer>> oldEntry : oldMap.entrySet()) {
+                if (!newMap.containsKey(oldEntry.getKey())) {
+                    removedPositions.put(oldEntry.getKey(), oldEntry.getValue());
+                }
+            }
+            final Map<String, List<Integer>> addedTokens = new HashMap<>();
+            for (Map.Entry<String, List<Integer>> newEntry : newMap.entrySet()) {
+                final List<Integer> oldPositions = oldMap.get(newEntry.getKey());
+                if (oldPositions == null || (!omitPositionLists && !oldPositions.equals(newEntry.getValue()))) {
+                    addedTokens.put(newEntry.getKey(), newEntry.getValue());
+                }
+            }
+            return Pair.of(removedPositions, addedTokens);
+        }).thenCompose(changes -> {
+            final Map<String, List<Integer>> removedPositions = changes.getLeft();
+            final Map<String, List<Integer>> addedTokens = changes.getRight();
+            if (removedPositions.isEmpty() && addedTokens.isEmpty()) {
+                return AsyncUtil.DONE;
+            }
+            final Tuple groupingKey = (textPosition == 0) ? null : TupleHelpers.subTuple(newEntryKey, 0, textPosition);
+            final Tuple groupedKey = TupleHelpers.subTuple(newEntryKey, textPosition + 1, newEntryKey.size());
+            final Pair<Integer, Integer> removedSize = estimateSize(groupingKey, removedPositions, groupedKey, true);
+            final Pair<Integer, Integer> addedSize = estimateSize(groupingKey, addedTokens, groupedKey, false);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(KeyValueLogMessage.of("performed incremental text update",
+                        "removedTokens", removedPositions.size(),
+                        "updatedTokens", addedTokens.size(),
+                        "removedTextKeySize", removedSize.getKey(),
+                        "updatedTextKeySize", addedSize.getKey(),
+                        "updatedTextValueSize", addedSize.getValue(),
+                        "primaryKey", newRecord.getPrimaryKey(),
+                        "subspace", ByteArrayUtil2.loggable(state.store.getSubspace().getKey()),
+                        "indexSubspace", ByteArrayUtil2.loggable(state.indexSubspace.getKey())));
+            }
+            return updateTokens(groupingKey, groupedKey, removedPositions.keySet(), addedTokens);
+        });
+        if (state.store.getTimer() != null) {
+            return state.store.getTimer().instrument(FDBStoreTimer.Events.SAVE_INDEX_ENTRY, tokenUpdateFuture, state.context.getExecutor(), startTime);
+        } else {
+            return tokenUpdateFuture;
+        }
+    }
+
+    // Returns whether the old and new entries are in the same map of each token within the index, and so
+    // can be updated in place.
+    private boolean sameGroupedKey(@Nonnull Tuple oldEntryKey, @Nonnull Tuple newEntryKey, int textPosition) {
+        return oldEntryKey.size() == newEntryKey.size()
+                && TupleHelpers.subTuple(oldEntryKey, 0, textPosition).equals(TupleHelpers.subTuple(newEntryKey, 0, textPosition))
+                && TupleHelpers.subTuple(oldEntryKey, textPosition + 1, oldEntryKey.size()).equals(TupleHelpers.subTuple(newEntryKey, textPosition + 1, newEntryKey.size()));
+    }
+
+    // When a single entry of an existing record has changed only in its text, update the tokens of that
+    // entry in place. This is only reached with both records when their tokenizer versions match (see update).
+    @Nonnull
+    @Override
+    protected <M extends Message> CompletableFuture<Void> updateChangedIndexKeys(@Nullable FDBIndexableRecord<M> oldRecord,
+                                                                                 @Nullable List<IndexEntry> oldIndexEntries,
+                                                                                 @Nullable FDBIndexableRecord<M> newRecord,
+                                                                                 @Nullable List<IndexEntry> newIndexEntries) {
+        if (oldRecord != null && newRecord != null && oldIndexEntries != null && newIndexEntries != null
+                && oldIndexEntries.size() == 1 && newIndexEntries.size() == 1 && skipUpdateForUnchangedKeys()) {
+            final int textPosition = textFieldPosition(state.index.getRootExpression());
+            final Tuple oldEntryKey = indexEntryKey(oldIndexEntries.get(0).getKey(), oldRecord.getPrimaryKey());
+            final Tuple newEntryKey = indexEntryKey(newIndexEntries.get(0).getKey(), newRecord.getPrimaryKey());
+            if (sameGroupedKey(oldEntryKey, newEntryKey, textPosition)) {
+                return updateChangedText(newRecord, oldEntryKey, newEntryKey, textPosition);
+            }
+        }
+        return super.updateChangedIndexKeys(oldRecord, oldIndexEntries, newRecord, newIndexEntries);
+    }
+
     /**
      * Update index according to record keys. This will tokenize the text associated with this record and
      * write out one index key for each token containing the position list as its value. Because writing
@@ -522,7 +742,7 @@ public class TextIndexMaintainer extends StandardIndexMaintainer {
         TextSubspaceSplitter subspaceSplitter = new TextSubspaceSplitter(state.indexSubspace, textPosition + 1);
         Range byteRange = range.toRange();
         ScanProperties withAdjustedLimit = scanProperties.with(ExecuteProperties::clearSkipAndAdjustLimit);
-        BunchedMapMultiIterator<Tuple, List<Integer>, Tuple> iterator = BUNCHED_MAP.scanMulti(
+        BunchedMapMultiIterator<Tuple, List<Integer>, Tuple> iterator = bunchedMap.scanMulti(
                 state.context.readTransaction(scanProperties.getExecuteProperties().getIsolationLevel().isSnapshot()),
                 state.indexSubspace,
                 subspaceSplitter,
@@ -28,13 +28,16 @@ import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.ScanProperties;
 import com.apple.foundationdb.record.TupleRange;
+import com.apple.foundationdb.record.metadata.IndexOptions;
 import com.apple.foundationdb.record.metadata.MetaDataException;
 import com.apple.foundationdb.record.metadata.expressions.VersionKeyExpression;
 import com.apple.foundationdb.record.provider.foundationdb.FDBIndexableRecord;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordVersion;
 import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
 import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainer;
 import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainerState;
+import com.apple.foundationdb.subspace.Subspace;
 import com.apple.foundationdb.tuple.Tuple;
 import com.google.protobuf.Message;
 
@@ -49,9 +52,17 @@ import javax.annotation.Nullable;
  * then it will set the key in such a way that the global version is filled in when the record is committed.
  * If one only ever serializes records with incomplete <code>RecordVersion</code>s, then this index guarantees
  * that the version column is strictly monotonically increasing with time.
+ *
+ * <p>
+ * If the {@link IndexOptions#VERSION_NOTIFY_CHANGES} option is set, each added entry also increments a counter at
+ * {@link #changeNotificationKey}, which a {@link com.apple.foundationdb.record.provider.foundationdb.ChangeFeed}
+ * can watch to learn when there are new entries to read.
+ * </p>
  */
 @API(API.Status.EXPERIMENTAL)
 public class VersionIndexMaintainer extends StandardIndexMaintainer {
+    private static final Tuple CHANGE_NOTIFICATION_TUPLE = Tuple.from("changes");
+
     protected VersionIndexMaintainer(IndexMaintainerState state) {
         super(state);
     }
@@ -103,9 +114,23 @@ public class VersionIndexMaintainer extends StandardIndexMaintainer {
             } else {
                 state.transaction.set(keyBytes, valueBytes);
             }
+            if (state.index.getBooleanOption(IndexOptions.VERSION_NOTIFY_CHANGES, false)) {
+                state.transaction.mutate(MutationType.ADD, changeNotificationKey(getSecondarySubspace()), FDBRecordStore.LITTLE_ENDIAN_INT64_ONE);
+            }
             if (state.store.getTimer() != null) {
                 state.store.getTimer().recordSinceNanoTime(FDBStoreTimer.Events.SAVE_INDEX_ENTRY, startTime);
             }
         }
     }
+
+    /**
+     * Get the key that is incremented when entries are added to a version index with the
+     * {@link IndexOptions#VERSION_NOTIFY_CHANGES} option.
+     * @param secondarySubspace the index's {@linkplain FDBRecordStore#indexSecondarySubspace secondary subspace}
+     * @return the key to watch for changes to the index
+     */
+    @Nonnull
+    public static byte[] changeNotificationKey(@Nonnull Subspace secondarySubspace) {
+        return secondarySubspace.pack(CHANGE_NOTIFICATION_TUPLE);
+    }
 }
@@ -0,0 +1,195 @@
+/*
+ * KeySpaceTreeWalker.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.keyspace;
+
+import com.apple.foundationdb.API;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.ScanProperties;
+import com.apple.foundationdb.record.cursors.PrefetchCursor;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordContext;
+import com.apple.foundationdb.tuple.Tuple;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Walk the tree of paths that exist in the database below a {@link KeySpacePath}.
+ *
+ * <p>
+ * The walk {@linkplain KeySpacePath#listAsync(FDBRecordContext, String, byte[], ScanProperties) lists} each subdirectory of
+ * each path it visits and descends into the paths found, until it reaches paths that are leaves: by default, those
+ * whose directory has no subdirectories. The leaves are returned by a {@link RecordCursor}, with the paths in each
+ * subdirectory in key order and subdirectories in the order in which they were defined. The paths of the topmost
+ * directory that can have more than one path and that has subdirectories of its own are walked up to
+ * {@link #getParallelism} at a time, so that the walk does not wait for a round trip for each of them; the levels
+ * below that are walked one path at a time, so that no more than that many listings are in flight for the whole walk.
+ * Since this does not depend on how deep the key space is, it is the same when the leaf predicate stops the walk
+ * above the deepest level.
+ * The cursor's continuation records where the walk is in each level of the tree, along with the value of the path it
+ * was in, so a walk that is too big for one transaction can be resumed in another. If that path is no longer there
+ * when the walk is resumed, the walk starts the path that took its place from the beginning.
+ * </p>
+ *
+ * <pre><code>
+ * KeySpaceTreeWalker walker = new KeySpaceTreeWalker(context, keySpace.path("tenants"))
+ *     .setLeafPredicate(path -&gt; path.getDirectoryName().equals("recordStore"));
+ * RecordCursor&lt;KeySpacePath&gt; stores = walker.walk(continuation);
+ * </code></pre>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class KeySpaceTreeWalker {
+    /**
+     * The default number of directories that are listed at once.
+     */
+    public static final int DEFAULT_PARALLELISM = 10;
+
+    @Nonnull
+    private final FDBRecordContext context;
+    @Nonnull
+    private final KeySpacePath root;
+    private int parallelism = DEFAULT_PARALLELISM;
+    @Nonnull
+    private Predicate<KeySpacePath> leafPredicate = path -> path.getDirectory().getSubdirectories().isEmpty();
+    @Nonnull
+    private final AtomicLong directoriesListed = new AtomicLong();
+    @Nonnull
+    private final AtomicLong leavesVisited = new AtomicLong();
+
+    public KeySpaceTreeWalker(@Nonnull FDBRecordContext context, @Nonnull KeySpacePath root) {
+        this.context = context;
+        this.root = root;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set the number of directories that are listed at once.
+     * @param parallelism the number of directories listed at once
+     * @return this walker
+     */
+    @Nonnull
+    public KeySpaceTreeWalker setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new RecordCoreArgumentException("parallelism must be positive")
+                    .addLogInfo("parallelism", parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Set which paths the walk should return rather than descend into.
+     * @param leafPredicate a predicate that is {@code true} for paths at which to stop
+     * @return this walker
+     */
+    @Nonnull
+    public KeySpaceTreeWalker setLeafPredicate(@Nonnull Predicate<KeySpacePath> leafPredicate) {
+        this.leafPredicate = leafPredicate;
+        return this;
+    }
+
+    /**
+     * Get the number of directory listings that have been started so far by cursors from this walker.
+     * @return the number of directories listed
+     */
+    public long getDirectoriesListed() {
+        return directoriesListed.get();
+    }
+
+    /**
+     * Get the number of leaf paths that have been returned so far by cursors from this walker.
+     * @return the number of leaves visited
+     */
+    public long getLeavesVisited() {
+        return leavesVisited.get();
+    }
+
+    /**
+     * Walk the tree below the root path.
+     * @param continuation the continuation from a previous walk or {@code null} to start from the beginning
+     * @return a cursor over the leaf paths below the root
+     */
+    @Nonnull
+    public RecordCursor<KeySpacePath> walk(@Nullable byte[] continuation) {
+        return walk(root, continuation, false).map(path -> {
+            leavesVisited.incrementAndGet();
+            return path;
+        });
+    }
+
+    @Nonnull
+    private RecordCursor<KeySpacePath> walk(@Nonnull KeySpacePath path, @Nullable byte[] continuation, boolean pipelined) {
+        if (leafPredicate.test(path)) {
+            return RecordCursor.fromList(context.getExecutor(), Collections.singletonList(path), continuation);
+        }
+        final List<KeySpaceDirectory> subdirectories = path.getDirectory().getSubdirectories();
+        final List<String> subdirNames = new ArrayList<>(subdirectories.size());
+        for (KeySpaceDirectory subdirectory : subdirectories) {
+            subdirNames.add(subdirectory.getName());
+        }
+        return RecordCursor.flatMapPipelined(
+                outerContinuation -> RecordCursor.fromList(context.getExecutor(), subdirNames, outerContinuation),
+                (subdirName, innerContinuation) -> listAndWalk(path, subdirName, innerContinuation, pipelined),
+                subdirName -> subdirName.getBytes(StandardCharsets.UTF_8),
+                continuation, 1);
+    }
+
+    @Nonnull
+    private RecordCursor<KeySpacePath> listAndWalk(@Nonnull KeySpacePath path, @Nonnull String subdirName,
+                                                   @Nullable byte[] continuation, boolean pipelined) {
+        final boolean pipelineHere = !pipelined && isPipelined(path.getDirectory().getSubdirectory(subdirName));
+        return RecordCursor.flatMapPipelined(
+                outerContinuation -> {
+                    directoriesListed.incrementAndGet();
+                    return path.listAsync(context, subdirName, outerContinuation, ScanProperties.FORWARD_SCAN);
+                },
+                (subpath, innerContinuation) -> {
+                    final RecordCursor<KeySpacePath> subwalk = walk(subpath, innerContinuation, pipelined || pipelineHere);
+                    // The pipeline only creates the walks ahead of time, so start them listing right away.
+                    return pipelineHere ? new PrefetchCursor<>(subwalk, 1).startPrefetch() : subwalk;
+                },
+                subpath -> Tuple.fromList(Collections.singletonList(subpath.getStoredValue().getResolvedValue())).pack(),
+                continuation, pipelineHere ? parallelism : 1);
+    }
+
+    /**
+     * Get whether to walk the paths listed in the given directory in parallel, when no directory above it is.
+     * Only one level is pipelined, since pipelining at more than one level would multiply the number of listings in
+     * flight by the parallelism for each level. A directory with a constant value has at most one path, and the paths
+     * of a directory without subdirectories are not listed any further, so neither gains from being walked in parallel.
+     * This does not consult the leaf predicate, which can only be tested on the paths themselves, and so might stop
+     * the walk at any level: a level above the one it stops at is pipelined either way.
+     * @param directory the directory whose paths are being walked
+     * @return whether to walk those paths in parallel
+     */
+    private static boolean isPipelined(@Nonnull KeySpaceDirectory directory) {
+        return directory.getValue() == KeySpaceDirectory.ANY_VALUE && !directory.getSubdirectories().isEmpty();
+    }
+}
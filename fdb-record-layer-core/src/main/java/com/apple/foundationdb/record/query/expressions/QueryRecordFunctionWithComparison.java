@@ -34,7 +34,9 @@ import com.google.protobuf.Message;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
@@ -96,6 +98,29 @@ public class QueryRecordFunctionWithComparison implements ComponentWithCompariso
         return store.evaluateRecordFunction(context, function, record).thenApply(value -> getComparison().eval(store, context, value));
     }
 
+    /**
+     * Evaluate this component against several records at once, which lets the index that evaluates the function share
+     * work between them.
+     * @param store the record store from which the records were loaded
+     * @param context context for query evaluation
+     * @param records the records to evaluate against
+     * @param <M> the type of records
+     * @return a future that completes with the result of the comparison for each record, in the same order
+     * @see FDBRecordStoreBase#evaluateRecordFunctions
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public <M extends Message> CompletableFuture<List<Boolean>> evalAllAsync(@Nonnull FDBRecordStoreBase<M> store, @Nonnull EvaluationContext context,
+                                                                             @Nonnull List<? extends FDBRecord<M>> records) {
+        return store.evaluateRecordFunctions(context, function, records).thenApply(values -> {
+            final List<Boolean> results = new ArrayList<>(values.size());
+            for (Object value : values) {
+                results.add(getComparison().eval(store, context, value));
+            }
+            return results;
+        });
+    }
+
     @Override
     public void validate(@Nonnull Descriptors.Descriptor descriptor) {
         function.validate(descriptor);
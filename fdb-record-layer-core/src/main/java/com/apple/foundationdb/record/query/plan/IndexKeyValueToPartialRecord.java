@@ -25,7 +25,6 @@ import com.apple.foundationdb.record.IndexEntry;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.metadata.MetaDataException;
 import com.apple.foundationdb.record.metadata.expressions.TupleFieldsHelper;
-import com.apple.foundationdb.tuple.Tuple;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.DynamicMessage;
@@ -108,8 +107,7 @@ public class IndexKeyValueToPartialRecord {
         @Override
         public void copy(@Nonnull Descriptors.Descriptor recordDescriptor, @Nonnull Message.Builder recordBuilder,
                          @Nonnull IndexEntry kv) {
-            final Tuple tuple = (source == TupleSource.KEY ? kv.getKey() : kv.getValue());
-            Object value = tuple.get(index);
+            Object value = (source == TupleSource.KEY ? kv.getKeyValue(index) : kv.getValue().get(index));
             if (value == null) {
                 return;
             }
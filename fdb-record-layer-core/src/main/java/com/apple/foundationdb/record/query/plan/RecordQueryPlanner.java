@@ -21,6 +21,7 @@
 package com.apple.foundationdb.record.query.plan;
 
 import com.apple.foundationdb.API;
+import com.apple.foundationdb.record.ContinuationEncoder;
 import com.apple.foundationdb.record.FunctionNames;
 import com.apple.foundationdb.record.IndexScanType;
 import com.apple.foundationdb.record.RecordCoreException;
@@ -116,6 +117,9 @@ public class RecordQueryPlanner implements QueryPlanner {
     private boolean primaryKeyHasRecordTypePrefix;
     @Nonnull
     private IndexScanPreference indexScanPreference;
+    private int unorderedUnionBranchBufferSize = 0;
+    @Nullable
+    private ContinuationEncoder unorderedUnionContinuationEncoder = null;
 
     public RecordQueryPlanner(@Nonnull RecordMetaData metaData, @Nonnull RecordStoreState recordStoreState) {
         this(metaData, recordStoreState, null);
@@ -173,6 +177,51 @@ public class RecordQueryPlanner implements QueryPlanner {
         this.indexScanPreference = indexScanPreference;
     }
 
+    /**
+     * Get the number of results that each branch of an unordered union reads ahead in parallel with the others.
+     * @return the branch buffer size for planned {@link RecordQueryUnorderedUnionPlan}s
+     * @see RecordQueryUnorderedUnionPlan#getBranchBufferSize
+     */
+    public int getUnorderedUnionBranchBufferSize() {
+        return unorderedUnionBranchBufferSize;
+    }
+
+    /**
+     * Set the number of results that each branch of an unordered union reads ahead in parallel with the others.
+     * When positive, queries with many {@code OR} branches that are executed at snapshot isolation can use several
+     * threads to fetch, deserialize and filter records. The default is {@code 0}, which reads the branches one result
+     * at a time.
+     * @param unorderedUnionBranchBufferSize the branch buffer size for planned {@link RecordQueryUnorderedUnionPlan}s
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public void setUnorderedUnionBranchBufferSize(int unorderedUnionBranchBufferSize) {
+        this.unorderedUnionBranchBufferSize = unorderedUnionBranchBufferSize;
+    }
+
+    /**
+     * Get the encoder for the continuations of unordered unions.
+     * @return the continuation encoder for planned {@link RecordQueryUnorderedUnionPlan}s or {@code null} if their
+     * continuations are not encoded
+     * @see RecordQueryUnorderedUnionPlan#getContinuationEncoder
+     */
+    @Nullable
+    public ContinuationEncoder getUnorderedUnionContinuationEncoder() {
+        return unorderedUnionContinuationEncoder;
+    }
+
+    /**
+     * Set the encoder for the continuations of unordered unions. The continuation of a union holds the continuation
+     * of each of its branches, so for queries with many {@code OR} branches, a compressing encoder such as
+     * {@link ContinuationEncoder#COMPRESSED} can make it much smaller. Encoded continuations cannot be read by
+     * versions of the Record Layer without {@link ContinuationEncoder}. The default is {@code null}, which leaves
+     * continuations as they are.
+     * @param unorderedUnionContinuationEncoder the continuation encoder for planned {@link RecordQueryUnorderedUnionPlan}s
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public void setUnorderedUnionContinuationEncoder(@Nullable ContinuationEncoder unorderedUnionContinuationEncoder) {
+        this.unorderedUnionContinuationEncoder = unorderedUnionContinuationEncoder;
+    }
+
     /**
      * Create a plan to get the results of the provided query.
      *
@@ -1205,7 +1254,8 @@ public class RecordQueryPlanner implements QueryPlanner {
             childPlans.add(subplan.plan);
             includedRankComparisons = mergeRankComparisons(includedRankComparisons, subplan.includedRankComparisons);
         }
-        final RecordQueryUnorderedUnionPlan unionPlan = new RecordQueryUnorderedUnionPlan(childPlans, subplans.get(0).plan.isReverse());
+        final RecordQueryUnorderedUnionPlan unionPlan = new RecordQueryUnorderedUnionPlan(childPlans, subplans.get(0).plan.isReverse(),
+                unorderedUnionBranchBufferSize, unorderedUnionContinuationEncoder);
         if (unionPlan.getComplexity() > complexityThreshold) {
             throw new RecordQueryPlanComplexityException(unionPlan);
         }
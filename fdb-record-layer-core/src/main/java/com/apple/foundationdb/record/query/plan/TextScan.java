@@ -199,7 +199,8 @@ public class TextScan implements PlanHashable {
             // the skip and limit are both removed and then applied later.
             final ScanProperties childScanProperties = scanProperties.with(ExecuteProperties::clearSkipAndLimit);
             List<Function<byte[], RecordCursor<IndexEntry>>> intersectionChildren = tokenList.stream().map(token -> scanToken(store, token, prefix, suffix, index, childScanProperties)).collect(Collectors.toList());
-            return IntersectionCursor.create(suffixComparisonKeyFunction(prefixEntries), scanProperties.isReverse(), intersectionChildren, continuation, store.getTimer())
+            List<Function<List<Object>, byte[]>> seekFunctions = tokenList.stream().map(token -> seekToken(token, prefix, scanProperties.isReverse())).collect(Collectors.toList());
+            return IntersectionCursor.create(suffixComparisonKeyFunction(prefixEntries), scanProperties.isReverse(), intersectionChildren, seekFunctions, continuation, store.getTimer())
                     .skip(scanProperties.getExecuteProperties().getSkip())
                     .limitRowsTo(scanProperties.getExecuteProperties().getReturnedRowLimit());
         } else if (comparisonType.equals(Comparisons.Type.TEXT_CONTAINS_ANY)) {
@@ -216,7 +217,8 @@ public class TextScan implements PlanHashable {
             // all tokens, intersect, and then apply a filter on the returned list.
             final ScanProperties childScanProperties = scanProperties.with(ExecuteProperties::clearSkipAndLimit);
             List<Function<byte[], RecordCursor<IndexEntry>>> intersectionChildren = tokenList.stream().map(token -> scanToken(store, token, prefix, suffix, index, childScanProperties)).collect(Collectors.toList());
-            final RecordCursor<List<IndexEntry>> intersectionCursor = IntersectionMultiCursor.create(suffixComparisonKeyFunction(prefixEntries), scanProperties.isReverse(), intersectionChildren, continuation, store.getTimer());
+            List<Function<List<Object>, byte[]>> seekFunctions = tokenList.stream().map(token -> seekToken(token, prefix, scanProperties.isReverse())).collect(Collectors.toList());
+            final RecordCursor<List<IndexEntry>> intersectionCursor = IntersectionMultiCursor.create(suffixComparisonKeyFunction(prefixEntries), scanProperties.isReverse(), intersectionChildren, seekFunctions, continuation, store.getTimer());
 
             // Apply the filter based on the position lists
             final Function<List<IndexEntry>, Boolean> predicate;
@@ -416,6 +418,14 @@ public class TextScan implements PlanHashable {
         };
     }
 
+    // Produces continuations for the scan of a single token that skip ahead to a given comparison key.
+    // The comparison key is everything after the grouping key and the token, which is exactly the
+    // key within the token's map, so the intersection can seek directly within it.
+    @Nonnull
+    private static Function<List<Object>, byte[]> seekToken(@Nonnull String token, @Nullable Tuple prefix, boolean reverse) {
+        return (List<Object> comparisonKey) -> TextIndexMaintainer.seekContinuation(prefix, token, Tuple.fromList(comparisonKey), reverse);
+    }
+
     /**
      * Determines whether this scan might return duplicate results for the same
      * record. This can happen if this is a prefix scan (as the same prefix might
@@ -25,12 +25,14 @@ import com.apple.foundationdb.record.EvaluationContext;
 import com.apple.foundationdb.record.ExecuteProperties;
 import com.apple.foundationdb.record.PipelineOperation;
 import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.cursors.BatchFilterCursor;
 import com.apple.foundationdb.record.provider.common.StoreTimer;
 import com.apple.foundationdb.record.provider.foundationdb.FDBQueriedRecord;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStoreBase;
 import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
 import com.apple.foundationdb.record.query.expressions.Query;
 import com.apple.foundationdb.record.query.expressions.QueryComponent;
+import com.apple.foundationdb.record.query.expressions.QueryRecordFunctionWithComparison;
 import com.apple.foundationdb.record.query.plan.temp.ExpressionRef;
 import com.apple.foundationdb.record.query.plan.temp.PlannerExpression;
 import com.apple.foundationdb.record.query.plan.temp.SingleExpressionRef;
@@ -47,6 +49,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A query plan that filters out records from a child plan that do not satisfy a filter component.
@@ -88,7 +91,14 @@ public class RecordQueryFilterPlan implements RecordQueryPlanWithChild {
                                                                          @Nonnull ExecuteProperties executeProperties) {
         final RecordCursor<FDBQueriedRecord<M>> results = getInner().execute(store, context, continuation, executeProperties.clearSkipAndLimit());
 
-        if (getFilter().isAsync()) {
+        if (getFilter() instanceof QueryRecordFunctionWithComparison) {
+            // The record function can be evaluated on several records at once, sharing index reads between them.
+            final QueryRecordFunctionWithComparison functionFilter = (QueryRecordFunctionWithComparison)getFilter();
+            return new BatchFilterCursor<>(results,
+                    records -> evalBatchInstrumented(store, context, functionFilter, records),
+                    store.getPipelineSize(PipelineOperation.RECORD_ASYNC_FILTER))
+                    .skipThenLimit(executeProperties.getSkip(), executeProperties.getReturnedRowLimit());
+        } else if (getFilter().isAsync()) {
             return results
                     .filterAsyncInstrumented(record -> getFilter().evalAsync(store, context, record),
                             store.getPipelineSize(PipelineOperation.RECORD_ASYNC_FILTER),
@@ -102,6 +112,38 @@ public class RecordQueryFilterPlan implements RecordQueryPlanWithChild {
         }
     }
 
+    @Nonnull
+    private <M extends Message> CompletableFuture<List<Boolean>> evalBatchInstrumented(@Nonnull FDBRecordStoreBase<M> store,
+                                                                                       @Nonnull EvaluationContext context,
+                                                                                       @Nonnull QueryRecordFunctionWithComparison functionFilter,
+                                                                                       @Nonnull List<FDBQueriedRecord<M>> records) {
+        final FDBStoreTimer timer = store.getTimer();
+        if (timer == null) {
+            return functionFilter.evalAllAsync(store, context, records);
+        }
+        timer.increment(inCounts, records.size());
+        final long startTime = System.nanoTime();
+        return functionFilter.evalAllAsync(store, context, records).whenComplete((ignore, err) -> {
+            // Share the time taken by the batch between its records, so that the event is recorded once per record,
+            // as it is when records are filtered one at a time.
+            final long timeNanos = System.nanoTime() - startTime;
+            final int size = records.size();
+            for (int i = 0; i < size; i++) {
+                timer.record(duringEvents, timeNanos / size + (i < timeNanos % size ? 1 : 0));
+            }
+        }).thenApply(matches -> {
+            int passed = 0;
+            for (Boolean match : matches) {
+                if (Boolean.TRUE.equals(match)) {
+                    passed++;
+                }
+            }
+            timer.increment(successCounts, passed);
+            timer.increment(failureCounts, matches.size() - passed);
+            return matches;
+        });
+    }
+
     @Override
     public boolean isReverse() {
         return getInner().isReverse();
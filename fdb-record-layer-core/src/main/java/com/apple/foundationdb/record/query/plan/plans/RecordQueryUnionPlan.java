@@ -21,6 +21,7 @@
 package com.apple.foundationdb.record.query.plan.plans;
 
 import com.apple.foundationdb.API;
+import com.apple.foundationdb.record.ExecuteProperties;
 import com.apple.foundationdb.record.PlanHashable;
 import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
@@ -81,7 +82,8 @@ public class RecordQueryUnionPlan extends RecordQueryUnionPlanBase {
     @Override
     <M extends Message> RecordCursor<FDBQueriedRecord<M>> createUnionCursor(@Nonnull FDBRecordStoreBase<M> store,
                                                                             @Nonnull List<Function<byte[], RecordCursor<FDBQueriedRecord<M>>>> childCursorFunctions,
-                                                                            @Nullable byte[] continuation) {
+                                                                            @Nullable byte[] continuation,
+                                                                            @Nonnull ExecuteProperties executeProperties) {
         return UnionCursor.create(store, getComparisonKey(), isReverse(), childCursorFunctions, continuation);
     }
 
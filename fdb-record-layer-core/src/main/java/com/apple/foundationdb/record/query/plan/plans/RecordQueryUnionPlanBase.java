@@ -79,7 +79,8 @@ abstract class RecordQueryUnionPlanBase implements RecordQueryPlanWithChildren {
     @Nonnull
     abstract <M extends Message> RecordCursor<FDBQueriedRecord<M>> createUnionCursor(@Nonnull FDBRecordStoreBase<M> store,
                                                                                      @Nonnull List<Function<byte[], RecordCursor<FDBQueriedRecord<M>>>> childCursorFunctions,
-                                                                                     @Nullable byte[] continuation);
+                                                                                     @Nullable byte[] continuation,
+                                                                                     @Nonnull ExecuteProperties executeProperties);
 
     @Nonnull
     @Override
@@ -99,7 +100,7 @@ abstract class RecordQueryUnionPlanBase implements RecordQueryPlanWithChildren {
                 .map(childPlan -> (Function<byte[], RecordCursor<FDBQueriedRecord<M>>>)
                         ((byte[] childContinuation) -> childPlan.execute(store, context, childContinuation, childExecuteProperties)))
                 .collect(Collectors.toList());
-        return createUnionCursor(store, childCursorFunctions, continuation).skipThenLimit(executeProperties.getSkip(), executeProperties.getReturnedRowLimit());
+        return createUnionCursor(store, childCursorFunctions, continuation, executeProperties).skipThenLimit(executeProperties.getSkip(), executeProperties.getReturnedRowLimit());
     }
 
     @Override
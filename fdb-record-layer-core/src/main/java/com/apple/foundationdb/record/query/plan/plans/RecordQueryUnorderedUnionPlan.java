@@ -21,7 +21,10 @@
 package com.apple.foundationdb.record.query.plan.plans;
 
 import com.apple.foundationdb.API;
+import com.apple.foundationdb.record.ContinuationEncoder;
+import com.apple.foundationdb.record.ExecuteProperties;
 import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.cursors.PrefetchCursor;
 import com.apple.foundationdb.record.provider.common.StoreTimer;
 import com.apple.foundationdb.record.provider.foundationdb.FDBQueriedRecord;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStoreBase;
@@ -32,31 +35,89 @@ import com.google.protobuf.Message;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * A query plan that returns results from two-or-more cursors as they as ready. Unlike the {@link RecordQueryUnionPlan},
  * there are no ordering restrictions placed on the child plans (i.e., the children are free to return results
  * in any order). However, this plan also makes no effort to remove duplicates from its children, and it also
  * makes no guarantees as to what order it will return results.
+ *
+ * <p>
+ * Normally, each child only reads its next result when the last one has been returned, so all the work of the children
+ * is done one result at a time on whichever thread delivered the last one. With a positive branch buffer size,
+ * each child instead reads ahead into a buffer of up to that many results, starting each read as a separate
+ * executor task, so that the children fetch, deserialize and filter their records in parallel. This uses more
+ * threads and reads records that may not be returned if the query stops early. Since reading those records would
+ * also add read conflicts for them, the children only read ahead when the plan is executed at
+ * {@link com.apple.foundationdb.record.IsolationLevel#SNAPSHOT} isolation.
+ * </p>
+ *
+ * <p>
+ * The continuation of this plan holds the continuations of all its children. With a {@link ContinuationEncoder}, that
+ * continuation is encoded, which for a compressing encoder can make the continuation of a wide union much smaller.
+ * </p>
  */
 @API(API.Status.EXPERIMENTAL)
 public class RecordQueryUnorderedUnionPlan extends RecordQueryUnionPlanBase {
+    private final int branchBufferSize;
+    @Nullable
+    private final ContinuationEncoder continuationEncoder;
 
     public RecordQueryUnorderedUnionPlan(@Nonnull RecordQueryPlan left, @Nonnull RecordQueryPlan right, boolean reverse) {
         super(left, right, reverse);
+        this.branchBufferSize = 0;
+        this.continuationEncoder = null;
     }
 
     public RecordQueryUnorderedUnionPlan(@Nonnull List<RecordQueryPlan> children, boolean reverse) {
+        this(children, reverse, 0);
+    }
+
+    public RecordQueryUnorderedUnionPlan(@Nonnull List<RecordQueryPlan> children, boolean reverse, int branchBufferSize) {
+        this(children, reverse, branchBufferSize, null);
+    }
+
+    public RecordQueryUnorderedUnionPlan(@Nonnull List<RecordQueryPlan> children, boolean reverse, int branchBufferSize,
+                                         @Nullable ContinuationEncoder continuationEncoder) {
         super(children, reverse);
+        this.branchBufferSize = branchBufferSize;
+        this.continuationEncoder = continuationEncoder;
+    }
+
+    /**
+     * Get the number of results each child reads ahead in parallel with the others.
+     * @return the size of the buffer for each child or {@code 0} if the children are not read in parallel
+     */
+    public int getBranchBufferSize() {
+        return branchBufferSize;
+    }
+
+    /**
+     * Get the encoder for the continuations of this plan.
+     * @return the continuation encoder or {@code null} if continuations are not encoded
+     */
+    @Nullable
+    public ContinuationEncoder getContinuationEncoder() {
+        return continuationEncoder;
     }
 
     @Nonnull
     @Override
     <M extends Message> RecordCursor<FDBQueriedRecord<M>> createUnionCursor(@Nonnull FDBRecordStoreBase<M> store,
                                                                             @Nonnull List<Function<byte[], RecordCursor<FDBQueriedRecord<M>>>> childCursorFunctions,
-                                                                            @Nullable byte[] continuation) {
-        return UnorderedUnionCursor.create(childCursorFunctions, continuation, store.getTimer());
+                                                                            @Nullable byte[] continuation,
+                                                                            @Nonnull ExecuteProperties executeProperties) {
+        if (branchBufferSize <= 0 || !executeProperties.getIsolationLevel().isSnapshot()) {
+            return UnorderedUnionCursor.create(childCursorFunctions, continuation, store.getTimer(), continuationEncoder);
+        }
+        final List<Function<byte[], RecordCursor<FDBQueriedRecord<M>>>> parallelCursorFunctions = childCursorFunctions.stream()
+                .map(childCursorFunction -> (Function<byte[], RecordCursor<FDBQueriedRecord<M>>>)
+                        (childContinuation -> new PrefetchCursor<>(childCursorFunction.apply(childContinuation), branchBufferSize, true)))
+                .collect(Collectors.toList());
+        return UnorderedUnionCursor.create(parallelCursorFunctions, continuation, store.getTimer(), continuationEncoder);
     }
 
     @Nonnull
@@ -68,7 +129,26 @@ public class RecordQueryUnorderedUnionPlan extends RecordQueryUnionPlanBase {
     @Nonnull
     @Override
     public String toString() {
-        return "Unordered(" + super.toString() + ")";
+        return "Unordered(" + super.toString() + ")" + (branchBufferSize > 0 ? "[buffer " + branchBufferSize + "]" : "");
+    }
+
+    // The branch buffer size and continuation encoder are compared here but left out of planHash(), since they only
+    // change how the plan is executed and not which results it returns.
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RecordQueryUnorderedUnionPlan that = (RecordQueryUnorderedUnionPlan) o;
+        return super.equals(o) && branchBufferSize == that.branchBufferSize && Objects.equals(continuationEncoder, that.continuationEncoder);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), branchBufferSize, continuationEncoder);
     }
 
     @Nonnull
@@ -0,0 +1,146 @@
+/*
+ * ContinuationEncoderTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record;
+
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link ContinuationEncoder}.
+ */
+public class ContinuationEncoderTest {
+    // Four byte magic number, version, flags, and four byte checksum.
+    private static final int ENCODING_OVERHEAD = 10;
+
+    // Something like the continuation of a union of many index scans with similar positions.
+    private static byte[] wideUnionContinuation() {
+        final RecordCursorProto.UnionContinuation.Builder builder = RecordCursorProto.UnionContinuation.newBuilder()
+                .setFirstContinuation(ByteString.copyFrom(Tuple.from("some_common_value", 1066L, "rec-1").pack()))
+                .setSecondContinuation(ByteString.copyFrom(Tuple.from("some_common_value", 1066L, "rec-2").pack()));
+        for (int i = 3; i < 20; i++) {
+            builder.addOtherChildState(RecordCursorProto.UnionContinuation.CursorState.newBuilder()
+                    .setContinuation(ByteString.copyFrom(Tuple.from("some_common_value", 1066L, "rec-" + i).pack())));
+        }
+        return builder.build().toByteArray();
+    }
+
+    @Test
+    public void compressed() throws Exception {
+        final byte[] continuation = wideUnionContinuation();
+        final byte[] encoded = ContinuationEncoder.COMPRESSED.encode(continuation);
+        assertThat(encoded.length, lessThan(continuation.length / 2));
+        final byte[] decoded = ContinuationEncoder.decode(encoded);
+        assertArrayEquals(continuation, decoded);
+        assertEquals(RecordCursorProto.UnionContinuation.parseFrom(continuation), RecordCursorProto.UnionContinuation.parseFrom(decoded));
+    }
+
+    @Test
+    public void uncompressed() {
+        // Continuations that are not compressed do not pay for a header.
+        final byte[] continuation = wideUnionContinuation();
+        final byte[] encoded = ContinuationEncoder.UNCOMPRESSED.encode(continuation);
+        assertArrayEquals(continuation, encoded);
+        assertArrayEquals(continuation, ContinuationEncoder.decode(encoded));
+
+        // Too small to be worth compressing.
+        final byte[] small = Tuple.from(1066L).pack();
+        assertArrayEquals(small, ContinuationEncoder.COMPRESSED.encode(small));
+        assertArrayEquals(small, ContinuationEncoder.decode(ContinuationEncoder.COMPRESSED.encode(small)));
+    }
+
+    @Test
+    public void unencoded() {
+        assertNull(ContinuationEncoder.COMPRESSED.encode(null));
+        assertNull(ContinuationEncoder.decode(null));
+        final byte[] continuation = wideUnionContinuation();
+        assertArrayEquals(continuation, ContinuationEncoder.decode(continuation));
+        final byte[] key = Tuple.from("a", 1L).pack();
+        assertArrayEquals(key, ContinuationEncoder.decode(key));
+    }
+
+    @Test
+    public void rawStartingWithMagic() {
+        // Cursors strip the prefix shared by the ends of their range, so a raw continuation can begin with anything.
+        final byte[] stripped = new byte[]{(byte)0xFE, 0x15, 0x01, 0x00};
+        assertArrayEquals(stripped, ContinuationEncoder.decode(stripped));
+        assertArrayEquals(stripped, ContinuationEncoder.decode(ContinuationEncoder.COMPRESSED.encode(stripped)));
+
+        // A bytes-typed key can begin with the whole magic number.
+        final byte[] encoded = lookingEncoded(Tuple.from(1066L).pack());
+        final byte[] rawKey = Arrays.copyOf(encoded, encoded.length - 1);
+        assertArrayEquals(rawKey, ContinuationEncoder.decode(rawKey));
+        final byte[] longerRawKey = Arrays.copyOf(encoded, encoded.length + 2);
+        assertArrayEquals(longerRawKey, ContinuationEncoder.decode(longerRawKey));
+        for (ContinuationEncoder encoder : Arrays.asList(ContinuationEncoder.COMPRESSED, ContinuationEncoder.UNCOMPRESSED)) {
+            assertArrayEquals(rawKey, encoder.encode(rawKey));
+            assertArrayEquals(rawKey, ContinuationEncoder.decode(encoder.encode(rawKey)));
+            // Even one that could be mistaken for an encoded continuation, which then needs a header of its own.
+            assertEquals(encoded.length + ENCODING_OVERHEAD, encoder.encode(encoded).length);
+            assertArrayEquals(encoded, ContinuationEncoder.decode(encoder.encode(encoded)));
+        }
+    }
+
+    @Test
+    public void invalid() {
+        final byte[] encoded = ContinuationEncoder.COMPRESSED.encode(wideUnionContinuation());
+        final byte[] futureVersion = encoded.clone();
+        futureVersion[4] = 99;
+        assertThrows(RecordCoreArgumentException.class, () -> ContinuationEncoder.decode(withChecksum(futureVersion)));
+        final byte[] corrupt = encoded.clone();
+        for (int i = 10; i < corrupt.length - 4; i++) {
+            corrupt[i] = (byte)0xFF;
+        }
+        // Without a matching checksum, this is not recognized as encoded at all.
+        assertArrayEquals(corrupt, ContinuationEncoder.decode(corrupt));
+        assertThrows(RecordCoreException.class, () -> ContinuationEncoder.decode(withChecksum(corrupt)));
+    }
+
+    // The bytes of an uncompressed encoding of the given continuation, which encode itself would not produce.
+    private static byte[] lookingEncoded(byte[] continuation) {
+        final byte[] encoded = new byte[ENCODING_OVERHEAD + continuation.length];
+        encoded[0] = (byte)0xFE;
+        encoded[1] = (byte)0xC0;
+        encoded[2] = (byte)0x4E;
+        encoded[3] = (byte)0x7E;
+        encoded[4] = 1;
+        System.arraycopy(continuation, 0, encoded, 6, continuation.length);
+        return withChecksum(encoded);
+    }
+
+    private static byte[] withChecksum(byte[] encoded) {
+        final CRC32 crc = new CRC32();
+        crc.update(encoded, 0, encoded.length - 4);
+        ByteBuffer.wrap(encoded, encoded.length - 4, 4).putInt((int)crc.getValue());
+        return encoded;
+    }
+}
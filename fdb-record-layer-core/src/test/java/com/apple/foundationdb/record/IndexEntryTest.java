@@ -0,0 +1,64 @@
+/*
+ * IndexEntryTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record;
+
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.tuple.ByteArrayUtil;
+import com.apple.foundationdb.tuple.ByteArrayUtil2;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.foundationdb.tuple.TupleHelpers;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link IndexEntry}.
+ */
+public class IndexEntryTest {
+    private static final Tuple KEY = Tuple.from("a", 1L, null, Tuple.from("b", 2L), new byte[] {0x00, 0x01});
+
+    @Test
+    public void packedSameAsDecoded() {
+        final byte[] bytes = ByteArrayUtil.join(new byte[] {0x01, 0x02}, KEY.pack(), new byte[] {0x03});
+        final IndexEntry decoded = new IndexEntry(KEY, TupleHelpers.EMPTY);
+        final IndexEntry packed = new IndexEntry(bytes, 2, bytes.length - 3, TupleHelpers.EMPTY);
+        assertEquals(decoded.getKeySize(), packed.getKeySize());
+        for (int i = 0; i < KEY.size(); i++) {
+            assertEquals(Tuple.from(KEY.get(i)), Tuple.from(packed.getKeyValue(i)));
+        }
+        assertEquals(decoded.subKey(1, 4), packed.subKey(1, 4));
+        assertEquals(decoded, packed);
+        assertEquals(KEY, packed.getKey());
+        assertThrows(IndexOutOfBoundsException.class, () -> packed.getKeyValue(KEY.size()));
+    }
+
+    @Test
+    public void invalidKeyReportsBytes() {
+        // A string followed by a type code that is not used by the tuple encoding.
+        final byte[] bytes = new byte[] {0x02, 'a', 0x00, 0x7F};
+        final String loggable = ByteArrayUtil2.loggable(bytes);
+        RecordCoreException e = assertThrows(RecordCoreException.class, () -> new IndexEntry(bytes, 0, bytes.length, TupleHelpers.EMPTY).getKey());
+        assertEquals(loggable, e.getLogInfo().get(LogMessageKeys.KEY.toString()));
+        e = assertThrows(RecordCoreException.class, () -> new IndexEntry(bytes, 0, bytes.length, TupleHelpers.EMPTY).getKeyValue(0));
+        assertEquals(loggable, e.getLogInfo().get(LogMessageKeys.KEY.toString()));
+    }
+}
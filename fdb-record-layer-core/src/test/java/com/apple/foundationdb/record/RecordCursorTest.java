@@ -22,10 +22,12 @@ package com.apple.foundationdb.record;
 
 import com.apple.foundationdb.async.AsyncUtil;
 import com.apple.foundationdb.async.MoreAsyncUtil;
+import com.apple.foundationdb.record.cursors.BatchFilterCursor;
 import com.apple.foundationdb.record.cursors.FilterCursor;
 import com.apple.foundationdb.record.cursors.FirableCursor;
 import com.apple.foundationdb.record.cursors.LazyCursor;
 import com.apple.foundationdb.record.cursors.MapCursor;
+import com.apple.foundationdb.record.cursors.PrefetchCursor;
 import com.apple.foundationdb.record.cursors.RowLimitedCursor;
 import com.apple.foundationdb.record.cursors.SkipCursor;
 import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
@@ -69,10 +71,12 @@ import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.isOneOf;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -173,6 +177,80 @@ public class RecordCursorTest {
         assertThat(cursor.onHasNextCalled, Matchers.lessThanOrEqualTo(102));
     }
 
+    @Test
+    public void prefetchTest() throws Exception {
+        List<Integer> ints = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+        AtomicInteger read = new AtomicInteger(0);
+        RecordCursor<Integer> cursor = RecordCursor.fromList(ints).map(i -> {
+            read.incrementAndGet();
+            return i;
+        }).prefetch(5);
+        RecordCursorResult<Integer> result = cursor.onNext().get();
+        assertEquals(Integer.valueOf(0), result.get());
+        assertThat(read.get(), greaterThanOrEqualTo(5));
+        cursor.close();
+
+        // Reading ahead can start before the first element is asked for.
+        read.set(0);
+        RecordCursor<Integer> started = new PrefetchCursor<>(RecordCursor.fromList(ints).map(i -> {
+            read.incrementAndGet();
+            return i;
+        }), 2).startPrefetch();
+        assertThat(read.get(), greaterThanOrEqualTo(2));
+        assertEquals(ints, started.asList().join());
+
+        // Same results and continuations as without reading ahead, including when stopped by a limit.
+        RecordCursor<Integer> plain = RecordCursor.fromList(ints).limitRowsTo(7);
+        RecordCursor<Integer> prefetched = RecordCursor.fromList(ints).limitRowsTo(7).prefetch(3);
+        while (true) {
+            RecordCursorResult<Integer> expected = plain.onNext().get();
+            RecordCursorResult<Integer> actual = prefetched.onNext().get();
+            assertEquals(expected.hasNext(), actual.hasNext());
+            assertArrayEquals(expected.getContinuation().toBytes(), actual.getContinuation().toBytes());
+            if (!expected.hasNext()) {
+                assertEquals(expected.getNoNextReason(), actual.getNoNextReason());
+                break;
+            }
+            assertEquals(expected.get(), actual.get());
+        }
+
+        assertEquals(ints, RecordCursor.fromList(ints).prefetch(4).asList().join());
+        assertEquals(Collections.emptyList(), RecordCursor.fromList(Collections.<Integer>emptyList()).prefetch(4).asList().join());
+        RecordCursor<Integer> unchanged = RecordCursor.fromList(ints);
+        assertSame(unchanged, unchanged.prefetch(0));
+        assertThrows(RecordCoreException.class, () -> unchanged.prefetch(-1));
+    }
+
+    @Test
+    public void batchFilterTest() throws Exception {
+        List<Integer> ints = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+        List<List<Integer>> batches = new ArrayList<>();
+        Function<List<Integer>, CompletableFuture<List<Boolean>>> isEven = batch -> {
+            batches.add(batch);
+            return CompletableFuture.completedFuture(batch.stream().map(i -> i % 2 == 0).collect(Collectors.toList()));
+        };
+        RecordCursor<Integer> cursor = new BatchFilterCursor<>(RecordCursor.fromList(ints), isEven, 6);
+        assertEquals(Arrays.asList(0, 2, 4, 6, 8, 10, 12, 14, 16, 18), cursor.asList().join());
+        assertEquals(Arrays.asList(6, 6, 6, 2), batches.stream().map(List::size).collect(Collectors.toList()));
+
+        // Same results and continuations as filtering one at a time, including when stopped by a limit.
+        RecordCursor<Integer> plain = RecordCursor.fromList(ints).limitRowsTo(9).filter(i -> i % 2 == 0);
+        RecordCursor<Integer> batched = new BatchFilterCursor<>(RecordCursor.fromList(ints).limitRowsTo(9), isEven, 4);
+        while (true) {
+            RecordCursorResult<Integer> expected = plain.onNext().get();
+            RecordCursorResult<Integer> actual = batched.onNext().get();
+            assertEquals(expected.hasNext(), actual.hasNext());
+            assertArrayEquals(expected.getContinuation().toBytes(), actual.getContinuation().toBytes());
+            if (!expected.hasNext()) {
+                assertEquals(expected.getNoNextReason(), actual.getNoNextReason());
+                break;
+            }
+            assertEquals(expected.get(), actual.get());
+        }
+
+        assertThrows(RecordCoreException.class, () -> new BatchFilterCursor<>(RecordCursor.fromList(ints), isEven, 0));
+    }
+
     @Test
     public void forEachAsyncTest() {
         RecordCursor<Integer> cursor = RecordCursor.fromList(Arrays.asList(1, 2, 3, 4, 5, 6, 7));
@@ -20,13 +20,16 @@
 
 package com.apple.foundationdb.record.cursors;
 
+import com.apple.foundationdb.record.ByteScanLimiter;
 import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.RecordScanLimiter;
+import com.apple.foundationdb.record.ScanLimitReachedException;
 import com.apple.foundationdb.record.TimeScanLimiter;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -128,4 +131,36 @@ public class CursorLimitManagerTest {
         // record scan limit takes precedence over time limit
         assertEquals(RecordCursor.NoNextReason.SCAN_LIMIT_REACHED, manager.getStoppedReason().get());
     }
+
+    @Test
+    public void testByteScanLimiter() {
+        final ByteScanLimiter byteScanLimiter = new ByteScanLimiter(100);
+        final CursorLimitManager manager = new CursorLimitManager(null, byteScanLimiter, false, null);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(manager.tryRecordScan());
+            assertFalse(manager.isStopped());
+            manager.reportScannedBytes(30);
+        }
+        // The last scan was allowed while under the limit, so the limit is overrun.
+        assertEquals(120, byteScanLimiter.getBytesScanned());
+
+        assertFalse(manager.tryRecordScan());
+        assertTrue(manager.isStopped());
+        assertEquals(RecordCursor.NoNextReason.BYTE_LIMIT_REACHED, manager.getStoppedReason().get());
+    }
+
+    @Test
+    public void testByteScanLimiterInitialPass() {
+        final ByteScanLimiter byteScanLimiter = new ByteScanLimiter(10);
+        byteScanLimiter.registerScannedBytes(50);
+        // Another cursor sharing the limiter used it up, but this one still gets to make progress.
+        final CursorLimitManager manager = new CursorLimitManager(null, byteScanLimiter, false, null);
+        assertTrue(manager.tryRecordScan());
+        assertFalse(manager.tryRecordScan());
+        assertEquals(RecordCursor.NoNextReason.BYTE_LIMIT_REACHED, manager.getStoppedReason().get());
+
+        final CursorLimitManager failingManager = new CursorLimitManager(null, byteScanLimiter, true, null);
+        assertThrows(ScanLimitReachedException.class, failingManager::tryRecordScan);
+    }
 }
@@ -0,0 +1,165 @@
+/*
+ * RecordCursorPublisherTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors;
+
+import com.apple.foundationdb.record.RecordCursor;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link RecordCursorPublisher}.
+ */
+public class RecordCursorPublisherTest {
+    static final List<Integer> ints = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8);
+
+    static class TestSubscriber implements RecordCursorPublisher.Subscriber<Integer> {
+        RecordCursorPublisher.Subscription subscription;
+        final List<Integer> received = new ArrayList<>();
+        final CompletableFuture<Void> finished = new CompletableFuture<>();
+        boolean completed;
+
+        @Override
+        public void onSubscribe(@Nonnull RecordCursorPublisher.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(@Nonnull Throwable throwable) {
+            finished.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            finished.complete(null);
+        }
+    }
+
+    @Test
+    public void demand() {
+        AtomicInteger read = new AtomicInteger(0);
+        RecordCursorPublisher<Integer> publisher = new RecordCursorPublisher<>(RecordCursor.fromList(ints).map(i -> {
+            read.incrementAndGet();
+            return i;
+        }));
+        TestSubscriber subscriber = new TestSubscriber();
+        publisher.subscribe(subscriber);
+        assertNotNull(subscriber.subscription);
+        assertEquals(0, read.get());
+
+        subscriber.subscription.request(3);
+        assertEquals(Arrays.asList(1, 2, 3), subscriber.received);
+        assertEquals(3, read.get());
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.completed);
+        assertEquals(ints, subscriber.received);
+        assertEquals(RecordCursor.NoNextReason.SOURCE_EXHAUSTED, publisher.getNoNextReason());
+        assertTrue(publisher.getContinuation().isEnd());
+    }
+
+    @Test
+    public void rowLimitContinuation() {
+        RecordCursorPublisher<Integer> publisher = new RecordCursorPublisher<>(RecordCursor.fromList(ints).limitRowsTo(5));
+        TestSubscriber subscriber = new TestSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(100);
+        assertTrue(subscriber.completed);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), subscriber.received);
+        assertEquals(RecordCursor.NoNextReason.RETURN_LIMIT_REACHED, publisher.getNoNextReason());
+
+        RecordCursorPublisher<Integer> resumed = new RecordCursorPublisher<>(RecordCursor.fromList(ints, publisher.getContinuation().toBytes()));
+        TestSubscriber resumedSubscriber = new TestSubscriber();
+        resumed.subscribe(resumedSubscriber);
+        resumedSubscriber.subscription.request(100);
+        assertEquals(Arrays.asList(6, 7, 8), resumedSubscriber.received);
+    }
+
+    @Test
+    public void cancel() {
+        AtomicInteger closed = new AtomicInteger(0);
+        RecordCursor<Integer> cursor = new RowLimitedCursor<Integer>(RecordCursor.fromList(ints), Integer.MAX_VALUE) {
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+                super.close();
+            }
+        };
+        RecordCursorPublisher<Integer> publisher = new RecordCursorPublisher<>(cursor);
+        TestSubscriber subscriber = new TestSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(2);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(2);
+        assertEquals(Arrays.asList(1, 2), subscriber.received);
+        assertFalse(subscriber.completed);
+        assertEquals(1, closed.get());
+        assertNull(publisher.getNoNextReason());
+
+        RecordCursorPublisher<Integer> resumed = new RecordCursorPublisher<>(RecordCursor.fromList(ints, publisher.getContinuation().toBytes()));
+        TestSubscriber resumedSubscriber = new TestSubscriber();
+        resumed.subscribe(resumedSubscriber);
+        resumedSubscriber.subscription.request(1);
+        assertEquals(Arrays.asList(3), resumedSubscriber.received);
+    }
+
+    @Test
+    public void asyncSource() throws Exception {
+        RecordCursorPublisher<Integer> publisher = new RecordCursorPublisher<>(RecordCursor.fromList(ints)
+                .mapPipelined(i -> CompletableFuture.supplyAsync(() -> i * 10), 1));
+        TestSubscriber subscriber = new TestSubscriber() {
+            @Override
+            public void onSubscribe(@Nonnull RecordCursorPublisher.Subscription subscription) {
+                super.onSubscribe(subscription);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                super.onNext(item);
+                // Ask for one more at a time, from within the callback.
+                subscription.request(1);
+            }
+        };
+        publisher.subscribe(subscriber);
+        subscriber.finished.get(10, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList(10, 20, 30, 40, 50, 60, 70, 80), subscriber.received);
+    }
+}
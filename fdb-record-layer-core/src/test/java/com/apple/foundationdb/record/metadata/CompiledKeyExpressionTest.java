@@ -0,0 +1,202 @@
+/*
+ * CompiledKeyExpressionTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.metadata;
+
+import com.apple.foundationdb.record.RecordMetaData;
+import com.apple.foundationdb.record.TestRecords1Proto;
+import com.apple.foundationdb.record.UnstoredRecord;
+import com.apple.foundationdb.record.metadata.ExpressionTestsProto.NestedField;
+import com.apple.foundationdb.record.metadata.ExpressionTestsProto.TestScalarFieldAccess;
+import com.apple.foundationdb.record.metadata.expressions.CompiledKeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.KeyExpression.FanType;
+import com.apple.foundationdb.record.metadata.expressions.TupleFieldsHelper;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoredRecord;
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.protobuf.Message;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static com.apple.foundationdb.record.metadata.Key.Expressions.concat;
+import static com.apple.foundationdb.record.metadata.Key.Expressions.concatenateFields;
+import static com.apple.foundationdb.record.metadata.Key.Expressions.field;
+import static com.apple.foundationdb.record.metadata.Key.Expressions.keyWithValue;
+import static com.apple.foundationdb.record.metadata.Key.Expressions.recordType;
+import static com.apple.foundationdb.record.metadata.expressions.EmptyKeyExpression.EMPTY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests for {@link CompiledKeyExpression}.
+ */
+public class CompiledKeyExpressionTest {
+
+    private static final NestedField matryoshkaDolls = NestedField.newBuilder()
+            .setRegularOldField("Grandmother")
+            .setNesty(
+                    NestedField.newBuilder()
+                            .setRegularOldField("Mother")
+                            .setRegularIntField(1066)
+                            .setNesty(NestedField.newBuilder().setRegularOldField("Daughter")))
+            .setNesty2(NestedField.OtherNested.newBuilder()
+                    .setNesty3(NestedField.OtherNested.ThirdNested.newBuilder().setLastField("Baby")))
+            .addRepeatedField("lily")
+            .build();
+
+    private static final NestedField lonelyDoll = NestedField.newBuilder()
+            .setRegularOldField("Lonely")
+            .setNesty(NestedField.newBuilder())
+            .build();
+
+    private static final NestedField emptyNested = NestedField.newBuilder().build();
+
+    private static final List<NestedField> nestedRecords = Arrays.asList(matryoshkaDolls, lonelyDoll, emptyNested);
+
+    private static void assertSameAsInterpreted(@Nonnull KeyExpression expression, @Nonnull List<? extends Message> records) {
+        final CompiledKeyExpression compiled = CompiledKeyExpression.compile(expression, records.get(0).getDescriptorForType());
+        assertNotNull(compiled, "expression should compile: " + expression);
+        for (Message record : records) {
+            final UnstoredRecord<Message> unstoredRecord = new UnstoredRecord<>(record);
+            assertEquals(expression.evaluate(unstoredRecord), compiled.evaluate(unstoredRecord), expression + " on " + record);
+        }
+        assertEquals(expression.evaluate(null), compiled.evaluate(null), expression + " on null");
+    }
+
+    @Test
+    public void scalarFields() {
+        assertSameAsInterpreted(field("regular_old_field"), nestedRecords);
+        assertSameAsInterpreted(field("regular_int_field"), nestedRecords);
+        assertSameAsInterpreted(field("regular_int_field", FanType.None, Key.Evaluated.NullStandin.NOT_NULL), nestedRecords);
+        assertSameAsInterpreted(concatenateFields("regular_old_field", "regular_int_field"), nestedRecords);
+        assertSameAsInterpreted(EMPTY, nestedRecords);
+    }
+
+    @Test
+    public void nestedFields() {
+        assertSameAsInterpreted(field("nesty").nest("regular_old_field"), nestedRecords);
+        assertSameAsInterpreted(field("nesty").nest(field("nesty").nest("regular_old_field")), nestedRecords);
+        assertSameAsInterpreted(field("nesty2").nest(field("nesty3").nest("last_field")), nestedRecords);
+        assertSameAsInterpreted(concat(
+                field("regular_old_field"),
+                field("nesty").nest(concatenateFields("regular_old_field", "regular_int_field")),
+                field("nesty2").nest(field("nesty3").nest("last_field"))), nestedRecords);
+        assertSameAsInterpreted(field("nesty", FanType.None, Key.Evaluated.NullStandin.NOT_NULL).nest("regular_int_field"), nestedRecords);
+    }
+
+    @Test
+    public void groupingAndKeyWithValue() {
+        assertSameAsInterpreted(field("regular_int_field").groupBy(field("regular_old_field")), nestedRecords);
+        assertSameAsInterpreted(keyWithValue(concat(field("regular_old_field"), field("nesty").nest("regular_old_field")), 1), nestedRecords);
+    }
+
+    @Test
+    public void tupleField() {
+        final UUID uuid = UUID.randomUUID();
+        final List<TestScalarFieldAccess> records = Arrays.asList(
+                TestScalarFieldAccess.newBuilder().setField("x").setUuidField(TupleFieldsHelper.toProto(uuid)).build(),
+                TestScalarFieldAccess.getDefaultInstance());
+        assertSameAsInterpreted(concatenateFields("field", "uuid_field"), records);
+    }
+
+    @Test
+    public void sharedColumnValues() {
+        final KeyExpression byName = concat(field("regular_old_field"), field("nesty").nest("regular_old_field"));
+        final KeyExpression byNumber = concat(field("nesty").nest("regular_int_field"), field("nesty").nest("regular_old_field"));
+        final CompiledKeyExpression compiledByName = CompiledKeyExpression.compile(byName, NestedField.getDescriptor());
+        final CompiledKeyExpression compiledByNumber = CompiledKeyExpression.compile(byNumber, NestedField.getDescriptor());
+        assertNotNull(compiledByName);
+        assertNotNull(compiledByNumber);
+        final CompiledKeyExpression.EvaluationCache cache = new CompiledKeyExpression.EvaluationCache();
+        assertEquals(byName.evaluate(new UnstoredRecord<>(matryoshkaDolls)), compiledByName.evaluateMessage(null, matryoshkaDolls, cache));
+        assertEquals(2, cache.size());
+        assertEquals(byNumber.evaluate(new UnstoredRecord<>(matryoshkaDolls)), compiledByNumber.evaluateMessage(null, matryoshkaDolls, cache));
+        assertEquals(3, cache.size());
+        assertEquals(byName.evaluate(new UnstoredRecord<>(matryoshkaDolls)), compiledByName.evaluateMessage(null, matryoshkaDolls, cache));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void cachedSameAsUncached() {
+        // The same path with different null standins, nested and unset fields, each evaluated more than once.
+        final List<KeyExpression> expressions = Arrays.asList(
+                field("regular_int_field"),
+                field("regular_int_field", FanType.None, Key.Evaluated.NullStandin.NOT_NULL),
+                concat(field("regular_old_field"), field("nesty").nest(concatenateFields("regular_old_field", "regular_int_field"))),
+                field("nesty", FanType.None, Key.Evaluated.NullStandin.NOT_NULL).nest("regular_int_field"),
+                field("nesty").nest(field("nesty").nest("regular_old_field")),
+                field("nesty2").nest(field("nesty3").nest("last_field")));
+        for (NestedField record : nestedRecords) {
+            final CompiledKeyExpression.EvaluationCache cache = new CompiledKeyExpression.EvaluationCache();
+            for (int pass = 0; pass < 2; pass++) {
+                for (KeyExpression expression : expressions) {
+                    final CompiledKeyExpression compiled = CompiledKeyExpression.compile(expression, NestedField.getDescriptor());
+                    assertNotNull(compiled, "expression should compile: " + expression);
+                    final List<Key.Evaluated> uncached = compiled.evaluateMessage(null, record, null);
+                    assertEquals(expression.evaluate(new UnstoredRecord<>(record)), uncached, expression + " on " + record);
+                    assertEquals(uncached, compiled.evaluateMessage(null, record, cache), expression + " cached on " + record);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void recordTypeKey() {
+        final RecordType recordType = RecordMetaData.newBuilder().setRecords(TestRecords1Proto.getDescriptor()).build(false).getRecordType("MySimpleRecord");
+        final KeyExpression expression = concat(recordType(), field("str_value_indexed"));
+        final CompiledKeyExpression compiled = recordType.getCompiledKeyExpression(expression);
+        assertNotNull(compiled, "expression should compile: " + expression);
+        assertSame(compiled, recordType.getCompiledKeyExpression(expression));
+        final List<TestRecords1Proto.MySimpleRecord> messages = Arrays.asList(
+                TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(1).setStrValueIndexed("even").build(),
+                TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(2).build());
+        for (TestRecords1Proto.MySimpleRecord message : messages) {
+            final FDBStoredRecord<Message> record = FDBStoredRecord.newBuilder((Message)message)
+                    .setRecordType(recordType).setPrimaryKey(Tuple.from(message.getRecNo())).build();
+            assertEquals(expression.evaluate(record), record.evaluate(expression), expression + " on " + message);
+        }
+        // Without a record, there is no record type, so the column is null, even when there is a message.
+        assertEquals(expression.evaluate(null), compiled.evaluate(null));
+        assertEquals(expression.evaluateMessage(null, messages.get(0)), compiled.evaluateMessage(null, messages.get(0)));
+    }
+
+    @Test
+    public void notCompilable() {
+        assertNull(CompiledKeyExpression.compile(field("repeated_field", FanType.FanOut), NestedField.getDescriptor()));
+        assertNull(CompiledKeyExpression.compile(field("repeated_field", FanType.Concatenate), NestedField.getDescriptor()));
+        assertNull(CompiledKeyExpression.compile(field("repeated_nesty", FanType.FanOut).nest("regular_old_field"), NestedField.getDescriptor()));
+        assertNull(CompiledKeyExpression.compile(concat(field("regular_old_field"), field("repeated_field", FanType.FanOut)), NestedField.getDescriptor()));
+        assertNull(CompiledKeyExpression.compile(field("no_such_field"), NestedField.getDescriptor()));
+    }
+
+    @Test
+    public void otherDescriptorFallsBack() {
+        final CompiledKeyExpression compiled = CompiledKeyExpression.compile(field("field"), TestScalarFieldAccess.getDescriptor());
+        assertNotNull(compiled);
+        final UnstoredRecord<Message> record = new UnstoredRecord<>(matryoshkaDolls);
+        assertEquals(field("field").evaluate(record), compiled.evaluate(record));
+    }
+}
@@ -21,6 +21,7 @@
 package com.apple.foundationdb.record.provider.foundationdb;
 
 import com.apple.foundationdb.Transaction;
+import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordMetaData;
 import com.apple.foundationdb.record.TestHelpers;
 import com.apple.foundationdb.record.TestRecords1Proto;
@@ -33,14 +34,17 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -172,6 +176,35 @@ public class FDBDatabaseTest {
         return database.getReadVersion(database.openContext(Collections.emptyMap(), null, weakReadSemantics)).join();
     }
 
+    @Test
+    public void cpuExecutorPool() {
+        FDBDatabaseFactory factory = FDBDatabaseFactory.instance();
+        FDBDatabase database = factory.getDatabase();
+        FDBExecutorPool cpuPool = new FDBExecutorPool("test-cpu", 2);
+        factory.setCpuExecutor(cpuPool);
+        try (FDBRecordContext context = database.openContext()) {
+            assertTrue(context.hasCpuExecutor());
+            String threadName = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), context.getCpuExecutor()).join();
+            assertThat(threadName, startsWith("test-cpu-"));
+            assertEquals(1L, cpuPool.getSubmittedCount());
+        } finally {
+            factory.setCpuExecutor(null);
+            cpuPool.shutdown();
+        }
+        try (FDBRecordContext context = database.openContext()) {
+            assertFalse(context.hasCpuExecutor());
+            assertEquals(context.getExecutor(), context.getCpuExecutor());
+        }
+    }
+
+    @Test
+    public void dedicatedExecutorsAfterOpen() {
+        FDBDatabaseFactory factory = FDBDatabaseFactory.instance();
+        factory.getDatabase();
+        // Replacing the executors now could reject work from contexts that are still open.
+        assertThrows(RecordCoreException.class, () -> factory.useDedicatedExecutors(2, 2));
+    }
+
     public static void testStoreAndRetrieveSimpleRecord(FDBDatabase database, RecordMetaData metaData) {
         TestRecords1Proto.MySimpleRecord simpleRecord = storeSimpleRecord(database, metaData, 1066L);
         TestRecords1Proto.MySimpleRecord retrieved = retrieveSimpleRecord(database, metaData, 1066L);
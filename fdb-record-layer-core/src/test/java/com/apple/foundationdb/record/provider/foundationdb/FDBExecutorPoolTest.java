@@ -0,0 +1,107 @@
+/*
+ * FDBExecutorPoolTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2019 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for {@link FDBExecutorPool}.
+ */
+public class FDBExecutorPoolTest {
+
+    @Test
+    public void fullQueueRunsInCaller() throws Exception {
+        final FDBExecutorPool pool = new FDBExecutorPool("test-pool", 1, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        try {
+            // Occupy the only thread and then fill the queue.
+            final CompletableFuture<Void> blocker = CompletableFuture.runAsync(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, pool);
+            started.await();
+            final CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), pool);
+            assertEquals(1, pool.getQueuedCount());
+
+            final String callerThread = Thread.currentThread().getName();
+            assertEquals(callerThread, CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), pool).get());
+            assertEquals(1L, pool.getCallerRunsCount());
+
+            release.countDown();
+            blocker.get(10, TimeUnit.SECONDS);
+            assertThat(queued.get(10, TimeUnit.SECONDS), startsWith("test-pool-"));
+            assertEquals(3L, pool.getSubmittedCount());
+            assertEquals(1, pool.getQueueCapacity());
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void unboundedQueueNeverRunsInCaller() throws Exception {
+        final FDBExecutorPool pool = new FDBExecutorPool("test-pool", 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        try {
+            final CompletableFuture<Void> blocker = CompletableFuture.runAsync(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, pool);
+            started.await();
+            final List<CompletableFuture<String>> queued = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                queued.add(CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), pool));
+            }
+            assertEquals(100, pool.getQueuedCount());
+            assertEquals(0L, pool.getCallerRunsCount());
+            assertEquals(FDBExecutorPool.UNBOUNDED_QUEUE_CAPACITY, pool.getQueueCapacity());
+
+            release.countDown();
+            blocker.get(10, TimeUnit.SECONDS);
+            for (CompletableFuture<String> future : queued) {
+                assertThat(future.get(10, TimeUnit.SECONDS), startsWith("test-pool-"));
+            }
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+}
@@ -66,6 +66,8 @@ import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
@@ -382,6 +384,136 @@ public class FDBRecordStoreScanLimitTest extends FDBRecordStoreTestBase {
         }
     }
 
+    @ParameterizedTest
+    @ValueSource(longs = {1L, 100L, 500L})
+    public void testByteScanLimit(long byteLimit) throws Exception {
+        final RecordQueryPlan plan = new RecordQueryIndexPlan("MySimpleRecord$num_value_unique",
+                IndexScanType.BY_VALUE, ScanComparisons.EMPTY, false);
+        final List<Long> recNos = new ArrayList<>();
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            byte[] continuation = null;
+            do {
+                final ExecuteProperties properties = ExecuteProperties.newBuilder().setScannedBytesLimit(byteLimit).build();
+                try (RecordCursor<FDBQueriedRecord<Message>> cursor = recordStore.executeQuery(plan, continuation, properties)) {
+                    int retrieved = 0;
+                    while (cursor.hasNext()) {
+                        recNos.add(TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(cursor.next().getRecord()).getRecNo());
+                        retrieved++;
+                    }
+                    assertThat(retrieved, greaterThan(0));
+                    assertThat(properties.getState().getByteScanLimiter().getBytesScanned(), greaterThan(0L));
+                    continuation = cursor.getContinuation();
+                    if (continuation != null) {
+                        assertEquals(RecordCursor.NoNextReason.BYTE_LIMIT_REACHED, cursor.getNoNextReason());
+                    }
+                }
+            } while (continuation != null);
+        }
+        final List<Long> expected = new ArrayList<>();
+        for (long i = 0; i < 100; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, recNos);
+    }
+
+    @Test
+    public void testByteScanLimitCountsFetchedRecords() throws Exception {
+        // Index entries are small but the records they point to are not, so only the record fetches can reach the limit.
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            recordStore.deleteAllRecords();
+            for (int i = 0; i < 50; i++) {
+                TestRecords1Proto.MySimpleRecord.Builder recBuilder = TestRecords1Proto.MySimpleRecord.newBuilder();
+                recBuilder.setRecNo(i);
+                recBuilder.setNumValueUnique(i + 1000);
+                for (int j = 0; j < 1000; j++) {
+                    recBuilder.addRepeater(j);
+                }
+                recordStore.saveRecord(recBuilder.build());
+            }
+            commit(context);
+        }
+
+        final RecordQueryPlan plan = new RecordQueryIndexPlan("MySimpleRecord$num_value_unique",
+                IndexScanType.BY_VALUE, ScanComparisons.EMPTY, false);
+        final long byteLimit = 10_000L;
+        final List<Long> recNos = new ArrayList<>();
+        int transactions = 0;
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            byte[] continuation = null;
+            do {
+                final ExecuteProperties properties = ExecuteProperties.newBuilder().setScannedBytesLimit(byteLimit).build();
+                try (RecordCursor<FDBQueriedRecord<Message>> cursor = recordStore.executeQuery(plan, continuation, properties)) {
+                    int retrieved = 0;
+                    while (cursor.hasNext()) {
+                        recNos.add(TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(cursor.next().getRecord()).getRecNo());
+                        retrieved++;
+                    }
+                    assertThat(retrieved, greaterThan(0));
+                    continuation = cursor.getContinuation();
+                    if (continuation != null) {
+                        assertEquals(RecordCursor.NoNextReason.BYTE_LIMIT_REACHED, cursor.getNoNextReason());
+                        assertThat(properties.getState().getByteScanLimiter().getBytesScanned(), greaterThanOrEqualTo(byteLimit));
+                    }
+                }
+                transactions++;
+            } while (continuation != null);
+        }
+        assertThat(transactions, greaterThan(1));
+        final List<Long> expected = new ArrayList<>();
+        for (long i = 0; i < 50; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, recNos);
+    }
+
+    public static Stream<Boolean> pinReadVersionArgs() {
+        return Stream.of(false, true);
+    }
+
+    @ParameterizedTest
+    @MethodSource("pinReadVersionArgs")
+    public void testMultiTransactionQuery(boolean pinReadVersion) throws Exception {
+        final RecordQueryPlan plan = new RecordQueryIndexPlan("MySimpleRecord$num_value_unique",
+                IndexScanType.BY_VALUE, ScanComparisons.EMPTY, false);
+        final FDBRecordStore.Builder storeBuilder;
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            storeBuilder = recordStore.asBuilder();
+        }
+
+        // Each transaction stops after scanning 7 records, but the query goes on in the next one.
+        final ExecuteProperties properties = ExecuteProperties.newBuilder()
+                .setScannedRecordsLimit(7)
+                .setReturnedRowLimit(60)
+                .build();
+        final List<Long> recNos = new ArrayList<>();
+        byte[] continuation;
+        try (FDBDatabaseRunner runner = fdb.newRunner()) {
+            try (RecordCursor<FDBQueriedRecord<Message>> cursor = runner.executeQuery(storeBuilder, plan, null, properties, pinReadVersion)) {
+                while (cursor.hasNext()) {
+                    recNos.add(TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(cursor.next().getRecord()).getRecNo());
+                }
+                assertEquals(RecordCursor.NoNextReason.RETURN_LIMIT_REACHED, cursor.getNoNextReason());
+                continuation = cursor.getContinuation();
+            }
+            assertEquals(60, recNos.size());
+            try (RecordCursor<FDBQueriedRecord<Message>> cursor = runner.executeQuery(storeBuilder, plan, continuation, properties, pinReadVersion)) {
+                while (cursor.hasNext()) {
+                    recNos.add(TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(cursor.next().getRecord()).getRecNo());
+                }
+                assertEquals(RecordCursor.NoNextReason.SOURCE_EXHAUSTED, cursor.getNoNextReason());
+            }
+        }
+        final List<Long> expected = new ArrayList<>();
+        for (long i = 0; i < 100; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, recNos);
+    }
+
     private static class BaseCursorCountVisitor implements RecordCursorVisitor {
         private int keyValueCursorCount = 0;
 
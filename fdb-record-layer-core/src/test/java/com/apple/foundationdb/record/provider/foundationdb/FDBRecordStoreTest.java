@@ -22,6 +22,7 @@ package com.apple.foundationdb.record.provider.foundationdb;
 
 import com.apple.foundationdb.FDBException;
 import com.apple.foundationdb.Range;
+import com.apple.foundationdb.async.AsyncUtil;
 import com.apple.foundationdb.record.EndpointType;
 import com.apple.foundationdb.record.ExecuteProperties;
 import com.apple.foundationdb.record.IndexEntry;
@@ -54,11 +55,16 @@ import com.apple.foundationdb.record.metadata.MetaDataException;
 import com.apple.foundationdb.record.metadata.expressions.EmptyKeyExpression;
 import com.apple.foundationdb.record.metadata.expressions.GroupingKeyExpression;
 import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.KeyExpression.FanType;
 import com.apple.foundationdb.record.provider.common.RecordSerializer;
+import com.apple.foundationdb.record.provider.foundationdb.keyspace.KeySpace;
+import com.apple.foundationdb.record.provider.foundationdb.keyspace.KeySpaceDirectory;
 import com.apple.foundationdb.record.provider.foundationdb.keyspace.KeySpacePath;
 import com.apple.foundationdb.record.query.expressions.Comparisons;
 import com.apple.foundationdb.record.query.expressions.Query;
 import com.apple.foundationdb.record.query.plan.ScanComparisons;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryIndexPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlan;
 import com.apple.foundationdb.subspace.Subspace;
 import com.apple.foundationdb.tuple.Tuple;
 import com.apple.test.Tags;
@@ -99,12 +105,14 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.startsWith;
 import static org.hamcrest.core.Is.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -2050,6 +2058,372 @@ public class FDBRecordStoreTest extends FDBRecordStoreTestBase {
         }
     }
 
+    @Test
+    public void smallerSplitRecordSize() throws Exception {
+        final String longString = Strings.repeat("z", 55_000);
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context, TEST_SPLIT_HOOK);
+            recordStore = recordStore.asBuilder().setSplitRecordSize(10_000).setSplitRecordLoadParallelism(2).create();
+            assertEquals(10_000, recordStore.getSplitRecordSize());
+            FDBStoredRecord<Message> savedRecord = recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .setRecNo(1066L)
+                    .setStrValueIndexed(longString)
+                    .build());
+            assertTrue(savedRecord.isSplit());
+            assertEquals(6, savedRecord.getKeyCount());
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            // The chunk size is taken from the store header rather than the builder.
+            uncheckedOpenSimpleRecordStore(context, TEST_SPLIT_HOOK);
+            recordStore = recordStore.asBuilder().setSplitRecordLoadParallelism(2).open();
+            assertEquals(10_000, recordStore.getSplitRecordSize());
+            FDBStoredRecord<Message> loadedRecord = recordStore.loadRecord(Tuple.from(1066L));
+            assertNotNull(loadedRecord);
+            assertEquals(6, loadedRecord.getKeyCount());
+            TestRecords1Proto.MySimpleRecord.Builder simpleRecord = TestRecords1Proto.MySimpleRecord.newBuilder();
+            simpleRecord.mergeFrom(loadedRecord.getRecord());
+            assertEquals(longString, simpleRecord.getStrValueIndexed());
+            commit(context);
+        }
+    }
+
+    @Test
+    public void diffSplitChunksAfterPreload() throws Exception {
+        final String longString = Strings.repeat("x", 25_000);
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context, TEST_SPLIT_HOOK);
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(1066L).setStrValueIndexed(longString).build());
+            commit(context);
+        }
+        final String changedString = "y" + longString.substring(1);
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context, TEST_SPLIT_HOOK);
+            recordStore = recordStore.asBuilder().setDiffSplitRecordChunks(true).open();
+            recordStore.preloadRecordAsync(Tuple.from(1066L)).get();
+            // The preloaded bytes are not diffed against, so the first save rewrites every chunk.
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(1066L).setStrValueIndexed(changedString).build());
+            assertEquals(0, timer.getCount(FDBStoreTimer.Counts.SPLIT_RECORD_CHUNKS_UNCHANGED));
+            // The second save diffs against the first, not against the stale preloaded bytes.
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(1066L).setStrValueIndexed(longString).build());
+            assertThat(timer.getCount(FDBStoreTimer.Counts.SPLIT_RECORD_CHUNKS_UNCHANGED), greaterThan(0));
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context, TEST_SPLIT_HOOK);
+            FDBStoredRecord<Message> loadedRecord = recordStore.loadRecord(Tuple.from(1066L));
+            assertNotNull(loadedRecord);
+            TestRecords1Proto.MySimpleRecord.Builder simpleRecord = TestRecords1Proto.MySimpleRecord.newBuilder();
+            simpleRecord.mergeFrom(loadedRecord.getRecord());
+            assertEquals(longString, simpleRecord.getStrValueIndexed());
+        }
+        try (FDBRecordContext context = openContext()) {
+            // Without checking the header, the chunk size might not be the one the record was written with.
+            uncheckedOpenSimpleRecordStore(context, TEST_SPLIT_HOOK);
+            recordStore = recordStore.asBuilder().setDiffSplitRecordChunks(true).uncheckedOpen();
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(1066L).setStrValueIndexed(changedString).build());
+            assertEquals(0, timer.getCount(FDBStoreTimer.Counts.SPLIT_RECORD_CHUNKS_UNCHANGED));
+        }
+    }
+
+    @Test
+    public void recordCache() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context);
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(1L).setNumValue2(1).build());
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(2L).setNumValue2(2).build());
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context);
+            recordStore = recordStore.asBuilder().setRecordCacheMaxBytes(1_000_000).uncheckedOpen();
+            assertEquals(1_000_000, recordStore.getRecordCacheMaxBytes());
+            final FDBStoredRecord<Message> loaded = recordStore.loadRecord(Tuple.from(1L));
+            assertSame(loaded, recordStore.loadRecord(Tuple.from(1L)));
+
+            // Scanned records are cached, as are saved ones, including the existing record that a save reads.
+            assertEquals(2, recordStore.scanRecords(null, ScanProperties.FORWARD_SCAN).getCount().get().intValue());
+            assertNotNull(recordStore.loadRecord(Tuple.from(2L)));
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(1L).setNumValue2(5).build());
+            TestRecords1Proto.MySimpleRecord.Builder simpleRecord = TestRecords1Proto.MySimpleRecord.newBuilder();
+            simpleRecord.mergeFrom(recordStore.loadRecord(Tuple.from(1L)).getRecord());
+            assertEquals(5, simpleRecord.getNumValue2());
+
+            // Deleting a record removes it.
+            assertTrue(recordStore.deleteRecord(Tuple.from(2L)));
+            assertNull(recordStore.loadRecord(Tuple.from(2L)));
+            assertEquals(4, timer.getCount(FDBStoreTimer.Counts.RECORD_CACHE_HIT_COUNT));
+            assertEquals(3, timer.getCount(FDBStoreTimer.Counts.RECORD_CACHE_MISS_COUNT));
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context);
+            recordStore = recordStore.asBuilder().setRecordCacheMaxBytes(1_000_000).uncheckedOpen();
+            // A record read at snapshot isolation is not used for a serializable read.
+            assertNotNull(recordStore.loadRecord(Tuple.from(1L), true));
+            assertNotNull(recordStore.loadRecord(Tuple.from(1L), true));
+            assertNotNull(recordStore.loadRecord(Tuple.from(1L)));
+            assertNotNull(recordStore.loadRecord(Tuple.from(1L), true));
+            assertEquals(2, timer.getCount(FDBStoreTimer.Counts.RECORD_CACHE_HIT_COUNT));
+            assertEquals(2, timer.getCount(FDBStoreTimer.Counts.RECORD_CACHE_MISS_COUNT));
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context);
+            // A record bigger than the whole cache is not kept.
+            recordStore = recordStore.asBuilder().setRecordCacheMaxBytes(1).uncheckedOpen();
+            assertNotNull(recordStore.loadRecord(Tuple.from(1L)));
+            assertNotNull(recordStore.loadRecord(Tuple.from(1L)));
+            assertEquals(0, timer.getCount(FDBStoreTimer.Counts.RECORD_CACHE_HIT_COUNT));
+            commit(context);
+        }
+    }
+
+    @Test
+    public void createOrOpenAll() throws Exception {
+        final List<Subspace> subspaces = new ArrayList<>();
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context);
+            for (int i = 0; i < 5; i++) {
+                subspaces.add(recordStore.getSubspace().subspace(Tuple.from("bulk", i)));
+            }
+            List<FDBRecordStore> stores = recordStore.asBuilder()
+                    .createOrOpenAllInSubspacesAsync(subspaces, FDBRecordStoreBase.StoreExistenceCheck.ERROR_IF_EXISTS).join();
+            assertEquals(subspaces.size(), stores.size());
+            for (int i = 0; i < stores.size(); i++) {
+                assertEquals(subspaces.get(i), stores.get(i).getSubspace());
+                stores.get(i).saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(i).build());
+            }
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context);
+            List<FDBRecordStore> stores = recordStore.asBuilder()
+                    .createOrOpenAllInSubspacesAsync(subspaces, FDBRecordStoreBase.StoreExistenceCheck.ERROR_IF_NOT_EXISTS).join();
+            for (int i = 0; i < stores.size(); i++) {
+                assertTrue(stores.get(i).getRecordStoreState().allIndexesReadable());
+                assertNotNull(stores.get(i).loadRecord(Tuple.from(i)));
+                assertNull(stores.get(i).loadRecord(Tuple.from(i + 1)));
+            }
+            List<Subspace> withMissing = new ArrayList<>(subspaces);
+            withMissing.add(recordStore.getSubspace().subspace(Tuple.from("bulk", subspaces.size())));
+            CompletionException e = assertThrows(CompletionException.class, () -> recordStore.asBuilder()
+                    .createOrOpenAllInSubspacesAsync(withMissing, FDBRecordStoreBase.StoreExistenceCheck.ERROR_IF_NOT_EXISTS).join());
+            assertThat(e.getCause(), instanceOf(RecordStoreDoesNotExistException.class));
+        }
+    }
+
+    @Test
+    public void createOrOpenAllByKeySpacePath() throws Exception {
+        final KeySpace keySpace = new KeySpace(
+                new KeySpaceDirectory("bulk", KeySpaceDirectory.KeyType.STRING, "createOrOpenAllByKeySpacePath")
+                        .addSubdirectory(new KeySpaceDirectory("store", KeySpaceDirectory.KeyType.LONG)));
+        final List<KeySpacePath> paths = new ArrayList<>();
+        for (long i = 0; i < 5; i++) {
+            paths.add(keySpace.path("bulk").add("store", i));
+        }
+        try (FDBRecordContext context = openContext()) {
+            keySpace.path("bulk").deleteAllData(context);
+            uncheckedOpenSimpleRecordStore(context);
+            List<FDBRecordStore> stores = recordStore.asBuilder()
+                    .createOrOpenAllAsync(paths, FDBRecordStoreBase.StoreExistenceCheck.ERROR_IF_EXISTS).join();
+            assertEquals(paths.size(), stores.size());
+            for (int i = 0; i < stores.size(); i++) {
+                assertEquals(paths.get(i).toSubspace(context), stores.get(i).getSubspace());
+                stores.get(i).saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(i).build());
+            }
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context);
+            List<FDBRecordStore> stores = recordStore.asBuilder()
+                    .createOrOpenAllAsync(paths, FDBRecordStoreBase.StoreExistenceCheck.ERROR_IF_NOT_EXISTS).join();
+            for (int i = 0; i < stores.size(); i++) {
+                assertTrue(stores.get(i).getRecordStoreState().allIndexesReadable());
+                // Each sibling store only has its own record.
+                for (int j = 0; j < stores.size(); j++) {
+                    if (i == j) {
+                        assertNotNull(stores.get(i).loadRecord(Tuple.from(j)));
+                    } else {
+                        assertNull(stores.get(i).loadRecord(Tuple.from(j)));
+                    }
+                }
+            }
+            List<KeySpacePath> withMissing = new ArrayList<>(paths);
+            withMissing.add(keySpace.path("bulk").add("store", (long)paths.size()));
+            CompletionException e = assertThrows(CompletionException.class, () -> recordStore.asBuilder()
+                    .createOrOpenAllAsync(withMissing, FDBRecordStoreBase.StoreExistenceCheck.ERROR_IF_NOT_EXISTS).join());
+            assertThat(e.getCause(), instanceOf(RecordStoreDoesNotExistException.class));
+        }
+    }
+
+    @Test
+    public void scanRecordsInShards() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context);
+            for (long recNo = 0; recNo < 50; recNo++) {
+                recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(recNo).build());
+            }
+            commit(context);
+        }
+        final Set<Tuple> allPrimaryKeys = new HashSet<>();
+        for (long recNo = 0; recNo < 50; recNo++) {
+            allPrimaryKeys.add(Tuple.from(recNo));
+        }
+        final FDBRecordStore.Builder storeBuilder;
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context);
+            storeBuilder = recordStore.asBuilder();
+
+            final Set<Tuple> fromComputedShards = new HashSet<>();
+            for (TupleRange shard : recordStore.computeRecordShards(4).get()) {
+                for (FDBStoredRecord<Message> rec : recordStore.scanRecords(shard, null, ScanProperties.FORWARD_SCAN).asList().get()) {
+                    assertTrue(fromComputedShards.add(rec.getPrimaryKey()));
+                }
+            }
+            assertEquals(allPrimaryKeys, fromComputedShards);
+
+            final List<TupleRange> shards = Arrays.asList(
+                    new TupleRange(null, Tuple.from(20L), EndpointType.TREE_START, EndpointType.RANGE_EXCLUSIVE),
+                    new TupleRange(Tuple.from(20L), Tuple.from(40L), EndpointType.RANGE_INCLUSIVE, EndpointType.RANGE_EXCLUSIVE),
+                    new TupleRange(Tuple.from(40L), null, EndpointType.RANGE_INCLUSIVE, EndpointType.TREE_END));
+            final ScanProperties scanProperties = new ScanProperties(ExecuteProperties.newBuilder().setReturnedRowLimit(15).build());
+            final Set<Tuple> fromUnorderedScan = new HashSet<>();
+            byte[] continuation = null;
+            do {
+                RecordCursor<FDBStoredRecord<Message>> cursor = recordStore.scanRecordsUnordered(shards, continuation, scanProperties);
+                int count = 0;
+                while (cursor.hasNext()) {
+                    assertTrue(fromUnorderedScan.add(cursor.next().getPrimaryKey()));
+                    count++;
+                }
+                assertThat(count, lessThanOrEqualTo(15));
+                continuation = cursor.getContinuation();
+            } while (continuation != null);
+            assertEquals(allPrimaryKeys, fromUnorderedScan);
+        }
+
+        try (FDBDatabaseRunner runner = fdb.newRunner()) {
+            final ParallelRecordScanner scanner = new ParallelRecordScanner(runner, storeBuilder)
+                    .setParallelism(2)
+                    .setRecordsPerTransaction(7);
+            final List<ParallelRecordScanner.Shard> shards = Arrays.asList(
+                    new ParallelRecordScanner.Shard(new TupleRange(null, Tuple.from(25L), EndpointType.TREE_START, EndpointType.RANGE_EXCLUSIVE), null),
+                    new ParallelRecordScanner.Shard(new TupleRange(Tuple.from(25L), null, EndpointType.RANGE_INCLUSIVE, EndpointType.TREE_END), null));
+            final Set<Tuple> fromScanner = Collections.synchronizedSet(new HashSet<>());
+            scanner.scanAsync(shards, (shard, records) -> {
+                assertThat(records.size(), lessThanOrEqualTo(7));
+                for (FDBStoredRecord<Message> rec : records) {
+                    assertTrue(fromScanner.add(rec.getPrimaryKey()));
+                }
+                return AsyncUtil.DONE;
+            }).get();
+            assertEquals(allPrimaryKeys, fromScanner);
+            assertTrue(shards.stream().allMatch(ParallelRecordScanner.Shard::isDone));
+            assertFalse(scanner.computeShardsAsync().get().isEmpty());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void bulkDeleteRecords() throws Exception {
+        final RecordMetaDataHook hook = md -> md.setRecordCountKey(field("num_value_3_indexed"));
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context, hook);
+            for (long recNo = 0; recNo < 50; recNo++) {
+                recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                        .setRecNo(recNo)
+                        .setNumValue2((int)(recNo % 2))
+                        .setNumValue3Indexed((int)(recNo % 5))
+                        .build());
+            }
+            commit(context);
+        }
+        final FDBRecordStore.Builder storeBuilder;
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context, hook);
+            storeBuilder = recordStore.asBuilder();
+            assertEquals(2, recordStore.deleteRecords(Arrays.asList(Tuple.from(0L), Tuple.from(5L), Tuple.from(1000L))));
+            assertEquals(8L, recordStore.getSnapshotRecordCount(field("num_value_3_indexed"), Key.Evaluated.scalar(0)).join().longValue());
+            commit(context);
+        }
+
+        try (FDBDatabaseRunner runner = fdb.newRunner()) {
+            final BulkRecordDeleter deleter = new BulkRecordDeleter(runner, storeBuilder)
+                    .setParallelism(2)
+                    .setRecordsPerTransaction(3);
+            final RecordQueryPlan plan = new RecordQueryIndexPlan("MySimpleRecord$num_value_3_indexed", IndexScanType.BY_VALUE,
+                    new ScanComparisons(Arrays.asList(new Comparisons.SimpleComparison(Comparisons.Type.EQUALS, 1)), Collections.emptyList()),
+                    false);
+            final ParallelRecordScanner.Shard position = new ParallelRecordScanner.Shard(TupleRange.ALL, null);
+            assertEquals(10L, deleter.deleteAsync(plan, position).get().longValue());
+            assertTrue(position.isDone());
+
+            final List<ParallelRecordScanner.Shard> shards = Arrays.asList(
+                    new ParallelRecordScanner.Shard(new TupleRange(null, Tuple.from(25L), EndpointType.TREE_START, EndpointType.RANGE_EXCLUSIVE), null),
+                    new ParallelRecordScanner.Shard(new TupleRange(Tuple.from(25L), null, EndpointType.RANGE_INCLUSIVE, EndpointType.TREE_END), null));
+            // The odd records other than 5 and the ones already deleted by the query.
+            assertEquals(19L, deleter.deleteWhereAsync(Query.field("num_value_2").equalsValue(1), shards).get().longValue());
+            assertTrue(shards.stream().allMatch(ParallelRecordScanner.Shard::isDone));
+        }
+
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context, hook);
+            final List<Long> expected = new ArrayList<>();
+            for (long recNo = 0; recNo < 50; recNo++) {
+                if (recNo % 2 == 0 && recNo != 0 && recNo % 5 != 1) {
+                    expected.add(recNo);
+                }
+            }
+            assertEquals(expected, recordStore.scanRecords(null, ScanProperties.FORWARD_SCAN)
+                    .map(rec -> rec.getPrimaryKey().getLong(0)).asList().get());
+            assertEquals(expected.size(), recordStore.scanIndexRecords("MySimpleRecord$num_value_3_indexed").getCount().get().intValue());
+            assertEquals(0L, recordStore.getSnapshotRecordCount(field("num_value_3_indexed"), Key.Evaluated.scalar(1)).join().longValue());
+            assertEquals(5L, recordStore.getSnapshotRecordCount(field("num_value_3_indexed"), Key.Evaluated.scalar(2)).join().longValue());
+            assertEquals((long)expected.size(), recordStore.getSnapshotRecordCount().join().longValue());
+        }
+    }
+
+    @Test
+    public void bulkDeleteDuplicateRecords() throws Exception {
+        final RecordMetaDataHook hook = md -> md.addIndex("MySimpleRecord", new Index("MySimpleRecord$repeater", field("repeater", FanType.FanOut)));
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context, hook);
+            for (long recNo = 0; recNo < 10; recNo++) {
+                recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                        .setRecNo(recNo)
+                        .addAllRepeater(Arrays.asList(1, 2, 3))
+                        .build());
+            }
+            commit(context);
+        }
+        final FDBRecordStore.Builder storeBuilder;
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context, hook);
+            storeBuilder = recordStore.asBuilder();
+            assertEquals(2, recordStore.deleteRecords(Arrays.asList(Tuple.from(0L), Tuple.from(1L), Tuple.from(0L))));
+            assertEquals(8L, recordStore.getSnapshotRecordCount().join().longValue());
+            commit(context);
+        }
+
+        try (FDBDatabaseRunner runner = fdb.newRunner()) {
+            final BulkRecordDeleter deleter = new BulkRecordDeleter(runner, storeBuilder)
+                    .setRecordsPerTransaction(5);
+            // Each record is returned once for each of its repeated values.
+            final RecordQueryPlan plan = new RecordQueryIndexPlan("MySimpleRecord$repeater", IndexScanType.BY_VALUE, ScanComparisons.EMPTY, false);
+            final ParallelRecordScanner.Shard position = new ParallelRecordScanner.Shard(TupleRange.ALL, null);
+            assertEquals(8L, deleter.deleteAsync(plan, position).get().longValue());
+            assertTrue(position.isDone());
+        }
+
+        try (FDBRecordContext context = openContext()) {
+            uncheckedOpenSimpleRecordStore(context, hook);
+            assertEquals(0L, recordStore.getSnapshotRecordCount().join().longValue());
+            assertEquals(0, recordStore.scanIndexRecords("MySimpleRecord$repeater").getCount().get().intValue());
+            assertEquals(0, recordStore.scanRecords(null, ScanProperties.FORWARD_SCAN).getCount().get().intValue());
+        }
+    }
+
     @Test
     public void testFormatVersionUpgrade() throws Exception {
         try (FDBRecordContext context = openContext()) {
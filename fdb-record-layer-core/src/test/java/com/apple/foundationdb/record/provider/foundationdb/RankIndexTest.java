@@ -45,11 +45,16 @@ import com.apple.foundationdb.record.metadata.Key;
 import com.apple.foundationdb.record.metadata.expressions.EmptyKeyExpression;
 import com.apple.foundationdb.record.metadata.expressions.GroupingKeyExpression;
 import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
+import com.apple.foundationdb.record.provider.foundationdb.indexes.RankedSetIndexHelper;
 import com.apple.foundationdb.record.query.RecordQuery;
 import com.apple.foundationdb.record.query.expressions.Query;
 import com.apple.foundationdb.record.query.expressions.QueryRecordFunction;
 import com.apple.foundationdb.record.query.plan.QueryPlanner;
+import com.apple.foundationdb.record.query.plan.ScanComparisons;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryFilterPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryScanPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryTypeFilterPlan;
 import com.apple.foundationdb.tuple.Tuple;
 import com.apple.test.Tags;
 import com.google.common.collect.HashMultiset;
@@ -63,6 +68,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
@@ -247,6 +253,72 @@ public class RankIndexTest extends FDBRecordStoreTestBase {
         }
     }
 
+    @Test
+    public void checkRanksBatched() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openRecordStore(context);
+            List<FDBRecord<Message>> records = new ArrayList<>();
+            for (Object[] rec : RECORDS) {
+                records.add(recordStore.loadRecord(Tuple.from(rec[0])));
+            }
+            records.add(records.get(1));
+            for (QueryRecordFunction<Long> function : Arrays.asList(Query.rank("score"),
+                    Query.rank(Key.Expressions.field("score").groupBy(Key.Expressions.field("gender"))))) {
+                RecordFunction<Long> rank = function.getFunction();
+                List<Long> expected = new ArrayList<>();
+                for (FDBRecord<Message> rec : records) {
+                    expected.add(recordStore.evaluateRecordFunction(rank, rec).get());
+                }
+                assertEquals(expected, recordStore.evaluateRecordFunctions(EvaluationContext.EMPTY, rank, records).get());
+            }
+        }
+
+        // A rank predicate that is not satisfied by an index scan is evaluated on batches of records.
+        RecordQueryPlan plan = new RecordQueryFilterPlan(
+                new RecordQueryTypeFilterPlan(new RecordQueryScanPlan(ScanComparisons.EMPTY, false), Collections.singletonList("BasicRankedRecord")),
+                Query.rank("score").lessThan(2L));
+        try (FDBRecordContext context = openContext()) {
+            openRecordStore(context);
+            List<String> names = recordStore.executeQuery(plan)
+                    .map(rec -> TestRecordsRankProto.BasicRankedRecord.newBuilder().mergeFrom(rec.getRecord()).getName())
+                    .asList().get();
+            assertEquals(Arrays.asList("achilles", "hector"), names);
+        }
+    }
+
+    @Test
+    public void rebuildAddsScoresTogether() throws Exception {
+        final List<QueryRecordFunction<Long>> functions = Arrays.asList(Query.rank("score"),
+                Query.rank(Key.Expressions.field("score").groupBy(Key.Expressions.field("gender"))));
+        final List<Long> expected = new ArrayList<>();
+        try (FDBRecordContext context = openContext()) {
+            openRecordStore(context);
+            for (QueryRecordFunction<Long> function : functions) {
+                for (Object[] rec : RECORDS) {
+                    expected.add(recordStore.evaluateRecordFunction(function.getFunction(), recordStore.loadRecord(Tuple.from(rec[0]))).get());
+                }
+            }
+        }
+        try (FDBRecordContext context = openContext()) {
+            openRecordStore(context);
+            // All of the records are added to each group's ranked set at once.
+            timer.reset();
+            recordStore.rebuildIndex(recordStore.getRecordMetaData().getIndex("BasicRankedRecord$score")).get();
+            assertEquals(1, timer.getCount(RankedSetIndexHelper.Events.RANKED_SET_UPDATE));
+            timer.reset();
+            recordStore.rebuildIndex(recordStore.getRecordMetaData().getIndex("rank_by_gender")).get();
+            assertEquals(2, timer.getCount(RankedSetIndexHelper.Events.RANKED_SET_UPDATE));
+            final List<Long> ranks = new ArrayList<>();
+            for (QueryRecordFunction<Long> function : functions) {
+                for (Object[] rec : RECORDS) {
+                    ranks.add(recordStore.evaluateRecordFunction(function.getFunction(), recordStore.loadRecord(Tuple.from(rec[0]))).get());
+                }
+            }
+            assertEquals(expected, ranks);
+            commit(context);
+        }
+    }
+
     @Test
     public void checkUpdateWithTies() throws Exception {
         try (FDBRecordContext context = openContext()) {
@@ -39,6 +39,7 @@ import com.google.common.collect.Lists;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.EnumSource;
@@ -304,6 +305,65 @@ public class SplitHelperTest extends FDBRecordStoreTestBase {
         }
     }
 
+    @Test
+    public void saveOnlyChangedChunks() throws Exception {
+        final Tuple key = Tuple.from(1863L);
+        final byte[] changed = Arrays.copyOf(VERY_LONG_STRING, VERY_LONG_STRING.length);
+        changed[changed.length - 1] ^= 1;
+        final byte[] shorter = Arrays.copyOf(changed, SplitHelper.SPLIT_RECORD_SIZE + 1);
+        final int chunks = (VERY_LONG_STRING.length - 1) / SplitHelper.SPLIT_RECORD_SIZE + 1;
+        try (FDBRecordContext context = openContext()) {
+            final FDBStoredSizes sizes1 = saveWithSplit(context, key, VERY_LONG_STRING, true, false);
+
+            final SplitHelper.SizeInfo sizes2 = new SplitHelper.SizeInfo();
+            SplitHelper.saveWithSplit(context, subspace, key, changed, null, true, SplitHelper.SPLIT_RECORD_SIZE, false, true, sizes1, VERY_LONG_STRING, sizes2);
+            assertEquals(sizes1.getKeyCount(), sizes2.getKeyCount());
+            assertEquals(sizes1.getValueSize(), sizes2.getValueSize());
+            assertEquals(chunks - 1, timer.getCount(FDBStoreTimer.Counts.SPLIT_RECORD_CHUNKS_UNCHANGED));
+            assertArrayEquals(changed, SplitHelper.loadWithSplit(context.ensureActive(), context, subspace, key, true, false, null).get().getRawRecord());
+
+            // Tail chunks beyond the end of a shorter record are removed
+            final SplitHelper.SizeInfo sizes3 = new SplitHelper.SizeInfo();
+            SplitHelper.saveWithSplit(context, subspace, key, shorter, null, true, SplitHelper.SPLIT_RECORD_SIZE, false, true, sizes2, changed, sizes3);
+            assertEquals(2, sizes3.getKeyCount());
+            assertEquals(chunks, timer.getCount(FDBStoreTimer.Counts.SPLIT_RECORD_CHUNKS_UNCHANGED));
+            final FDBRawRecord rawRecord = SplitHelper.loadWithSplit(context.ensureActive(), context, subspace, key, true, false, null).get();
+            assertNotNull(rawRecord);
+            assertArrayEquals(shorter, rawRecord.getRawRecord());
+            assertEquals(2, rawRecord.getKeyCount());
+
+            commit(context);
+        }
+    }
+
+    @Test
+    public void loadInParallelWaves() throws Exception {
+        final int splitRecordSize = 1_000;
+        final int parallelism = 2;
+        final int chunksPerWave = parallelism * SplitHelper.PARALLEL_LOAD_CHUNKS_PER_RANGE;
+        // Records that end just before, at and just after the end of a wave, and one that needs many waves.
+        final int[] chunkCounts = {chunksPerWave - 1, chunksPerWave, chunksPerWave + 1, 2 * chunksPerWave, 5 * chunksPerWave + 3};
+        try (FDBRecordContext context = openContext()) {
+            for (int chunks : chunkCounts) {
+                final Tuple key = Tuple.from(chunks);
+                final byte[] serialized = Arrays.copyOf(VERY_LONG_STRING, chunks * splitRecordSize);
+                SplitHelper.saveWithSplit(context, subspace, key, serialized, null, true, splitRecordSize, false, false, null, null, null);
+            }
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            for (int chunks : chunkCounts) {
+                final SplitHelper.SizeInfo sizeInfo = new SplitHelper.SizeInfo();
+                final FDBRawRecord rawRecord = SplitHelper.loadWithSplitInParallel(context.ensureActive(), context, subspace, Tuple.from(chunks),
+                        parallelism, SplitHelper.PARALLEL_LOAD_CHUNKS_PER_RANGE, sizeInfo).get();
+                assertNotNull(rawRecord);
+                assertArrayEquals(Arrays.copyOf(VERY_LONG_STRING, chunks * splitRecordSize), rawRecord.getRawRecord());
+                assertEquals(chunks, sizeInfo.getKeyCount());
+            }
+            assertEquals(chunkCounts.length, timer.getCount(FDBStoreTimer.DetailEvents.GET_RECORD_RANGE_RAW_PARALLEL));
+        }
+    }
+
     @MethodSource("splitAndSuffixArgs")
     @ParameterizedTest(name = "saveWithSplitAndIncompleteVersions [splitLongRecords = {0}, omitUnsplitSuffix = {1}]")
     public void saveWithSplitAndIncompleteVersions(boolean splitLongRecords, boolean omitUnsplitSuffix) throws Exception {
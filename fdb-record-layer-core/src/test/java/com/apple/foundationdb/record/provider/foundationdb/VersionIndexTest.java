@@ -72,7 +72,9 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -96,6 +98,7 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 /**
@@ -1252,6 +1255,46 @@ public class VersionIndexTest {
         }
     }
 
+    @Test
+    public void changeFeed() throws Exception {
+        final RecordMetaDataHook hook = metaDataBuilder -> metaDataBuilder.addUniversalIndex(
+                new Index("globalVersion", VersionKeyExpression.VERSION, IndexTypes.VERSION,
+                        Collections.singletonMap(IndexOptions.VERSION_NOTIFY_CHANGES, "true")));
+        for (long recNo = 1L; recNo <= 3L; recNo++) {
+            try (FDBRecordContext context = openContext(hook)) {
+                recordStore.saveRecord(MySimpleRecord.newBuilder().setRecNo(recNo).build());
+                context.commit();
+            }
+        }
+        final FDBRecordStore.Builder storeBuilder = FDBRecordStore.newBuilder()
+                .setMetaDataProvider(metaData)
+                .setSubspace(subspace)
+                .setFormatVersion(formatVersion);
+        try (FDBDatabaseRunner runner = fdb.newRunner()) {
+            final ChangeFeed feed = new ChangeFeed(runner, storeBuilder, "globalVersion").setBatchSize(2);
+            ChangeFeed.Batch batch = feed.readBatchAsync(null).get();
+            assertEquals(Arrays.asList(Tuple.from(1L), Tuple.from(2L)), changeFeedPrimaryKeys(batch));
+            batch = feed.readBatchAsync(batch.getContinuation()).get();
+            assertEquals(Collections.singletonList(Tuple.from(3L)), changeFeedPrimaryKeys(batch));
+            final byte[] continuation = batch.getContinuation();
+            assertTrue(feed.readBatchAsync(continuation).get().isEmpty());
+            assertArrayEquals(continuation, feed.readBatchAsync(continuation).get().getContinuation());
+
+            // Waits on the watch for the next record rather than timing out.
+            final CompletableFuture<ChangeFeed.Batch> next = feed.setWatchTimeoutMillis(60_000L).nextBatchAsync(continuation);
+            try (FDBRecordContext context = openContext(hook)) {
+                recordStore.saveRecord(MySimpleRecord.newBuilder().setRecNo(4L).build());
+                context.commit();
+            }
+            batch = next.get(30, TimeUnit.SECONDS);
+            assertEquals(Collections.singletonList(Tuple.from(4L)), changeFeedPrimaryKeys(batch));
+        }
+    }
+
+    private static List<Tuple> changeFeedPrimaryKeys(@Nonnull ChangeFeed.Batch batch) {
+        return batch.getRecords().stream().map(FDBIndexedRecord::getPrimaryKey).collect(Collectors.toList());
+    }
+
     @Test
     public void invalidIndexes() {
         List<KeyExpression> expressions = Arrays.asList(
@@ -50,16 +50,22 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 
 import static com.apple.foundationdb.record.TestHelpers.assertDiscardedAtMost;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
@@ -194,6 +200,39 @@ public class UnionIntersectionTest extends FDBRecordStoreTestBase {
         System.out.println(timer.getKeysAndValues());
     }
 
+    @Test
+    public void intersectionWithSeeks() {
+        final List<Integer> sparseList = IntStream.range(0, 20).map(i -> i * 500).boxed().collect(Collectors.toList());
+        final List<Integer> denseList = IntStream.range(0, 10000).boxed().collect(Collectors.toList());
+        final AtomicInteger denseRead = new AtomicInteger();
+        final Function<byte[], RecordCursor<Integer>> sparse = continuation -> RecordCursor.fromList(sparseList, continuation).limitRowsTo(3);
+        final Function<byte[], RecordCursor<Integer>> dense = continuation -> RecordCursor.fromList(denseList, continuation).map(i -> {
+            denseRead.incrementAndGet();
+            return i;
+        });
+        final Function<List<Object>, byte[]> denseSeek = target -> {
+            int position = Collections.binarySearch(denseList, (Integer)target.get(0));
+            return ByteBuffer.allocate(Integer.BYTES).putInt(position < 0 ? -(position + 1) : position).array();
+        };
+
+        FDBStoreTimer timer = new FDBStoreTimer();
+        boolean done = false;
+        byte[] continuation = null;
+        List<Integer> results = new ArrayList<>();
+        while (!done) {
+            IntersectionCursor<Integer> intersectionCursor = IntersectionCursor.create(Collections::singletonList, false,
+                    Arrays.asList(sparse, dense), Arrays.asList(null, denseSeek), continuation, timer);
+            while (intersectionCursor.hasNext()) {
+                results.add(intersectionCursor.next());
+            }
+            done = intersectionCursor.getNoNextReason().isSourceExhausted();
+            continuation = intersectionCursor.getContinuation();
+        }
+        assertEquals(sparseList, results);
+        assertThat(timer.getCount(FDBStoreTimer.Counts.QUERY_INTERSECTION_PLAN_SEEKS), greaterThan(0));
+        assertThat(denseRead.get(), lessThan(denseList.size() / 10));
+    }
+
     @Test
     public void intersectionMultiReasons() throws Exception {
         final Function<byte[], RecordCursor<FDBStoredRecord<Message>>> first = continuation -> scanRecordsBetween(10L, 20L, continuation);
@@ -20,6 +20,7 @@
 
 package com.apple.foundationdb.record.provider.foundationdb.cursors;
 
+import com.apple.foundationdb.record.ContinuationEncoder;
 import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.RecordCursorTest;
 import com.apple.foundationdb.record.cursors.FirableCursor;
@@ -42,6 +43,7 @@ import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
@@ -210,4 +212,26 @@ public class UnorderedUnionCursorTest {
         assertEquals(elems.stream().mapToInt(List::size).sum(), results.size());
         assertEquals(elems.stream().flatMap(List::stream).collect(Collectors.toSet()), new HashSet<>(results));
     }
+
+    @Test
+    public void encodedContinuation() {
+        final List<List<Integer>> elems = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            elems.add(Arrays.asList(i, i + 100, i + 200));
+        }
+        final RecordCursor<Integer> plain = UnorderedUnionCursor.create(functionsFromLists(elems), null, null).limitRowsTo(50);
+        assertEquals(50, plain.asList().join().size());
+        final byte[] plainContinuation = plain.getContinuation();
+        final RecordCursor<Integer> encoded = UnorderedUnionCursor.create(functionsFromLists(elems), null, null, ContinuationEncoder.COMPRESSED).limitRowsTo(50);
+        assertEquals(50, encoded.asList().join().size());
+        final byte[] encodedContinuation = encoded.getContinuation();
+        assertThat(encodedContinuation.length, lessThan(plainContinuation.length / 2));
+
+        // Either continuation resumes either cursor.
+        for (byte[] continuation : Arrays.asList(plainContinuation, encodedContinuation)) {
+            final List<Integer> rest = UnorderedUnionCursor.create(functionsFromLists(elems), continuation, null, ContinuationEncoder.COMPRESSED).asList().join();
+            assertEquals(elems.stream().mapToInt(List::size).sum() - 50, rest.size());
+            assertEquals(rest, UnorderedUnionCursor.create(functionsFromLists(elems), continuation, null).asList().join());
+        }
+    }
 }
@@ -41,13 +41,16 @@ import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Tests for {@link TextIndexBunchedSerializer}.
  */
 public class TextIndexBunchedSerializerTest {
     private TextIndexBunchedSerializer serializer = TextIndexBunchedSerializer.instance();
+    private TextIndexBunchedSerializer compressedSerializer = TextIndexBunchedSerializer.prefixCompressedInstance();
 
     @Test
     public void serializeEntry() {
@@ -152,13 +155,74 @@ public class TextIndexBunchedSerializerTest {
         assertThrows(BunchedSerializationException.class, () -> serializer.serializeEntries(Collections.emptyList()));
     }
 
+    @Test
+    public void prefixCompressedExample() {
+        // The two keys share the tuple type code and the first byte of the integer
+        final List<Map.Entry<Tuple, List<Integer>>> entries = Arrays.asList(
+                entryOf(Tuple.from(1066L), Arrays.asList(1, 3, 5, 8)),
+                entryOf(Tuple.from(1067L), Arrays.asList(0, 600, 605))
+        );
+        final byte[] expectedBytes = new byte[]{0x21, 0x04, 0x01, 0x02, 0x02, 0x03, 0x02, 0x01, 0x2B, 0x04, 0x00, (byte)0x84, 0x58, 0x05};
+        assertArrayEquals(expectedBytes, compressedSerializer.serializeEntries(entries));
+        assertEquals(entries, compressedSerializer.deserializeEntries(Tuple.from(1066L), expectedBytes));
+        assertEquals(entries, serializer.deserializeEntries(Tuple.from(1066L), expectedBytes));
+        assertFalse(compressedSerializer.canAppend());
+    }
+
+    @Test
+    public void prefixCompressedEntryList() {
+        final List<Map.Entry<Tuple, List<Integer>>> entries = Arrays.asList(
+                entryOf(Tuple.from(), Collections.emptyList()),
+                entryOf(Tuple.from(0L), Arrays.asList(0, 1)),
+                entryOf(Tuple.from(0L, "hello"), Arrays.asList(0, 1, 1)),
+                entryOf(Tuple.from(0L, "hello", "world"), Arrays.asList(12345, 67890)),
+                entryOf(Tuple.from(0L, "help"), Collections.emptyList()),
+                entryOf(Tuple.from(UUID.randomUUID()), Arrays.asList(0, 127, 127 + 128))
+        );
+        byte[] uncompressed = serializer.serializeEntries(entries);
+        byte[] compressed = compressedSerializer.serializeEntries(entries);
+        assertTrue(compressed.length < uncompressed.length);
+        for (TextIndexBunchedSerializer s : Arrays.asList(serializer, compressedSerializer)) {
+            for (byte[] data : Arrays.asList(uncompressed, compressed)) {
+                assertEquals(entries, s.deserializeEntries(TupleHelpers.EMPTY, data));
+                assertEquals(entries.stream().map(Map.Entry::getKey).collect(Collectors.toList()), s.deserializeKeys(TupleHelpers.EMPTY, data));
+            }
+        }
+    }
+
+    @Test
+    public void appendOnlyToSameFormat() {
+        final List<Map.Entry<Tuple, List<Integer>>> entries = Arrays.asList(
+                entryOf(Tuple.from(1066L), Arrays.asList(1, 3, 5, 8)),
+                entryOf(Tuple.from(1067L), Arrays.asList(0, 600, 605))
+        );
+        final byte[] uncompressed = serializer.serializeEntries(entries);
+        final byte[] compressed = compressedSerializer.serializeEntries(entries);
+        assertTrue(serializer.canAppendTo(uncompressed));
+        assertFalse(serializer.canAppendTo(compressed));
+        assertFalse(compressedSerializer.canAppendTo(uncompressed));
+        assertFalse(compressedSerializer.canAppendTo(compressed));
+    }
+
+    @Test
+    public void prefixCompressedSequentialKeys() {
+        List<Map.Entry<Tuple, List<Integer>>> entries = new ArrayList<>();
+        for (long id = 1_000_000L; id < 1_000_020L; id++) {
+            entries.add(entryOf(Tuple.from("tenant", id), Collections.singletonList(0)));
+        }
+        byte[] compressed = compressedSerializer.serializeEntries(entries);
+        // Each key after the first should be three bytes: the shared length, the suffix length, and one suffix byte
+        assertEquals(1 + entries.size() * 2 + (entries.size() - 1) * 3, compressed.length);
+        assertEquals(entries, compressedSerializer.deserializeEntries(entries.get(0).getKey(), compressed));
+    }
+
     @Test
     public void invalidDeserialization() {
         final Tuple key = Tuple.from(1066L);
         final List<byte[]> invalidDataArrays = Arrays.asList(
                 // FIXME: Broken until FoundationDB issue #672 is resolved: https://github.com/apple/foundationdb/issues/672
                 // ByteArrayUtil.join(new byte[]{0x20, 0x00, 0x02}, Arrays.copyOfRange(Tuple.from(1415L).pack(), 0, 2), new byte[]{0x00}) // Tuple missing final byte
-                new byte[]{0x21, 0x04, 0x01, 0x02, 0x03, 0x04}, // invalid prefix
+                new byte[]{0x22, 0x04, 0x01, 0x02, 0x03, 0x04}, // invalid prefix
                 new byte[]{0x20, 0x04, 0x01, 0x02, 0x03}, // too few items in entry list
                 ByteArrayUtil.join(new byte[]{0x20, 0x00, 0x03}, Tuple.from(1415L).pack()) // no final entry list
         );
@@ -166,5 +230,14 @@ public class TextIndexBunchedSerializerTest {
             assertThrows(BunchedSerializationException.class, () -> serializer.deserializeEntries(key, data));
             assertThrows(BunchedSerializationException.class, () -> serializer.deserializeKeys(key, data));
         }
+        final List<byte[]> invalidCompressedDataArrays = Arrays.asList(
+                new byte[]{0x21, 0x00, 0x05, 0x01, 0x01, 0x01}, // shared prefix longer than previous key
+                new byte[]{0x21, 0x00, 0x02, 0x04, 0x16}, // suffix longer than remaining data
+                new byte[]{0x21, 0x00, 0x02, 0x01, 0x2B} // no final entry list
+        );
+        for (byte[] data : invalidCompressedDataArrays) {
+            assertThrows(BunchedSerializationException.class, () -> compressedSerializer.deserializeEntries(key, data));
+            assertThrows(BunchedSerializationException.class, () -> compressedSerializer.deserializeKeys(key, data));
+        }
     }
 }
@@ -192,6 +192,8 @@ public class TextIndexTest extends FDBRecordStoreTestBase {
             ImmutableMap.of(IndexOptions.TEXT_TOKENIZER_NAME_OPTION, AllSuffixesTextTokenizer.NAME));
     private static final Index SIMPLE_TEXT_NO_POSITIONS = new Index("Simple$text_no_positions", field("text"), IndexTypes.TEXT,
             ImmutableMap.of(IndexOptions.TEXT_OMIT_POSITIONS_OPTION, "true"));
+    private static final Index SIMPLE_TEXT_PREFIX_COMPRESSED = new Index("Simple$text_prefix_compressed", field("text"), IndexTypes.TEXT,
+            ImmutableMap.of(IndexOptions.TEXT_PREFIX_COMPRESS_KEYS_OPTION, "true"));
     private static final Index COMBINED_TEXT_BY_GROUP = new Index("Combined$text_by_group", field("text").groupBy(field("group")), IndexTypes.TEXT);
     private static final Index COMPLEX_MULTI_TAG_INDEX = new Index("Complex$multi_tag", field("text").groupBy(field("tag", FanType.FanOut)), IndexTypes.TEXT);
     private static final Index COMPLEX_THEN_TAG_INDEX = new Index("Complex$text_tag", concat(field("text"), field("tag", FanType.FanOut)), IndexTypes.TEXT);
@@ -481,6 +483,42 @@ public class TextIndexTest extends FDBRecordStoreTestBase {
         }
     }
 
+    @Test
+    public void updateSimpleDocumentInPlace() throws Exception {
+        final SimpleDocument originalDocument = SimpleDocument.newBuilder()
+                .setDocId(1066L)
+                .setText("the quick brown fox jumped over the lazy dog")
+                .build();
+        final SimpleDocument updatedDocument = originalDocument.toBuilder()
+                .setText("the quick red fox jumped over the dog")
+                .build();
+        try (FDBRecordContext context = openContext()) {
+            openRecordStore(context);
+            recordStore.saveRecord(originalDocument);
+            final int savedKeys = getSaveIndexKeyCount(recordStore);
+            assertEquals(8, savedKeys);
+
+            // Only the new token and the tokens whose positions moved should be written,
+            // and only the token that disappeared should be removed.
+            recordStore.saveRecord(updatedDocument);
+            assertEquals(2, getSaveIndexKeyCount(recordStore) - savedKeys);
+            assertEquals(2, recordStore.getTimer().getCount(FDBStoreTimer.Counts.DELETE_INDEX_KEY));
+
+            Index index = recordStore.getRecordMetaData().getIndex(SIMPLE_DEFAULT_NAME);
+            assertEquals(Collections.emptyList(), scanMapEntries(recordStore, index, Tuple.from("brown")));
+            assertEquals(Collections.emptyList(), scanMapEntries(recordStore, index, Tuple.from("lazy")));
+            assertEquals(Collections.singletonList(entryOf(Tuple.from(1066L), Collections.singletonList(2))),
+                    scanMapEntries(recordStore, index, Tuple.from("red")));
+            assertEquals(Collections.singletonList(entryOf(Tuple.from(1066L), Collections.singletonList(1))),
+                    scanMapEntries(recordStore, index, Tuple.from("quick")));
+            assertEquals(Collections.singletonList(entryOf(Tuple.from(1066L), Arrays.asList(0, 6))),
+                    scanMapEntries(recordStore, index, Tuple.from("the")));
+            assertEquals(Collections.singletonList(entryOf(Tuple.from(1066L), Collections.singletonList(7))),
+                    scanMapEntries(recordStore, index, Tuple.from("dog")));
+            commit(context);
+        }
+    }
+
     @Test
     public void saveSimpleDocumentsWithPrefix() throws Exception {
         final SimpleDocument shakespeareDocument = SimpleDocument.newBuilder()
@@ -676,6 +714,32 @@ public class TextIndexTest extends FDBRecordStoreTestBase {
         }
     }
 
+    @Test
+    public void saveSimpleDocumentsWithPrefixCompressOptionChange() throws Exception {
+        final Index uncompressedIndex = new Index(SIMPLE_TEXT_PREFIX_COMPRESSED.getName(), SIMPLE_TEXT_PREFIX_COMPRESSED.getRootExpression(), IndexTypes.TEXT);
+        final List<Index> indexes = Arrays.asList(SIMPLE_TEXT_PREFIX_COMPRESSED, uncompressedIndex, SIMPLE_TEXT_PREFIX_COMPRESSED, uncompressedIndex);
+        final List<Map.Entry<Tuple, List<Integer>>> expectedEntries = new ArrayList<>();
+        long docId = 1000L;
+
+        // Alternate the option between transactions so that each new entry lands in the last bunch,
+        // which was written in the other format.
+        for (Index index : indexes) {
+            try (FDBRecordContext context = openContext()) {
+                openRecordStore(context, metaDataBuilder -> {
+                    metaDataBuilder.removeIndex(SIMPLE_DEFAULT_NAME);
+                    metaDataBuilder.addIndex(SIMPLE_DOC, index);
+                });
+                for (int i = 0; i < 3; i++) {
+                    recordStore.saveRecord(SimpleDocument.newBuilder().setDocId(docId).setText("hello world").build());
+                    expectedEntries.add(entryOf(Tuple.from(docId), Collections.singletonList(0)));
+                    docId++;
+                }
+                assertEquals(expectedEntries, scanMapEntries(recordStore, index, Tuple.from("hello")));
+                commit(context);
+            }
+        }
+    }
+
     @Test
     public void saveComplexDocuments() throws Exception {
         ComplexDocument complexDocument = ComplexDocument.newBuilder()
@@ -1481,6 +1545,56 @@ public class TextIndexTest extends FDBRecordStoreTestBase {
         }
     }
 
+    @Test
+    public void queryDocumentsSeekingWithContinuations() throws Exception {
+        // Only every fiftieth document has the rare token, so the cursor for the common token has to skip far ahead.
+        final int recordCount = 200;
+        final int batchSize = 50;
+        final List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < recordCount; i += batchSize) {
+            try (FDBRecordContext context = openContext()) {
+                openRecordStore(context);
+                for (int j = 0; j < batchSize; j++) {
+                    SimpleDocument document = SimpleDocument.newBuilder()
+                            .setDocId(i + j)
+                            .setText(j == batchSize - 1 ? "rare common" : "common")
+                            .build();
+                    recordStore.saveRecord(document);
+                    if (j == batchSize - 1) {
+                        expected.add((long)(i + j));
+                    }
+                }
+                commit(context);
+            }
+        }
+
+        try (FDBRecordContext context = openContext()) {
+            openRecordStore(context);
+
+            RecordQuery query = RecordQuery.newBuilder()
+                    .setRecordType(SIMPLE_DOC)
+                    .setFilter(Query.field("text").text().containsAll("common rare"))
+                    .build();
+            RecordQueryPlan plan = planner.plan(query);
+
+            // Return one record at a time, so that each seek is made by a cursor resumed from a continuation.
+            final List<Long> docIds = new ArrayList<>();
+            byte[] continuation = null;
+            do {
+                ExecuteProperties executeProperties = ExecuteProperties.newBuilder().setReturnedRowLimit(1).build();
+                RecordCursor<FDBQueriedRecord<Message>> cursor = recordStore.executeQuery(plan, continuation, executeProperties);
+                for (FDBQueriedRecord<Message> record : cursor.asList().get()) {
+                    docIds.add(record.getPrimaryKey().getLong(0));
+                }
+                continuation = cursor.getContinuation();
+            } while (continuation != null);
+            assertEquals(expected, docIds);
+            assertThat(recordStore.getTimer().getCount(FDBStoreTimer.Counts.QUERY_INTERSECTION_PLAN_SEEKS), greaterThan(0));
+
+            commit(context);
+        }
+    }
+
     @Test
     public void querySimpleDocumentsWithAdditionalFilters() throws Exception {
         final List<SimpleDocument> documents = toSimpleDocuments(Arrays.asList(
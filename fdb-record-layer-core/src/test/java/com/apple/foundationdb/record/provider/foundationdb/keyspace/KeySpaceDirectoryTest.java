@@ -20,6 +20,7 @@
 
 package com.apple.foundationdb.record.provider.foundationdb.keyspace;
 
+import com.apple.foundationdb.Range;
 import com.apple.foundationdb.Transaction;
 import com.apple.foundationdb.async.AsyncUtil;
 import com.apple.foundationdb.record.EndpointType;
@@ -1012,6 +1013,154 @@ public class KeySpaceDirectoryTest {
         assertEquals(directoryEntries.size(), idx);
     }
 
+    @Test
+    public void testTreeWalk() throws Exception {
+        KeySpace root = new KeySpace(
+                new KeySpaceDirectory("a", KeyType.LONG, random.nextLong())
+                        .addSubdirectory(new KeySpaceDirectory("b", KeyType.STRING)
+                                .addSubdirectory(new KeySpaceDirectory("c", KeyType.LONG))));
+
+        final FDBDatabase database = FDBDatabaseFactory.instance().getDatabase();
+        final KeySpacePath rootPath = root.path("a");
+        final List<Tuple> expected = new ArrayList<>();
+        try (final FDBRecordContext context = database.openContext()) {
+            final Transaction tr = context.ensureActive();
+            for (int b = 0; b < 5; b++) {
+                for (long c = 0; c < 4; c++) {
+                    final Tuple leaf = rootPath.add("b", "val_" + b).add("c", c).toTuple(context);
+                    tr.set(leaf.add("data").pack(), TupleHelpers.EMPTY.pack());
+                    expected.add(leaf);
+                }
+            }
+            context.commit();
+        }
+
+        try (final FDBRecordContext context = database.openContext()) {
+            final KeySpaceTreeWalker walker = new KeySpaceTreeWalker(context, rootPath).setParallelism(3);
+            final List<KeySpacePath> leaves = context.asyncToSync(FDBStoreTimer.Waits.WAIT_KEYSPACE_LIST, walker.walk(null).asList());
+            assertEquals(expected, leaves.stream().map(path -> path.toTuple(context)).collect(Collectors.toList()));
+            assertEquals(expected.size(), walker.getLeavesVisited());
+            assertEquals(6, walker.getDirectoriesListed());
+        }
+
+        // Resume the walk a few leaves at a time.
+        final List<Tuple> resumed = new ArrayList<>();
+        byte[] continuation = null;
+        do {
+            try (final FDBRecordContext context = database.openContext()) {
+                final RecordCursor<KeySpacePath> cursor = new KeySpaceTreeWalker(context, rootPath).walk(continuation).limitRowsTo(3);
+                final List<KeySpacePath> leaves = context.asyncToSync(FDBStoreTimer.Waits.WAIT_KEYSPACE_LIST, cursor.asList());
+                assertThat(leaves.size() <= 3, is(true));
+                leaves.forEach(path -> resumed.add(path.toTuple(context)));
+                continuation = cursor.getContinuation();
+            }
+        } while (continuation != null);
+        assertEquals(expected, resumed);
+
+        try (final FDBRecordContext context = database.openContext()) {
+            final KeySpaceTreeWalker walker = new KeySpaceTreeWalker(context, rootPath)
+                    .setLeafPredicate(path -> path.getDirectoryName().equals("b"));
+            final List<KeySpacePath> leaves = context.asyncToSync(FDBStoreTimer.Waits.WAIT_KEYSPACE_LIST, walker.walk(null).asList());
+            assertEquals(5, leaves.size());
+            assertEquals(1, walker.getDirectoriesListed());
+        }
+    }
+
+    @Test
+    public void testTreeWalkResumeAfterChange() throws Exception {
+        KeySpace root = new KeySpace(
+                new KeySpaceDirectory("a", KeyType.LONG, random.nextLong())
+                        .addSubdirectory(new KeySpaceDirectory("b", KeyType.STRING)
+                                .addSubdirectory(new KeySpaceDirectory("c", KeyType.LONG))));
+
+        final FDBDatabase database = FDBDatabaseFactory.instance().getDatabase();
+        final KeySpacePath rootPath = root.path("a");
+        try (final FDBRecordContext context = database.openContext()) {
+            final Transaction tr = context.ensureActive();
+            for (int b = 0; b < 3; b++) {
+                for (long c = 0; c < 4; c++) {
+                    tr.set(rootPath.add("b", "val_" + b).add("c", c).toTuple(context).add("data").pack(), TupleHelpers.EMPTY.pack());
+                }
+            }
+            context.commit();
+        }
+
+        // Stop partway through the leaves of val_1.
+        final byte[] continuation;
+        try (final FDBRecordContext context = database.openContext()) {
+            final RecordCursor<KeySpacePath> cursor = new KeySpaceTreeWalker(context, rootPath).walk(null).limitRowsTo(6);
+            assertEquals(6, context.asyncToSync(FDBStoreTimer.Waits.WAIT_KEYSPACE_LIST, cursor.asList()).size());
+            continuation = cursor.getContinuation();
+        }
+
+        try (final FDBRecordContext context = database.openContext()) {
+            context.ensureActive().clear(Range.startsWith(rootPath.add("b", "val_1").toTuple(context).pack()));
+            context.commit();
+        }
+
+        // The position within val_1 must not be applied to val_2, which now follows val_0.
+        final List<Tuple> expected = new ArrayList<>();
+        try (final FDBRecordContext context = database.openContext()) {
+            for (long c = 0; c < 4; c++) {
+                expected.add(rootPath.add("b", "val_2").add("c", c).toTuple(context));
+            }
+            final List<KeySpacePath> leaves = context.asyncToSync(FDBStoreTimer.Waits.WAIT_KEYSPACE_LIST,
+                    new KeySpaceTreeWalker(context, rootPath).walk(continuation).asList());
+            assertEquals(expected, leaves.stream().map(path -> path.toTuple(context)).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testTreeWalkStopsAboveDeepestLevel() throws Exception {
+        KeySpace root = new KeySpace(
+                new KeySpaceDirectory("a", KeyType.LONG, random.nextLong())
+                        .addSubdirectory(new KeySpaceDirectory("tenant", KeyType.LONG)
+                                .addSubdirectory(new KeySpaceDirectory("store", KeyType.STRING)
+                                        .addSubdirectory(new KeySpaceDirectory("c", KeyType.LONG)))));
+
+        final FDBDatabase database = FDBDatabaseFactory.instance().getDatabase();
+        final KeySpacePath rootPath = root.path("a");
+        final List<Tuple> expected = new ArrayList<>();
+        try (final FDBRecordContext context = database.openContext()) {
+            final Transaction tr = context.ensureActive();
+            for (long tenant = 0; tenant < 6; tenant++) {
+                for (int store = 0; store < 3; store++) {
+                    final KeySpacePath storePath = rootPath.add("tenant", tenant).add("store", "s_" + store);
+                    for (long c = 0; c < 2; c++) {
+                        tr.set(storePath.add("c", c).toTuple(context).add("data").pack(), TupleHelpers.EMPTY.pack());
+                    }
+                    expected.add(storePath.toTuple(context));
+                }
+            }
+            context.commit();
+        }
+
+        // The stores are leaves, so the tenants are the level whose listings are done in parallel.
+        try (final FDBRecordContext context = database.openContext()) {
+            final KeySpaceTreeWalker walker = new KeySpaceTreeWalker(context, rootPath)
+                    .setParallelism(4)
+                    .setLeafPredicate(path -> path.getDirectoryName().equals("store"));
+            final List<KeySpacePath> leaves = context.asyncToSync(FDBStoreTimer.Waits.WAIT_KEYSPACE_LIST, walker.walk(null).asList());
+            assertEquals(expected, leaves.stream().map(path -> path.toTuple(context)).collect(Collectors.toList()));
+            assertEquals(1 + 6, walker.getDirectoriesListed());
+        }
+
+        final List<Tuple> resumed = new ArrayList<>();
+        byte[] continuation = null;
+        do {
+            try (final FDBRecordContext context = database.openContext()) {
+                final RecordCursor<KeySpacePath> cursor = new KeySpaceTreeWalker(context, rootPath)
+                        .setParallelism(4)
+                        .setLeafPredicate(path -> path.getDirectoryName().equals("store"))
+                        .walk(continuation).limitRowsTo(4);
+                final List<KeySpacePath> leaves = context.asyncToSync(FDBStoreTimer.Waits.WAIT_KEYSPACE_LIST, cursor.asList());
+                leaves.forEach(path -> resumed.add(path.toTuple(context)));
+                continuation = cursor.getContinuation();
+            }
+        } while (continuation != null);
+        assertEquals(expected, resumed);
+    }
+
     private static class TestWrapper1 extends KeySpacePathWrapper {
         public TestWrapper1(KeySpacePath inner) {
             super(inner);
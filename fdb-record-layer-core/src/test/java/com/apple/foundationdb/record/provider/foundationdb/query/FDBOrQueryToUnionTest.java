@@ -21,6 +21,7 @@
 package com.apple.foundationdb.record.provider.foundationdb.query;
 
 import com.apple.foundationdb.record.ExecuteProperties;
+import com.apple.foundationdb.record.IsolationLevel;
 import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.TestRecords1Proto;
 import com.apple.foundationdb.record.metadata.Index;
@@ -29,7 +30,9 @@ import com.apple.foundationdb.record.provider.foundationdb.FDBRecordContext;
 import com.apple.foundationdb.record.query.RecordQuery;
 import com.apple.foundationdb.record.query.expressions.OrComponent;
 import com.apple.foundationdb.record.query.expressions.Query;
+import com.apple.foundationdb.record.query.plan.RecordQueryPlanner;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryUnorderedUnionPlan;
 import com.apple.foundationdb.tuple.Tuple;
 import com.apple.test.Tags;
 import com.google.common.collect.Lists;
@@ -67,6 +70,7 @@ import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -366,6 +370,49 @@ public class FDBOrQueryToUnionTest extends FDBRecordStoreQueryTestBase {
         }
     }
 
+    /**
+     * Verify that an unordered union whose branches are read in parallel returns the same records.
+     */
+    @Test
+    public void testOrQuery5ParallelBranches() throws Exception {
+        RecordMetaDataHook hook = complexQuerySetupHook();
+        complexQuerySetup(hook);
+        RecordQuery query = RecordQuery.newBuilder()
+                .setRecordType("MySimpleRecord")
+                .setFilter(Query.or(
+                        Query.field("str_value_indexed").lessThan("m"),
+                        Query.field("num_value_3_indexed").greaterThan(3)))
+                .build();
+
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, hook);
+            RecordQueryPlanner parallelPlanner = new RecordQueryPlanner(recordStore.getRecordMetaData(), recordStore.getRecordStoreState());
+            parallelPlanner.setUnorderedUnionBranchBufferSize(4);
+            RecordQueryPlan plan = parallelPlanner.plan(query);
+            assertThat(plan, primaryKeyDistinct(unorderedUnion(
+                    indexScan(allOf(indexName("MySimpleRecord$str_value_indexed"), bounds(hasTupleString("([null],[m])")))),
+                    indexScan(allOf(indexName("MySimpleRecord$num_value_3_indexed"), bounds(hasTupleString("([3],>")))))));
+            assertEquals(-1569447744, plan.planHash());
+            assertEquals(4, ((RecordQueryUnorderedUnionPlan)plan.getChildren().get(0)).getBranchBufferSize());
+            assertNotEquals(planner.plan(query), plan);
+
+            // Branches only read ahead at snapshot isolation.
+            Set<Tuple> uniqueKeys = new HashSet<>();
+            try (RecordCursor<FDBQueriedRecord<Message>> cursor = recordStore.executeQuery(plan, null,
+                    ExecuteProperties.newBuilder().setIsolationLevel(IsolationLevel.SNAPSHOT).build())) {
+                while (cursor.hasNext()) {
+                    FDBQueriedRecord<Message> rec = cursor.next();
+                    TestRecords1Proto.MySimpleRecord.Builder myrec = TestRecords1Proto.MySimpleRecord.newBuilder();
+                    myrec.mergeFrom(rec.getRecord());
+                    assertTrue(myrec.getStrValueIndexed().compareTo("m") < 0 ||
+                               myrec.getNumValue3Indexed() > 3);
+                    assertThat(uniqueKeys.add(rec.getPrimaryKey()), is(true));
+                }
+            }
+            assertEquals(50 + 10, uniqueKeys.size());
+        }
+    }
+
     @ValueSource(ints = {1, 2, 5, 7})
     @ParameterizedTest(name = "testOrQuery5WithLimits [limit = {0}]")
     public void testOrQuery5WithLimits(int limit) throws Exception {